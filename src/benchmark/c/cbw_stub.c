@@ -0,0 +1,144 @@
+/*
+ * The MIT License.
+ *
+ * Copyright (c) 2022 Peter Froud.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+/*
+ * Stand-in for the Universal Library DLL, so the JMH benchmarks and AllocationTest can run on Linux without hardware.
+ *
+ * Every function returns NOERRORS immediately and writes a fixed value to its output argument. Only the functions
+ * used by the benchmarks are here, plus everything bound by JnaDirectMapping, because Native.register() fails if
+ * any of those are missing. The benchmarks then measure the Java wrapper and JNA, not the device.
+ *
+ * JNA maps the library name "cbw64.dll" to "libcbw64.dll.so" on Linux, so build it with:
+ *
+ *     gcc -shared -fPIC -O2 -o libcbw64.dll.so cbw_stub.c
+ *
+ * The stub-library Maven profile (mvn -P stub-library) does this automatically, into target/stub-library.
+ *
+ * @author Peter Froud
+ */
+
+#define NOERRORS 0
+
+typedef struct {
+    char ProductName[64];
+    unsigned int ProductID;
+    int InterfaceType;
+    char DevString[64];
+    char UniqueID[64];
+    unsigned long long NUID;
+    char Reserved[512];
+} DaqDeviceDescriptor;
+
+// <editor-fold defaultstate="collapsed" desc="device">
+int cbIgnoreInstaCal(void) {
+    return NOERRORS;
+}
+
+int cbCreateDaqDevice(int BdNum, DaqDeviceDescriptor DeviceDescriptor) {
+    return NOERRORS;
+}
+
+int cbReleaseDaqDevice(int BdNum) {
+    return NOERRORS;
+}
+
+int cbGetConfig(int InfoType, int BoardNum, int DevNum, int ConfigItem, int *ConfigVal) {
+    *ConfigVal = 0;
+    return NOERRORS;
+}
+
+int cbGetIOStatus(int BoardNum, short *Status, long *CurCount, long *CurIndex, int FunctionType) {
+    *Status = 0;
+    *CurCount = 0;
+    *CurIndex = 0;
+    return NOERRORS;
+}
+// </editor-fold>
+
+// <editor-fold defaultstate="collapsed" desc="analog">
+int cbAIn(int BoardNum, int Chan, int Gain, unsigned short *DataValue) {
+    *DataValue = 0x8000;
+    return NOERRORS;
+}
+
+int cbAIn32(int BoardNum, int Chan, int Gain, unsigned long *DataValue, int Options) {
+    *DataValue = 0x8000;
+    return NOERRORS;
+}
+
+int cbVIn(int BoardNum, int Chan, int Gain, float *DataValue, int Options) {
+    *DataValue = 1.25f;
+    return NOERRORS;
+}
+
+int cbVIn32(int BoardNum, int Chan, int Gain, double *DataValue, int Options) {
+    *DataValue = 1.25;
+    return NOERRORS;
+}
+
+int cbAOut(int BoardNum, int Chan, int Gain, unsigned short DataValue) {
+    return NOERRORS;
+}
+
+int cbVOut(int BoardNum, int Chan, int Gain, float DataValue, int Options) {
+    return NOERRORS;
+}
+// </editor-fold>
+
+// <editor-fold defaultstate="collapsed" desc="digital">
+int cbDIn(int BoardNum, int PortType, unsigned short *DataValue) {
+    *DataValue = 0xA5;
+    return NOERRORS;
+}
+
+int cbDIn32(int BoardNum, int PortType, unsigned int *DataValue) {
+    *DataValue = 0xA5;
+    return NOERRORS;
+}
+
+int cbDOut(int BoardNum, int PortType, unsigned short DataValue) {
+    return NOERRORS;
+}
+
+int cbDBitIn(int BoardNum, int PortType, int BitNum, unsigned short *BitValue) {
+    *BitValue = 1;
+    return NOERRORS;
+}
+
+int cbDBitOut(int BoardNum, int PortType, int BitNum, unsigned short BitValue) {
+    return NOERRORS;
+}
+// </editor-fold>
+
+// <editor-fold defaultstate="collapsed" desc="temperature and counter">
+int cbTIn(int BoardNum, int Chan, int Scale, float *TempValue, int Options) {
+    *TempValue = 23.5f;
+    return NOERRORS;
+}
+
+int cbCIn32(int BoardNum, int CounterNum, unsigned long *Count) {
+    *Count = 0;
+    return NOERRORS;
+}
+// </editor-fold>
@@ -0,0 +1,105 @@
+/*
+ * The MIT License.
+ *
+ * Copyright (c) 2022 Peter Froud.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package xyz.froud.jmccul.benchmark;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.Result;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * Runs every benchmark with the GC profiler, then checks how many bytes each benchmark allocated per operation. Exits
+ * with status 1 if any benchmark allocated more than its budget, so an allocation regression fails the build.
+ * <p>
+ * Arguments are passed to JMH, so for example {@code WrapperBenchmark} only runs those benchmarks.
+ *
+ * @author Peter Froud
+ */
+public class BenchmarkRunner {
+
+    /**
+     * Bytes per operation allowed for benchmarks which are expected to allocate. Benchmarks not listed here should not
+     * allocate at all.
+     */
+    private static final Map<String, Double> ALLOCATION_BUDGETS = Collections.singletonMap(
+            // uses a Stream
+            "analogInputScanOptionsBitwiseOr", 256.0
+    );
+
+    /**
+     * The GC profiler measures by TLAB, so an allocation-free benchmark can still show a fraction of a byte.
+     */
+    private static final double TOLERANCE_BYTES = 1;
+
+    public static void main(String[] args) throws RunnerException {
+        final OptionsBuilder builder = new OptionsBuilder();
+        if (args.length == 0) {
+            builder.include(BenchmarkRunner.class.getPackageName() + ".*");
+        } else {
+            for (String arg : args) {
+                builder.include(arg);
+            }
+        }
+        final Options options = builder.addProfiler(GCProfiler.class).build();
+
+        final Collection<RunResult> results = new Runner(options).run();
+
+        System.out.println();
+        System.out.println("Allocation per operation:");
+        boolean isOverBudget = false;
+        for (RunResult runResult : results) {
+            final String fullName = runResult.getParams().getBenchmark();
+            final String methodName = fullName.substring(fullName.lastIndexOf('.') + 1);
+            final double bytesPerOp = getBytesPerOperation(runResult);
+            final double budget = ALLOCATION_BUDGETS.getOrDefault(methodName, 0.0);
+            final boolean isThisOverBudget = bytesPerOp > budget + TOLERANCE_BYTES;
+            System.out.printf("    %-40s %10.1f B/op   budget %6.0f B/op%s%n",
+                    methodName, bytesPerOp, budget, isThisOverBudget ? "   OVER BUDGET" : "");
+            isOverBudget |= isThisOverBudget;
+        }
+
+        if (isOverBudget) {
+            System.exit(1);
+        }
+    }
+
+    private static double getBytesPerOperation(RunResult runResult) {
+        // older versions of JMH prefix the name with a middle dot
+        for (Map.Entry<String, Result> entry : runResult.getSecondaryResults().entrySet()) {
+            if (entry.getKey().endsWith("gc.alloc.rate.norm")) {
+                return entry.getValue().getScore();
+            }
+        }
+        throw new IllegalStateException("the GC profiler did not report gc.alloc.rate.norm for " + runResult.getParams().getBenchmark());
+    }
+
+}
@@ -0,0 +1,76 @@
+/*
+ * The MIT License.
+ *
+ * Copyright (c) 2022 Peter Froud.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package xyz.froud.jmccul.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import xyz.froud.jmccul.analog.AnalogInputScanOptions;
+import xyz.froud.jmccul.analog.AnalogRange;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Converting between the Java types and the integers passed to the Universal Library. These do not call the library
+ * at all.
+ *
+ * @author Peter Froud
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ConversionBenchmark {
+
+    /*
+    Fields instead of constants so the JIT can't fold the result.
+     */
+    private int rangeValue = AnalogRange.BIPOLAR_10_VOLTS.VALUE;
+
+    private AnalogInputScanOptions[] scanOptions = {
+            AnalogInputScanOptions.BACKGROUND,
+            AnalogInputScanOptions.CONTINUOUS,
+            AnalogInputScanOptions.SCALE_DATA
+    };
+
+    @Benchmark
+    public AnalogRange analogRangeParseInt() {
+        return AnalogRange.parseInt(rangeValue);
+    }
+
+    @Benchmark
+    public int analogInputScanOptionsBitwiseOr() {
+        return AnalogInputScanOptions.bitwiseOr(scanOptions);
+    }
+
+}
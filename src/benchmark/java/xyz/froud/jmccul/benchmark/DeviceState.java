@@ -0,0 +1,57 @@
+/*
+ * The MIT License.
+ *
+ * Copyright (c) 2022 Peter Froud.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package xyz.froud.jmccul.benchmark;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import xyz.froud.jmccul.DaqDevice;
+import xyz.froud.jmccul.DaqDeviceDescriptor;
+import xyz.froud.jmccul.JMCCULException;
+
+/**
+ * Opens one device for each benchmark trial. With the stub library the descriptor does not matter, so an empty one is
+ * used.
+ *
+ * @author Peter Froud
+ */
+@State(Scope.Benchmark)
+public class DeviceState {
+
+    DaqDevice device;
+
+    @Setup(Level.Trial)
+    public void open() throws JMCCULException {
+        device = new DaqDevice(new DaqDeviceDescriptor());
+    }
+
+    @TearDown(Level.Trial)
+    public void close() throws JMCCULException {
+        device.close();
+    }
+
+}
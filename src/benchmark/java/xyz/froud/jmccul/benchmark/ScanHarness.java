@@ -0,0 +1,377 @@
+/*
+ * The MIT License.
+ *
+ * Copyright (c) 2022 Peter Froud.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package xyz.froud.jmccul.benchmark;
+
+import xyz.froud.jmccul.DaqDevice;
+import xyz.froud.jmccul.DaqDeviceDescriptor;
+import xyz.froud.jmccul.JMCCULException;
+import xyz.froud.jmccul.analog.AnalogInputBackgroundScan;
+import xyz.froud.jmccul.analog.AnalogRange;
+import xyz.froud.jmccul.backend.UniversalLibraryBackend;
+import xyz.froud.jmccul.instrumentation.LatencyHistogram;
+import xyz.froud.jmccul.simulator.SimulatedBackend;
+import xyz.froud.jmccul.simulator.SimulatedBoard;
+import xyz.froud.jmccul.simulator.SimulatedUniversalLibrary;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.ShortBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs continuous background scans on one or more boards at the same time, and reports how well JMCCUL keeps up:
+ * sustained throughput, how long samples wait before the consumer gets them, how much CPU that takes, and how many
+ * blocks were lost. Use it to work out how many boards one computer can handle.
+ * <p>
+ * Unless the {@value UniversalLibraryBackend#PROPERTY} system property says otherwise, the scans run on the simulator,
+ * so this works on Linux without hardware. Options:
+ * <pre>
+ * --boards N          how many boards scan at the same time (default 1)
+ * --channels N        channels per board (default 8)
+ * --rate HZ           sample rate per channel (default 10000)
+ * --block N           samples per block, for all channels together (default 4096)
+ * --mode MODE         half-buffer or as-available (default half-buffer)
+ * --seconds S         how long to measure (default 10)
+ * --warmup S          how long to scan before measuring (default 2)
+ * --call-latency-us U simulated time for each Universal Library call, like a USB round trip (default 0)
+ * </pre>
+ * Delivery latency is the time from when the board acquired the last sample of a block, worked out from the sample
+ * number and the pacer rate, until the consumer received the block. CPU is the time used by the whole process, which
+ * includes the simulator, and by the polling threads alone.
+ *
+ * @author Peter Froud
+ */
+public class ScanHarness {
+
+    private static int boardCount = 1;
+    private static int channelCount = 8;
+    private static long rateHz = 10_000;
+    private static int blockSampleCount = 4096;
+    private static AnalogInputBackgroundScan.DeliveryMode deliveryMode = AnalogInputBackgroundScan.DeliveryMode.HALF_BUFFER;
+    private static double measureSeconds = 10;
+    private static double warmupSeconds = 2;
+    private static long callLatencyMicros = 0;
+
+    /**
+     * Delivery latency for every block on every board while measuring.
+     */
+    private static final LatencyHistogram LATENCY = new LatencyHistogram();
+
+    private static volatile boolean isMeasuring = false;
+
+    public static void main(String[] args) throws JMCCULException, InterruptedException {
+        parseArguments(args);
+
+        // this has to happen before anything uses MeasurementComputingUniversalLibrary.INSTANCE
+        if (System.getProperty(UniversalLibraryBackend.PROPERTY) == null) {
+            System.setProperty(UniversalLibraryBackend.PROPERTY, SimulatedBackend.NAME);
+            // the boards are added below, with enough channels
+            System.setProperty(SimulatedUniversalLibrary.BOARD_COUNT_PROPERTY, "0");
+        }
+        if (System.getProperty(UniversalLibraryBackend.PROPERTY).equals(SimulatedBackend.NAME)) {
+            final SimulatedUniversalLibrary simulator = SimulatedUniversalLibrary.getDefault();
+            simulator.setCallLatency(TimeUnit.MICROSECONDS.toNanos(callLatencyMicros), 0);
+            for (int i = simulator.getBoards().size(); i < boardCount; i++) {
+                simulator.addBoard(new SimulatedBoard("SIMULATED-1608", 0x7FFF, String.format("HARNESS%02d", i + 1), channelCount, 2, 4, 2));
+            }
+            for (SimulatedBoard board : simulator.getBoards()) {
+                board.setMaxAnalogInputRateHz(Math.max(board.getMaxAnalogInputRateHz(), rateHz * channelCount));
+            }
+        }
+
+        final DaqDeviceDescriptor[] descriptors = DaqDeviceDescriptor.find();
+        if (descriptors.length < boardCount) {
+            throw new IllegalStateException(String.format("asked for %d boards but only found %d", boardCount, descriptors.length));
+        }
+
+        System.out.printf("%d board(s) x %d channels x %d Hz, %d samples per block, %s, backend %s%n",
+                boardCount, channelCount, rateHz, blockSampleCount, deliveryMode,
+                System.getProperty(UniversalLibraryBackend.PROPERTY));
+
+        final List<BoardRun> runs = new ArrayList<>();
+        try {
+            for (int i = 0; i < boardCount; i++) {
+                final BoardRun run = new BoardRun(new DaqDevice(descriptors[i]));
+                runs.add(run);
+                run.start();
+            }
+
+            Thread.sleep((long) (warmupSeconds * 1000));
+
+            final long processCpuStart = getProcessCpuNanos();
+            final long pollingCpuStart = getPollingThreadCpuNanos(runs);
+            final long samplesStart = getSamplesDelivered(runs);
+            final long nanosStart = System.nanoTime();
+            isMeasuring = true;
+
+            Thread.sleep((long) (measureSeconds * 1000));
+
+            isMeasuring = false;
+            final long nanosElapsed = System.nanoTime() - nanosStart;
+            final long samples = getSamplesDelivered(runs) - samplesStart;
+            final long pollingCpu = getPollingThreadCpuNanos(runs) - pollingCpuStart;
+            final long processCpu = getProcessCpuNanos() - processCpuStart;
+
+            for (BoardRun run : runs) {
+                run.stop();
+            }
+
+            printReport(runs, samples, nanosElapsed, processCpu, pollingCpu);
+        } finally {
+            for (BoardRun run : runs) {
+                run.close();
+            }
+        }
+    }
+
+    private static void printReport(List<BoardRun> runs, long samples, long nanosElapsed, long processCpuNanos, long pollingCpuNanos) {
+        final double megasamplesPerSecond = samples / (nanosElapsed / 1e9) / 1e6;
+        final double requestedMegasamplesPerSecond = (double) rateHz * channelCount * boardCount / 1e6;
+
+        long blocksDelivered = 0;
+        long blocksDropped = 0;
+        long samplesDropped = 0;
+        for (BoardRun run : runs) {
+            blocksDelivered += run.blocksDelivered;
+            blocksDropped += run.getBlocksDropped();
+            samplesDropped += run.getSamplesDropped();
+        }
+
+        System.out.println();
+        System.out.printf("Throughput:          %.3f MS/s sustained (%.3f MS/s requested)%n", megasamplesPerSecond, requestedMegasamplesPerSecond);
+        System.out.printf("Delivery latency:    p50 %s, p90 %s, p99 %s, p99.9 %s, max %s (%d blocks)%n",
+                formatNanos(LATENCY.getValueAtPercentile(50)),
+                formatNanos(LATENCY.getValueAtPercentile(90)),
+                formatNanos(LATENCY.getValueAtPercentile(99)),
+                formatNanos(LATENCY.getValueAtPercentile(99.9)),
+                formatNanos(LATENCY.getMaxNanos()),
+                LATENCY.getCount());
+        if (megasamplesPerSecond > 0) {
+            System.out.printf("CPU per MS/s:        %.3f cores for the process, %.3f cores for the polling threads%n",
+                    processCpuNanos / (double) nanosElapsed / megasamplesPerSecond,
+                    pollingCpuNanos / (double) nanosElapsed / megasamplesPerSecond);
+        }
+        System.out.printf("Blocks:              %d delivered, %d dropped (%d samples)%n", blocksDelivered, blocksDropped, samplesDropped);
+        for (BoardRun run : runs) {
+            if (run.failure != null) {
+                System.out.printf("Board %d failed:      %s%n", run.DEVICE.getBoardNumber(), run.failure.getMessage());
+            }
+        }
+    }
+
+    // <editor-fold defaultstate="collapsed" desc="one board">
+    private static class BoardRun implements AnalogInputBackgroundScan.BlockConsumer {
+
+        private final DaqDevice DEVICE;
+        private AnalogInputBackgroundScan scan;
+        private JMCCULException failure;
+
+        private volatile long startNanos;
+        private volatile double samplesPerNano;
+        private volatile long pollingThreadId = -1;
+
+        // only touched by the polling thread until the scan is stopped
+        private long expectedSampleNumber = 0;
+        private long blocksDelivered = 0;
+        private long samplesSkipped = 0;
+        private long gapCount = 0;
+        private long samplesAtStop;
+
+        BoardRun(DaqDevice device) {
+            DEVICE = device;
+        }
+
+        void start() throws JMCCULException {
+            final AnalogRange range = DEVICE.analog.input.getSupportedRanges().get(0);
+
+            /*
+            The first scan spends a long time loading classes before the board starts, which would
+            show up as latency. Start and stop one first so the real one starts right away.
+             */
+            final AnalogInputBackgroundScan primingScan = startScan(range, (samples, firstSampleNumber) -> {
+            });
+            try {
+                primingScan.close();
+            } catch (JMCCULException ex) {
+                // it may have overrun while loading classes, which doesn't matter here
+            }
+
+            // The pacer starts a little after this, so the latency is overestimated slightly rather than underestimated.
+            startNanos = System.nanoTime();
+            scan = startScan(range, this);
+            samplesPerNano = scan.getActualRateHz() * (double) channelCount / 1e9;
+        }
+
+        private AnalogInputBackgroundScan startScan(AnalogRange range, AnalogInputBackgroundScan.BlockConsumer consumer) throws JMCCULException {
+            if (deliveryMode == AnalogInputBackgroundScan.DeliveryMode.HALF_BUFFER) {
+                return DEVICE.analog.input.startHalfBufferScan(0, channelCount - 1, rateHz, range, blockSampleCount, consumer);
+            } else {
+                return DEVICE.analog.input.startBackgroundScan(0, channelCount - 1, rateHz, range, blockSampleCount * 2, consumer);
+            }
+        }
+
+        @Override
+        public void accept(ShortBuffer samples, long firstSampleNumber) {
+            final long nowNanos = System.nanoTime();
+            if (pollingThreadId == -1) {
+                pollingThreadId = Thread.currentThread().getId();
+            }
+
+            final int count = samples.remaining();
+            if (firstSampleNumber != expectedSampleNumber) {
+                gapCount++;
+                samplesSkipped += firstSampleNumber - expectedSampleNumber;
+            }
+            expectedSampleNumber = firstSampleNumber + count;
+            blocksDelivered++;
+
+            final double rate = samplesPerNano;
+            if (isMeasuring && rate > 0) {
+                final long acquiredNanos = startNanos + (long) ((firstSampleNumber + count - 1) / rate);
+                LATENCY.record(Math.max(0, nowNanos - acquiredNanos));
+            }
+        }
+
+        long getSamplesDelivered() {
+            return (scan == null) ? 0 : scan.getSamplesDelivered();
+        }
+
+        void stop() {
+            /*
+            The board keeps going after the polling thread fails, so anything it acquired
+            after the failure was never delivered.
+             */
+            samplesAtStop = (long) ((System.nanoTime() - startNanos) * samplesPerNano);
+            try {
+                scan.close();
+            } catch (JMCCULException ex) {
+                failure = ex;
+            }
+        }
+
+        long getSamplesDropped() {
+            final long neverDelivered = (failure == null) ? 0 : Math.max(0, samplesAtStop - expectedSampleNumber);
+            return samplesSkipped + neverDelivered;
+        }
+
+        long getBlocksDropped() {
+            final long neverDelivered = (failure == null) ? 0 : Math.max(0, samplesAtStop - expectedSampleNumber);
+            return gapCount + (neverDelivered + blockSampleCount - 1) / blockSampleCount;
+        }
+
+        void close() throws JMCCULException {
+            if (scan != null) {
+                try {
+                    scan.close();
+                } catch (JMCCULException ex) {
+                    // already reported by stop()
+                }
+            }
+            DEVICE.close();
+        }
+    }
+    // </editor-fold>
+
+    // <editor-fold defaultstate="collapsed" desc="measurement helpers">
+    private static long getSamplesDelivered(List<BoardRun> runs) {
+        long total = 0;
+        for (BoardRun run : runs) {
+            total += run.getSamplesDelivered();
+        }
+        return total;
+    }
+
+    private static long getProcessCpuNanos() {
+        return ((com.sun.management.OperatingSystemMXBean) ManagementFactory.getOperatingSystemMXBean()).getProcessCpuTime();
+    }
+
+    private static long getPollingThreadCpuNanos(List<BoardRun> runs) {
+        final ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+        long total = 0;
+        for (BoardRun run : runs) {
+            if (run.pollingThreadId != -1) {
+                total += Math.max(0, threadBean.getThreadCpuTime(run.pollingThreadId));
+            }
+        }
+        return total;
+    }
+
+    private static String formatNanos(long nanos) {
+        if (nanos < 10_000) {
+            return nanos + " ns";
+        } else if (nanos < 10_000_000) {
+            return String.format("%.1f us", nanos / 1e3);
+        } else {
+            return String.format("%.1f ms", nanos / 1e6);
+        }
+    }
+    // </editor-fold>
+
+    private static void parseArguments(String[] args) {
+        for (int i = 0; i < args.length; i += 2) {
+            if (i + 1 >= args.length) {
+                throw new IllegalArgumentException("missing a value after " + args[i]);
+            }
+            final String value = args[i + 1];
+            switch (args[i]) {
+                case "--boards":
+                    boardCount = Integer.parseInt(value);
+                    break;
+                case "--channels":
+                    channelCount = Integer.parseInt(value);
+                    break;
+                case "--rate":
+                    rateHz = Long.parseLong(value);
+                    break;
+                case "--block":
+                    blockSampleCount = Integer.parseInt(value);
+                    break;
+                case "--mode":
+                    if (value.equals("half-buffer")) {
+                        deliveryMode = AnalogInputBackgroundScan.DeliveryMode.HALF_BUFFER;
+                    } else if (value.equals("as-available")) {
+                        deliveryMode = AnalogInputBackgroundScan.DeliveryMode.AS_AVAILABLE;
+                    } else {
+                        throw new IllegalArgumentException("the mode should be half-buffer or as-available, not " + value);
+                    }
+                    break;
+                case "--seconds":
+                    measureSeconds = Double.parseDouble(value);
+                    break;
+                case "--warmup":
+                    warmupSeconds = Double.parseDouble(value);
+                    break;
+                case "--call-latency-us":
+                    callLatencyMicros = Long.parseLong(value);
+                    break;
+                default:
+                    throw new IllegalArgumentException("unknown option " + args[i] + ", see the ScanHarness javadoc");
+            }
+        }
+    }
+
+}
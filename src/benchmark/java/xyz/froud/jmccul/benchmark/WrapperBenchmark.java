@@ -0,0 +1,96 @@
+/*
+ * The MIT License.
+ *
+ * Copyright (c) 2022 Peter Froud.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package xyz.froud.jmccul.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+import xyz.froud.jmccul.JMCCULException;
+import xyz.froud.jmccul.MeasurementComputingUniversalLibrary;
+import xyz.froud.jmccul.analog.AnalogRange;
+import xyz.froud.jmccul.config.ConfigurationWrapper;
+import xyz.froud.jmccul.digital.DigitalPortType;
+import xyz.froud.jmccul.temperature.TemperatureUnit;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The single-value read and write methods which get called in polling loops. The stub library returns immediately, so
+ * the time is what the wrapper and JNA add on top of the Universal Library. None of these should allocate.
+ *
+ * @author Peter Froud
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djna.library.path=target/stub-library")
+public class WrapperBenchmark {
+
+    @Benchmark
+    public short analogInputRead(DeviceState state) throws JMCCULException {
+        return state.device.analog.input.read(0, AnalogRange.BIPOLAR_10_VOLTS);
+    }
+
+    @Benchmark
+    public float analogInputReadVoltage(DeviceState state) throws JMCCULException {
+        return state.device.analog.input.readVoltage(0, AnalogRange.BIPOLAR_10_VOLTS);
+    }
+
+    @Benchmark
+    public short digitalInputReadPort(DeviceState state) throws JMCCULException {
+        return state.device.digital.input.readPort(DigitalPortType.FIRST_PORT_A);
+    }
+
+    @Benchmark
+    public boolean digitalInputReadBit(DeviceState state) throws JMCCULException {
+        return state.device.digital.input.readBit(DigitalPortType.FIRST_PORT_A, 0);
+    }
+
+    @Benchmark
+    public void digitalOutputWritePort(DeviceState state) throws JMCCULException {
+        state.device.digital.output.writePort(DigitalPortType.FIRST_PORT_A, (short) 0xA5);
+    }
+
+    @Benchmark
+    public float temperatureRead(DeviceState state) throws JMCCULException {
+        return state.device.temperature.read(0, TemperatureUnit.CELSIUS);
+    }
+
+    @Benchmark
+    public int configurationGetInt(DeviceState state) throws JMCCULException {
+        return ConfigurationWrapper.getInt(
+                MeasurementComputingUniversalLibrary.BOARDINFO,
+                state.device.getBoardNumber(),
+                0,
+                MeasurementComputingUniversalLibrary.BIADRES
+        );
+    }
+
+}
@@ -0,0 +1,654 @@
+/*
+ * The MIT License.
+ *
+ * Copyright (c) 2022 Peter Froud.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package xyz.froud.jmccul;
+
+import xyz.froud.jmccul.analog.AnalogRange;
+import xyz.froud.jmccul.analog.VoltageConverter;
+import xyz.froud.jmccul.digital.DigitalPortType;
+import xyz.froud.jmccul.temperature.TemperatureUnit;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * Reads a list of analog, digital, counter and temperature channels on any number of boards with as few Universal
+ * Library calls as it can, and returns all the values together.
+ * <p>
+ * The first read makes a plan for each board:
+ * <ul>
+ *     <li>Analog inputs with the same range and consecutive channel numbers are read with one cbAInScan(). If the board
+ *     has a channel-gain queue and there is more than one group, all of them are read with one queued scan instead.
+ *     If the board says it can't do the queued scan, the groups are read separately from then on.</li>
+ *     <li>Each digital port is read once, no matter how many of its bits were added. Consecutive ports are read with
+ *     one cbDInArray().</li>
+ *     <li>Temperature channels with the same unit and consecutive channel numbers are read with one cbTInScan().</li>
+ *     <li>Each counter is read once with cbCIn32().</li>
+ * </ul>
+ * The same channel added twice is only read once. Each board's calls run on its {@link BoardExecutor}, so the boards
+ * are read in parallel.
+ * <pre>
+ * BatchRead batch = new BatchRead();
+ * int voltage = batch.addAnalogInput(myDevice, 0, AnalogRange.BIPOLAR_10_VOLTS);
+ * int button = batch.addDigitalBit(myDevice, DigitalPortType.FIRST_PORT_A, 3);
+ * BatchRead.Result result = batch.read();
+ * double volts = result.getValue(voltage);
+ * </pre>
+ * A call which fails only affects the values it would have read. Their error codes are in the result.
+ *
+ * @author Peter Froud
+ */
+public class BatchRead {
+
+    /**
+     * Values from one {@link #read()}, in the order the reads were added.
+     */
+    public static class Result {
+
+        private final double[] VALUES;
+        private final int[] ERROR_CODES;
+
+        Result(int size) {
+            VALUES = new double[size];
+            ERROR_CODES = new int[size];
+        }
+
+        /**
+         * @param index the number returned by the add method.
+         *
+         * @return volts for analog inputs, 0 or 1 for digital bits, the unsigned port value for digital ports, the
+         *         count for counters, or the temperature. 0 if the read failed.
+         */
+        public double getValue(int index) {
+            return VALUES[index];
+        }
+
+        /**
+         * @return the Universal Library error code from the call which read this value, or 0 if it succeeded.
+         */
+        public int getErrorCode(int index) {
+            return ERROR_CODES[index];
+        }
+
+        public int size() {
+            return VALUES.length;
+        }
+
+        /**
+         * @return true if every value was read.
+         */
+        public boolean isSuccessful() {
+            for (int errorCode : ERROR_CODES) {
+                if (errorCode != MeasurementComputingUniversalLibrary.NOERRORS) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    private static final int KIND_ANALOG = 0;
+    private static final int KIND_DIGITAL_BIT = 1;
+    private static final int KIND_DIGITAL_PORT = 2;
+    private static final int KIND_COUNTER = 3;
+    private static final int KIND_TEMPERATURE = 4;
+
+    private final List<Entry> ENTRIES = new ArrayList<>();
+
+    /*
+    Null until the first read, and again after anything is added.
+     */
+    private List<BoardPlan> plans;
+
+    // <editor-fold defaultstate="collapsed" desc="add reads">
+
+    /**
+     * @return the index of the value in the result.
+     *
+     * @see xyz.froud.jmccul.analog.AnalogInputWrapper#readVoltage(int, AnalogRange)
+     */
+    public synchronized int addAnalogInput(DaqDevice device, int channel, AnalogRange range) {
+        return add(new Entry(device, KIND_ANALOG, channel, range.VALUE));
+    }
+
+    /**
+     * @param bitNumber the bit within the port, where 0 is the lowest bit of the value from
+     *         {@link xyz.froud.jmccul.digital.DigitalInputWrapper#readPort(DigitalPortType)}.
+     *
+     * @return the index of the value in the result.
+     */
+    public synchronized int addDigitalBit(DaqDevice device, DigitalPortType portType, int bitNumber) {
+        if (bitNumber < 0 || bitNumber > 31) {
+            throw new IllegalArgumentException("bit number " + bitNumber + " is not in a port");
+        }
+        return add(new Entry(device, KIND_DIGITAL_BIT, portType.VALUE, bitNumber));
+    }
+
+    /**
+     * @return the index of the value in the result.
+     *
+     * @see xyz.froud.jmccul.digital.DigitalInputWrapper#readPort(DigitalPortType)
+     */
+    public synchronized int addDigitalPort(DaqDevice device, DigitalPortType portType) {
+        return add(new Entry(device, KIND_DIGITAL_PORT, portType.VALUE, 0));
+    }
+
+    /**
+     * @return the index of the value in the result.
+     *
+     * @see xyz.froud.jmccul.counter.CounterWrapper#read(int)
+     */
+    public synchronized int addCounter(DaqDevice device, int counterNumber) {
+        return add(new Entry(device, KIND_COUNTER, counterNumber, 0));
+    }
+
+    /**
+     * @return the index of the value in the result.
+     *
+     * @see xyz.froud.jmccul.temperature.TemperatureWrapper#read(int, TemperatureUnit)
+     */
+    public synchronized int addTemperature(DaqDevice device, int channel, TemperatureUnit unit) {
+        return add(new Entry(device, KIND_TEMPERATURE, channel, unit.VALUE));
+    }
+
+    private int add(Entry entry) {
+        ENTRIES.add(entry);
+        plans = null;
+        return ENTRIES.size() - 1;
+    }
+
+    // </editor-fold>
+
+    public synchronized int size() {
+        return ENTRIES.size();
+    }
+
+    /**
+     * @return how many Universal Library calls one read makes, not counting calls to find out what the boards support.
+     *         It can be lower when a board has a channel-gain queue.
+     */
+    public int getPlannedCallCount() {
+        int count = 0;
+        for (BoardPlan plan : getPlans()) {
+            for (Step step : plan.STEPS) {
+                count += step.getCallCount();
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Reads everything which has been added, and waits for all the boards to finish.
+     */
+    public Result read() throws JMCCULException {
+        try {
+            return readAsync().join();
+        } catch (CompletionException ex) {
+            if (ex.getCause() instanceof JMCCULException) {
+                throw (JMCCULException) ex.getCause();
+            }
+            throw ex;
+        }
+    }
+
+    /**
+     * Reads everything which has been added. Each board is read on its own executor.
+     *
+     * @return completes when every board has been read. Completes exceptionally if a device has been closed.
+     */
+    public CompletableFuture<Result> readAsync() {
+        final List<BoardPlan> boardPlans;
+        final Result result;
+        synchronized (this) {
+            boardPlans = getPlans();
+            result = new Result(ENTRIES.size());
+        }
+        final CompletableFuture<?>[] futures = new CompletableFuture<?>[boardPlans.size()];
+        for (int i = 0; i < futures.length; i++) {
+            final BoardPlan plan = boardPlans.get(i);
+            futures[i] = plan.DEVICE.submit(() -> {
+                for (Step step : plan.STEPS) {
+                    step.run(result);
+                }
+                return null;
+            });
+        }
+        return CompletableFuture.allOf(futures).thenApply(ignored -> result);
+    }
+
+    // <editor-fold defaultstate="collapsed" desc="planning">
+
+    private synchronized List<BoardPlan> getPlans() {
+        if (plans == null) {
+            plans = makePlans();
+        }
+        return plans;
+    }
+
+    private List<BoardPlan> makePlans() {
+        // the steps run on other threads, so they get a copy of the bit numbers instead of reading ENTRIES
+        final int[] bitNumbers = new int[ENTRIES.size()];
+        for (int i = 0; i < bitNumbers.length; i++) {
+            final Entry entry = ENTRIES.get(i);
+            bitNumbers[i] = (entry.KIND == KIND_DIGITAL_BIT) ? entry.CODE : -1;
+        }
+
+        final Map<DaqDevice, List<Integer>> indicesByDevice = new IdentityHashMap<>();
+        final List<DaqDevice> deviceOrder = new ArrayList<>();
+        for (int i = 0; i < ENTRIES.size(); i++) {
+            final DaqDevice device = ENTRIES.get(i).DEVICE;
+            if (!indicesByDevice.containsKey(device)) {
+                indicesByDevice.put(device, new ArrayList<>());
+                deviceOrder.add(device);
+            }
+            indicesByDevice.get(device).add(i);
+        }
+
+        final List<BoardPlan> newPlans = new ArrayList<>();
+        for (DaqDevice device : deviceOrder) {
+            newPlans.add(makePlan(device, indicesByDevice.get(device), bitNumbers));
+        }
+        return newPlans;
+    }
+
+    private BoardPlan makePlan(DaqDevice device, List<Integer> indices, int[] bitNumbers) {
+        // for each kind, the entry indices grouped by code (range or unit) then channel, sorted by channel
+        final Map<Integer, TreeMap<Integer, List<Integer>>> analogByRange = new TreeMap<>();
+        final TreeMap<Integer, List<Integer>> digitalByPort = new TreeMap<>();
+        final TreeMap<Integer, List<Integer>> counters = new TreeMap<>();
+        final Map<Integer, TreeMap<Integer, List<Integer>>> temperatureByUnit = new TreeMap<>();
+
+        for (int index : indices) {
+            final Entry entry = ENTRIES.get(index);
+            switch (entry.KIND) {
+                case KIND_ANALOG:
+                    analogByRange.computeIfAbsent(entry.CODE, code -> new TreeMap<>())
+                            .computeIfAbsent(entry.CHANNEL, channel -> new ArrayList<>()).add(index);
+                    break;
+                case KIND_DIGITAL_BIT:
+                case KIND_DIGITAL_PORT:
+                    digitalByPort.computeIfAbsent(entry.CHANNEL, port -> new ArrayList<>()).add(index);
+                    break;
+                case KIND_COUNTER:
+                    counters.computeIfAbsent(entry.CHANNEL, counter -> new ArrayList<>()).add(index);
+                    break;
+                case KIND_TEMPERATURE:
+                    temperatureByUnit.computeIfAbsent(entry.CODE, code -> new TreeMap<>())
+                            .computeIfAbsent(entry.CHANNEL, channel -> new ArrayList<>()).add(index);
+                    break;
+                default:
+                    throw new IllegalStateException("unknown kind " + entry.KIND);
+            }
+        }
+
+        final List<Step> steps = new ArrayList<>();
+
+        final List<Run> analogRuns = new ArrayList<>();
+        for (Map.Entry<Integer, TreeMap<Integer, List<Integer>>> rangeGroup : analogByRange.entrySet()) {
+            analogRuns.addAll(splitIntoRuns(rangeGroup.getKey(), rangeGroup.getValue()));
+        }
+        if (!analogRuns.isEmpty()) {
+            steps.add(new AnalogStep(device, bitNumbers, analogRuns));
+        }
+
+        for (Run run : splitIntoRuns(0, digitalByPort)) {
+            steps.add(new DigitalStep(device, bitNumbers, run));
+        }
+
+        for (Map.Entry<Integer, List<Integer>> counter : counters.entrySet()) {
+            steps.add(new CounterStep(device, bitNumbers, counter.getKey(), toArray(counter.getValue())));
+        }
+
+        for (Map.Entry<Integer, TreeMap<Integer, List<Integer>>> unitGroup : temperatureByUnit.entrySet()) {
+            for (Run run : splitIntoRuns(unitGroup.getKey(), unitGroup.getValue())) {
+                steps.add(new TemperatureStep(device, bitNumbers, run));
+            }
+        }
+
+        return new BoardPlan(device, steps);
+    }
+
+    /**
+     * Splits channels, already sorted, into groups of consecutive channel numbers.
+     */
+    private static List<Run> splitIntoRuns(int code, TreeMap<Integer, List<Integer>> indicesByChannel) {
+        final List<Run> runs = new ArrayList<>();
+        int lowChannel = 0;
+        int previousChannel = 0;
+        List<int[]> targets = null;
+        for (Map.Entry<Integer, List<Integer>> channel : indicesByChannel.entrySet()) {
+            if (targets != null && channel.getKey() != previousChannel + 1) {
+                runs.add(new Run(code, lowChannel, targets.toArray(new int[0][])));
+                targets = null;
+            }
+            if (targets == null) {
+                targets = new ArrayList<>();
+                lowChannel = channel.getKey();
+            }
+            targets.add(toArray(channel.getValue()));
+            previousChannel = channel.getKey();
+        }
+        if (targets != null) {
+            runs.add(new Run(code, lowChannel, targets.toArray(new int[0][])));
+        }
+        return runs;
+    }
+
+    private static int[] toArray(List<Integer> list) {
+        return list.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    // </editor-fold>
+
+    // <editor-fold defaultstate="collapsed" desc="steps">
+
+    private static class Entry {
+
+        private final DaqDevice DEVICE;
+        private final int KIND;
+        // channel, port type, or counter number
+        private final int CHANNEL;
+        // range, temperature unit, or bit number
+        private final int CODE;
+
+        Entry(DaqDevice device, int kind, int channel, int code) {
+            DEVICE = device;
+            KIND = kind;
+            CHANNEL = channel;
+            CODE = code;
+        }
+    }
+
+    private static class BoardPlan {
+
+        private final DaqDevice DEVICE;
+        private final List<Step> STEPS;
+
+        BoardPlan(DaqDevice device, List<Step> steps) {
+            DEVICE = device;
+            STEPS = steps;
+        }
+    }
+
+    /**
+     * Consecutive channels with the same range or unit, or consecutive digital ports.
+     */
+    private static class Run {
+
+        private final int CODE;
+        private final int LOW_CHANNEL;
+        // for each channel from LOW_CHANNEL, the indices of the entries which want it
+        private final int[][] TARGETS;
+
+        Run(int code, int lowChannel, int[][] targets) {
+            CODE = code;
+            LOW_CHANNEL = lowChannel;
+            TARGETS = targets;
+        }
+
+        int getHighChannel() {
+            return LOW_CHANNEL + TARGETS.length - 1;
+        }
+    }
+
+    /**
+     * Some Universal Library calls for one board. Runs on the board's executor.
+     */
+    private abstract static class Step {
+
+        final DaqDevice DEVICE;
+        // for each entry, the bit to take out of the port value, or -1 to use the whole value
+        private final int[] BIT_NUMBERS;
+
+        Step(DaqDevice device, int[] bitNumbers) {
+            DEVICE = device;
+            BIT_NUMBERS = bitNumbers;
+        }
+
+        abstract int getCallCount();
+
+        /**
+         * Puts a value or error code in the result for every entry which wants it.
+         */
+        abstract void run(Result result);
+
+        void store(Result result, int[] targets, double value) {
+            for (int index : targets) {
+                final int bitNumber = BIT_NUMBERS[index];
+                result.VALUES[index] = (bitNumber < 0) ? value : (((long) value >> bitNumber) & 1);
+            }
+        }
+
+        void fail(Result result, int[] targets, JMCCULException ex) {
+            for (int index : targets) {
+                result.ERROR_CODES[index] = ex.ERROR_CODE;
+            }
+        }
+
+        void fail(Result result, Run run, JMCCULException ex) {
+            for (int[] targets : run.TARGETS) {
+                fail(result, targets, ex);
+            }
+        }
+    }
+
+    private static class AnalogStep extends Step {
+
+        private final List<Run> RUNS;
+        private final int[] QUEUE_CHANNELS;
+        private final AnalogRange[] QUEUE_RANGES;
+
+        // set to false if the board can't do the queued scan, for example because the queue is too long
+        private volatile boolean isQueueUsable = true;
+
+        AnalogStep(DaqDevice device, int[] bitNumbers, List<Run> runs) {
+            super(device, bitNumbers);
+            RUNS = runs;
+            final List<Integer> channels = new ArrayList<>();
+            final List<AnalogRange> ranges = new ArrayList<>();
+            for (Run run : runs) {
+                for (int channel = run.LOW_CHANNEL; channel <= run.getHighChannel(); channel++) {
+                    channels.add(channel);
+                    ranges.add(AnalogRange.parseInt(run.CODE));
+                }
+            }
+            QUEUE_CHANNELS = toArray(channels);
+            QUEUE_RANGES = ranges.toArray(new AnalogRange[0]);
+        }
+
+        private boolean isQueueUsed() {
+            if (RUNS.size() < 2 || !isQueueUsable) {
+                return false;
+            }
+            try {
+                return DEVICE.analog.input.isGainQueueSupported();
+            } catch (JMCCULException ex) {
+                return false;
+            }
+        }
+
+        @Override
+        int getCallCount() {
+            return isQueueUsed() ? 1 : RUNS.size();
+        }
+
+        @Override
+        void run(Result result) {
+            if (isQueueUsed()) {
+                try {
+                    final int[] counts = DEVICE.analog.input.readChannels32(QUEUE_CHANNELS, QUEUE_RANGES);
+                    int i = 0;
+                    for (Run run : RUNS) {
+                        final VoltageConverter converter = DEVICE.analog.input.getVoltageConverter(QUEUE_RANGES[i]);
+                        for (int[] targets : run.TARGETS) {
+                            store(result, targets, converter.toVolts(counts[i]));
+                            i++;
+                        }
+                    }
+                    return;
+                } catch (JMCCULException ex) {
+                    if (!ex.isNotSupported()) {
+                        for (Run run : RUNS) {
+                            fail(result, run, ex);
+                        }
+                        return;
+                    }
+                    isQueueUsable = false;
+                }
+            }
+
+            for (Run run : RUNS) {
+                try {
+                    final AnalogRange range = AnalogRange.parseInt(run.CODE);
+                    if (run.TARGETS.length == 1) {
+                        store(result, run.TARGETS[0], DEVICE.analog.input.readVoltage(run.LOW_CHANNEL, range));
+                    } else {
+                        final VoltageConverter converter = DEVICE.analog.input.getVoltageConverter(range);
+                        final int[] counts = DEVICE.analog.input.readChannelRange32(run.LOW_CHANNEL, run.getHighChannel(), range);
+                        for (int i = 0; i < counts.length; i++) {
+                            store(result, run.TARGETS[i], converter.toVolts(counts[i]));
+                        }
+                    }
+                } catch (JMCCULException ex) {
+                    fail(result, run, ex);
+                }
+            }
+        }
+    }
+
+    private static class DigitalStep extends Step {
+
+        private final Run RUN;
+
+        // set to false if the board doesn't have cbDInArray()
+        private volatile boolean isArrayUsable = true;
+
+        DigitalStep(DaqDevice device, int[] bitNumbers, Run run) {
+            super(device, bitNumbers);
+            RUN = run;
+        }
+
+        @Override
+        int getCallCount() {
+            return (RUN.TARGETS.length > 1 && isArrayUsable) ? 1 : RUN.TARGETS.length;
+        }
+
+        @Override
+        void run(Result result) {
+            if (RUN.TARGETS.length > 1 && isArrayUsable) {
+                try {
+                    final int[] values = DEVICE.digital.input.readPorts(
+                            DigitalPortType.parseInt(RUN.LOW_CHANNEL),
+                            DigitalPortType.parseInt(RUN.getHighChannel())
+                    );
+                    for (int i = 0; i < values.length; i++) {
+                        store(result, RUN.TARGETS[i], Integer.toUnsignedLong(values[i]));
+                    }
+                    return;
+                } catch (JMCCULException ex) {
+                    if (!ex.isNotSupported()) {
+                        fail(result, RUN, ex);
+                        return;
+                    }
+                    isArrayUsable = false;
+                }
+            }
+
+            for (int i = 0; i < RUN.TARGETS.length; i++) {
+                try {
+                    final short value = DEVICE.digital.input.readPort(DigitalPortType.parseInt(RUN.LOW_CHANNEL + i));
+                    store(result, RUN.TARGETS[i], Short.toUnsignedInt(value));
+                } catch (JMCCULException ex) {
+                    fail(result, RUN.TARGETS[i], ex);
+                }
+            }
+        }
+    }
+
+    private static class CounterStep extends Step {
+
+        private final int COUNTER_NUMBER;
+        private final int[] TARGETS;
+
+        CounterStep(DaqDevice device, int[] bitNumbers, int counterNumber, int[] targets) {
+            super(device, bitNumbers);
+            COUNTER_NUMBER = counterNumber;
+            TARGETS = targets;
+        }
+
+        @Override
+        int getCallCount() {
+            return 1;
+        }
+
+        @Override
+        void run(Result result) {
+            try {
+                store(result, TARGETS, DEVICE.counter.read(COUNTER_NUMBER));
+            } catch (JMCCULException ex) {
+                fail(result, TARGETS, ex);
+            }
+        }
+    }
+
+    private static class TemperatureStep extends Step {
+
+        private final Run RUN;
+
+        TemperatureStep(DaqDevice device, int[] bitNumbers, Run run) {
+            super(device, bitNumbers);
+            RUN = run;
+        }
+
+        @Override
+        int getCallCount() {
+            return 1;
+        }
+
+        @Override
+        void run(Result result) {
+            try {
+                final TemperatureUnit unit = TemperatureUnit.parseInt(RUN.CODE);
+                if (RUN.TARGETS.length == 1) {
+                    store(result, RUN.TARGETS[0], DEVICE.temperature.read(RUN.LOW_CHANNEL, unit));
+                } else {
+                    final float[] temperatures = DEVICE.temperature.readChannels(RUN.LOW_CHANNEL, RUN.getHighChannel(), unit);
+                    for (int i = 0; i < temperatures.length; i++) {
+                        store(result, RUN.TARGETS[i], temperatures[i]);
+                    }
+                }
+            } catch (JMCCULException ex) {
+                fail(result, RUN, ex);
+            }
+        }
+    }
+
+    // </editor-fold>
+
+}
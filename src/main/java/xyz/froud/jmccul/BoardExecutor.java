@@ -0,0 +1,350 @@
+/*
+ * The MIT License.
+ *
+ * Copyright (c) 2022 Peter Froud.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package xyz.froud.jmccul;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Runs Universal Library calls for one board, one at a time and in the order they were submitted. Calls for different
+ * boards run in parallel.
+ * <p>
+ * Each {@link DaqDevice} has one, and every wrapper method which calls the Universal Library uses it. The
+ * {@code ...Async} methods submit their calls here. The synchronous methods run their calls right away when they are
+ * already on the board's thread, and otherwise submit them and wait, so calls for one board never overlap no matter
+ * which thread makes them. Submitting never blocks or takes a lock: the task goes on a {@link ConcurrentLinkedQueue},
+ * and whichever thread finds the executor idle schedules the board's thread to drain the queue.
+ * <p>
+ * The calls run on a fixed number of platform threads, set by the system property {@value #THREAD_COUNT_PROPERTY}
+ * (8 if it is not set). Board N always uses thread N modulo that number, so two boards only share a thread if there are
+ * more boards than threads. Native calls never run on the calling thread unless it is the board's thread, so a virtual
+ * thread which calls a synchronous method only waits for a future, which does not pin its carrier thread.
+ *
+ * @author Peter Froud
+ */
+public final class BoardExecutor implements Executor {
+
+    /**
+     * Something to run on the board's executor, which can throw the same exception as the wrapper methods.
+     */
+    @FunctionalInterface
+    public interface DeviceCall<T> {
+
+        T call() throws JMCCULException;
+    }
+
+    /**
+     * Name of the system property which sets how many threads run Universal Library calls for all boards.
+     */
+    public static final String THREAD_COUNT_PROPERTY = "jmccul.executorThreadCount";
+
+    private static final int DEFAULT_THREAD_COUNT = 8;
+
+    /**
+     * How many tasks to run before giving the thread back, so one busy board can't starve the others on its thread.
+     */
+    private static final int MAX_TASKS_PER_DRAIN = 64;
+
+    /**
+     * Each one has a single thread, which is only started when first needed.
+     */
+    private static final ExecutorService[] THREADS = createThreads(Math.max(1, Integer.getInteger(THREAD_COUNT_PROPERTY, DEFAULT_THREAD_COUNT)));
+
+    /**
+     * Executors of the open devices, by board number, for {@link #forBoard(int)}.
+     */
+    private static final ConcurrentHashMap<Integer, BoardExecutor> OPEN_EXECUTORS = new ConcurrentHashMap<>();
+
+    private final int BOARD_NUMBER;
+    // index into THREADS
+    private final int LANE;
+    private final ExecutorService THREAD;
+    private final ConcurrentLinkedQueue<Runnable> QUEUE = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean IS_SCHEDULED = new AtomicBoolean(false);
+
+    private volatile Thread drainingThread;
+    private volatile boolean isShutdown = false;
+
+    BoardExecutor(int boardNumber) {
+        BOARD_NUMBER = boardNumber;
+        LANE = Math.floorMod(boardNumber, THREADS.length);
+        THREAD = THREADS[LANE];
+        OPEN_EXECUTORS.put(boardNumber, this);
+    }
+
+    private static ExecutorService[] createThreads(int count) {
+        final ExecutorService[] threads = new ExecutorService[count];
+        for (int i = 0; i < count; i++) {
+            final String name = "JMCCUL board executor " + i;
+            final int lane = i;
+            threads[i] = Executors.newSingleThreadExecutor(runnable -> new ExecutorThread(runnable, name, lane));
+        }
+        return threads;
+    }
+
+    /**
+     * @return how many threads run Universal Library calls for all boards.
+     */
+    public static int getThreadCount() {
+        return THREADS.length;
+    }
+
+    /**
+     * @return the executor of the open device with this board number, or null if no device has it. Used by code which
+     *         only knows the board number, like {@link xyz.froud.jmccul.config.ConfigurationWrapper}.
+     */
+    public static BoardExecutor forBoard(int boardNumber) {
+        return OPEN_EXECUTORS.get(boardNumber);
+    }
+
+    public int getBoardNumber() {
+        return BOARD_NUMBER;
+    }
+
+    /**
+     * Runs the call after every task which was submitted before it.
+     *
+     * @return completes with what the call returned, or exceptionally with what it threw. Cancelling the future before
+     *         the call starts stops it from running. Completes with an {@link IllegalStateException} if the device was
+     *         closed before the call could run.
+     */
+    public <T> CompletableFuture<T> submit(DeviceCall<T> call) {
+        final CompletableFuture<T> future = new CompletableFuture<>();
+        if (isShutdown) {
+            future.completeExceptionally(newClosedException());
+            return future;
+        }
+        execute(() -> {
+            if (future.isDone()) {
+                // cancelled while waiting
+                return;
+            }
+            if (isShutdown) {
+                future.completeExceptionally(newClosedException());
+                return;
+            }
+            try {
+                future.complete(call.call());
+            } catch (Throwable ex) {
+                future.completeExceptionally(ex);
+            }
+        });
+        return future;
+    }
+
+    /**
+     * Called at the start of each synchronous wrapper method. If this returns true, the method submits itself and
+     * {@link #join(CompletableFuture) waits} for the result. Otherwise it makes its calls right away.
+     *
+     * @return false on the board's thread, where none of the board's other calls can be running. True on any other
+     *         thread.
+     * @throws IllegalStateException on the board's thread after the device was closed, or on the executor thread of a
+     *         different board, where waiting could deadlock. Use the {@code ...Async} methods there.
+     */
+    public boolean mustSubmit() {
+        if (isBoardThread()) {
+            if (isShutdown) {
+                throw newClosedException();
+            }
+            return false;
+        }
+        if (isAnyExecutorThread()) {
+            throw new IllegalStateException(
+                    "can't wait for board " + BOARD_NUMBER + " from another board's executor thread, use the ...Async methods"
+            );
+        }
+        return true;
+    }
+
+    /**
+     * Runs the call the same way as the synchronous wrapper methods: right away on the board's thread, otherwise on
+     * the board's thread after every task submitted before it while the calling thread waits.
+     *
+     * @throws IllegalStateException same as {@link #mustSubmit()}, or if the device was closed first.
+     */
+    public <T> T call(DeviceCall<T> call) throws JMCCULException {
+        if (mustSubmit()) {
+            return join(submit(call));
+        }
+        return call.call();
+    }
+
+    /**
+     * Waits for a future returned by {@link #submit(DeviceCall)} or an {@code ...Async} method.
+     *
+     * @return what the call returned.
+     * @throws JMCCULException what the call threw, if it threw one.
+     */
+    public static <T> T join(CompletableFuture<T> future) throws JMCCULException {
+        try {
+            return future.join();
+        } catch (CompletionException ex) {
+            if (ex.getCause() instanceof JMCCULException) {
+                throw (JMCCULException) ex.getCause();
+            }
+            if (ex.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) ex.getCause();
+            }
+            throw ex;
+        }
+    }
+
+    /**
+     * Waits for a thread to end, from the board's thread. The board's queued tasks keep running on this thread in the
+     * meantime, because the thread may be waiting for one of them.
+     */
+    public void awaitThread(Thread thread) throws InterruptedException {
+        if (!isBoardThread()) {
+            thread.join();
+            return;
+        }
+        while (thread.isAlive()) {
+            final Runnable task = QUEUE.poll();
+            if (task == null) {
+                thread.join(1);
+            } else {
+                // nothing else runs this board's tasks while its thread is busy here
+                final Thread previousDrainingThread = drainingThread;
+                drainingThread = Thread.currentThread();
+                try {
+                    runTask(task);
+                } finally {
+                    drainingThread = previousDrainingThread;
+                }
+            }
+        }
+    }
+
+    @Override
+    public void execute(Runnable task) {
+        QUEUE.add(task);
+        scheduleIfIdle();
+    }
+
+    /**
+     * @return true if called from a task running on this executor.
+     */
+    public boolean isExecutorThread() {
+        return drainingThread == Thread.currentThread();
+    }
+
+    /**
+     * @return true if called from the thread which runs this board's tasks, including from a
+     *         {@link CompletableFuture} stage which ran there. The thread may be shared with other boards, but none of
+     *         this board's tasks can be running while it runs something else.
+     */
+    public boolean isBoardThread() {
+        final Thread thread = Thread.currentThread();
+        return thread instanceof ExecutorThread && ((ExecutorThread) thread).LANE == LANE;
+    }
+
+    /**
+     * @return true if called from any board's executor thread, including from a {@link CompletableFuture} stage
+     *         which ran there. Waiting for another board from one of these threads can deadlock if both boards use the
+     *         same thread.
+     */
+    public static boolean isAnyExecutorThread() {
+        return Thread.currentThread() instanceof ExecutorThread;
+    }
+
+    /**
+     * @return how many tasks are waiting to run.
+     */
+    public int getQueuedCount() {
+        return QUEUE.size();
+    }
+
+    /**
+     * Called by {@link DaqDevice#close()} after the board is released. Calls which were submitted but haven't run yet
+     * fail instead, because the board number may already belong to another device.
+     */
+    void shutdown() {
+        isShutdown = true;
+        OPEN_EXECUTORS.remove(BOARD_NUMBER, this);
+    }
+
+    private IllegalStateException newClosedException() {
+        return new IllegalStateException("board " + BOARD_NUMBER + " has been closed");
+    }
+
+    private void scheduleIfIdle() {
+        if (IS_SCHEDULED.compareAndSet(false, true)) {
+            try {
+                THREAD.execute(this::drain);
+            } catch (RuntimeException ex) {
+                IS_SCHEDULED.set(false);
+                throw ex;
+            }
+        }
+    }
+
+    private void drain() {
+        drainingThread = Thread.currentThread();
+        try {
+            for (int i = 0; i < MAX_TASKS_PER_DRAIN; i++) {
+                final Runnable task = QUEUE.poll();
+                if (task == null) {
+                    break;
+                }
+                runTask(task);
+            }
+        } finally {
+            drainingThread = null;
+            IS_SCHEDULED.set(false);
+        }
+        // a task may have been added after the last poll but before IS_SCHEDULED was cleared
+        if (!QUEUE.isEmpty()) {
+            scheduleIfIdle();
+        }
+    }
+
+    private static void runTask(Runnable task) {
+        try {
+            task.run();
+        } catch (RuntimeException ex) {
+            // tasks from submit() never throw, so this came from execute() and has nowhere else to go
+            final Thread thread = Thread.currentThread();
+            thread.getUncaughtExceptionHandler().uncaughtException(thread, ex);
+        }
+    }
+
+    private static class ExecutorThread extends Thread {
+
+        private final int LANE;
+
+        ExecutorThread(Runnable runnable, String name, int lane) {
+            super(runnable, name);
+            LANE = lane;
+            setDaemon(true);
+        }
+    }
+
+}
@@ -0,0 +1,56 @@
+/*
+ * The MIT License.
+ *
+ * Copyright (c) 2022 Peter Froud.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package xyz.froud.jmccul;
+
+import java.util.BitSet;
+
+/**
+ * Hands out Universal Library board numbers to {@link DaqDevice}s. A number freed by {@link DaqDevice#close()} is
+ * given to the next device opened, so a program which keeps reconnecting devices does not run out of numbers. The
+ * lowest free number is always used first.
+ *
+ * @author Peter Froud
+ */
+final class BoardNumberAllocator {
+
+    private static final BitSet IN_USE = new BitSet();
+
+    private BoardNumberAllocator() {
+    }
+
+    /**
+     * @return the lowest board number which is not in use. It stays in use until passed to {@link #free(int)}.
+     */
+    static synchronized int allocate() {
+        final int boardNumber = IN_USE.nextClearBit(0);
+        IN_USE.set(boardNumber);
+        return boardNumber;
+    }
+
+    static synchronized void free(int boardNumber) {
+        IN_USE.clear(boardNumber);
+    }
+
+}
@@ -38,12 +38,25 @@ import xyz.froud.jmccul.enums.ExternalPacerClockEdge;
 import xyz.froud.jmccul.enums.FirmwareVersionType;
 import xyz.froud.jmccul.enums.InterruptClockEdge;
 import xyz.froud.jmccul.enums.SyncMode;
+import xyz.froud.jmccul.instrumentation.CallStatistics;
+import xyz.froud.jmccul.instrumentation.NativeCallStatistics;
+import xyz.froud.jmccul.jmx.DaqDeviceMonitor;
 import xyz.froud.jmccul.temperature.TemperatureWrapper;
 import java.nio.ByteBuffer;
+import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 import xyz.froud.jmccul.digital.DigitalPort;
 
 /**
+ * One opened board, with a wrapper object for each kind of function.
+ * <p>
+ * Every Universal Library call for the board runs on its {@link BoardExecutor}, so calls never overlap no matter which
+ * threads make them. The {@code ...Async} wrapper methods, {@link #submit} and {@link #closeAsync()} queue their calls
+ * and return a future. The synchronous wrapper methods run right away when called on the board's executor thread, for
+ * example inside {@link #submit}, and otherwise queue themselves and wait. Use {@link #submit} to run several calls
+ * with nothing from another thread in between.
+ *
  * @author Peter Froud
  */
 public class DaqDevice implements AutoCloseable {
@@ -81,13 +94,14 @@ public class DaqDevice implements AutoCloseable {
         }
     }
 
-    private static int nextBoardNumber = 0;
-
     private final static int CONFIG_ITEM_LENGTH = MeasurementComputingUniversalLibrary.BOARDNAMELEN;
 
     private final int BOARD_NUMBER;
     private final DaqDeviceDescriptor DESCRIPTOR;
-    private boolean isOpen = false;
+    private final BoardExecutor EXECUTOR;
+    private volatile boolean isOpen = false;
+    // only used while holding the lock on this object
+    private boolean isReleasing = false;
 
     /*
     Underscore prefix means the field is lazy-loaded in the getter method.
@@ -95,6 +109,7 @@ public class DaqDevice implements AutoCloseable {
      */
     private String _factorySerialNumber;
     private String _boardName;
+    private volatile DeviceCapabilities _capabilities;
 
     public final DigitalWrapper digital;
     public final AnalogWrapper analog;
@@ -106,29 +121,63 @@ public class DaqDevice implements AutoCloseable {
     public final WirelessConfig wirelessConfig;
 
     /**
+     * Opens the device and registers a {@link xyz.froud.jmccul.jmx.DaqDeviceMXBean} for it, which {@link #close()}
+     * unregisters.
+     * <p>
+     * The device gets the lowest board number which is not used by another open device, including numbers freed by
+     * {@link #close()}. Devices can be opened and closed from several threads at the same time.
+     *
      * @see <a
      *         href="https://www.mccdaq.com/pdfs/manuals/Mcculw_WebHelp/hh_goto.htm?ULStart.htm#Function_Reference/Device-Discovery/cbCreateDaqDevice.htm">cbCreateDaqDevice()</a>
      * @see <a
      *         href="https://www.mccdaq.com/pdfs/manuals/Mcculw_WebHelp/hh_goto.htm?ULStart.htm#Function_Reference/Device-Discovery-NET/CreateDaqDevice.htm">CreateDaqDevice()</a>
      */
     public DaqDevice(DaqDeviceDescriptor descriptor) throws JMCCULException {
-        BOARD_NUMBER = nextBoardNumber;
-
-        // https://www.mccdaq.com/pdfs/manuals/Mcculw_WebHelp/hh_goto.htm?ULStart.htm#Function_Reference/Device-Discovery/cbCreateDaqDevice.htm
-        final int errorCode = MeasurementComputingUniversalLibrary.INSTANCE.cbCreateDaqDevice(BOARD_NUMBER, descriptor.byValue());
-        JMCCULUtils.checkError(errorCode);
-        nextBoardNumber++;
+        BOARD_NUMBER = create(descriptor);
         isOpen = true;
         DESCRIPTOR = descriptor;
+        EXECUTOR = new BoardExecutor(BOARD_NUMBER);
+
+        try {
+            digital = new DigitalWrapper(this);
+            analog = new AnalogWrapper(this);
+            temperature = new TemperatureWrapper(this);
+            counter = new CounterWrapper(this);
+
+            expansionConfig = new ExpansionConfig(this);
+            networkConfig = new NetworkConfig(this);
+            wirelessConfig = new WirelessConfig(this);
+
+            DaqDeviceMonitor.register(this);
+        } catch (RuntimeException | Error ex) {
+            // nobody gets a reference to this object, so nobody else can release the board
+            try {
+                release();
+            } catch (JMCCULException | RuntimeException releaseException) {
+                ex.addSuppressed(releaseException);
+            }
+            throw ex;
+        }
+    }
+
+    private static int create(DaqDeviceDescriptor descriptor) throws JMCCULException {
+        while (true) {
+            final int boardNumber = BoardNumberAllocator.allocate();
 
-        digital = new DigitalWrapper(this);
-        analog = new AnalogWrapper(this);
-        temperature = new TemperatureWrapper(this);
-        counter = new CounterWrapper(this);
+            // https://www.mccdaq.com/pdfs/manuals/Mcculw_WebHelp/hh_goto.htm?ULStart.htm#Function_Reference/Device-Discovery/cbCreateDaqDevice.htm
+            final int errorCode = MeasurementComputingUniversalLibrary.INSTANCE.cbCreateDaqDevice(boardNumber, descriptor.byValue());
 
-        expansionConfig = new ExpansionConfig(this);
-        networkConfig = new NetworkConfig(this);
-        wirelessConfig = new WirelessConfig(this);
+            if (errorCode == MeasurementComputingUniversalLibrary.NOERRORS) {
+                return boardNumber;
+            } else if (errorCode != MeasurementComputingUniversalLibrary.BOARDNUMINUSE) {
+                BoardNumberAllocator.free(boardNumber);
+                JMCCULUtils.checkError(errorCode);
+            }
+            /*
+            Something other than DaqDevice used this board number, for example by calling cbCreateDaqDevice() directly.
+            Leave it marked as in use so it is not tried again, and try the next one.
+             */
+        }
     }
 
     public DaqDeviceDescriptor getDescriptor() {
@@ -139,6 +188,50 @@ public class DaqDevice implements AutoCloseable {
         return BOARD_NUMBER;
     }
 
+    /**
+     * @return runs Universal Library calls for this device one at a time, used by every method of the wrapper classes
+     *         which calls the Universal Library.
+     */
+    public BoardExecutor getExecutor() {
+        return EXECUTOR;
+    }
+
+    /**
+     * Runs anything which uses this device on its {@link #getExecutor() executor}, after every call submitted before
+     * it. Use this for methods which don't have an asynchronous version, or to run several calls with nothing from
+     * another thread in between.
+     */
+    public <T> CompletableFuture<T> submit(BoardExecutor.DeviceCall<T> call) {
+        return EXECUTOR.submit(call);
+    }
+
+    /**
+     * @return where the wrapper classes remember what this device can do.
+     */
+    public DeviceCapabilities getCapabilities() {
+        DeviceCapabilities capabilities = _capabilities;
+        if (capabilities == null) {
+            // Not while holding the lock on this object, because loading reads the firmware version on the executor.
+            final DeviceCapabilities loaded = DeviceCapabilities.load(this);
+            synchronized (this) {
+                if (_capabilities == null) {
+                    _capabilities = loaded;
+                }
+                capabilities = _capabilities;
+            }
+        }
+        return capabilities;
+    }
+
+    /**
+     * @return how many times each Universal Library function was called for this board, and how long the calls took.
+     *         Empty unless started with {@code -Djmccul.instrumentation=true}. Use
+     *         {@link NativeCallStatistics#toText(java.util.Collection)} to print it.
+     */
+    public List<CallStatistics> getNativeCallStatistics() {
+        return NativeCallStatistics.getForBoard(BOARD_NUMBER);
+    }
+
     public int getProductID() {
         return DESCRIPTOR.ProductID;
     }
@@ -152,6 +245,10 @@ public class DaqDevice implements AutoCloseable {
     }
 
     public String getBoardName() throws JMCCULException {
+        if (EXECUTOR.mustSubmit()) {
+            return BoardExecutor.join(getBoardNameAsync());
+        }
+
         if (_boardName == null) {
             final ByteBuffer buf = ByteBuffer.allocate(CONFIG_ITEM_LENGTH);
 
@@ -164,6 +261,13 @@ public class DaqDevice implements AutoCloseable {
         return _boardName;
     }
 
+    /**
+     * Runs {@link #getBoardName()} on the {@link #getExecutor() executor}.
+     */
+    public CompletableFuture<String> getBoardNameAsync() {
+        return EXECUTOR.submit(this::getBoardName);
+    }
+
     public String getFactorySerialNumber() throws JMCCULException {
         if (_factorySerialNumber == null) {
             final int DEVICE_NUMBER_BASE_BOARD = 0; //set to 1 to get the factory serial number of an expansion board
@@ -178,6 +282,13 @@ public class DaqDevice implements AutoCloseable {
         return _factorySerialNumber;
     }
 
+    /**
+     * Runs {@link #getFactorySerialNumber()} on the {@link #getExecutor() executor}.
+     */
+    public CompletableFuture<String> getFactorySerialNumberAsync() {
+        return EXECUTOR.submit(this::getFactorySerialNumber);
+    }
+
     private String getUserDeviceIdentifier() throws JMCCULException {
         /*
         On a USB-1208FS, this throws error code 41 "This function can not be used with this board".
@@ -203,12 +314,112 @@ public class DaqDevice implements AutoCloseable {
         }
     }
 
+    /**
+     * Releases the device and frees its board number for the next device opened. Does nothing if the device is already
+     * closed.
+     * <p>
+     * Calls already submitted to the {@link #getExecutor() executor} run first, and this waits for them. Calls
+     * submitted after this fail. When called from the thread which runs this board's calls, for example in a stage of a
+     * future returned by an {@code ...Async} method, none of its calls can be running, so the device is released right
+     * away and the calls still waiting fail instead.
+     * <p>
+     * Background scans which are still running are closed first. If closing one fails, the device is released anyway
+     * and the exception is thrown afterwards.
+     *
+     * @throws IllegalStateException if called from the executor thread of a different board, where waiting could
+     *         deadlock. Use {@link #closeAsync()} there.
+     * @see <a
+     *         href="https://www.mccdaq.com/pdfs/manuals/Mcculw_WebHelp/hh_goto.htm?ULStart.htm#Function_Reference/Device-Discovery/cbReleaseDaqDevice.htm">cbReleaseDaqDevice()</a>
+     */
     @Override
     public void close() throws JMCCULException {
+        if (!isOpen) {
+            return;
+        }
+        if (EXECUTOR.isBoardThread()) {
+            release();
+            return;
+        }
+        if (BoardExecutor.isAnyExecutorThread()) {
+            throw new IllegalStateException(
+                    "can't wait to close board " + BOARD_NUMBER + " from another board's executor thread, use closeAsync()"
+            );
+        }
+        BoardExecutor.join(closeAsync());
+    }
+
+    /**
+     * Same as {@link #close()} but doesn't wait. The device is released on its executor after the calls already
+     * submitted, so this can be called from any thread.
+     *
+     * @return completes when the device has been released, or exceptionally if releasing it failed.
+     */
+    public CompletableFuture<Void> closeAsync() {
+        final CompletableFuture<Void> released = new CompletableFuture<>();
+        // not submit(), which would refuse to run if another thread closed the device first
+        EXECUTOR.execute(() -> {
+            try {
+                release();
+                released.complete(null);
+            } catch (JMCCULException | RuntimeException ex) {
+                released.completeExceptionally(ex);
+            }
+        });
+        return released;
+    }
+
+    private synchronized void release() throws JMCCULException {
+        if (!isOpen || isReleasing) {
+            return;
+        }
+        // closing a scan runs the board's queued tasks while it waits, and one of them may close this device again
+        isReleasing = true;
+        try {
+            releaseBoard();
+        } finally {
+            isReleasing = false;
+        }
+    }
+
+    private void releaseBoard() throws JMCCULException {
+
+        /*
+        Stop the background scans while the board still exists, so they don't keep writing into their Windows buffers.
+        Release the board even if that fails, and throw the scan's exception afterwards.
+        analog is null if the constructor failed before creating it.
+         */
+        Exception scanException = null;
+        if (analog != null) {
+            try {
+                analog.input.stopBackgroundScans();
+            } catch (JMCCULException | RuntimeException ex) {
+                scanException = ex;
+            }
+        }
+
         // https://www.mccdaq.com/pdfs/manuals/Mcculw_WebHelp/hh_goto.htm?ULStart.htm#Function_Reference/Device-Discovery/cbReleaseDaqDevice.htm
         final int errorCode = MeasurementComputingUniversalLibrary.INSTANCE.cbReleaseDaqDevice(BOARD_NUMBER);
-        JMCCULUtils.checkError(errorCode);
+        try {
+            JMCCULUtils.checkError(errorCode);
+        } catch (JMCCULException ex) {
+            if (scanException != null) {
+                ex.addSuppressed(scanException);
+            }
+            throw ex;
+        }
         isOpen = false;
+        DaqDeviceMonitor.unregister(this);
+        EXECUTOR.shutdown();
+        NativeCallStatistics.clearBoard(BOARD_NUMBER);
+        // only after the board is released, otherwise another device could get the number while it is still in use
+        BoardNumberAllocator.free(BOARD_NUMBER);
+
+        if (scanException instanceof JMCCULException) {
+            throw (JMCCULException) scanException;
+        }
+        if (scanException != null) {
+            throw (RuntimeException) scanException;
+        }
     }
 
     public boolean isOpen() {
@@ -240,6 +451,13 @@ public class DaqDevice implements AutoCloseable {
         );
     }
 
+    /**
+     * Runs {@link #getBaseAddress()} on the {@link #getExecutor() executor}.
+     */
+    public CompletableFuture<Integer> getBaseAddressAsync() {
+        return EXECUTOR.submit(this::getBaseAddress);
+    }
+
     /**
      * Recommended for use only with ISA bus boards.
      *
@@ -258,6 +476,16 @@ public class DaqDevice implements AutoCloseable {
         );
     }
 
+    /**
+     * Runs {@link #setBaseAddress(int)} on the {@link #getExecutor() executor}.
+     */
+    public CompletableFuture<Void> setBaseAddressAsync(int baseAddress) {
+        return EXECUTOR.submit(() -> {
+            setBaseAddress(baseAddress);
+            return null;
+        });
+    }
+
     /* /////////////////////////////////////////////////////////////////////////////////////////////////////////////////
     BIBOARDTYPE -> BI BOARD TYPE -> boardInfo board type
     Readable? yes
@@ -282,6 +510,13 @@ public class DaqDevice implements AutoCloseable {
         );
     }
 
+    /**
+     * Runs {@link #getBoardType()} on the {@link #getExecutor() executor}.
+     */
+    public CompletableFuture<Integer> getBoardTypeAsync() {
+        return EXECUTOR.submit(this::getBoardType);
+    }
+
     /* /////////////////////////////////////////////////////////////////////////////////////////////////////////////////
     BICALTABLETYPE -> BI CAL TABLE TYPE -> boardInfo calibration table type
     Readable? yes
@@ -305,6 +540,13 @@ public class DaqDevice implements AutoCloseable {
         );
     }
 
+    /**
+     * Runs {@link #getCalibrationTableType(BaseOrExpansionBoard)} on the {@link #getExecutor() executor}.
+     */
+    public CompletableFuture<CalibrationTableType> getCalibrationTableTypeAsync(BaseOrExpansionBoard baseOrExpansionBoard) {
+        return EXECUTOR.submit(() -> getCalibrationTableType(baseOrExpansionBoard));
+    }
+
     /**
      * @see <a
      *         href="https://www.mccdaq.com/pdfs/manuals/Mcculw_WebHelp/hh_goto.htm?ULStart.htm#Function_Reference/Configuration_Functions/cbSetConfig.htm">cbSetConfig()</a>
@@ -321,6 +563,16 @@ public class DaqDevice implements AutoCloseable {
         );
     }
 
+    /**
+     * Runs {@link #setCalibrationTableType(CalibrationTableType)} on the {@link #getExecutor() executor}.
+     */
+    public CompletableFuture<Void> setCalibrationTableTypeAsync(CalibrationTableType calTable) {
+        return EXECUTOR.submit(() -> {
+            setCalibrationTableType(calTable);
+            return null;
+        });
+    }
+
     /* /////////////////////////////////////////////////////////////////////////////////////////////////////////////////
     BICLOCK -> BI CLOCK -> boardInfo clock
     Readable? yes
@@ -342,6 +594,13 @@ public class DaqDevice implements AutoCloseable {
         );
     }
 
+    /**
+     * Runs {@link #getClockFrequencyMegahertz()} on the {@link #getExecutor() executor}.
+     */
+    public CompletableFuture<Integer> getClockFrequencyMegahertzAsync() {
+        return EXECUTOR.submit(this::getClockFrequencyMegahertz);
+    }
+
     /**
      * @see <a
      *         href="https://www.mccdaq.com/pdfs/manuals/Mcculw_WebHelp/hh_goto.htm?ULStart.htm#Function_Reference/Configuration_Functions/cbSetConfig.htm">cbSetConfig()</a>
@@ -359,6 +618,16 @@ public class DaqDevice implements AutoCloseable {
         );
     }
 
+    /**
+     * Runs {@link #setClockFrequencyMegahertz(int, int)} on the {@link #getExecutor() executor}.
+     */
+    public CompletableFuture<Void> setClockFrequencyMegahertzAsync(int channel, int clockFrequency) {
+        return EXECUTOR.submit(() -> {
+            setClockFrequencyMegahertz(channel, clockFrequency);
+            return null;
+        });
+    }
+
     /* /////////////////////////////////////////////////////////////////////////////////////////////////////////////////
     BIDMACHAN -> BI DMA CHAN -> boardInfo directMemoryAccess channel
     Readable? yes
@@ -380,6 +649,13 @@ public class DaqDevice implements AutoCloseable {
         );
     }
 
+    /**
+     * Runs {@link #getDmaChannel()} on the {@link #getExecutor() executor}.
+     */
+    public CompletableFuture<Integer> getDmaChannelAsync() {
+        return EXECUTOR.submit(this::getDmaChannel);
+    }
+
     /**
      * @see <a
      *         href="https://www.mccdaq.com/pdfs/manuals/Mcculw_WebHelp/hh_goto.htm?ULStart.htm#Function_Reference/Configuration_Functions/cbSetConfig.htm">cbSetConfig()</a>
@@ -397,6 +673,16 @@ public class DaqDevice implements AutoCloseable {
         );
     }
 
+    /**
+     * Runs {@link #setDmaChannel(int)} on the {@link #getExecutor() executor}.
+     */
+    public CompletableFuture<Void> setDmaChannelAsync(int dmaChannel) {
+        return EXECUTOR.submit(() -> {
+            setDmaChannel(dmaChannel);
+            return null;
+        });
+    }
+
     /* /////////////////////////////////////////////////////////////////////////////////////////////////////////////////
     BIDTBOARD -> BI DT BOARD -> boardInfo DataTranslation board
     Readable? yes
@@ -419,6 +705,13 @@ public class DaqDevice implements AutoCloseable {
         );
     }
 
+    /**
+     * Runs {@link #getDataTranslationBoardNumber()} on the {@link #getExecutor() executor}.
+     */
+    public CompletableFuture<Integer> getDataTranslationBoardNumberAsync() {
+        return EXECUTOR.submit(this::getDataTranslationBoardNumber);
+    }
+
     /* /////////////////////////////////////////////////////////////////////////////////////////////////////////////////
     BIEXTCLKTYPE -> BI EXT CLK TYPE -> boardInfo external clock type
     Readable? yes
@@ -440,6 +733,13 @@ public class DaqDevice implements AutoCloseable {
         ));
     }
 
+    /**
+     * Runs {@link #getExternalClockType()} on the {@link #getExecutor() executor}.
+     */
+    public CompletableFuture<ExternalClockType> getExternalClockTypeAsync() {
+        return EXECUTOR.submit(this::getExternalClockType);
+    }
+
     /**
      * @see <a
      *         href="https://www.mccdaq.com/pdfs/manuals/Mcculw_WebHelp/hh_goto.htm?ULStart.htm#Function_Reference/Configuration_Functions/cbSetConfig.htm">cbSetConfig()</a>
@@ -456,6 +756,16 @@ public class DaqDevice implements AutoCloseable {
         );
     }
 
+    /**
+     * Runs {@link #setExternalClockType(ExternalClockType)} on the {@link #getExecutor() executor}.
+     */
+    public CompletableFuture<Void> setExternalClockTypeAsync(ExternalClockType externalClockType) {
+        return EXECUTOR.submit(() -> {
+            setExternalClockType(externalClockType);
+            return null;
+        });
+    }
+
     /* /////////////////////////////////////////////////////////////////////////////////////////////////////////////////
     BIEXTINPACEREDGE  -> BI EXT IN PACER EDGE -> boardInfo external input pacer edge
     Readable? yes
@@ -477,6 +787,13 @@ public class DaqDevice implements AutoCloseable {
         ));
     }
 
+    /**
+     * Runs {@link #getInputPacerClockEdge()} on the {@link #getExecutor() executor}.
+     */
+    public CompletableFuture<ExternalPacerClockEdge> getInputPacerClockEdgeAsync() {
+        return EXECUTOR.submit(this::getInputPacerClockEdge);
+    }
+
     /**
      * @see <a
      *         href="https://www.mccdaq.com/pdfs/manuals/Mcculw_WebHelp/hh_goto.htm?ULStart.htm#Function_Reference/Configuration_Functions/cbSetConfig.htm">cbSetConfig()</a>
@@ -493,6 +810,16 @@ public class DaqDevice implements AutoCloseable {
         );
     }
 
+    /**
+     * Runs {@link #setInputPacerClockEdge(ExternalPacerClockEdge)} on the {@link #getExecutor() executor}.
+     */
+    public CompletableFuture<Void> setInputPacerClockEdgeAsync(ExternalPacerClockEdge externalPacerClockEdge) {
+        return EXECUTOR.submit(() -> {
+            setInputPacerClockEdge(externalPacerClockEdge);
+            return null;
+        });
+    }
+
     /* /////////////////////////////////////////////////////////////////////////////////////////////////////////////////
     BIEXTOUTPACEREDGE -> BI EXT OUT PACER EDGE -> boardInfo external output pacer edge
     Readable? yes
@@ -514,6 +841,13 @@ public class DaqDevice implements AutoCloseable {
         ));
     }
 
+    /**
+     * Runs {@link #getOutputPacerClockEdge()} on the {@link #getExecutor() executor}.
+     */
+    public CompletableFuture<ExternalPacerClockEdge> getOutputPacerClockEdgeAsync() {
+        return EXECUTOR.submit(this::getOutputPacerClockEdge);
+    }
+
     /**
      * @see <a
      *         href="https://www.mccdaq.com/pdfs/manuals/Mcculw_WebHelp/hh_goto.htm?ULStart.htm#Function_Reference/Configuration_Functions/cbSetConfig.htm">cbSetConfig()</a>
@@ -530,6 +864,16 @@ public class DaqDevice implements AutoCloseable {
         );
     }
 
+    /**
+     * Runs {@link #setOutputPacerClockEdge(ExternalPacerClockEdge)} on the {@link #getExecutor() executor}.
+     */
+    public CompletableFuture<Void> setOutputPacerClockEdgeAsync(ExternalPacerClockEdge externalPacerClockEdge) {
+        return EXECUTOR.submit(() -> {
+            setOutputPacerClockEdge(externalPacerClockEdge);
+            return null;
+        });
+    }
+
     /* /////////////////////////////////////////////////////////////////////////////////////////////////////////////////
     BIOUTPUTPACEROUT -> BI OUTPUT PACER OUT -> boardInfo output pacer output
     Readable? no but that is probably a mistake in the docs
@@ -549,6 +893,13 @@ public class DaqDevice implements AutoCloseable {
         ) == 1;
     }
 
+    /**
+     * Runs {@link #getOutputPacerClockEnable()} on the {@link #getExecutor() executor}.
+     */
+    public CompletableFuture<Boolean> getOutputPacerClockEnableAsync() {
+        return EXECUTOR.submit(this::getOutputPacerClockEnable);
+    }
+
     /**
      * @see <a
      *         href="https://www.mccdaq.com/pdfs/manuals/Mcculw_WebHelp/hh_goto.htm?ULStart.htm#Function_Reference/Configuration_Functions/cbSetConfig.htm">cbSetConfig()</a>
@@ -565,6 +916,16 @@ public class DaqDevice implements AutoCloseable {
         );
     }
 
+    /**
+     * Runs {@link #setOutputPacerClockEnable(boolean)} on the {@link #getExecutor() executor}.
+     */
+    public CompletableFuture<Void> setOutputPacerClockEnableAsync(boolean enable) {
+        return EXECUTOR.submit(() -> {
+            setOutputPacerClockEnable(enable);
+            return null;
+        });
+    }
+
 
 
 
@@ -589,6 +950,13 @@ public class DaqDevice implements AutoCloseable {
         ) == 1;
     }
 
+    /**
+     * Runs {@link #getInputPacerClockEnable()} on the {@link #getExecutor() executor}.
+     */
+    public CompletableFuture<Boolean> getInputPacerClockEnableAsync() {
+        return EXECUTOR.submit(this::getInputPacerClockEnable);
+    }
+
     /**
      * @see <a
      *         href="https://www.mccdaq.com/pdfs/manuals/Mcculw_WebHelp/hh_goto.htm?ULStart.htm#Function_Reference/Configuration_Functions/cbSetConfig.htm">cbSetConfig()</a>
@@ -605,6 +973,16 @@ public class DaqDevice implements AutoCloseable {
         );
     }
 
+    /**
+     * Runs {@link #setInputPacerClockEnable(boolean)} on the {@link #getExecutor() executor}.
+     */
+    public CompletableFuture<Void> setInputPacerClockEnableAsync(boolean enable) {
+        return EXECUTOR.submit(() -> {
+            setInputPacerClockEnable(enable);
+            return null;
+        });
+    }
+
     /* /////////////////////////////////////////////////////////////////////////////////////////////////////////////////
     BIINTEDGE -> BI INT EDGE -> boardInfo interrupt edge
     Readable? yes
@@ -626,6 +1004,13 @@ public class DaqDevice implements AutoCloseable {
         ));
     }
 
+    /**
+     * Runs {@link #getInterruptEdge()} on the {@link #getExecutor() executor}.
+     */
+    public CompletableFuture<InterruptClockEdge> getInterruptEdgeAsync() {
+        return EXECUTOR.submit(this::getInterruptEdge);
+    }
+
     /**
      * @see <a
      *         href="https://www.mccdaq.com/pdfs/manuals/Mcculw_WebHelp/hh_goto.htm?ULStart.htm#Function_Reference/Configuration_Functions/cbSetConfig.htm">cbSetConfig()</a>
@@ -642,6 +1027,16 @@ public class DaqDevice implements AutoCloseable {
         );
     }
 
+    /**
+     * Runs {@link #setInterruptEdge(InterruptClockEdge)} on the {@link #getExecutor() executor}.
+     */
+    public CompletableFuture<Void> setInterruptEdgeAsync(InterruptClockEdge edge) {
+        return EXECUTOR.submit(() -> {
+            setInterruptEdge(edge);
+            return null;
+        });
+    }
+
     /* /////////////////////////////////////////////////////////////////////////////////////////////////////////////////
     BIINTLEVEL  -> BI INT LEVEL -> boardInfo interrupt level
     Readable? yes
@@ -663,6 +1058,13 @@ public class DaqDevice implements AutoCloseable {
         );
     }
 
+    /**
+     * Runs {@link #getInterruptLevel()} on the {@link #getExecutor() executor}.
+     */
+    public CompletableFuture<Integer> getInterruptLevelAsync() {
+        return EXECUTOR.submit(this::getInterruptLevel);
+    }
+
     /**
      * @see <a
      *         href="https://www.mccdaq.com/pdfs/manuals/Mcculw_WebHelp/hh_goto.htm?ULStart.htm#Function_Reference/Configuration_Functions/cbSetConfig.htm">cbSetConfig()</a>
@@ -680,6 +1082,16 @@ public class DaqDevice implements AutoCloseable {
         );
     }
 
+    /**
+     * Runs {@link #setInterruptLevel(int)} on the {@link #getExecutor() executor}.
+     */
+    public CompletableFuture<Void> setInterruptLevelAsync(int level) {
+        return EXECUTOR.submit(() -> {
+            setInterruptLevel(level);
+            return null;
+        });
+    }
+
     /* /////////////////////////////////////////////////////////////////////////////////////////////////////////////////
     BINUMIOPORTS -> BI NUM IO PORTS -> boardInfo number of I/O ports
     Readable? yes
@@ -701,6 +1113,13 @@ public class DaqDevice implements AutoCloseable {
         );
     }
 
+    /**
+     * Runs {@link #getPortCount()} on the {@link #getExecutor() executor}.
+     */
+    public CompletableFuture<Integer> getPortCountAsync() {
+        return EXECUTOR.submit(this::getPortCount);
+    }
+
 
 
     /* /////////////////////////////////////////////////////////////////////////////////////////////////////////////////
@@ -724,6 +1143,13 @@ public class DaqDevice implements AutoCloseable {
         );
     }
 
+    /**
+     * Runs {@link #getPatternTriggerPort()} on the {@link #getExecutor() executor}.
+     */
+    public CompletableFuture<Integer> getPatternTriggerPortAsync() {
+        return EXECUTOR.submit(this::getPatternTriggerPort);
+    }
+
     /**
      * @see <a
      *         href="https://www.mccdaq.com/pdfs/manuals/Mcculw_WebHelp/hh_goto.htm?ULStart.htm#Function_Reference/Configuration_Functions/cbSetConfig.htm">cbSetConfig()</a>
@@ -741,6 +1167,16 @@ public class DaqDevice implements AutoCloseable {
         );
     }
 
+    /**
+     * Runs {@link #setPatternTriggerPort(int)} on the {@link #getExecutor() executor}.
+     */
+    public CompletableFuture<Void> setPatternTriggerPortAsync(int port) {
+        return EXECUTOR.submit(() -> {
+            setPatternTriggerPort(port);
+            return null;
+        });
+    }
+
     /* /////////////////////////////////////////////////////////////////////////////////////////////////////////////////
     BISYNCMODE  -> BI SYNC MODE -> boardInfo sync mode
     Readable? yes
@@ -764,6 +1200,13 @@ public class DaqDevice implements AutoCloseable {
         ));
     }
 
+    /**
+     * Runs {@link #getSyncMode()} on the {@link #getExecutor() executor}.
+     */
+    public CompletableFuture<SyncMode> getSyncModeAsync() {
+        return EXECUTOR.submit(this::getSyncMode);
+    }
+
     /**
      * Sets the Simultaneous mode option on supported analog output devices.
      *
@@ -782,6 +1225,16 @@ public class DaqDevice implements AutoCloseable {
         );
     }
 
+    /**
+     * Runs {@link #setSyncMode(SyncMode)} on the {@link #getExecutor() executor}.
+     */
+    public CompletableFuture<Void> setSyncModeAsync(SyncMode syncMode) {
+        return EXECUTOR.submit(() -> {
+            setSyncMode(syncMode);
+            return null;
+        });
+    }
+
     /* /////////////////////////////////////////////////////////////////////////////////////////////////////////////////
     setAdc -> BI TERM COUNT STAT BIT -> boardInfo terminal count output status bit
     Readable? yes
@@ -807,6 +1260,13 @@ public class DaqDevice implements AutoCloseable {
         ) == 1;
     }
 
+    /**
+     * Runs {@link #getTerminalCountOutputStatus(int)} on the {@link #getExecutor() executor}.
+     */
+    public CompletableFuture<Boolean> getTerminalCountOutputStatusAsync(int bitNumber) {
+        return EXECUTOR.submit(() -> getTerminalCountOutputStatus(bitNumber));
+    }
+
     /**
      * @see <a
      *         href="https://www.mccdaq.com/pdfs/manuals/Mcculw_WebHelp/hh_goto.htm?ULStart.htm#Function_Reference/Configuration_Functions/cbSetConfig.htm">cbSetConfig()</a>
@@ -825,6 +1285,16 @@ public class DaqDevice implements AutoCloseable {
         );
     }
 
+    /**
+     * Runs {@link #setTerminalCountOutputStatus(int, boolean)} on the {@link #getExecutor() executor}.
+     */
+    public CompletableFuture<Void> setTerminalCountOutputStatusAsync(int bitNumber, boolean status) {
+        return EXECUTOR.submit(() -> {
+            setTerminalCountOutputStatus(bitNumber, status);
+            return null;
+        });
+    }
+
     /* /////////////////////////////////////////////////////////////////////////////////////////////////////////////////
     BIWAITSTATE -> BI WAIT STATE -> boardInfo wait state
     Readable? yes
@@ -846,6 +1316,13 @@ public class DaqDevice implements AutoCloseable {
         ) == 1;
     }
 
+    /**
+     * Runs {@link #getWaitStateJumper()} on the {@link #getExecutor() executor}.
+     */
+    public CompletableFuture<Boolean> getWaitStateJumperAsync() {
+        return EXECUTOR.submit(this::getWaitStateJumper);
+    }
+
     /**
      * @see <a
      *         href="https://www.mccdaq.com/pdfs/manuals/Mcculw_WebHelp/hh_goto.htm?ULStart.htm#Function_Reference/Configuration_Functions/cbSetConfig.htm">cbSetConfig()</a>
@@ -862,6 +1339,16 @@ public class DaqDevice implements AutoCloseable {
         );
     }
 
+    /**
+     * Runs {@link #setWaitStateJumper(boolean)} on the {@link #getExecutor() executor}.
+     */
+    public CompletableFuture<Void> setWaitStateJumperAsync(boolean jumper) {
+        return EXECUTOR.submit(() -> {
+            setWaitStateJumper(jumper);
+            return null;
+        });
+    }
+
 
     /* /////////////////////////////////////////////////////////////////////////////////////////////////////////////////
     BICALOUTPUT -> BI CAL OUTPUT -> boardInfo calibration output
@@ -883,6 +1370,16 @@ public class DaqDevice implements AutoCloseable {
         );
     }
 
+    /**
+     * Runs {@link #setCalPinVoltage(int)} on the {@link #getExecutor() executor}.
+     */
+    public CompletableFuture<Void> setCalPinVoltageAsync(int calPinVoltage) {
+        return EXECUTOR.submit(() -> {
+            setCalPinVoltage(calPinVoltage);
+            return null;
+        });
+    }
+
     /* /////////////////////////////////////////////////////////////////////////////////////////////////////////////////
     BIDEVVERSION -> BI DEV VERSION -> boardInfo device version
     Readable? yes
@@ -905,6 +1402,13 @@ public class DaqDevice implements AutoCloseable {
         );
     }
 
+    /**
+     * Runs {@link #getVersion(FirmwareVersionType)} on the {@link #getExecutor() executor}.
+     */
+    public CompletableFuture<String> getVersionAsync(FirmwareVersionType version) {
+        return EXECUTOR.submit(() -> getVersion(version));
+    }
+
 
     /* /////////////////////////////////////////////////////////////////////////////////////////////////////////////////
     BIDEVSERIALNUM -> BI DEV SERIAL NUM -> boardInfo device serial number
@@ -932,6 +1436,13 @@ public class DaqDevice implements AutoCloseable {
         );
     }
 
+    /**
+     * Runs {@link #getFactorySerialNumber(BaseOrExpansionBoard)} on the {@link #getExecutor() executor}.
+     */
+    public CompletableFuture<String> getFactorySerialNumberAsync(BaseOrExpansionBoard baseOrExpansionBoard) {
+        return EXECUTOR.submit(() -> getFactorySerialNumber(baseOrExpansionBoard));
+    }
+
     /* /////////////////////////////////////////////////////////////////////////////////////////////////////////////////
     BIDEVUNIQUEID -> BI DEV UNIQUE ID -> boardInfo device unique identifier
 
@@ -957,6 +1468,13 @@ public class DaqDevice implements AutoCloseable {
         );
     }
 
+    /**
+     * Runs {@link #getUniqueID()} on the {@link #getExecutor() executor}.
+     */
+    public CompletableFuture<String> getUniqueIDAsync() {
+        return EXECUTOR.submit(this::getUniqueID);
+    }
+
     /* /////////////////////////////////////////////////////////////////////////////////////////////////////////////////
     BISERIALNUM -> BI SERIAL NUM -> boardInfo serial number
 
@@ -982,6 +1500,13 @@ public class DaqDevice implements AutoCloseable {
         );
     }
 
+    /**
+     * Runs {@link #getUserSpecifiedSerialNumber()} on the {@link #getExecutor() executor}.
+     */
+    public CompletableFuture<Integer> getUserSpecifiedSerialNumberAsync() {
+        return EXECUTOR.submit(this::getUserSpecifiedSerialNumber);
+    }
+
     /**
      * @see <a
      *         href="https://www.mccdaq.com/pdfs/manuals/Mcculw_WebHelp/hh_goto.htm?ULStart.htm#Function_Reference/Configuration_Functions/cbSetConfig.htm">cbSetConfig()</a>
@@ -996,6 +1521,16 @@ public class DaqDevice implements AutoCloseable {
         );
     }
 
+    /**
+     * Runs {@link #setUserSpecifiedSerialNumber(int)} on the {@link #getExecutor() executor}.
+     */
+    public CompletableFuture<Void> setUserSpecifiedSerialNumberAsync(int n) {
+        return EXECUTOR.submit(() -> {
+            setUserSpecifiedSerialNumber(n);
+            return null;
+        });
+    }
+
     /* /////////////////////////////////////////////////////////////////////////////////////////////////////////////////
     BIUSERDEVID -> BI USER DEV ID -> boardInfo user device ID
 
@@ -1021,6 +1556,13 @@ public class DaqDevice implements AutoCloseable {
         );
     }
 
+    /**
+     * Runs {@link #getUserSpecifiedID()} on the {@link #getExecutor() executor}.
+     */
+    public CompletableFuture<String> getUserSpecifiedIDAsync() {
+        return EXECUTOR.submit(this::getUserSpecifiedID);
+    }
+
     /**
      * @see <a
      *         href="https://www.mccdaq.com/pdfs/manuals/Mcculw_WebHelp/hh_goto.htm?ULStart.htm#Function_Reference/Configuration_Functions/cbSetConfig.htm">cbSetConfig()</a>
@@ -1037,6 +1579,16 @@ public class DaqDevice implements AutoCloseable {
         );
     }
 
+    /**
+     * Runs {@link #setUserSpecifiedID(String)} on the {@link #getExecutor() executor}.
+     */
+    public CompletableFuture<Void> setUserSpecifiedIDAsync(String str) {
+        return EXECUTOR.submit(() -> {
+            setUserSpecifiedID(str);
+            return null;
+        });
+    }
+
     /* /////////////////////////////////////////////////////////////////////////////////////////////////////////////////
     BIUSERDEVIDNUM -> BI USER DEV ID NUM -> boardInfo user device ID number3
 
@@ -1061,6 +1613,13 @@ public class DaqDevice implements AutoCloseable {
         );
     }
 
+    /**
+     * Runs {@link #getUserSpecifiedString()} on the {@link #getExecutor() executor}.
+     */
+    public CompletableFuture<Integer> getUserSpecifiedStringAsync() {
+        return EXECUTOR.submit(this::getUserSpecifiedString);
+    }
+
     /* /////////////////////////////////////////////////////////////////////////////////////////////////////////////////
     BIHIDELOGINDLG -> BI HIDE LOGIN DLG -> boardInfo hide login dialog
     Readable? yes
@@ -1081,6 +1640,16 @@ public class DaqDevice implements AutoCloseable {
         );
 
     }
+
+    /**
+     * Runs {@link #setHideLoginDialog(boolean)} on the {@link #getExecutor() executor}.
+     */
+    public CompletableFuture<Void> setHideLoginDialogAsync(boolean hide) {
+        return EXECUTOR.submit(() -> {
+            setHideLoginDialog(hide);
+            return null;
+        });
+    }
     //</editor-fold>
 
     //<editor-fold desc="discovery">
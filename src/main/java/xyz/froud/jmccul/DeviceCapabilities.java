@@ -0,0 +1,263 @@
+/*
+ * The MIT License.
+ *
+ * Copyright (c) 2022 Peter Froud.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package xyz.froud.jmccul;
+
+import xyz.froud.jmccul.analog.AnalogRange;
+import xyz.froud.jmccul.enums.FirmwareVersionType;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Remembers what a device can do, so the wrapper classes only have to probe the hardware once.
+ * <p>
+ * Some capabilities can only be found by trying things on the hardware, like reading with every {@link AnalogRange}
+ * or switching the direction of a digital port. That takes hundreds of Universal Library calls per device. Results
+ * are always kept in memory for the life of the {@link DaqDevice}. If the system property
+ * {@value #DIRECTORY_PROPERTY} is set to a directory, results are also saved in a file there and loaded the next time
+ * the same product with the same main firmware version is opened. A result is only saved if every error the probe ran
+ * into means the board doesn't support something. A result which depended on some other error, like a timeout, is
+ * only kept in memory, so it gets probed again next time.
+ * <p>
+ * The cache file is written every time a new capability is probed. A cache file which cannot be read or written is
+ * ignored, which only means the capabilities get probed again. Delete the files to force probing, for example after
+ * changing settings in InstaCal.
+ *
+ * @author Peter Froud
+ * @see DaqDevice#getCapabilities()
+ */
+public class DeviceCapabilities {
+
+    /**
+     * Name of the system property which holds the directory to save capability files in.
+     */
+    public static final String DIRECTORY_PROPERTY = "jmccul.capabilityCacheDirectory";
+
+    /**
+     * Same as {@link java.util.function.Supplier} but it throws a JMCCUL exception. A probe which turns an error into
+     * an answer, like false or a shorter list, must pass the error to {@link ProbeErrors#ignore(JMCCULException)}.
+     */
+    @FunctionalInterface
+    public interface Probe<T> {
+
+        T probe(ProbeErrors errors) throws JMCCULException;
+    }
+
+    /**
+     * Remembers whether a probe ignored any error which doesn't definitely mean "not supported".
+     */
+    public static final class ProbeErrors {
+
+        private boolean isDefinite = true;
+
+        private ProbeErrors() {
+        }
+
+        /**
+         * Rethrows the error if the network device is in use by someone else, like
+         * {@link JMCCULException#throwIfErrorIsNetworkDeviceInUse()}. Otherwise, the result won't be saved unless the
+         * error means the board doesn't support something.
+         */
+        public void ignore(JMCCULException ex) throws JMCCULException {
+            ex.throwIfErrorIsNetworkDeviceInUse();
+            if (!ex.isNotSupported()) {
+                isDefinite = false;
+            }
+        }
+    }
+
+    private final Path FILE;
+    private final String DESCRIPTION;
+    private final Properties PROPERTIES = new Properties();
+
+    // results which depended on an error which might not happen next time, so are not saved in the file
+    private final Map<String, String> UNSAVED = new ConcurrentHashMap<>();
+
+    private DeviceCapabilities(Path file, String description) {
+        FILE = file;
+        DESCRIPTION = description;
+        if (file != null && Files.isRegularFile(file)) {
+            try (InputStream inputStream = Files.newInputStream(file)) {
+                PROPERTIES.load(inputStream);
+            } catch (IOException | IllegalArgumentException ex) {
+                // a broken file just means probing again
+                PROPERTIES.clear();
+            }
+        }
+    }
+
+    static DeviceCapabilities load(DaqDevice device) {
+        final String directory = System.getProperty(DIRECTORY_PROPERTY);
+        if (directory == null || directory.isBlank()) {
+            return new DeviceCapabilities(null, null);
+        }
+
+        final String firmwareVersion;
+        try {
+            firmwareVersion = device.getVersion(FirmwareVersionType.MAIN);
+        } catch (JMCCULException ex) {
+            // without the firmware version, a file could hold the capabilities of a different firmware
+            return new DeviceCapabilities(null, null);
+        }
+
+        final String fileName = String.format(
+                "product-%d-firmware-%s.properties",
+                device.getProductID(),
+                firmwareVersion.trim().replaceAll("[^A-Za-z0-9._-]", "_")
+        );
+        final String description = String.format(
+                "JMCCUL capabilities of %s (product ID %d) with main firmware version %s",
+                device.getProductName(), device.getProductID(), firmwareVersion.trim()
+        );
+        return new DeviceCapabilities(Paths.get(directory, fileName), description);
+    }
+
+    /**
+     * @return the file the capabilities are saved in, or null if they are only kept in memory.
+     */
+    public Path getFile() {
+        return FILE;
+    }
+
+    public boolean getBoolean(String key, Probe<Boolean> probe) throws JMCCULException {
+        final String saved = get(key);
+        if ("true".equals(saved) || "false".equals(saved)) {
+            return Boolean.parseBoolean(saved);
+        }
+        final ProbeErrors errors = new ProbeErrors();
+        final boolean value = probe.probe(errors);
+        put(key, Boolean.toString(value), errors);
+        return value;
+    }
+
+    public int getInt(String key, Probe<Integer> probe) throws JMCCULException {
+        final String saved = get(key);
+        if (saved != null) {
+            try {
+                return Integer.parseInt(saved);
+            } catch (NumberFormatException ex) {
+                // probe again
+            }
+        }
+        final ProbeErrors errors = new ProbeErrors();
+        final int value = probe.probe(errors);
+        put(key, Integer.toString(value), errors);
+        return value;
+    }
+
+    /**
+     * Ranges are saved as a comma-separated list of {@link AnalogRange#VALUE}.
+     *
+     * @return an unmodifiable list.
+     */
+    public List<AnalogRange> getRanges(String key, Probe<List<AnalogRange>> probe) throws JMCCULException {
+        final String saved = get(key);
+        if (saved != null) {
+            final List<AnalogRange> ranges = parseRanges(saved);
+            if (ranges != null) {
+                return ranges;
+            }
+        }
+
+        final ProbeErrors errors = new ProbeErrors();
+        final List<AnalogRange> ranges = probe.probe(errors);
+        final StringBuilder builder = new StringBuilder();
+        for (AnalogRange range : ranges) {
+            if (builder.length() > 0) {
+                builder.append(',');
+            }
+            builder.append(range.VALUE);
+        }
+        put(key, builder.toString(), errors);
+        return Collections.unmodifiableList(new ArrayList<>(ranges));
+    }
+
+    /**
+     * @return null if the saved value is broken.
+     */
+    private static List<AnalogRange> parseRanges(String saved) {
+        final List<AnalogRange> ranges = new ArrayList<>();
+        if (saved.isEmpty()) {
+            return Collections.unmodifiableList(ranges);
+        }
+        for (String item : saved.split(",")) {
+            final AnalogRange range;
+            try {
+                range = AnalogRange.parseInt(Integer.parseInt(item.trim()));
+            } catch (NumberFormatException ex) {
+                return null;
+            }
+            if (range == null) {
+                return null;
+            }
+            ranges.add(range);
+        }
+        return Collections.unmodifiableList(ranges);
+    }
+
+    private String get(String key) {
+        final String saved = PROPERTIES.getProperty(key);
+        return (saved != null) ? saved : UNSAVED.get(key);
+    }
+
+    private synchronized void put(String key, String value, ProbeErrors errors) {
+        if (!errors.isDefinite) {
+            UNSAVED.put(key, value);
+            return;
+        }
+        UNSAVED.remove(key);
+        PROPERTIES.setProperty(key, value);
+        if (FILE == null) {
+            return;
+        }
+        try {
+            Files.createDirectories(FILE.toAbsolutePath().getParent());
+            // write a temporary file then move it, so another JVM never reads half a file
+            final Path temporaryFile = Files.createTempFile(FILE.toAbsolutePath().getParent(), FILE.getFileName().toString(), ".tmp");
+            try {
+                try (OutputStream outputStream = Files.newOutputStream(temporaryFile)) {
+                    PROPERTIES.store(outputStream, DESCRIPTION);
+                }
+                Files.move(temporaryFile, FILE, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(temporaryFile);
+            }
+        } catch (IOException ex) {
+            // the value is still cached in memory, it just gets probed again next time
+        }
+    }
+
+}
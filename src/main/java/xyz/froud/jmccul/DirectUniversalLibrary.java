@@ -0,0 +1,204 @@
+/*
+ * The MIT License.
+ *
+ * Copyright (c) 2022 Peter Froud.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package xyz.froud.jmccul;
+
+import com.sun.jna.Native;
+import com.sun.jna.NativeLibrary;
+import com.sun.jna.ptr.NativeLongByReference;
+import xyz.froud.jmccul.backend.NativeBackend;
+import xyz.froud.jmccul.jfr.NativeCallEvent;
+
+import java.nio.DoubleBuffer;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.nio.ShortBuffer;
+
+/**
+ * Calls the Universal Library functions which get called in polling loops, using JNA direct mapping when possible.
+ * <p>
+ * {@link MeasurementComputingUniversalLibrary#INSTANCE} is an interface proxy, so every call goes through
+ * reflection: the arguments are boxed into an array, and JNA looks up how to convert each one. For a USB call which
+ * takes a few microseconds that is a big part of the time. The methods here have the same signatures as the
+ * interface, but call native methods bound with {@link Native#register(Class, NativeLibrary)}, which JNA calls without
+ * reflection or boxing. Direct NIO buffers, like the ones from {@link NativeScratch}, are passed as plain pointers.
+ * <p>
+ * If direct mapping is not available, the system property {@value #DISABLE_PROPERTY} is {@code true}, or a backend other
+ * than the real DLL is selected, each method calls the same function on
+ * {@link MeasurementComputingUniversalLibrary#INSTANCE} instead.
+ * <p>
+ * Every call is recorded as a {@link NativeCallEvent} for Java Flight Recorder.
+ *
+ * @author Peter Froud
+ * @see <a href="https://github.com/java-native-access/jna/blob/master/www/DirectMapping.md">JNA direct mapping</a>
+ */
+public final class DirectUniversalLibrary {
+
+    /**
+     * Name of the system property which turns off direct mapping.
+     */
+    public static final String DISABLE_PROPERTY = "jmccul.disableDirectMapping";
+
+    private static final boolean IS_DIRECT = !Boolean.getBoolean(DISABLE_PROPERTY)
+            && NativeBackend.isNative(MeasurementComputingUniversalLibrary.INSTANCE)
+            && JnaDirectMapping.IS_REGISTERED;
+
+    private DirectUniversalLibrary() {
+    }
+
+    /**
+     * @return true if the functions in this class skip the interface proxy.
+     */
+    public static boolean isDirect() {
+        return IS_DIRECT;
+    }
+
+    /**
+     * @return how the functions in this class call the Universal Library, for logging.
+     */
+    public static String getCallMechanism() {
+        return IS_DIRECT ? "JNA direct mapping" : "JNA interface mapping";
+    }
+
+    public static int cbAIn(int BoardNum, int Chan, int Gain, ShortBuffer DataValue) {
+        final NativeCallEvent event = NativeCallEvent.start();
+        if (IS_DIRECT) {
+            return event.finish("cbAIn", BoardNum, JnaDirectMapping.cbAIn(BoardNum, Chan, Gain, DataValue));
+        }
+        return event.finish("cbAIn", BoardNum, MeasurementComputingUniversalLibrary.INSTANCE.cbAIn(BoardNum, Chan, Gain, DataValue));
+    }
+
+    public static int cbAIn32(int BoardNum, int Chan, int Gain, NativeLongByReference DataValue, int Options) {
+        final NativeCallEvent event = NativeCallEvent.start();
+        if (IS_DIRECT) {
+            return event.finish("cbAIn32", BoardNum, JnaDirectMapping.cbAIn32(BoardNum, Chan, Gain, DataValue, Options));
+        }
+        return event.finish("cbAIn32", BoardNum, MeasurementComputingUniversalLibrary.INSTANCE.cbAIn32(BoardNum, Chan, Gain, DataValue, Options));
+    }
+
+    public static int cbVIn(int BoardNum, int Chan, int Gain, FloatBuffer DataValue, int Options) {
+        final NativeCallEvent event = NativeCallEvent.start();
+        if (IS_DIRECT) {
+            return event.finish("cbVIn", BoardNum, JnaDirectMapping.cbVIn(BoardNum, Chan, Gain, DataValue, Options));
+        }
+        return event.finish("cbVIn", BoardNum, MeasurementComputingUniversalLibrary.INSTANCE.cbVIn(BoardNum, Chan, Gain, DataValue, Options));
+    }
+
+    public static int cbVIn32(int BoardNum, int Chan, int Gain, DoubleBuffer DataValue, int Options) {
+        final NativeCallEvent event = NativeCallEvent.start();
+        if (IS_DIRECT) {
+            return event.finish("cbVIn32", BoardNum, JnaDirectMapping.cbVIn32(BoardNum, Chan, Gain, DataValue, Options));
+        }
+        return event.finish("cbVIn32", BoardNum, MeasurementComputingUniversalLibrary.INSTANCE.cbVIn32(BoardNum, Chan, Gain, DataValue, Options));
+    }
+
+    public static int cbAOut(int BoardNum, int Chan, int Gain, short DataValue) {
+        final NativeCallEvent event = NativeCallEvent.start();
+        if (IS_DIRECT) {
+            return event.finish("cbAOut", BoardNum, JnaDirectMapping.cbAOut(BoardNum, Chan, Gain, DataValue));
+        }
+        return event.finish("cbAOut", BoardNum, MeasurementComputingUniversalLibrary.INSTANCE.cbAOut(BoardNum, Chan, Gain, DataValue));
+    }
+
+    public static int cbVOut(int BoardNum, int Chan, int Gain, float DataValue, int Options) {
+        final NativeCallEvent event = NativeCallEvent.start();
+        if (IS_DIRECT) {
+            return event.finish("cbVOut", BoardNum, JnaDirectMapping.cbVOut(BoardNum, Chan, Gain, DataValue, Options));
+        }
+        return event.finish("cbVOut", BoardNum, MeasurementComputingUniversalLibrary.INSTANCE.cbVOut(BoardNum, Chan, Gain, DataValue, Options));
+    }
+
+    public static int cbDIn(int BoardNum, int PortType, ShortBuffer DataValue) {
+        final NativeCallEvent event = NativeCallEvent.start();
+        if (IS_DIRECT) {
+            return event.finish("cbDIn", BoardNum, JnaDirectMapping.cbDIn(BoardNum, PortType, DataValue));
+        }
+        return event.finish("cbDIn", BoardNum, MeasurementComputingUniversalLibrary.INSTANCE.cbDIn(BoardNum, PortType, DataValue));
+    }
+
+    public static int cbDIn32(int BoardNum, int PortType, IntBuffer DataValue) {
+        final NativeCallEvent event = NativeCallEvent.start();
+        if (IS_DIRECT) {
+            return event.finish("cbDIn32", BoardNum, JnaDirectMapping.cbDIn32(BoardNum, PortType, DataValue));
+        }
+        return event.finish("cbDIn32", BoardNum, MeasurementComputingUniversalLibrary.INSTANCE.cbDIn32(BoardNum, PortType, DataValue));
+    }
+
+    public static int cbDOut(int BoardNum, int PortType, short DataValue) {
+        final NativeCallEvent event = NativeCallEvent.start();
+        if (IS_DIRECT) {
+            return event.finish("cbDOut", BoardNum, JnaDirectMapping.cbDOut(BoardNum, PortType, DataValue));
+        }
+        return event.finish("cbDOut", BoardNum, MeasurementComputingUniversalLibrary.INSTANCE.cbDOut(BoardNum, PortType, DataValue));
+    }
+
+    public static int cbDBitIn(int BoardNum, int PortType, int BitNum, ShortBuffer BitValue) {
+        final NativeCallEvent event = NativeCallEvent.start();
+        if (IS_DIRECT) {
+            return event.finish("cbDBitIn", BoardNum, JnaDirectMapping.cbDBitIn(BoardNum, PortType, BitNum, BitValue));
+        }
+        return event.finish("cbDBitIn", BoardNum, MeasurementComputingUniversalLibrary.INSTANCE.cbDBitIn(BoardNum, PortType, BitNum, BitValue));
+    }
+
+    public static int cbDBitOut(int BoardNum, int PortType, int BitNum, short BitValue) {
+        final NativeCallEvent event = NativeCallEvent.start();
+        if (IS_DIRECT) {
+            return event.finish("cbDBitOut", BoardNum, JnaDirectMapping.cbDBitOut(BoardNum, PortType, BitNum, BitValue));
+        }
+        return event.finish("cbDBitOut", BoardNum, MeasurementComputingUniversalLibrary.INSTANCE.cbDBitOut(BoardNum, PortType, BitNum, BitValue));
+    }
+
+    public static int cbTIn(int BoardNum, int Chan, int Scale, FloatBuffer TempValue, int Options) {
+        final NativeCallEvent event = NativeCallEvent.start();
+        if (IS_DIRECT) {
+            return event.finish("cbTIn", BoardNum, JnaDirectMapping.cbTIn(BoardNum, Chan, Scale, TempValue, Options));
+        }
+        return event.finish("cbTIn", BoardNum, MeasurementComputingUniversalLibrary.INSTANCE.cbTIn(BoardNum, Chan, Scale, TempValue, Options));
+    }
+
+    public static int cbCIn32(int BoardNum, int CounterNum, NativeLongByReference Count) {
+        final NativeCallEvent event = NativeCallEvent.start();
+        if (IS_DIRECT) {
+            return event.finish("cbCIn32", BoardNum, JnaDirectMapping.cbCIn32(BoardNum, CounterNum, Count));
+        }
+        return event.finish("cbCIn32", BoardNum, MeasurementComputingUniversalLibrary.INSTANCE.cbCIn32(BoardNum, CounterNum, Count));
+    }
+
+    public static int cbGetIOStatus(int BoardNum, ShortBuffer Status, NativeLongByReference CurCount, NativeLongByReference CurIndex, int FunctionType) {
+        final NativeCallEvent event = NativeCallEvent.start();
+        if (IS_DIRECT) {
+            return event.finish("cbGetIOStatus", BoardNum, JnaDirectMapping.cbGetIOStatus(BoardNum, Status, CurCount, CurIndex, FunctionType));
+        }
+        return event.finish("cbGetIOStatus", BoardNum, MeasurementComputingUniversalLibrary.INSTANCE.cbGetIOStatus(BoardNum, Status, CurCount, CurIndex, FunctionType));
+    }
+
+    public static int cbGetConfig(int InfoType, int BoardNum, int DevNum, int ConfigItem, IntBuffer ConfigVal) {
+        final NativeCallEvent event = NativeCallEvent.start();
+        if (IS_DIRECT) {
+            return event.finish("cbGetConfig", BoardNum, JnaDirectMapping.cbGetConfig(InfoType, BoardNum, DevNum, ConfigItem, ConfigVal));
+        }
+        return event.finish("cbGetConfig", BoardNum, MeasurementComputingUniversalLibrary.INSTANCE.cbGetConfig(InfoType, BoardNum, DevNum, ConfigItem, ConfigVal));
+    }
+
+}
@@ -41,6 +41,33 @@ public class JMCCULException extends Exception {
         ERROR_CODE = errorCode;
     }
 
+    /**
+     * @return true if the error means the board can't do what was asked, as opposed to something which could work if
+     *         tried again, like a timeout or a lost USB connection.
+     */
+    public boolean isNotSupported() {
+        switch (ERROR_CODE) {
+            case MeasurementComputingUniversalLibrary.BADBOARDTYPE:
+            case MeasurementComputingUniversalLibrary.BADADCHAN:
+            case MeasurementComputingUniversalLibrary.BADDACHAN:
+            case MeasurementComputingUniversalLibrary.NOQUEUE:
+            case MeasurementComputingUniversalLibrary.BADRANGE:
+            case MeasurementComputingUniversalLibrary.BADPORTNUM:
+            case MeasurementComputingUniversalLibrary.BADBITNUMBER:
+            case MeasurementComputingUniversalLibrary.BADDIRECTION:
+            case MeasurementComputingUniversalLibrary.NOTCONFIGURABLE:
+            case MeasurementComputingUniversalLibrary.BADCONFIGTYPE:
+            case MeasurementComputingUniversalLibrary.BADCONFIGITEM:
+            case MeasurementComputingUniversalLibrary.NOTDIGITALCONF:
+            case MeasurementComputingUniversalLibrary.NOTCOUNTERCONF:
+            case MeasurementComputingUniversalLibrary.NOTDACONF:
+            case MeasurementComputingUniversalLibrary.NOTADCONF:
+                return true;
+            default:
+                return false;
+        }
+    }
+
     public void throwIfErrorIsNetworkDeviceInUse() throws JMCCULException {
         // TODO move this method to Utils class?
         if (ERROR_CODE == MeasurementComputingUniversalLibrary.NETDEVINUSE
@@ -0,0 +1,92 @@
+/*
+ * The MIT License.
+ *
+ * Copyright (c) 2022 Peter Froud.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package xyz.froud.jmccul;
+
+import com.sun.jna.Native;
+import com.sun.jna.NativeLibrary;
+import com.sun.jna.ptr.NativeLongByReference;
+import xyz.froud.jmccul.backend.NativeBackend;
+
+import java.nio.DoubleBuffer;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.nio.ShortBuffer;
+
+/**
+ * Native methods for the functions in {@link DirectUniversalLibrary}, bound with JNA direct mapping. The names must
+ * match the Universal Library functions. The DLL is only loaded when this class is first used.
+ *
+ * @author Peter Froud
+ */
+final class JnaDirectMapping {
+
+    static final boolean IS_REGISTERED;
+
+    static {
+        boolean isRegistered;
+        try {
+            final NativeLibrary library = NativeLibrary.getInstance(
+                    MeasurementComputingUniversalLibrary.LIBRARY_NAME,
+                    NativeBackend.getLibraryOptions()
+            );
+            Native.register(JnaDirectMapping.class, library);
+            isRegistered = true;
+        } catch (UnsatisfiedLinkError | IllegalArgumentException ex) {
+            isRegistered = false;
+        }
+        IS_REGISTERED = isRegistered;
+    }
+
+    static native int cbAIn(int BoardNum, int Chan, int Gain, ShortBuffer DataValue);
+
+    static native int cbAIn32(int BoardNum, int Chan, int Gain, NativeLongByReference DataValue, int Options);
+
+    static native int cbVIn(int BoardNum, int Chan, int Gain, FloatBuffer DataValue, int Options);
+
+    static native int cbVIn32(int BoardNum, int Chan, int Gain, DoubleBuffer DataValue, int Options);
+
+    static native int cbAOut(int BoardNum, int Chan, int Gain, short DataValue);
+
+    static native int cbVOut(int BoardNum, int Chan, int Gain, float DataValue, int Options);
+
+    static native int cbDIn(int BoardNum, int PortType, ShortBuffer DataValue);
+
+    static native int cbDIn32(int BoardNum, int PortType, IntBuffer DataValue);
+
+    static native int cbDOut(int BoardNum, int PortType, short DataValue);
+
+    static native int cbDBitIn(int BoardNum, int PortType, int BitNum, ShortBuffer BitValue);
+
+    static native int cbDBitOut(int BoardNum, int PortType, int BitNum, short BitValue);
+
+    static native int cbTIn(int BoardNum, int Chan, int Scale, FloatBuffer TempValue, int Options);
+
+    static native int cbCIn32(int BoardNum, int CounterNum, NativeLongByReference Count);
+
+    static native int cbGetIOStatus(int BoardNum, ShortBuffer Status, NativeLongByReference CurCount, NativeLongByReference CurIndex, int FunctionType);
+
+    static native int cbGetConfig(int InfoType, int BoardNum, int DevNum, int ConfigItem, IntBuffer ConfigVal);
+
+}
@@ -0,0 +1,338 @@
+/*
+ * The MIT License.
+ *
+ * Copyright (c) 2022 Peter Froud.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package xyz.froud.jmccul;
+
+import xyz.froud.jmccul.analog.AnalogRange;
+import xyz.froud.jmccul.digital.DigitalPortType;
+import xyz.froud.jmccul.temperature.TemperatureUnit;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Polls channels of one {@link DaqDevice} in the background and keeps the latest value of each, so any number of
+ * threads can get them without a Universal Library call and without a lock.
+ * <p>
+ * Add the channels first. Each add method returns a slot number, which is used to get the value later. Then call
+ * {@link #start(long, TimeUnit)}. Every period, all the channels are read in one task on the device's
+ * {@link BoardExecutor}. If the previous poll hasn't finished, that period is skipped.
+ * <pre>
+ * LatestValueTable table = new LatestValueTable(myDevice);
+ * int voltageSlot = table.addAnalogInput(0, AnalogRange.BIPOLAR_10_VOLTS);
+ * int portSlot = table.addDigitalPort(DigitalPortType.FIRST_PORT_A);
+ * table.start(10, TimeUnit.MILLISECONDS);
+ * double volts = table.getValue(voltageSlot);
+ * </pre>
+ * The poller is the only writer. Each slot has a sequence number which the poller makes odd while it writes the slot,
+ * and readers retry until they see the same even number before and after reading, so a reader never sees the value
+ * from one poll with the timestamp from another.
+ *
+ * @author Peter Froud
+ */
+public class LatestValueTable implements AutoCloseable {
+
+    /**
+     * A value, when it was read, and whether the latest read of it failed.
+     */
+    public static class Sample {
+
+        /**
+         * The latest value which was read successfully.
+         */
+        public final double VALUE;
+
+        /**
+         * When {@link #VALUE} was read, from {@link System#currentTimeMillis()}, or 0 if it has never been read.
+         */
+        public final long TIMESTAMP_MILLIS;
+
+        /**
+         * The error code from the latest read, or 0 if it succeeded. When a read fails, the value and timestamp from
+         * the read before it are kept.
+         */
+        public final int ERROR_CODE;
+
+        Sample(double value, long timestampMillis, int errorCode) {
+            VALUE = value;
+            TIMESTAMP_MILLIS = timestampMillis;
+            ERROR_CODE = errorCode;
+        }
+
+        @Override
+        public String toString() {
+            return "Sample{value=" + VALUE + ", timestampMillis=" + TIMESTAMP_MILLIS + ", errorCode=" + ERROR_CODE + '}';
+        }
+    }
+
+    @FunctionalInterface
+    private interface ChannelReader {
+
+        double read() throws JMCCULException;
+    }
+
+    // each slot is four longs
+    private static final int SLOT_LENGTH = 4;
+    private static final int OFFSET_SEQUENCE = 0;
+    private static final int OFFSET_VALUE = 1;
+    private static final int OFFSET_TIMESTAMP = 2;
+    private static final int OFFSET_ERROR_CODE = 3;
+
+    /**
+     * Only tells the board executors when to poll, so one thread is enough for every table.
+     */
+    private static final ScheduledExecutorService TIMER = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        final Thread thread = new Thread(runnable, "JMCCUL latest value table timer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final DaqDevice DAQ_DEVICE;
+    private final List<ChannelReader> READERS = new ArrayList<>();
+    private final AtomicBoolean IS_POLLING = new AtomicBoolean(false);
+
+    private volatile AtomicLongArray slots;
+    private volatile long pollCount = 0;
+    private volatile long skippedPollCount = 0;
+    private ScheduledFuture<?> timerTask;
+
+    public LatestValueTable(DaqDevice device) {
+        DAQ_DEVICE = device;
+    }
+
+    // <editor-fold defaultstate="collapsed" desc="add channels">
+
+    /**
+     * @return the slot number.
+     *
+     * @see xyz.froud.jmccul.analog.AnalogInputWrapper#readVoltage(int, AnalogRange)
+     */
+    public synchronized int addAnalogInput(int channel, AnalogRange range) {
+        return add(() -> DAQ_DEVICE.analog.input.readVoltage(channel, range));
+    }
+
+    /**
+     * The value is from 0 to 65535.
+     *
+     * @return the slot number.
+     *
+     * @see xyz.froud.jmccul.digital.DigitalInputWrapper#readPort(DigitalPortType)
+     */
+    public synchronized int addDigitalPort(DigitalPortType portType) {
+        return add(() -> Short.toUnsignedInt(DAQ_DEVICE.digital.input.readPort(portType)));
+    }
+
+    /**
+     * @return the slot number.
+     *
+     * @see xyz.froud.jmccul.counter.CounterWrapper#read(int)
+     */
+    public synchronized int addCounter(int counterNumber) {
+        return add(() -> DAQ_DEVICE.counter.read(counterNumber));
+    }
+
+    /**
+     * @return the slot number.
+     *
+     * @see xyz.froud.jmccul.temperature.TemperatureWrapper#read(int, TemperatureUnit)
+     */
+    public synchronized int addTemperature(int channel, TemperatureUnit unit) {
+        return add(() -> DAQ_DEVICE.temperature.read(channel, unit));
+    }
+
+    private int add(ChannelReader reader) {
+        if (slots != null) {
+            throw new IllegalStateException("can't add channels after the table has been started");
+        }
+        READERS.add(reader);
+        return READERS.size() - 1;
+    }
+
+    // </editor-fold>
+
+    /**
+     * Starts polling every channel which has been added. The first poll starts right away. A table can only be
+     * started once.
+     */
+    public synchronized void start(long period, TimeUnit unit) {
+        if (slots != null) {
+            throw new IllegalStateException("the table has already been started");
+        }
+        if (period <= 0) {
+            throw new IllegalArgumentException("the period must be positive");
+        }
+        slots = new AtomicLongArray(READERS.size() * SLOT_LENGTH);
+        timerTask = TIMER.scheduleAtFixedRate(this::requestPoll, 0, period, unit);
+    }
+
+    /**
+     * Stops polling. The values which were already read can still be read. Polling also stops by itself when the
+     * device is closed.
+     */
+    public synchronized void stop() {
+        if (timerTask != null) {
+            timerTask.cancel(false);
+        }
+    }
+
+    /**
+     * Same as {@link #stop()}.
+     */
+    @Override
+    public void close() {
+        stop();
+    }
+
+    public int getSlotCount() {
+        return READERS.size();
+    }
+
+    /**
+     * @return how many times every channel has been read.
+     */
+    public long getPollCount() {
+        return pollCount;
+    }
+
+    /**
+     * @return how many periods were skipped because the poll before it was still running.
+     */
+    public long getSkippedPollCount() {
+        return skippedPollCount;
+    }
+
+    // <editor-fold defaultstate="collapsed" desc="read values">
+
+    /**
+     * @return the latest value which was read successfully, or 0 if none has been.
+     */
+    public double getValue(int slot) {
+        final AtomicLongArray array = getSlots();
+        final int base = getBase(slot);
+        while (true) {
+            final long sequence = array.get(base + OFFSET_SEQUENCE);
+            final long valueBits = array.get(base + OFFSET_VALUE);
+            if ((sequence & 1) == 0 && array.get(base + OFFSET_SEQUENCE) == sequence) {
+                return Double.longBitsToDouble(valueBits);
+            }
+            Thread.onSpinWait();
+        }
+    }
+
+    /**
+     * @return when the value was read, from {@link System#currentTimeMillis()}, or 0 if it has never been read.
+     */
+    public long getTimestampMillis(int slot) {
+        final AtomicLongArray array = getSlots();
+        // one long is written atomically, so this doesn't need the sequence number
+        return array.get(getBase(slot) + OFFSET_TIMESTAMP);
+    }
+
+    /**
+     * @return the value, timestamp, and error code, all from the same poll.
+     */
+    public Sample getSample(int slot) {
+        final AtomicLongArray array = getSlots();
+        final int base = getBase(slot);
+        while (true) {
+            final long sequence = array.get(base + OFFSET_SEQUENCE);
+            final long valueBits = array.get(base + OFFSET_VALUE);
+            final long timestampMillis = array.get(base + OFFSET_TIMESTAMP);
+            final long errorCode = array.get(base + OFFSET_ERROR_CODE);
+            if ((sequence & 1) == 0 && array.get(base + OFFSET_SEQUENCE) == sequence) {
+                return new Sample(Double.longBitsToDouble(valueBits), timestampMillis, (int) errorCode);
+            }
+            Thread.onSpinWait();
+        }
+    }
+
+    private AtomicLongArray getSlots() {
+        final AtomicLongArray array = slots;
+        if (array == null) {
+            throw new IllegalStateException("the table hasn't been started");
+        }
+        return array;
+    }
+
+    private int getBase(int slot) {
+        if (slot < 0 || slot >= READERS.size()) {
+            throw new IndexOutOfBoundsException("no slot " + slot);
+        }
+        return slot * SLOT_LENGTH;
+    }
+
+    // </editor-fold>
+
+    private void requestPoll() {
+        if (!DAQ_DEVICE.isOpen()) {
+            stop();
+            return;
+        }
+        if (!IS_POLLING.compareAndSet(false, true)) {
+            skippedPollCount++;
+            return;
+        }
+        DAQ_DEVICE.submit(() -> {
+            poll();
+            return null;
+        }).whenComplete((ignored, ex) -> IS_POLLING.set(false));
+    }
+
+    /**
+     * Runs on the board executor, and never at the same time as itself.
+     */
+    private void poll() {
+        final AtomicLongArray array = slots;
+        for (int slot = 0; slot < READERS.size(); slot++) {
+            final int base = slot * SLOT_LENGTH;
+            double value = 0;
+            boolean isRead = false;
+            int errorCode = 0;
+            try {
+                value = READERS.get(slot).read();
+                isRead = true;
+            } catch (JMCCULException ex) {
+                errorCode = ex.ERROR_CODE;
+            }
+            final long timestampMillis = System.currentTimeMillis();
+
+            final long sequence = array.get(base + OFFSET_SEQUENCE);
+            array.set(base + OFFSET_SEQUENCE, sequence + 1);
+            if (isRead) {
+                array.set(base + OFFSET_VALUE, Double.doubleToRawLongBits(value));
+                array.set(base + OFFSET_TIMESTAMP, timestampMillis);
+            }
+            array.set(base + OFFSET_ERROR_CODE, errorCode);
+            array.set(base + OFFSET_SEQUENCE, sequence + 2);
+        }
+        pollCount++;
+    }
+
+}
@@ -50,10 +50,12 @@ import java.nio.ShortBuffer;
 @SuppressWarnings("ALL")
 public interface MeasurementComputingUniversalLibrary extends StdCallLibrary {
 
-    public static final MeasurementComputingUniversalLibrary INSTANCE = Native.load(
-            (Platform.is64Bit() ? "cbw64.dll" : "cbw32.dll"),
-            MeasurementComputingUniversalLibrary.class
-    );
+    public static final String LIBRARY_NAME = (Platform.is64Bit() ? "cbw64.dll" : "cbw32.dll");
+
+    /**
+     * The real DLL unless another backend is selected, see {@link xyz.froud.jmccul.backend.UniversalLibraryBackend}.
+     */
+    public static final MeasurementComputingUniversalLibrary INSTANCE = xyz.froud.jmccul.backend.UniversalLibraryBackend.select();
 
     public static final int TRIG_ANALOG_SW = (int) 3;
     public static final int CONVERTDATA = (int) 0x0008;
@@ -0,0 +1,130 @@
+/*
+ * The MIT License.
+ *
+ * Copyright (c) 2022 Peter Froud.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package xyz.froud.jmccul;
+
+import com.sun.jna.Memory;
+import com.sun.jna.Native;
+import com.sun.jna.ptr.NativeLongByReference;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.nio.ShortBuffer;
+
+/**
+ * Native memory which the single-value read methods use for the value the Universal Library writes back, so that
+ * reading one value does not allocate anything.
+ * <p>
+ * Before, every read allocated a one-element heap buffer, and JNA copied it into temporary native memory and back. A
+ * direct buffer is passed to the native function as a pointer with no copy. Each thread gets its own scratch memory,
+ * so the buffers can be reused without locking. Each method gives the same buffer every time, so read the value out
+ * of it right after the native call, before calling another method which uses the scratch memory.
+ * <p>
+ * This is used by the wrapper classes and is not meant for application code.
+ *
+ * @author Peter Froud
+ */
+public final class NativeScratch {
+
+    /**
+     * Big enough for one double, which is the biggest single value.
+     */
+    private static final int SIZE_BYTES = Double.BYTES;
+
+    private static final ThreadLocal<NativeScratch> SCRATCH = ThreadLocal.withInitial(NativeScratch::new);
+
+    private final Memory MEMORY = new Memory(SIZE_BYTES);
+    private final ShortBuffer SHORT;
+    private final IntBuffer INT;
+    private final FloatBuffer FLOAT;
+    private final DoubleBuffer DOUBLE;
+    private final NativeLongByReference NATIVE_LONG = new NativeLongByReference();
+
+    private NativeScratch() {
+        final ByteBuffer bytes = MEMORY.getByteBuffer(0, SIZE_BYTES).order(ByteOrder.nativeOrder());
+        SHORT = bytes.asShortBuffer();
+        INT = bytes.asIntBuffer();
+        FLOAT = bytes.asFloatBuffer();
+        DOUBLE = bytes.asDoubleBuffer();
+    }
+
+    /**
+     * @return the scratch memory of the current thread.
+     */
+    public static NativeScratch get() {
+        return SCRATCH.get();
+    }
+
+    /**
+     * Use {@code get(0)} to read the value, since the position is never moved.
+     */
+    public ShortBuffer getShortBuffer() {
+        return SHORT;
+    }
+
+    /**
+     * Use {@code get(0)} to read the value, since the position is never moved.
+     */
+    public IntBuffer getIntBuffer() {
+        return INT;
+    }
+
+    /**
+     * Use {@code get(0)} to read the value, since the position is never moved.
+     */
+    public FloatBuffer getFloatBuffer() {
+        return FLOAT;
+    }
+
+    /**
+     * Use {@code get(0)} to read the value, since the position is never moved.
+     */
+    public DoubleBuffer getDoubleBuffer() {
+        return DOUBLE;
+    }
+
+    /**
+     * Use {@link #getNativeLongValue()} to read the value, because {@link NativeLongByReference#getValue()} allocates
+     * a new NativeLong.
+     */
+    public NativeLongByReference getNativeLongByReference() {
+        return NATIVE_LONG;
+    }
+
+    /**
+     * @return the value in {@link #getNativeLongByReference()}, the same as {@code getValue().longValue()}. On Windows
+     *         a C long is 32 bits, so the value is sign-extended.
+     */
+    public long getNativeLongValue() {
+        if (Native.LONG_SIZE == Integer.BYTES) {
+            return NATIVE_LONG.getPointer().getInt(0);
+        } else {
+            return NATIVE_LONG.getPointer().getLong(0);
+        }
+    }
+
+}
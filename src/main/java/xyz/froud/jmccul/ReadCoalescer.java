@@ -0,0 +1,204 @@
+/*
+ * The MIT License.
+ *
+ * Copyright (c) 2022 Peter Froud.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package xyz.froud.jmccul;
+
+import xyz.froud.jmccul.analog.AnalogRange;
+import xyz.froud.jmccul.temperature.TemperatureUnit;
+
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Shares single-value reads between threads which read the same channel. When a read of a channel is already running,
+ * other reads of that channel wait for it instead of making another Universal Library call. A read which finished
+ * within the freshness window is also reused.
+ * <p>
+ * Reads are the same if they are on the same {@link DaqDevice} and channel with the same range or temperature unit.
+ * Failed reads are never reused. The calls run on the device's {@link BoardExecutor}.
+ * <p>
+ * Use one coalescer for everything in the program which should share reads, for example:
+ * <pre>
+ * ReadCoalescer coalescer = new ReadCoalescer(50, TimeUnit.MILLISECONDS);
+ * float volts = coalescer.readVoltage(myDevice, 0, AnalogRange.BIPOLAR_10_VOLTS);
+ * </pre>
+ *
+ * @author Peter Froud
+ */
+public class ReadCoalescer {
+
+    private final long FRESHNESS_NANOS;
+    private final Map<Key, SharedRead> READS = new ConcurrentHashMap<>();
+    private final LongAdder NATIVE_READ_COUNT = new LongAdder();
+    private final LongAdder SHARED_READ_COUNT = new LongAdder();
+
+    /**
+     * @param freshness how old a finished read can be and still be returned. Zero only shares reads which are still
+     *         running.
+     */
+    public ReadCoalescer(long freshness, TimeUnit unit) {
+        if (freshness < 0) {
+            throw new IllegalArgumentException("the freshness window can't be negative");
+        }
+        FRESHNESS_NANOS = unit.toNanos(freshness);
+    }
+
+    /**
+     * @see xyz.froud.jmccul.analog.AnalogInputWrapper#readVoltage(int, AnalogRange)
+     */
+    public float readVoltage(DaqDevice device, int channel, AnalogRange range) throws JMCCULException {
+        return join(readVoltageAsync(device, channel, range));
+    }
+
+    public CompletableFuture<Float> readVoltageAsync(DaqDevice device, int channel, AnalogRange range) {
+        return read(new Key(device, Key.TYPE_VOLTAGE, channel, range.VALUE),
+                () -> device.analog.input.readVoltageAsync(channel, range));
+    }
+
+    /**
+     * @see xyz.froud.jmccul.temperature.TemperatureWrapper#read(int, TemperatureUnit)
+     */
+    public float readTemperature(DaqDevice device, int channel, TemperatureUnit unit) throws JMCCULException {
+        return join(readTemperatureAsync(device, channel, unit));
+    }
+
+    public CompletableFuture<Float> readTemperatureAsync(DaqDevice device, int channel, TemperatureUnit unit) {
+        return read(new Key(device, Key.TYPE_TEMPERATURE, channel, unit.VALUE),
+                () -> device.temperature.readAsync(channel, unit));
+    }
+
+    /**
+     * @return how many reads made a Universal Library call.
+     */
+    public long getNativeReadCount() {
+        return NATIVE_READ_COUNT.sum();
+    }
+
+    /**
+     * @return how many reads got the result of another read instead of making a Universal Library call.
+     */
+    public long getSharedReadCount() {
+        return SHARED_READ_COUNT.sum();
+    }
+
+    /**
+     * Forgets every finished read, so the next read of each channel makes a Universal Library call. The coalescer
+     * keeps a reference to every device it has read from until this is called.
+     */
+    public void clear() {
+        READS.values().removeIf(read -> read.FUTURE.isDone());
+    }
+
+    private CompletableFuture<Float> read(Key key, Supplier<CompletableFuture<Float>> startRead) {
+        final long nowNanos = System.nanoTime();
+        final boolean[] isNew = {false};
+        final SharedRead read = READS.compute(key, (k, existing) -> {
+            if (existing != null && existing.isUsable(nowNanos, FRESHNESS_NANOS)) {
+                return existing;
+            }
+            // submitting to the board executor doesn't block, so this is fine inside compute()
+            isNew[0] = true;
+            return new SharedRead(startRead.get());
+        });
+        if (isNew[0]) {
+            NATIVE_READ_COUNT.increment();
+        } else {
+            SHARED_READ_COUNT.increment();
+        }
+        // a copy, so a caller cancelling or completing its future doesn't affect the others
+        return read.FUTURE.thenApply(value -> value);
+    }
+
+    private static float join(CompletableFuture<Float> future) throws JMCCULException {
+        try {
+            return future.join();
+        } catch (CompletionException ex) {
+            if (ex.getCause() instanceof JMCCULException) {
+                throw (JMCCULException) ex.getCause();
+            }
+            throw ex;
+        }
+    }
+
+    private static class SharedRead {
+
+        private final CompletableFuture<Float> FUTURE;
+        private volatile long completedNanos;
+
+        SharedRead(CompletableFuture<Float> nativeRead) {
+            // set the time before FUTURE completes, so a finished read always has its time
+            FUTURE = nativeRead.thenApply(value -> {
+                completedNanos = System.nanoTime();
+                return value;
+            });
+        }
+
+        boolean isUsable(long nowNanos, long freshnessNanos) {
+            if (!FUTURE.isDone()) {
+                return true;
+            }
+            return !FUTURE.isCompletedExceptionally() && nowNanos - completedNanos <= freshnessNanos;
+        }
+    }
+
+    private static class Key {
+
+        static final int TYPE_VOLTAGE = 0;
+        static final int TYPE_TEMPERATURE = 1;
+
+        private final DaqDevice DEVICE;
+        private final int TYPE;
+        private final int CHANNEL;
+        // the range or temperature unit
+        private final int CODE;
+
+        Key(DaqDevice device, int type, int channel, int code) {
+            DEVICE = device;
+            TYPE = type;
+            CHANNEL = channel;
+            CODE = code;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof Key)) {
+                return false;
+            }
+            final Key other = (Key) obj;
+            return DEVICE == other.DEVICE && TYPE == other.TYPE && CHANNEL == other.CHANNEL && CODE == other.CODE;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(System.identityHashCode(DEVICE), TYPE, CHANNEL, CODE);
+        }
+    }
+
+}
@@ -0,0 +1,358 @@
+/*
+ * The MIT License.
+ *
+ * Copyright (c) 2022 Peter Froud.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package xyz.froud.jmccul;
+
+import com.sun.jna.NativeLong;
+import com.sun.jna.Pointer;
+
+import java.lang.ref.Cleaner;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.nio.ShortBuffer;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * A Windows buffer allocated by the Universal Library, which scan functions read samples from or write samples into.
+ * <p>
+ * The memory handle returned by cbWinBufAlloc() can be used directly as a pointer to the samples, which is what the
+ * C examples in the Universal Library help do. So instead of copying samples in and out with cbWinBufToArray() and
+ * cbWinArrayToBuf(), this class gives direct NIO views of the native memory. Reading or writing a view reads or writes
+ * the Windows buffer itself.
+ * <p>
+ * Call {@link #close()} when finished with the buffer, preferably with try-with-resources. It frees the native memory
+ * with cbWinBufFree(), or hands it back to the {@link WindowsBufferPool} it came from. Views must not be used after
+ * the buffer is closed. If a buffer is never closed, a {@link Cleaner} frees the native memory some time after the
+ * buffer and all of its NIO views become unreachable, but do not rely on that: the garbage collector does not know how
+ * much native memory is behind each buffer. A {@link Pointer} from {@link #getPointer(int)} does not keep the buffer
+ * reachable, so keep a reference to the buffer while using it.
+ *
+ * @author Peter Froud
+ * @see <a
+ *         href="https://www.mccdaq.com/pdfs/manuals/Mcculw_WebHelp/hh_goto.htm?ULStart.htm#Function_Reference/Windows_Memory_Management_Functions/cbWinBufAlloc.htm">cbWinBufAlloc()</a>
+ */
+public class WindowsBuffer implements AutoCloseable {
+
+    /**
+     * How big each sample in the buffer is, which depends on which allocation function made the buffer.
+     */
+    public enum SampleType {
+        /**
+         * Made by cbWinBufAlloc(), for data which is 16 bits or less.
+         */
+        SHORT(Short.BYTES),
+        /**
+         * Made by cbWinBufAlloc32(), for data which is more than 16 bits and not more than 32 bits.
+         */
+        INT(Integer.BYTES),
+        /**
+         * Made by cbWinBufAlloc64(), for data which is more than 32 bits and not more than 64 bits.
+         */
+        LONG(Long.BYTES),
+        /**
+         * Made by cbScaledWinBufAlloc(), for scaled data.
+         */
+        DOUBLE(Double.BYTES);
+
+        public final int BYTES;
+
+        SampleType(int bytes) {
+            BYTES = bytes;
+        }
+    }
+
+    private static final Cleaner CLEANER = Cleaner.create();
+
+    private final MeasurementComputingUniversalLibrary.HGLOBAL HANDLE;
+    private final SampleType SAMPLE_TYPE;
+    private final int SAMPLE_COUNT;
+    private final int CAPACITY;
+    /*
+    All the native memory. Every view is a slice of this, and a direct buffer made from another direct buffer keeps a
+    reference to it, so the Cleaner watches this instead of the WindowsBuffer. Then the memory is not freed while a
+    view is still reachable, even if the WindowsBuffer is not.
+     */
+    private final ByteBuffer MEMORY;
+    private final Release RELEASE;
+    private final Cleaner.Cleanable CLEANABLE;
+    private final AtomicBoolean IS_CLOSED = new AtomicBoolean(false);
+
+    /**
+     * @param handle memory handle which this object now owns.
+     * @param sampleCount how many samples the buffer is used for.
+     * @param capacity how many samples the native memory was allocated for, which may be more than sampleCount.
+     * @param pool where to hand the memory back to when the buffer is closed, or null to free it.
+     */
+    WindowsBuffer(MeasurementComputingUniversalLibrary.HGLOBAL handle, SampleType sampleType, int sampleCount, int capacity, WindowsBufferPool pool) {
+        HANDLE = handle;
+        SAMPLE_TYPE = sampleType;
+        SAMPLE_COUNT = sampleCount;
+        CAPACITY = capacity;
+        MEMORY = handle.getPointer().getByteBuffer(0, (long) capacity * sampleType.BYTES);
+        RELEASE = new Release(handle, sampleType, capacity, pool);
+        CLEANABLE = CLEANER.register(MEMORY, RELEASE);
+    }
+
+    /**
+     * Frees the native memory or hands it back to the pool. This must not hold a reference to the WindowsBuffer or to
+     * its memory, otherwise the Cleaner could never run it.
+     */
+    private static class Release implements Runnable {
+
+        private final MeasurementComputingUniversalLibrary.HGLOBAL HANDLE;
+        private final SampleType SAMPLE_TYPE;
+        private final int CAPACITY;
+        private final WindowsBufferPool POOL;
+
+        /*
+        Only set by close(). When the Cleaner runs this instead, nothing can use the memory any more, but a
+        Pointer from getPointer() could still point at it, so it is freed rather than given to someone else.
+         */
+        private volatile boolean isRecyclable = false;
+
+        Release(MeasurementComputingUniversalLibrary.HGLOBAL handle, SampleType sampleType, int capacity, WindowsBufferPool pool) {
+            HANDLE = handle;
+            SAMPLE_TYPE = sampleType;
+            CAPACITY = capacity;
+            POOL = pool;
+        }
+
+        @Override
+        public void run() {
+            if (isRecyclable && POOL != null) {
+                POOL.recycle(HANDLE, SAMPLE_TYPE, CAPACITY);
+            } else {
+                free(HANDLE);
+            }
+        }
+    }
+
+    /**
+     * Allocates a Windows buffer with the allocation function which matches the sample type. The buffer is not
+     * pooled, so closing it frees the native memory.
+     *
+     * @param sampleType which size of samples the buffer holds.
+     * @param sampleCount how many samples the buffer holds.
+     *
+     * @throws JMCCULException if the Universal Library could not allocate the buffer.
+     * @see WindowsBufferPool#acquire(SampleType, int)
+     */
+    public static WindowsBuffer allocate(SampleType sampleType, int sampleCount) throws JMCCULException {
+        return new WindowsBuffer(allocateHandle(sampleType, sampleCount), sampleType, sampleCount, sampleCount, null);
+    }
+
+    static MeasurementComputingUniversalLibrary.HGLOBAL allocateHandle(SampleType sampleType, int sampleCount) throws JMCCULException {
+        if (sampleCount < 1) {
+            throw new IllegalArgumentException("the sample count must be positive, but it is " + sampleCount);
+        }
+        final NativeLong numPoints = new NativeLong(sampleCount);
+        final MeasurementComputingUniversalLibrary.HGLOBAL handle;
+        switch (sampleType) {
+            case SHORT:
+                // https://www.mccdaq.com/pdfs/manuals/Mcculw_WebHelp/hh_goto.htm?ULStart.htm#Function_Reference/Windows_Memory_Management_Functions/cbWinBufAlloc.htm
+                handle = MeasurementComputingUniversalLibrary.INSTANCE.cbWinBufAlloc(numPoints);
+                break;
+            case INT:
+                // https://www.mccdaq.com/pdfs/manuals/Mcculw_WebHelp/hh_goto.htm?ULStart.htm#Function_Reference/Windows_Memory_Management_Functions/cbWinBufAlloc32.htm
+                handle = MeasurementComputingUniversalLibrary.INSTANCE.cbWinBufAlloc32(numPoints);
+                break;
+            case LONG:
+                // https://www.mccdaq.com/pdfs/manuals/Mcculw_WebHelp/hh_goto.htm?ULStart.htm#Function_Reference/Windows_Memory_Management_Functions/cbWinBufAlloc64.htm
+                handle = MeasurementComputingUniversalLibrary.INSTANCE.cbWinBufAlloc64(numPoints);
+                break;
+            case DOUBLE:
+                // https://www.mccdaq.com/pdfs/manuals/Mcculw_WebHelp/hh_goto.htm?ULStart.htm#Function_Reference/Windows_Memory_Management_Functions/cbScaledWinBufAlloc.htm
+                handle = MeasurementComputingUniversalLibrary.INSTANCE.cbScaledWinBufAlloc(numPoints);
+                break;
+            default:
+                throw new IllegalArgumentException("unknown sample type " + sampleType);
+        }
+        if (handle == null || handle.getPointer() == null) {
+            throw new JMCCULException(String.format("could not allocate a Windows buffer for %d %s samples", sampleCount, sampleType));
+        }
+        return handle;
+    }
+
+    static void free(MeasurementComputingUniversalLibrary.HGLOBAL handle) {
+        // https://www.mccdaq.com/pdfs/manuals/Mcculw_WebHelp/hh_goto.htm?ULStart.htm#Function_Reference/Windows_Memory_Management_Functions/cbWinBufFree.htm
+        MeasurementComputingUniversalLibrary.INSTANCE.cbWinBufFree(handle);
+    }
+
+    /**
+     * Frees the native memory, or hands it back to the pool the buffer came from. Does nothing if the buffer is
+     * already closed.
+     */
+    @Override
+    public void close() {
+        if (IS_CLOSED.compareAndSet(false, true)) {
+            RELEASE.isRecyclable = true;
+            CLEANABLE.clean();
+        }
+    }
+
+    public boolean isClosed() {
+        return IS_CLOSED.get();
+    }
+
+    /**
+     * @return the memory handle to pass to Universal Library functions.
+     */
+    public MeasurementComputingUniversalLibrary.HGLOBAL getHandle() {
+        checkOpen();
+        return HANDLE;
+    }
+
+    public SampleType getSampleType() {
+        return SAMPLE_TYPE;
+    }
+
+    public int getSampleCount() {
+        return SAMPLE_COUNT;
+    }
+
+    /**
+     * @return how many samples fit in the native memory. Buffers from a pool may have room for more samples than
+     *         {@link #getSampleCount()}.
+     */
+    public int getCapacity() {
+        return CAPACITY;
+    }
+
+    /**
+     * @param firstSample index of the first sample in the slice.
+     *
+     * @return a pointer to the sample, which shares memory with the Windows buffer. It does not keep the buffer
+     *         reachable, so the caller must keep a reference to the buffer while the pointer is used.
+     */
+    public Pointer getPointer(int firstSample) {
+        checkSlice(firstSample, 0);
+        return HANDLE.getPointer().share((long) firstSample * SAMPLE_TYPE.BYTES);
+    }
+
+    /**
+     * @return a direct buffer of the whole Windows buffer in native byte order.
+     */
+    public ByteBuffer asByteBuffer() {
+        return asByteBuffer(0, SAMPLE_COUNT);
+    }
+
+    /**
+     * @param firstSample index of the first sample in the view.
+     * @param sampleCount how many samples are in the view.
+     *
+     * @return a direct buffer of part of the Windows buffer in native byte order. Its position is zero and its
+     *         capacity is the number of bytes in the samples.
+     */
+    public ByteBuffer asByteBuffer(int firstSample, int sampleCount) {
+        checkSlice(firstSample, sampleCount);
+        // slice() doesn't change MEMORY, so views can be made from several threads at once
+        return MEMORY.slice(firstSample * SAMPLE_TYPE.BYTES, sampleCount * SAMPLE_TYPE.BYTES)
+                .order(ByteOrder.nativeOrder());
+    }
+
+    /**
+     * @return a direct view of the whole buffer. Only for buffers made by cbWinBufAlloc().
+     */
+    public ShortBuffer asShortBuffer() {
+        return asShortBuffer(0, SAMPLE_COUNT);
+    }
+
+    /**
+     * Only for buffers made by cbWinBufAlloc().
+     */
+    public ShortBuffer asShortBuffer(int firstSample, int sampleCount) {
+        checkSampleType(SampleType.SHORT);
+        return asByteBuffer(firstSample, sampleCount).asShortBuffer();
+    }
+
+    /**
+     * @return a direct view of the whole buffer. Only for buffers made by cbWinBufAlloc32().
+     */
+    public IntBuffer asIntBuffer() {
+        return asIntBuffer(0, SAMPLE_COUNT);
+    }
+
+    /**
+     * Only for buffers made by cbWinBufAlloc32().
+     */
+    public IntBuffer asIntBuffer(int firstSample, int sampleCount) {
+        checkSampleType(SampleType.INT);
+        return asByteBuffer(firstSample, sampleCount).asIntBuffer();
+    }
+
+    /**
+     * @return a direct view of the whole buffer. Only for buffers made by cbWinBufAlloc64().
+     */
+    public LongBuffer asLongBuffer() {
+        return asLongBuffer(0, SAMPLE_COUNT);
+    }
+
+    /**
+     * Only for buffers made by cbWinBufAlloc64().
+     */
+    public LongBuffer asLongBuffer(int firstSample, int sampleCount) {
+        checkSampleType(SampleType.LONG);
+        return asByteBuffer(firstSample, sampleCount).asLongBuffer();
+    }
+
+    /**
+     * @return a direct view of the whole buffer. Only for buffers made by cbScaledWinBufAlloc().
+     */
+    public DoubleBuffer asDoubleBuffer() {
+        return asDoubleBuffer(0, SAMPLE_COUNT);
+    }
+
+    /**
+     * Only for buffers made by cbScaledWinBufAlloc().
+     */
+    public DoubleBuffer asDoubleBuffer(int firstSample, int sampleCount) {
+        checkSampleType(SampleType.DOUBLE);
+        return asByteBuffer(firstSample, sampleCount).asDoubleBuffer();
+    }
+
+    private void checkSampleType(SampleType expected) {
+        if (SAMPLE_TYPE != expected) {
+            throw new IllegalStateException(String.format("this buffer holds %s samples, not %s samples", SAMPLE_TYPE, expected));
+        }
+    }
+
+    private void checkOpen() {
+        if (IS_CLOSED.get()) {
+            throw new IllegalStateException("the Windows buffer is closed");
+        }
+    }
+
+    private void checkSlice(int firstSample, int sampleCount) {
+        checkOpen();
+        if (firstSample < 0 || sampleCount < 0 || firstSample + sampleCount > SAMPLE_COUNT) {
+            throw new IndexOutOfBoundsException(String.format(
+                    "samples %d to %d are outside the buffer, which holds %d samples", firstSample, firstSample + sampleCount, SAMPLE_COUNT
+            ));
+        }
+    }
+
+}
@@ -0,0 +1,172 @@
+/*
+ * The MIT License.
+ *
+ * Copyright (c) 2022 Peter Froud.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package xyz.froud.jmccul;
+
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps closed Windows buffers around so the next scan can reuse them instead of asking the Universal Library for
+ * more memory.
+ * <p>
+ * Buffers are grouped into buckets by sample type and capacity. The capacity is the requested sample count rounded up
+ * to a power of two, so scans with slightly different lengths can share buffers. Each bucket keeps a limited number of
+ * idle buffers. Any more are freed straight away.
+ * <p>
+ * A buffer from a pool still has whatever samples the last user left in it.
+ *
+ * @author Peter Froud
+ */
+public class WindowsBufferPool implements AutoCloseable {
+
+    private static final int MIN_BUCKET_CAPACITY = 64;
+    private static final int DEFAULT_MAX_IDLE_PER_BUCKET = 4;
+
+    private static WindowsBufferPool shared;
+
+    private final int MAX_IDLE_PER_BUCKET;
+    private final Map<Long, BlockingQueue<MeasurementComputingUniversalLibrary.HGLOBAL>> BUCKETS = new ConcurrentHashMap<>();
+    private volatile boolean isClosed = false;
+
+    public WindowsBufferPool() {
+        this(DEFAULT_MAX_IDLE_PER_BUCKET);
+    }
+
+    /**
+     * @param maxIdlePerBucket how many closed buffers of each sample type and capacity to keep for reuse.
+     */
+    public WindowsBufferPool(int maxIdlePerBucket) {
+        if (maxIdlePerBucket < 1) {
+            throw new IllegalArgumentException("maxIdlePerBucket must be positive, but it is " + maxIdlePerBucket);
+        }
+        MAX_IDLE_PER_BUCKET = maxIdlePerBucket;
+    }
+
+    /**
+     * @return the pool which the wrapper classes use for their own scans.
+     */
+    public static synchronized WindowsBufferPool getShared() {
+        if (shared == null) {
+            shared = new WindowsBufferPool();
+        }
+        return shared;
+    }
+
+    /**
+     * Gets a Windows buffer for at least sampleCount samples, reusing an idle one if there is one. Closing the
+     * buffer hands it back to this pool.
+     *
+     * @param sampleType which size of samples the buffer holds.
+     * @param sampleCount how many samples the buffer is used for. This becomes {@link WindowsBuffer#getSampleCount()}.
+     *
+     * @throws JMCCULException if the Universal Library could not allocate a new buffer.
+     */
+    public WindowsBuffer acquire(WindowsBuffer.SampleType sampleType, int sampleCount) throws JMCCULException {
+        if (sampleCount < 1) {
+            throw new IllegalArgumentException("the sample count must be positive, but it is " + sampleCount);
+        }
+        final int capacity = getBucketCapacity(sampleCount);
+
+        MeasurementComputingUniversalLibrary.HGLOBAL handle = null;
+        if (!isClosed) {
+            final BlockingQueue<MeasurementComputingUniversalLibrary.HGLOBAL> bucket = BUCKETS.get(getBucketKey(sampleType, capacity));
+            if (bucket != null) {
+                handle = bucket.poll();
+            }
+        }
+        if (handle == null) {
+            handle = WindowsBuffer.allocateHandle(sampleType, capacity);
+        }
+        return new WindowsBuffer(handle, sampleType, sampleCount, capacity, this);
+    }
+
+    /**
+     * Called when a buffer from this pool is closed.
+     */
+    void recycle(MeasurementComputingUniversalLibrary.HGLOBAL handle, WindowsBuffer.SampleType sampleType, int capacity) {
+        if (!isClosed) {
+            final BlockingQueue<MeasurementComputingUniversalLibrary.HGLOBAL> bucket = BUCKETS.computeIfAbsent(
+                    getBucketKey(sampleType, capacity),
+                    key -> new ArrayBlockingQueue<>(MAX_IDLE_PER_BUCKET)
+            );
+            if (bucket.offer(handle)) {
+                if (isClosed) {
+                    // the pool was closed while we were adding to it
+                    freeIdle();
+                }
+                return;
+            }
+        }
+        WindowsBuffer.free(handle);
+    }
+
+    /**
+     * @return how many closed buffers the pool is holding on to.
+     */
+    public int getIdleCount() {
+        int count = 0;
+        for (BlockingQueue<MeasurementComputingUniversalLibrary.HGLOBAL> bucket : BUCKETS.values()) {
+            count += bucket.size();
+        }
+        return count;
+    }
+
+    /**
+     * Frees all the idle buffers. Buffers which are still in use are freed when they are closed.
+     */
+    @Override
+    public void close() {
+        isClosed = true;
+        freeIdle();
+    }
+
+    private void freeIdle() {
+        for (BlockingQueue<MeasurementComputingUniversalLibrary.HGLOBAL> bucket : BUCKETS.values()) {
+            MeasurementComputingUniversalLibrary.HGLOBAL handle;
+            while ((handle = bucket.poll()) != null) {
+                WindowsBuffer.free(handle);
+            }
+        }
+    }
+
+    static int getBucketCapacity(int sampleCount) {
+        if (sampleCount <= MIN_BUCKET_CAPACITY) {
+            return MIN_BUCKET_CAPACITY;
+        }
+        final int highestOneBit = Integer.highestOneBit(sampleCount);
+        if (highestOneBit == sampleCount || highestOneBit == (1 << 30)) {
+            // already a power of two, or rounding up would overflow
+            return sampleCount;
+        }
+        return highestOneBit << 1;
+    }
+
+    private static long getBucketKey(WindowsBuffer.SampleType sampleType, int capacity) {
+        return ((long) capacity << 8) | sampleType.ordinal();
+    }
+
+}
@@ -0,0 +1,627 @@
+/*
+ * The MIT License.
+ *
+ * Copyright (c) 2022 Peter Froud.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package xyz.froud.jmccul.analog;
+
+import com.sun.jna.NativeLong;
+import com.sun.jna.Pointer;
+import com.sun.jna.ptr.NativeLongByReference;
+import xyz.froud.jmccul.BoardExecutor;
+import xyz.froud.jmccul.DirectUniversalLibrary;
+import xyz.froud.jmccul.JMCCULException;
+import xyz.froud.jmccul.JMCCULUtils;
+import xyz.froud.jmccul.MeasurementComputingUniversalLibrary;
+import xyz.froud.jmccul.NativeScratch;
+import xyz.froud.jmccul.WindowsBuffer;
+import xyz.froud.jmccul.jfr.BlockDeliveredEvent;
+import xyz.froud.jmccul.jfr.BufferOverrunEvent;
+import xyz.froud.jmccul.jfr.ScanStartedEvent;
+import xyz.froud.jmccul.jfr.ScanStoppedEvent;
+
+import java.nio.ShortBuffer;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A continuous analog input scan running in the background on the DAQ board.
+ * <p>
+ * The board writes samples into a circular Windows buffer. A polling thread calls cbGetIOStatus() to find out how many
+ * samples have been written since the last poll, then hands the new samples to a {@link BlockConsumer}. Samples are
+ * always delivered in whole channel scans, so the first sample of every block is for the same channel as the first
+ * sample of the previous block plus the previous block length.
+ * <p>
+ * Samples are not copied. The consumer gets a direct view of the Windows buffer, so it must finish with the samples
+ * before it returns.
+ * <p>
+ * If the board supports events, the polling thread does not poll on a timer. It registers ON_DATA_AVAILABLE,
+ * ON_END_OF_INPUT_SCAN and ON_SCAN_ERROR with cbEnableEvent() and sleeps until the Universal Library calls back. The
+ * callback only wakes the polling thread. The consumer is called on the polling thread, never on the Universal
+ * Library's own thread.
+ * <p>
+ * The polling thread does not call the Universal Library itself. cbGetIOStatus(), cbStopIOBackground() and
+ * cbDisableEvent() run on the board's {@link BoardExecutor}, like every other call for the board, and the polling
+ * thread waits for them. The consumer is called after the status has been read, so it can use the device's
+ * synchronous methods.
+ * <p>
+ * In {@link DeliveryMode#HALF_BUFFER} mode the buffer is split into two halves. Each half is delivered as one block
+ * as soon as the board has moved on to the other half, so every block has the same size and starts at the start of a
+ * half.
+ * <p>
+ * Create one with {@link AnalogInputWrapper#startBackgroundScan}. Call {@link #close()} to stop the scan.
+ * <p>
+ * Java Flight Recorder gets a {@link ScanStartedEvent} and {@link ScanStoppedEvent} for each scan, a
+ * {@link BlockDeliveredEvent} for each block, and a {@link BufferOverrunEvent} if samples are lost.
+ *
+ * @author Peter Froud
+ * @see <a
+ *         href="https://www.mccdaq.com/pdfs/manuals/Mcculw_WebHelp/hh_goto.htm?ULStart.htm#Function_Reference/Analog_IO_Functions/cbAInScan.htm">cbAInScan()</a>
+ * @see <a
+ *         href="https://www.mccdaq.com/pdfs/manuals/Mcculw_WebHelp/hh_goto.htm?ULStart.htm#Function_Reference/Miscellaneous_Functions/cbGetStatus.htm">cbGetIOStatus()</a>
+ * @see <a
+ *         href="https://www.mccdaq.com/pdfs/manuals/Mcculw_WebHelp/hh_goto.htm?ULStart.htm#Function_Reference/Event_Functions/cbEnableEvent.htm">cbEnableEvent()</a>
+ */
+public class AnalogInputBackgroundScan implements AutoCloseable {
+
+    /**
+     * Receives blocks of samples from a background scan. Called on the scan's polling thread, except for the last
+     * samples, which are delivered on the thread which calls {@link #close()}. If it throws, the scan is stopped and
+     * {@link #close()} throws the same exception.
+     */
+    @FunctionalInterface
+    public interface BlockConsumer {
+
+        /**
+         * @param samples the new samples, channels interleaved, from the buffer's position to its limit. This is a
+         *         view of the Windows buffer, so it is only valid until this method returns.
+         * @param firstSampleNumber how many samples were acquired before the first sample in this block. Use it to
+         *         find which channel the first sample belongs to.
+         */
+        void accept(ShortBuffer samples, long firstSampleNumber);
+    }
+
+    /**
+     * When the polling thread hands samples to the consumer.
+     */
+    public enum DeliveryMode {
+        /**
+         * Deliver every whole channel scan which has arrived since the last poll. Blocks have different sizes.
+         */
+        AS_AVAILABLE,
+        /**
+         * Deliver one half of the buffer at a time, as soon as the board has finished filling it. The status is polled
+         * about once per block.
+         */
+        HALF_BUFFER
+    }
+
+    private static final long MIN_POLL_PERIOD_MILLIS = 1;
+    private static final long MAX_POLL_PERIOD_MILLIS = 100;
+    private static final long MAX_EVENT_TIMEOUT_MILLIS = 1000;
+
+    private static final int EVENT_TYPES = MeasurementComputingUniversalLibrary.ON_DATA_AVAILABLE
+            | MeasurementComputingUniversalLibrary.ON_END_OF_INPUT_SCAN
+            | MeasurementComputingUniversalLibrary.ON_SCAN_ERROR;
+
+    private final AnalogInputWrapper OWNER;
+    private final BoardExecutor EXECUTOR;
+    private final int BOARD_NUMBER;
+    private final WindowsBuffer WINDOWS_BUFFER;
+    private final int BUFFER_SAMPLE_COUNT;
+    private final int CHANNEL_COUNT;
+    private final BlockConsumer CONSUMER;
+    private final DeliveryMode DELIVERY_MODE;
+    private final int HALF_SAMPLE_COUNT;
+    private final Thread POLLING_THREAD;
+
+    // JNA only keeps a weak reference to callbacks, so hold on to it for as long as the events are enabled.
+    private final MeasurementComputingUniversalLibrary.EVENTCALLBACK EVENT_CALLBACK;
+
+    // Reused for every block so the polling loop does not make garbage.
+    private final ShortBuffer VIEW;
+
+    private final NativeLongByReference CURRENT_COUNT = new NativeLongByReference(new NativeLong(0));
+    private final NativeLongByReference CURRENT_INDEX = new NativeLongByReference(new NativeLong(0));
+
+    // made once so the polling loop does not make a new one for every poll
+    private final BoardExecutor.DeviceCall<Void> READ_STATUS = this::readStatus;
+
+    // begun when the scan starts so its duration is how long the scan ran
+    private final ScanStoppedEvent STOPPED_EVENT = new ScanStoppedEvent();
+
+    private long requestedRateHz;
+    private long actualRateHz;
+    private double samplesPerMilli;
+    private long pollPeriodMillis;
+    private long eventTimeoutMillis;
+    private boolean isEventDriven = false;
+
+    private volatile boolean isStopRequested = false;
+    private volatile int scanErrorCode = MeasurementComputingUniversalLibrary.NOERRORS;
+    private volatile JMCCULException failure;
+    // what the consumer threw, which close() throws again
+    private volatile RuntimeException consumerFailure;
+    private volatile boolean isBoardStopped = false;
+
+    private long lastRawCount = 0;
+    private long samplesAcquired = 0;
+    private volatile long samplesDelivered = 0;
+    private volatile boolean isClosed = false;
+    // set when the consumer closes its own scan, so the polling thread finishes the scan instead of close()
+    private volatile boolean isClosedByConsumer = false;
+
+    /**
+     * Does not start anything. Call {@link #enableEvents()} before starting the scan on the board, then call
+     * {@link #start(long, long)} after.
+     */
+    AnalogInputBackgroundScan(AnalogInputWrapper owner, BoardExecutor executor, WindowsBuffer windowsBuffer, int channelCount, BlockConsumer consumer, DeliveryMode deliveryMode) {
+        OWNER = owner;
+        EXECUTOR = executor;
+        BOARD_NUMBER = executor.getBoardNumber();
+        WINDOWS_BUFFER = windowsBuffer;
+        BUFFER_SAMPLE_COUNT = windowsBuffer.getSampleCount();
+        CHANNEL_COUNT = channelCount;
+        CONSUMER = consumer;
+        DELIVERY_MODE = deliveryMode;
+        HALF_SAMPLE_COUNT = BUFFER_SAMPLE_COUNT / 2;
+        VIEW = windowsBuffer.asShortBuffer();
+
+        POLLING_THREAD = new Thread(this::pollUntilStopped, "JMCCUL analog input scan, board " + BOARD_NUMBER);
+        POLLING_THREAD.setDaemon(true);
+
+        EVENT_CALLBACK = new MeasurementComputingUniversalLibrary.EVENTCALLBACK() {
+            @Override
+            public void apply(int boardNumber, int eventType, int eventData, Pointer userData) {
+                // Runs on a thread owned by the Universal Library, so do as little as possible here.
+                if (eventType == MeasurementComputingUniversalLibrary.ON_SCAN_ERROR) {
+                    // for ON_SCAN_ERROR, the event data is the error code
+                    scanErrorCode = eventData;
+                }
+                LockSupport.unpark(POLLING_THREAD);
+            }
+        };
+    }
+
+    /**
+     * Asks the Universal Library to call back when data is available, the scan ends, or the scan fails. If the board
+     * does not support events, the polling thread polls on a timer instead. Called on the board's executor thread.
+     *
+     * @see <a
+     *         href="https://www.mccdaq.com/pdfs/manuals/Mcculw_WebHelp/hh_goto.htm?ULStart.htm#Function_Reference/Event_Functions/cbEnableEvent.htm">cbEnableEvent()</a>
+     */
+    void enableEvents() {
+        /*
+        For ON_DATA_AVAILABLE, Count is how many samples must be acquired before the event happens.
+        Ask for one event per block in HALF_BUFFER mode, otherwise about eight events per buffer.
+         */
+        final int eventSampleCount = (DELIVERY_MODE == DeliveryMode.HALF_BUFFER)
+                ? HALF_SAMPLE_COUNT
+                : Math.max(CHANNEL_COUNT, BUFFER_SAMPLE_COUNT / 8 / CHANNEL_COUNT * CHANNEL_COUNT);
+
+        // https://www.mccdaq.com/pdfs/manuals/Mcculw_WebHelp/hh_goto.htm?ULStart.htm#Function_Reference/Event_Functions/cbEnableEvent.htm
+        final int errorCode = MeasurementComputingUniversalLibrary.INSTANCE.cbEnableEvent(
+                BOARD_NUMBER,
+                EVENT_TYPES,
+                eventSampleCount,
+                EVENT_CALLBACK,
+                null
+        );
+        isEventDriven = (errorCode == MeasurementComputingUniversalLibrary.NOERRORS);
+    }
+
+    /**
+     * Starts the polling thread. Call this after the scan has started on the board.
+     *
+     * @param requestedRateHz the sample rate per channel passed to cbAInScan().
+     * @param actualRateHz the sample rate per channel returned by cbAInScan().
+     */
+    void start(long requestedRateHz, long actualRateHz) {
+        this.requestedRateHz = requestedRateHz;
+        this.actualRateHz = actualRateHz;
+        samplesPerMilli = (double) actualRateHz * CHANNEL_COUNT / 1000.0;
+
+        /*
+        Poll often enough that the board only fills about an eighth of the buffer between polls,
+        which leaves plenty of margin before the board laps the polling thread.
+        When events are enabled, still look at the status twice per buffer in case an event goes missing.
+         */
+        final double bufferFillMillis = BUFFER_SAMPLE_COUNT / samplesPerMilli;
+        pollPeriodMillis = Math.max(MIN_POLL_PERIOD_MILLIS, Math.min(MAX_POLL_PERIOD_MILLIS, (long) (bufferFillMillis / 8)));
+        eventTimeoutMillis = Math.max(MIN_POLL_PERIOD_MILLIS, Math.min(MAX_EVENT_TIMEOUT_MILLIS, (long) (bufferFillMillis / 2)));
+
+        STOPPED_EVENT.begin();
+        POLLING_THREAD.start();
+
+        final ScanStartedEvent startedEvent = new ScanStartedEvent();
+        if (startedEvent.shouldCommit()) {
+            startedEvent.boardNumber = BOARD_NUMBER;
+            startedEvent.channelCount = CHANNEL_COUNT;
+            startedEvent.requestedRateHz = requestedRateHz;
+            startedEvent.actualRateHz = actualRateHz;
+            startedEvent.bufferSampleCount = BUFFER_SAMPLE_COUNT;
+            startedEvent.isEventDriven = isEventDriven;
+            startedEvent.commit();
+        }
+    }
+
+    /**
+     * Cleans up when the scan could not be started on the board. Called on the board's executor thread.
+     */
+    void abort() {
+        try {
+            disableEvents();
+        } finally {
+            WINDOWS_BUFFER.close();
+        }
+    }
+
+    /**
+     * Runs the call on the board's executor and waits for it. A device which was closed under the scan is reported
+     * like any other Universal Library error, so it is not mistaken for the consumer failing.
+     */
+    private <T> T callOnBoard(BoardExecutor.DeviceCall<T> call) throws JMCCULException {
+        try {
+            return EXECUTOR.call(call);
+        } catch (IllegalStateException ex) {
+            final JMCCULException wrapped = new JMCCULException("the scan could not call the Universal Library: " + ex.getMessage());
+            wrapped.initCause(ex);
+            throw wrapped;
+        }
+    }
+
+    private void disableEventsOnBoard() throws JMCCULException {
+        callOnBoard(() -> {
+            disableEvents();
+            return null;
+        });
+    }
+
+    private void disableEvents() {
+        if (isEventDriven) {
+            // https://www.mccdaq.com/pdfs/manuals/Mcculw_WebHelp/hh_goto.htm?ULStart.htm#Function_Reference/Event_Functions/cbDisableEvent.htm
+            MeasurementComputingUniversalLibrary.INSTANCE.cbDisableEvent(BOARD_NUMBER, EVENT_TYPES);
+            isEventDriven = false;
+        }
+    }
+
+    /**
+     * @return the sample rate per channel which was asked for.
+     */
+    public long getRequestedRateHz() {
+        return requestedRateHz;
+    }
+
+    /**
+     * @return the sample rate per channel which the board is actually using. It may be different from the requested
+     *         rate because of pacer limitations.
+     */
+    public long getActualRateHz() {
+        return actualRateHz;
+    }
+
+    public int getChannelCount() {
+        return CHANNEL_COUNT;
+    }
+
+    public int getBufferSampleCount() {
+        return BUFFER_SAMPLE_COUNT;
+    }
+
+    public DeliveryMode getDeliveryMode() {
+        return DELIVERY_MODE;
+    }
+
+    /**
+     * @return total number of samples handed to the consumer so far, for all channels.
+     */
+    public long getSamplesDelivered() {
+        return samplesDelivered;
+    }
+
+    public boolean isRunning() {
+        return POLLING_THREAD.isAlive();
+    }
+
+    /**
+     * @return true if the polling thread is woken by Universal Library events, false if it polls on a timer.
+     */
+    public boolean isEventDriven() {
+        return isEventDriven;
+    }
+
+    private void pollUntilStopped() {
+        try {
+            while (!isStopRequested) {
+                poll();
+                if (isEventDriven) {
+                    LockSupport.parkNanos(this, TimeUnit.MILLISECONDS.toNanos(eventTimeoutMillis));
+                    if (Thread.interrupted()) {
+                        throw new InterruptedException();
+                    }
+                } else {
+                    Thread.sleep(getSleepMillis());
+                }
+            }
+        } catch (JMCCULException ex) {
+            failure = ex;
+            stopBoardQuietly();
+        } catch (RuntimeException ex) {
+            onConsumerFailure(ex);
+            stopBoardQuietly();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+
+        if (isClosedByConsumer) {
+            try {
+                finish();
+            } catch (JMCCULException ex) {
+                // nobody is waiting in close() to throw it
+                if (failure == null) {
+                    failure = ex;
+                }
+            } catch (RuntimeException ex) {
+                if (failure == null) {
+                    final JMCCULException wrapped = new JMCCULException("the scan could not be finished: " + ex);
+                    wrapped.initCause(ex);
+                    failure = wrapped;
+                }
+            }
+        }
+    }
+
+    /**
+     * Records an exception thrown by the consumer as the scan failure, so it is not lost with the polling thread.
+     */
+    private void onConsumerFailure(RuntimeException ex) {
+        consumerFailure = ex;
+        final JMCCULException wrapped = new JMCCULException("the block consumer threw " + ex);
+        wrapped.initCause(ex);
+        failure = wrapped;
+    }
+
+    /**
+     * Stops the scan on the board when the polling thread can't go on, so the board doesn't keep filling the buffer
+     * until it overruns. close() stops it anyway, so an error here doesn't matter.
+     */
+    private void stopBoardQuietly() {
+        try {
+            stopBoard();
+        } catch (JMCCULException | RuntimeException ex) {
+            // close() tries again
+        }
+    }
+
+    private void stopBoard() throws JMCCULException {
+        if (isBoardStopped) {
+            return;
+        }
+        callOnBoard(() -> {
+            // https://www.mccdaq.com/pdfs/manuals/Mcculw_WebHelp/hh_goto.htm?ULStart.htm#Function_Reference/Miscellaneous_Functions/cbStopBackground.htm
+            final int errorCodeStop = MeasurementComputingUniversalLibrary.INSTANCE.cbStopIOBackground(
+                    BOARD_NUMBER,
+                    MeasurementComputingUniversalLibrary.AIFUNCTION
+            );
+            JMCCULUtils.checkError(errorCodeStop);
+            return null;
+        });
+        isBoardStopped = true;
+    }
+
+    /**
+     * Runs on the board's executor thread. Leaves the count in {@link #CURRENT_COUNT}.
+     */
+    private Void readStatus() throws JMCCULException {
+        // https://www.mccdaq.com/pdfs/manuals/Mcculw_WebHelp/hh_goto.htm?ULStart.htm#Function_Reference/Miscellaneous_Functions/cbGetStatus.htm
+        // each executor thread's scratch memory is direct, so this doesn't copy on the direct mapping and FFM paths
+        final int errorCode = DirectUniversalLibrary.cbGetIOStatus(
+                BOARD_NUMBER,
+                NativeScratch.get().getShortBuffer(),
+                CURRENT_COUNT,
+                CURRENT_INDEX,
+                MeasurementComputingUniversalLibrary.AIFUNCTION
+        );
+        JMCCULUtils.checkError(errorCode);
+        return null;
+    }
+
+    private void poll() throws JMCCULException {
+        // set by the ON_SCAN_ERROR callback
+        if (scanErrorCode == MeasurementComputingUniversalLibrary.OVERRUN || scanErrorCode == MeasurementComputingUniversalLibrary.UNDERRUN) {
+            reportOverrun(scanErrorCode, -1);
+        }
+        JMCCULUtils.checkError(scanErrorCode);
+
+        // waiting for the future makes the count written on the executor thread visible here
+        callOnBoard(READ_STATUS);
+
+        /*
+        CurCount is a C long, which is only 32 bits on Windows. At high rates it wraps around
+        within an hour, so work out how many samples are new using unsigned arithmetic.
+         */
+        final long rawCount = CURRENT_COUNT.getValue().longValue();
+        samplesAcquired += (NativeLong.SIZE == 4)
+                ? (rawCount - lastRawCount) & 0xFFFFFFFFL
+                : rawCount - lastRawCount;
+        lastRawCount = rawCount;
+
+        final long undeliveredCount = samplesAcquired - samplesDelivered;
+        if (undeliveredCount > BUFFER_SAMPLE_COUNT) {
+            reportOverrun(MeasurementComputingUniversalLibrary.OVERRUN, undeliveredCount - BUFFER_SAMPLE_COUNT);
+            throw new JMCCULException(String.format(
+                    "the board overwrote samples before they were read: %d new samples but the buffer only holds %d",
+                    undeliveredCount, BUFFER_SAMPLE_COUNT
+            ), MeasurementComputingUniversalLibrary.OVERRUN);
+        }
+
+        if (DELIVERY_MODE == DeliveryMode.HALF_BUFFER) {
+            // samplesDelivered is always a whole number of halves, so a half never wraps around
+            while (samplesAcquired - samplesDelivered >= HALF_SAMPLE_COUNT) {
+                deliverContiguous((int) (samplesDelivered % BUFFER_SAMPLE_COUNT), HALF_SAMPLE_COUNT);
+            }
+        } else {
+            deliverWholeScans();
+        }
+    }
+
+    private void deliverWholeScans() {
+        final long undeliveredCount = samplesAcquired - samplesDelivered;
+        final long deliverableCount = undeliveredCount - (undeliveredCount % CHANNEL_COUNT);
+        if (deliverableCount > 0) {
+            deliver((int) deliverableCount);
+        }
+    }
+
+    /**
+     * In HALF_BUFFER mode, sleep until the board should have finished the half it is filling now, so the status is
+     * only polled about once per block.
+     */
+    private long getSleepMillis() {
+        if (DELIVERY_MODE != DeliveryMode.HALF_BUFFER) {
+            return pollPeriodMillis;
+        }
+        final long remainingInHalf = HALF_SAMPLE_COUNT - (samplesAcquired - samplesDelivered);
+        return Math.max(MIN_POLL_PERIOD_MILLIS, (long) Math.ceil(remainingInHalf / samplesPerMilli));
+    }
+
+    private void deliver(int count) {
+        final int start = (int) (samplesDelivered % BUFFER_SAMPLE_COUNT);
+        final int countBeforeWrap = Math.min(count, BUFFER_SAMPLE_COUNT - start);
+
+        deliverContiguous(start, countBeforeWrap);
+        if (countBeforeWrap < count) {
+            // the new samples wrap around to the start of the circular buffer
+            deliverContiguous(0, count - countBeforeWrap);
+        }
+    }
+
+    private void deliverContiguous(int firstPoint, int count) {
+        VIEW.limit(firstPoint + count).position(firstPoint);
+
+        final BlockDeliveredEvent event = new BlockDeliveredEvent();
+        event.begin();
+        CONSUMER.accept(VIEW, samplesDelivered);
+        event.end();
+        if (event.shouldCommit()) {
+            event.boardNumber = BOARD_NUMBER;
+            event.firstSampleNumber = samplesDelivered;
+            event.sampleCount = count;
+            event.commit();
+        }
+        samplesDelivered += count;
+    }
+
+    private void reportOverrun(int errorCode, long samplesLost) {
+        OWNER.onBackgroundScanOverrun();
+        final BufferOverrunEvent event = new BufferOverrunEvent();
+        if (event.shouldCommit()) {
+            event.boardNumber = BOARD_NUMBER;
+            event.errorCode = errorCode;
+            event.samplesLost = samplesLost;
+            event.commit();
+        }
+    }
+
+    /**
+     * Stops the background scan, delivers any samples which were acquired before it stopped, and closes the Windows
+     * buffer. In HALF_BUFFER mode, the samples in a partly-filled half are delivered as a shorter final block.
+     *
+     * <p>
+     * A {@link BlockConsumer} may close its own scan. Then this returns straight away without throwing, and the
+     * polling thread finishes the scan after the consumer returns.
+     *
+     * @throws JMCCULException if stopping the scan failed, or if the polling thread failed while the scan was running.
+     * @throws RuntimeException what the consumer threw, if it threw. The scan was stopped when it threw.
+     */
+    @Override
+    public void close() throws JMCCULException {
+        if (isClosed) {
+            return;
+        }
+        isClosed = true;
+
+        isStopRequested = true;
+        if (Thread.currentThread() == POLLING_THREAD) {
+            // The consumer is closing its own scan. Joining would wait forever, so the polling thread stops the
+            // board, delivers the last samples and closes the buffer once the consumer returns.
+            isClosedByConsumer = true;
+            return;
+        }
+        LockSupport.unpark(POLLING_THREAD);
+        try {
+            // On the board's thread, the polling thread may be waiting for a status read queued behind this call, so
+            // keep running the board's tasks until it stops.
+            EXECUTOR.awaitThread(POLLING_THREAD);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+
+        finish();
+
+        if (consumerFailure != null) {
+            throw consumerFailure;
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    /**
+     * Stops the board, delivers the last samples, and closes the Windows buffer. Called after the polling loop has
+     * stopped, on whichever thread closed the scan. The Universal Library calls run on the board's executor.
+     */
+    private void finish() throws JMCCULException {
+        try {
+            stopBoard();
+
+            if (failure == null) {
+                // pick up whatever arrived between the last poll and the stop, including a partly-filled half
+                try {
+                    poll();
+                    deliverWholeScans();
+                } catch (RuntimeException ex) {
+                    onConsumerFailure(ex);
+                }
+            }
+        } finally {
+            try {
+                disableEventsOnBoard();
+            } finally {
+                WINDOWS_BUFFER.close();
+                commitStoppedEvent();
+                OWNER.onBackgroundScanClosed(this, failure);
+            }
+        }
+    }
+
+    private void commitStoppedEvent() {
+        STOPPED_EVENT.end();
+        if (STOPPED_EVENT.shouldCommit()) {
+            STOPPED_EVENT.boardNumber = BOARD_NUMBER;
+            STOPPED_EVENT.samplesDelivered = samplesDelivered;
+            STOPPED_EVENT.errorCode = (failure != null) ? failure.ERROR_CODE : MeasurementComputingUniversalLibrary.NOERRORS;
+            STOPPED_EVENT.commit();
+        }
+    }
+
+}
@@ -33,8 +33,8 @@ import java.util.Map;
 
 /**
  * @author Peter Froud
- * @see xyz.froud.jmccul.analog.AnalogInputWrapper#scan(int, int, long, long, AnalogRange,
- *         AnalogInputScanOptions...)
+ * @see xyz.froud.jmccul.analog.AnalogInputWrapper#startBackgroundScan(int, int, long, AnalogRange, int,
+ *         AnalogInputBackgroundScan.BlockConsumer, AnalogInputScanOptions...)
  * @see <a
  *         href="https://www.mccdaq.com/pdfs/manuals/Mcculw_WebHelp/hh_goto.htm?ULStart.htm#Function_Reference/Analog_IO_Functions/cbAInScan.htm">cbAInScan()</a>
  */
@@ -26,17 +26,28 @@ package xyz.froud.jmccul.analog;
 
 import com.sun.jna.NativeLong;
 import com.sun.jna.ptr.NativeLongByReference;
+import xyz.froud.jmccul.BoardExecutor;
+import xyz.froud.jmccul.DirectUniversalLibrary;
 import xyz.froud.jmccul.DaqDevice;
 import xyz.froud.jmccul.JMCCULException;
 import xyz.froud.jmccul.JMCCULUtils;
 import xyz.froud.jmccul.config.ConfigurationWrapper;
 import xyz.froud.jmccul.MeasurementComputingUniversalLibrary;
+import xyz.froud.jmccul.NativeScratch;
+import xyz.froud.jmccul.WindowsBuffer;
+import xyz.froud.jmccul.WindowsBufferPool;
 
 import java.nio.DoubleBuffer;
 import java.nio.FloatBuffer;
 import java.nio.ShortBuffer;
+import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * Analog input = analog to digital = "A2D" or "AD" or "ADC"
@@ -46,6 +57,21 @@ import java.util.List;
  */
 public class AnalogInputWrapper {
 
+    /*
+    Rate per channel for the single scans in readChannels32() and readChannelRange32(). One scan of 64 channels only
+    takes a few milliseconds on boards which can keep up.
+     */
+    private static final long SINGLE_SCAN_RATE_HZ = 1000;
+
+    /*
+    Total rate for all channels together, used after a board rejects SINGLE_SCAN_RATE_HZ with BADRATE. Slow enough for
+    slow boards with a gain queue, such as the USB-1208LS at about 1.2 kS/s.
+     */
+    private static final long SLOW_SINGLE_SCAN_TOTAL_RATE_HZ = 1000;
+
+    // cbAPretrig() needs the Windows buffer to have room for this many samples more than the total count
+    private static final int PRETRIGGER_EXTRA_SAMPLES = 512;
+
     private final DaqDevice DAQ_DEVICE;
     private final int BOARD_NUMBER;
 
@@ -66,6 +92,29 @@ public class AnalogInputWrapper {
     private Boolean _isGainQueueSupported;
     private Boolean _isScanSupported;
 
+    /*
+    What is in the board's channel-gain queue right now, so readChannels() only calls cbALoadQueue() when the
+    list changes. Null means the queue is empty.
+     */
+    private int[] loadedQueueChannels;
+    private AnalogRange[] loadedQueueRanges;
+
+    /*
+    Set when the board rejects the rate of a single scan, first the normal rate and then the slow one. Like the queue
+    fields, only used on the board's executor thread.
+     */
+    private boolean isSingleScanRateLimited = false;
+    private boolean isSingleScanRateRejected = false;
+
+    /*
+    Background scans which have not been closed yet, and totals from the ones which have.
+     */
+    private final Set<AnalogInputBackgroundScan> ACTIVE_SCANS = ConcurrentHashMap.newKeySet();
+    private final LongAdder CLOSED_SCAN_SAMPLES = new LongAdder();
+    private final LongAdder OVERRUN_COUNT = new LongAdder();
+    private volatile JMCCULException lastScanFailure;
+    private volatile long lastScanFailureMillis;
+
     public AnalogInputWrapper(DaqDevice device) {
         DAQ_DEVICE = device;
         BOARD_NUMBER = device.getBoardNumber();
@@ -81,6 +130,13 @@ public class AnalogInputWrapper {
         return getChannelCount() > 0;
     }
 
+    /**
+     * Runs {@link #isSupported()} on the {@link DaqDevice#getExecutor() device's executor}.
+     */
+    public CompletableFuture<Boolean> isSupportedAsync() {
+        return DAQ_DEVICE.getExecutor().submit(this::isSupported);
+    }
+
     /**
      * @see <a
      *         href="https://www.mccdaq.com/pdfs/manuals/Mcculw_WebHelp/hh_goto.htm?ULStart.htm#Function_Reference/Configuration_Functions/cbGetConfig.htm">cbGetConfig()</a>
@@ -89,81 +145,115 @@ public class AnalogInputWrapper {
      */
     public int getResolution() throws JMCCULException {
         if (_resolution == null) {
-            _resolution = ConfigurationWrapper.getInt(
+            _resolution = DAQ_DEVICE.getCapabilities().getInt("analog.input.resolution", errors -> ConfigurationWrapper.getInt(
                     MeasurementComputingUniversalLibrary.BOARDINFO,
                     BOARD_NUMBER,
                     0,
                     MeasurementComputingUniversalLibrary.BIADRES
-            );
+            ));
         }
         return _resolution;
     }
 
+    /**
+     * Runs {@link #getResolution()} on the {@link DaqDevice#getExecutor() device's executor}.
+     */
+    public CompletableFuture<Integer> getResolutionAsync() {
+        return DAQ_DEVICE.getExecutor().submit(this::getResolution);
+    }
+
     /**
      * @see <a
      *         href="https://github.com/mccdaq/mcculw/blob/d5d4a3eebaace9544a356a1243963c7af5f8ca53/mcculw/device_info/ai_info.py#L59">supports_scan
      *         in ai_info.py</a>
      */
     public boolean isScanSupported() throws JMCCULException {
+        if (DAQ_DEVICE.getExecutor().mustSubmit()) {
+            return BoardExecutor.join(isScanSupportedAsync());
+        }
+
         if (_isScanSupported == null) {
-            try {
-                final int errorCode = MeasurementComputingUniversalLibrary.INSTANCE.cbGetIOStatus(
-                        BOARD_NUMBER,
-                        ShortBuffer.allocate(1),
-                        new NativeLongByReference(new NativeLong(0)),
-                        new NativeLongByReference(new NativeLong(0)),
-                        MeasurementComputingUniversalLibrary.AIFUNCTION
-                );
-                JMCCULUtils.checkError(errorCode);
-                _isScanSupported = true;
-            } catch (JMCCULException ex) {
-                ex.throwIfErrorIsNetworkDeviceInUse();
-                _isScanSupported = false;
-            }
+            _isScanSupported = DAQ_DEVICE.getCapabilities().getBoolean("analog.input.scanSupported", errors -> {
+                try {
+                    final int errorCode = DirectUniversalLibrary.cbGetIOStatus(
+                            BOARD_NUMBER,
+                            ShortBuffer.allocate(1),
+                            new NativeLongByReference(new NativeLong(0)),
+                            new NativeLongByReference(new NativeLong(0)),
+                            MeasurementComputingUniversalLibrary.AIFUNCTION
+                    );
+                    JMCCULUtils.checkError(errorCode);
+                    return true;
+                } catch (JMCCULException ex) {
+                    errors.ignore(ex);
+                    return false;
+                }
+            });
         }
         return _isScanSupported;
 
     }
 
+    /**
+     * Runs {@link #isScanSupported()} on the {@link DaqDevice#getExecutor() device's executor}.
+     */
+    public CompletableFuture<Boolean> isScanSupportedAsync() {
+        return DAQ_DEVICE.getExecutor().submit(this::isScanSupported);
+    }
+
     /**
      * @see <a
      *         href="https://github.com/mccdaq/mcculw/blob/d5d4a3eebaace9544a356a1243963c7af5f8ca53/mcculw/device_info/ai_info.py#L68">supported_rangees
      *         in ai_info.py</a>
      */
     public List<AnalogRange> getSupportedRanges() throws JMCCULException {
+        if (DAQ_DEVICE.getExecutor().mustSubmit()) {
+            return BoardExecutor.join(getSupportedRangesAsync());
+        }
+
         if (_supportedRanges == null) {
-            _supportedRanges = new ArrayList<>();
+            _supportedRanges = DAQ_DEVICE.getCapabilities().getRanges("analog.input.supportedRanges", errors -> {
+                final List<AnalogRange> ranges = new ArrayList<>();
 
-            // Check if the board has a switch-selectable, or only one, range.
-            // I do not really understand this so I am not repalcing this call with getRange().
-            final int hardRange = ConfigurationWrapper.getInt(
-                    MeasurementComputingUniversalLibrary.BOARDINFO,
-                    BOARD_NUMBER,
-                    0,
-                    MeasurementComputingUniversalLibrary.BIRANGE
-            );
+                // Check if the board has a switch-selectable, or only one, range.
+                // I do not really understand this so I am not repalcing this call with getRange().
+                final int hardRange = ConfigurationWrapper.getInt(
+                        MeasurementComputingUniversalLibrary.BOARDINFO,
+                        BOARD_NUMBER,
+                        0,
+                        MeasurementComputingUniversalLibrary.BIRANGE
+                );
 
-            if (hardRange >= 0) {
-                _supportedRanges.add(AnalogRange.parseInt(hardRange));
-            } else {
-                // try all the ranges
-                for (AnalogRange rangeToCheck : AnalogRange.values()) {
-                    try {
-                        if (getResolution() <= 16) {
-                            read(0, rangeToCheck);
-                        } else {
-                            read32(0, rangeToCheck);
+                if (hardRange >= 0) {
+                    ranges.add(AnalogRange.parseInt(hardRange));
+                } else {
+                    // try all the ranges
+                    for (AnalogRange rangeToCheck : AnalogRange.values()) {
+                        try {
+                            if (getResolution() <= 16) {
+                                read(0, rangeToCheck);
+                            } else {
+                                read32(0, rangeToCheck);
+                            }
+                            ranges.add(rangeToCheck);
+                        } catch (JMCCULException ex) {
+                            errors.ignore(ex);
                         }
-                        _supportedRanges.add(rangeToCheck);
-                    } catch (JMCCULException ex) {
-                        ex.throwIfErrorIsNetworkDeviceInUse();
                     }
                 }
-            }
+                return ranges;
+            });
         }
         return _supportedRanges;
     }
 
+    /**
+     * Runs {@link #getSupportedRanges()} on the {@link DaqDevice#getExecutor() device's executor}.
+     */
+    public CompletableFuture<List<AnalogRange>> getSupportedRangesAsync() {
+        return DAQ_DEVICE.getExecutor().submit(this::getSupportedRanges);
+    }
+
     /**
      * The hardware in the following table will return a packet size. This hardware must use an integer multiple of the
      * packet size as the total_count for a_in_scan when using the CONTINUOUS option in BLOCKIO mode.
@@ -207,23 +297,36 @@ public class AnalogInputWrapper {
      *         in ai_info.py</a>
      */
     public boolean isVoltageInputSupported() throws JMCCULException {
+        if (DAQ_DEVICE.getExecutor().mustSubmit()) {
+            return BoardExecutor.join(isVoltageInputSupportedAsync());
+        }
+
         if (_isVoltageInputSupported == null) {
-            final List<AnalogRange> supportedRanges = getSupportedRanges();
-            if (supportedRanges.isEmpty()) {
-                _isVoltageInputSupported = false;
-            } else {
-                try {
-                    readVoltage(0, supportedRanges.get(0));
-                    _isVoltageInputSupported = true;
-                } catch (JMCCULException ex) {
-                    ex.throwIfErrorIsNetworkDeviceInUse();
-                    _isVoltageInputSupported = false;
+            _isVoltageInputSupported = DAQ_DEVICE.getCapabilities().getBoolean("analog.input.voltageInputSupported", errors -> {
+                final List<AnalogRange> supportedRanges = getSupportedRanges();
+                if (supportedRanges.isEmpty()) {
+                    return false;
+                } else {
+                    try {
+                        readVoltage(0, supportedRanges.get(0));
+                        return true;
+                    } catch (JMCCULException ex) {
+                        errors.ignore(ex);
+                        return false;
+                    }
                 }
-            }
+            });
         }
         return _isVoltageInputSupported;
     }
 
+    /**
+     * Runs {@link #isVoltageInputSupported()} on the {@link DaqDevice#getExecutor() device's executor}.
+     */
+    public CompletableFuture<Boolean> isVoltageInputSupportedAsync() {
+        return DAQ_DEVICE.getExecutor().submit(this::isVoltageInputSupported);
+    }
+
     /**
      * @see <a
      *         href="https://github.com/mccdaq/mcculw/blob/d5d4a3eebaace9544a356a1243963c7af5f8ca53/mcculw/device_info/ai_info.py#L134">analog_trig_resolution
@@ -252,6 +355,23 @@ public class AnalogInputWrapper {
 
     }
 
+    /**
+     * Makes a converter which turns raw A/D values from this board into volts in Java, without a native call per
+     * sample.
+     *
+     * @param range the range the samples were acquired with.
+     */
+    public VoltageConverter getVoltageConverter(AnalogRange range) throws JMCCULException {
+        return new VoltageConverter(range, getResolution());
+    }
+
+    /**
+     * Runs {@link #getVoltageConverter(AnalogRange)} on the {@link DaqDevice#getExecutor() device's executor}.
+     */
+    public CompletableFuture<VoltageConverter> getVoltageConverterAsync(AnalogRange range) {
+        return DAQ_DEVICE.getExecutor().submit(() -> getVoltageConverter(range));
+    }
+
     /**
      * @see <a
      *         href="https://github.com/mccdaq/mcculw/blob/d5d4a3eebaace9544a356a1243963c7af5f8ca53/mcculw/device_info/ai_info.py#L155">analog_trig_range
@@ -276,55 +396,88 @@ public class AnalogInputWrapper {
         return _analogTriggerRange;
     }
 
+    /**
+     * Runs {@link #getTriggerRange()} on the {@link DaqDevice#getExecutor() device's executor}.
+     */
+    public CompletableFuture<AnalogRange> getTriggerRangeAsync() {
+        return DAQ_DEVICE.getExecutor().submit(this::getTriggerRange);
+    }
+
     /**
      * @see <a
      *         href="https://github.com/mccdaq/mcculw/blob/d5d4a3eebaace9544a356a1243963c7af5f8ca53/mcculw/device_info/ai_info.py#L">supports_analog_trid
      *         in ai_info.py</a>
      */
     public boolean isTriggerSupported() throws JMCCULException {
+        if (DAQ_DEVICE.getExecutor().mustSubmit()) {
+            return BoardExecutor.join(isTriggerSupportedAsync());
+        }
+
         if (_isAnalogTriggerSupported == null) {
-            try {
-                final int errorCode = MeasurementComputingUniversalLibrary.INSTANCE.cbSetTrigger(
-                        BOARD_NUMBER,
-                        MeasurementComputingUniversalLibrary.TRIGABOVE,
-                        (short) 0,
-                        (short) 0
-                );
-                JMCCULUtils.checkError(errorCode);
-                _isAnalogTriggerSupported = true;
-            } catch (JMCCULException ex) {
-                ex.throwIfErrorIsNetworkDeviceInUse();
-                _isAnalogTriggerSupported = false;
-            }
+            _isAnalogTriggerSupported = DAQ_DEVICE.getCapabilities().getBoolean("analog.input.triggerSupported", errors -> {
+                try {
+                    final int errorCode = MeasurementComputingUniversalLibrary.INSTANCE.cbSetTrigger(
+                            BOARD_NUMBER,
+                            MeasurementComputingUniversalLibrary.TRIGABOVE,
+                            (short) 0,
+                            (short) 0
+                    );
+                    JMCCULUtils.checkError(errorCode);
+                    return true;
+                } catch (JMCCULException ex) {
+                    errors.ignore(ex);
+                    return false;
+                }
+            });
         }
         return _isAnalogTriggerSupported;
     }
 
+    /**
+     * Runs {@link #isTriggerSupported()} on the {@link DaqDevice#getExecutor() device's executor}.
+     */
+    public CompletableFuture<Boolean> isTriggerSupportedAsync() {
+        return DAQ_DEVICE.getExecutor().submit(this::isTriggerSupported);
+    }
+
     /**
      * @see <a
      *         href="https://github.com/mccdaq/mcculw/blob/d5d4a3eebaace9544a356a1243963c7af5f8ca53/mcculw/device_info/ai_info.py#L190">supports_gain_queue
      *         in ai_info.py</a>
      */
     public boolean isGainQueueSupported() throws JMCCULException {
+        if (DAQ_DEVICE.getExecutor().mustSubmit()) {
+            return BoardExecutor.join(isGainQueueSupportedAsync());
+        }
+
         if (_isGainQueueSupported == null) {
-            try {
-                final int errorCode = MeasurementComputingUniversalLibrary.INSTANCE.cbALoadQueue(
-                        BOARD_NUMBER,
-                        ShortBuffer.allocate(0),
-                        ShortBuffer.allocate(0),
-                        0
-                );
-                JMCCULUtils.checkError(errorCode);
-                _isGainQueueSupported = true;
-            } catch (JMCCULException ex) {
-                ex.throwIfErrorIsNetworkDeviceInUse();
-                _isGainQueueSupported = false;
-            }
+            _isGainQueueSupported = DAQ_DEVICE.getCapabilities().getBoolean("analog.input.gainQueueSupported", errors -> {
+                try {
+                    final int errorCode = MeasurementComputingUniversalLibrary.INSTANCE.cbALoadQueue(
+                            BOARD_NUMBER,
+                            ShortBuffer.allocate(0),
+                            ShortBuffer.allocate(0),
+                            0
+                    );
+                    JMCCULUtils.checkError(errorCode);
+                    return true;
+                } catch (JMCCULException ex) {
+                    errors.ignore(ex);
+                    return false;
+                }
+            });
         }
         return _isGainQueueSupported;
 
     }
 
+    /**
+     * Runs {@link #isGainQueueSupported()} on the {@link DaqDevice#getExecutor() device's executor}.
+     */
+    public CompletableFuture<Boolean> isGainQueueSupportedAsync() {
+        return DAQ_DEVICE.getExecutor().submit(this::isGainQueueSupported);
+    }
+
     /**
      * Reads an A/D input channel from the specified board, and returns a 16-bit unsigned integer value.
      * <p>
@@ -349,15 +502,26 @@ public class AnalogInputWrapper {
      *         href="https://www.mccdaq.com/pdfs/manuals/Mcculw_WebHelp/hh_goto.htm?ULStart.htm#Function_Reference/Analog_IO_Functions_for_NET/AIn.htm">AIn()</a>
      */
     public short read(int channel, AnalogRange range) throws JMCCULException {
-        final ShortBuffer buf = ShortBuffer.allocate(1);
-        final int errorCode = MeasurementComputingUniversalLibrary.INSTANCE.cbAIn(
+        if (DAQ_DEVICE.getExecutor().mustSubmit()) {
+            return BoardExecutor.join(readAsync(channel, range));
+        }
+
+        final ShortBuffer buf = NativeScratch.get().getShortBuffer();
+        final int errorCode = DirectUniversalLibrary.cbAIn(
                 BOARD_NUMBER,
                 channel,
                 range.VALUE,
                 buf
         );
         JMCCULUtils.checkError(errorCode);
-        return buf.get();
+        return buf.get(0);
+    }
+
+    /**
+     * Runs {@link #read(int, AnalogRange)} on the {@link DaqDevice#getExecutor() device's executor}.
+     */
+    public CompletableFuture<Short> readAsync(int channel, AnalogRange range) {
+        return DAQ_DEVICE.getExecutor().submit(() -> read(channel, range));
     }
 
     /**
@@ -385,19 +549,29 @@ public class AnalogInputWrapper {
      *         href="https://www.mccdaq.com/pdfs/manuals/Mcculw_WebHelp/hh_goto.htm?ULStart.htm#Function_Reference/Analog_IO_Functions_for_NET/AIn32.htm">AIn32()</a>
      */
     public long read32(int channel, AnalogRange range) throws JMCCULException {
+        if (DAQ_DEVICE.getExecutor().mustSubmit()) {
+            return BoardExecutor.join(read32Async(channel, range));
+        }
 
-        final NativeLongByReference nlbr = new NativeLongByReference(new NativeLong());
+        final NativeScratch scratch = NativeScratch.get();
 
         // https://www.mccdaq.com/pdfs/manuals/Mcculw_WebHelp/hh_goto.htm?ULStart.htm#Function_Reference/Analog_IO_Functions/cbAIn32.htm
-        final int errorCode = MeasurementComputingUniversalLibrary.INSTANCE.cbAIn32(
+        final int errorCode = DirectUniversalLibrary.cbAIn32(
                 BOARD_NUMBER,
                 channel,
                 range.VALUE,
-                nlbr,
+                scratch.getNativeLongByReference(),
                 0 //reserved for future use
         );
         JMCCULUtils.checkError(errorCode);
-        return nlbr.getValue().longValue();
+        return scratch.getNativeLongValue();
+    }
+
+    /**
+     * Runs {@link #read32(int, AnalogRange)} on the {@link DaqDevice#getExecutor() device's executor}.
+     */
+    public CompletableFuture<Long> read32Async(int channel, AnalogRange range) {
+        return DAQ_DEVICE.getExecutor().submit(() -> read32(channel, range));
     }
 
     /**
@@ -423,10 +597,13 @@ public class AnalogInputWrapper {
      *         href="https://www.mccdaq.com/pdfs/manuals/Mcculw_WebHelp/hh_goto.htm?ULStart.htm#Function_Reference/Analog_IO_Functions_for_NET/VIn.htm">VIn()</a>
      */
     public float readVoltage(int channel, AnalogRange range) throws JMCCULException {
+        if (DAQ_DEVICE.getExecutor().mustSubmit()) {
+            return BoardExecutor.join(readVoltageAsync(channel, range));
+        }
 
-        final FloatBuffer buf = FloatBuffer.allocate(1);
+        final FloatBuffer buf = NativeScratch.get().getFloatBuffer();
 
-        final int errorCode = MeasurementComputingUniversalLibrary.INSTANCE.cbVIn(
+        final int errorCode = DirectUniversalLibrary.cbVIn(
                 BOARD_NUMBER,
                 channel,
                 range.VALUE,
@@ -434,7 +611,14 @@ public class AnalogInputWrapper {
                 0
         );
         JMCCULUtils.checkError(errorCode);
-        return buf.get();
+        return buf.get(0);
+    }
+
+    /**
+     * Runs {@link #readVoltage(int, AnalogRange)} on the {@link DaqDevice#getExecutor() device's executor}.
+     */
+    public CompletableFuture<Float> readVoltageAsync(int channel, AnalogRange range) {
+        return DAQ_DEVICE.getExecutor().submit(() -> readVoltage(channel, range));
     }
 
     /**
@@ -460,10 +644,13 @@ public class AnalogInputWrapper {
      *         href="https://www.mccdaq.com/pdfs/manuals/Mcculw_WebHelp/hh_goto.htm?ULStart.htm#Function_Reference/Analog_IO_Functions_for_NET/VIn32.htm">VIn32()</a>
      */
     public double readVoltage32(int channel, AnalogRange range) throws JMCCULException {
+        if (DAQ_DEVICE.getExecutor().mustSubmit()) {
+            return BoardExecutor.join(readVoltage32Async(channel, range));
+        }
 
-        final DoubleBuffer buf = DoubleBuffer.allocate(1);
+        final DoubleBuffer buf = NativeScratch.get().getDoubleBuffer();
 
-        final int errorCode = MeasurementComputingUniversalLibrary.INSTANCE.cbVIn32(
+        final int errorCode = DirectUniversalLibrary.cbVIn32(
                 BOARD_NUMBER,
                 channel,
                 range.VALUE,
@@ -471,7 +658,286 @@ public class AnalogInputWrapper {
                 0
         );
         JMCCULUtils.checkError(errorCode);
-        return buf.get();
+        return buf.get(0);
+    }
+
+    /**
+     * Runs {@link #readVoltage32(int, AnalogRange)} on the {@link DaqDevice#getExecutor() device's executor}.
+     */
+    public CompletableFuture<Double> readVoltage32Async(int channel, AnalogRange range) {
+        return DAQ_DEVICE.getExecutor().submit(() -> readVoltage32(channel, range));
+    }
+
+    /**
+     * Reads one sample from each of a list of A/D channels, where each channel can have its own range. Only for boards
+     * with a resolution of 16 bits or less, use {@link #readChannels32(int[], AnalogRange[])} for the others.
+     * <p>
+     * If the board has a channel-gain queue, the list is loaded into the queue with cbALoadQueue() and all the
+     * channels are read with a single foreground cbAInScan(). The queue is only loaded again when the list changes.
+     * Otherwise, or if the board rejects even a slow scan rate, each channel is read with
+     * {@link #read(int, AnalogRange)}.
+     *
+     * @param channels A/D channel numbers, in the order to read them.
+     * @param ranges A/D range code for each channel. Must be the same length as channels.
+     *
+     * @return the raw A/D value for each channel, in the same order as channels.
+     *
+     * @see <a
+     *         href="https://www.mccdaq.com/pdfs/manuals/Mcculw_WebHelp/hh_goto.htm?ULStart.htm#Function_Reference/Analog_IO_Functions/cbALoadQueue.htm">cbALoadQueue()</a>
+     */
+    public short[] readChannels(int[] channels, AnalogRange[] ranges) throws JMCCULException {
+        if (DAQ_DEVICE.getExecutor().mustSubmit()) {
+            return BoardExecutor.join(readChannelsAsync(channels, ranges));
+        }
+
+        checkSixteenBits("readChannels32()");
+        return toShorts(readChannels32(channels, ranges));
+    }
+
+    /**
+     * Runs {@link #readChannels(int[], AnalogRange[])} on the {@link DaqDevice#getExecutor() device's executor}.
+     */
+    public CompletableFuture<short[]> readChannelsAsync(int[] channels, AnalogRange[] ranges) {
+        return DAQ_DEVICE.getExecutor().submit(() -> readChannels(channels, ranges));
+    }
+
+    /**
+     * Same as {@link #readChannels(int[], AnalogRange[])} but works with any resolution. Boards with more than 16 bits
+     * are scanned into a 32-bit Windows buffer, or read with {@link #read32(int, AnalogRange)}.
+     *
+     * @return the raw A/D value for each channel as an unsigned number, in the same order as channels.
+     */
+    public int[] readChannels32(int[] channels, AnalogRange[] ranges) throws JMCCULException {
+        if (DAQ_DEVICE.getExecutor().mustSubmit()) {
+            return BoardExecutor.join(readChannels32Async(channels, ranges));
+        }
+
+        if (channels.length != ranges.length) {
+            throw new IllegalArgumentException(String.format(
+                    "there are %d channels but %d ranges", channels.length, ranges.length
+            ));
+        }
+        final int[] values = new int[channels.length];
+        if (channels.length == 0) {
+            return values;
+        }
+
+        if (isGainQueueSupported()) {
+            loadQueue(channels, ranges);
+            // LowChan, HighChan, and Range are ignored because the queue is loaded
+            if (scanOnce(channels[0], channels[channels.length - 1], ranges[0], values)) {
+                return values;
+            }
+        }
+
+        for (int i = 0; i < channels.length; i++) {
+            values[i] = readOne(channels[i], ranges[i]);
+        }
+        return values;
+    }
+
+    /**
+     * Runs {@link #readChannels32(int[], AnalogRange[])} on the {@link DaqDevice#getExecutor() device's executor}.
+     */
+    public CompletableFuture<int[]> readChannels32Async(int[] channels, AnalogRange[] ranges) {
+        return DAQ_DEVICE.getExecutor().submit(() -> readChannels32(channels, ranges));
+    }
+
+    /**
+     * Reads one sample from each A/D channel from lowChan to highChan, all with the same range. Only for boards with a
+     * resolution of 16 bits or less, use {@link #readChannelRange32(int, int, AnalogRange)} for the others.
+     * <p>
+     * If the board can scan, all the channels are read with a single foreground cbAInScan(), after emptying the
+     * channel-gain queue if {@link #readChannels(int[], AnalogRange[])} loaded it. Otherwise, or if the board rejects
+     * even a slow scan rate, each channel is read with {@link #read(int, AnalogRange)}.
+     *
+     * @return the raw A/D value for each channel from lowChan to highChan.
+     *
+     * @see <a
+     *         href="https://www.mccdaq.com/pdfs/manuals/Mcculw_WebHelp/hh_goto.htm?ULStart.htm#Function_Reference/Analog_IO_Functions/cbAInScan.htm">cbAInScan()</a>
+     */
+    public short[] readChannelRange(int lowChan, int highChan, AnalogRange range) throws JMCCULException {
+        if (DAQ_DEVICE.getExecutor().mustSubmit()) {
+            return BoardExecutor.join(readChannelRangeAsync(lowChan, highChan, range));
+        }
+
+        checkSixteenBits("readChannelRange32()");
+        return toShorts(readChannelRange32(lowChan, highChan, range));
+    }
+
+    /**
+     * Runs {@link #readChannelRange(int, int, AnalogRange)} on the {@link DaqDevice#getExecutor() device's executor}.
+     */
+    public CompletableFuture<short[]> readChannelRangeAsync(int lowChan, int highChan, AnalogRange range) {
+        return DAQ_DEVICE.getExecutor().submit(() -> readChannelRange(lowChan, highChan, range));
+    }
+
+    /**
+     * Same as {@link #readChannelRange(int, int, AnalogRange)} but works with any resolution.
+     *
+     * @return the raw A/D value for each channel from lowChan to highChan as an unsigned number.
+     */
+    public int[] readChannelRange32(int lowChan, int highChan, AnalogRange range) throws JMCCULException {
+        if (DAQ_DEVICE.getExecutor().mustSubmit()) {
+            return BoardExecutor.join(readChannelRange32Async(lowChan, highChan, range));
+        }
+
+        if (highChan < lowChan) {
+            throw new IllegalArgumentException(String.format(
+                    "highChan %d is lower than lowChan %d", highChan, lowChan
+            ));
+        }
+        final int[] values = new int[highChan - lowChan + 1];
+
+        if (isScanSupported()) {
+            clearQueue();
+            if (scanOnce(lowChan, highChan, range, values)) {
+                return values;
+            }
+        }
+
+        for (int i = 0; i < values.length; i++) {
+            values[i] = readOne(lowChan + i, range);
+        }
+        return values;
+    }
+
+    /**
+     * Runs {@link #readChannelRange32(int, int, AnalogRange)} on the {@link DaqDevice#getExecutor() device's executor}.
+     */
+    public CompletableFuture<int[]> readChannelRange32Async(int lowChan, int highChan, AnalogRange range) {
+        return DAQ_DEVICE.getExecutor().submit(() -> readChannelRange32(lowChan, highChan, range));
+    }
+
+    /**
+     * Reads one sample from each channel with a single foreground cbAInScan(). If the board rejects the normal rate,
+     * tries again with the total rate limited to {@link #SLOW_SINGLE_SCAN_TOTAL_RATE_HZ}, and remembers that for next
+     * time. Only called on the board's executor thread.
+     *
+     * @param values where to put one unsigned value per sample. Its length is how many samples to scan.
+     *
+     * @return false if the board rejected both rates, so the caller should read each channel on its own.
+     */
+    private boolean scanOnce(int lowChan, int highChan, AnalogRange range, int[] values) throws JMCCULException {
+        final boolean isThirtyTwoBit = getResolution() > 16;
+        final WindowsBuffer.SampleType sampleType = isThirtyTwoBit ? WindowsBuffer.SampleType.INT : WindowsBuffer.SampleType.SHORT;
+        try (WindowsBuffer windowsBuffer = WindowsBufferPool.getShared().acquire(sampleType, values.length)) {
+            while (!isSingleScanRateRejected) {
+                final long rateHz = isSingleScanRateLimited
+                        ? Math.max(1, SLOW_SINGLE_SCAN_TOTAL_RATE_HZ / values.length)
+                        : SINGLE_SCAN_RATE_HZ;
+                try {
+                    scan(lowChan, highChan, values.length, rateHz, range, windowsBuffer.getHandle(), 0);
+                } catch (JMCCULException ex) {
+                    if (ex.ERROR_CODE != MeasurementComputingUniversalLibrary.BADRATE) {
+                        throw ex;
+                    }
+                    if (isSingleScanRateLimited) {
+                        isSingleScanRateRejected = true;
+                    } else {
+                        isSingleScanRateLimited = true;
+                    }
+                    continue;
+                }
+
+                if (isThirtyTwoBit) {
+                    windowsBuffer.asIntBuffer().get(values);
+                } else {
+                    final ShortBuffer samples = windowsBuffer.asShortBuffer();
+                    for (int i = 0; i < values.length; i++) {
+                        values[i] = Short.toUnsignedInt(samples.get(i));
+                    }
+                }
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private int readOne(int channel, AnalogRange range) throws JMCCULException {
+        return (getResolution() > 16) ? (int) read32(channel, range) : Short.toUnsignedInt(read(channel, range));
+    }
+
+    private void checkSixteenBits(String alternative) throws JMCCULException {
+        if (getResolution() > 16) {
+            throw new IllegalStateException(String.format(
+                    "the board has %d bits of resolution, which don't fit in a short, so use %s instead", getResolution(), alternative
+            ));
+        }
+    }
+
+    /**
+     * For methods which scan into a 16-bit Windows buffer. The board would write 32-bit samples past the end of it.
+     */
+    private void checkSixteenBitScan(String methodName) throws JMCCULException {
+        if (getResolution() > 16) {
+            throw new IllegalStateException(String.format(
+                    "the board has %d bits of resolution, but %s only works with 16 bits or less", getResolution(), methodName
+            ));
+        }
+    }
+
+    private static short[] toShorts(int[] values) {
+        final short[] shorts = new short[values.length];
+        for (int i = 0; i < values.length; i++) {
+            shorts[i] = (short) values[i];
+        }
+        return shorts;
+    }
+
+    /**
+     * Loads the channel-gain queue unless it already holds this list. Only called on the board's executor thread, so
+     * nothing else can change the queue before the scan which uses it is done.
+     */
+    private void loadQueue(int[] channels, AnalogRange[] ranges) throws JMCCULException {
+        if (Arrays.equals(channels, loadedQueueChannels) && Arrays.equals(ranges, loadedQueueRanges)) {
+            return;
+        }
+
+        final ShortBuffer channelBuffer = ShortBuffer.allocate(channels.length);
+        final ShortBuffer rangeBuffer = ShortBuffer.allocate(ranges.length);
+        for (int i = 0; i < channels.length; i++) {
+            channelBuffer.put((short) channels[i]);
+            rangeBuffer.put((short) ranges[i].VALUE);
+        }
+        channelBuffer.flip();
+        rangeBuffer.flip();
+
+        // forget the old queue first in case loading the new one fails halfway
+        loadedQueueChannels = null;
+        loadedQueueRanges = null;
+
+        // https://www.mccdaq.com/pdfs/manuals/Mcculw_WebHelp/hh_goto.htm?ULStart.htm#Function_Reference/Analog_IO_Functions/cbALoadQueue.htm
+        final int errorCode = MeasurementComputingUniversalLibrary.INSTANCE.cbALoadQueue(
+                BOARD_NUMBER,
+                channelBuffer,
+                rangeBuffer,
+                channels.length
+        );
+        JMCCULUtils.checkError(errorCode);
+
+        loadedQueueChannels = channels.clone();
+        loadedQueueRanges = ranges.clone();
+    }
+
+    /**
+     * Empties the channel-gain queue so the next cbAInScan() uses LowChan, HighChan, and Range again. Only called on
+     * the board's executor thread, before starting the scan.
+     */
+    private void clearQueue() throws JMCCULException {
+        if (loadedQueueChannels == null) {
+            return;
+        }
+        // https://www.mccdaq.com/pdfs/manuals/Mcculw_WebHelp/hh_goto.htm?ULStart.htm#Function_Reference/Analog_IO_Functions/cbALoadQueue.htm
+        final int errorCode = MeasurementComputingUniversalLibrary.INSTANCE.cbALoadQueue(
+                BOARD_NUMBER,
+                ShortBuffer.allocate(0),
+                ShortBuffer.allocate(0),
+                0
+        );
+        JMCCULUtils.checkError(errorCode);
+        loadedQueueChannels = null;
+        loadedQueueRanges = null;
     }
 
     /**
@@ -527,23 +993,22 @@ public class AnalogInputWrapper {
      * @param range A/D range code. If the selected A/D board does not have a programmable range feature, this
      *         argument is ignored. Otherwise, set the Range argument to any range that is supported by the selected A/D
      *         board. Refer to board specific information for a list of the supported A/D ranges of each board.
+     * @param windowsBuffer Windows buffer which the board puts the samples into. It must hold at least count samples.
      * @param options Bit fields that control various options. This field may contain any combination of
      *         non-contradictory choices from the values listed in the Options argument values section below.
      *
+     * @return the actual sample rate per channel, which may be different from the requested rate because of pacer
+     *         limitations.
+     *
      * @see <a
      *         href="https://www.mccdaq.com/pdfs/manuals/Mcculw_WebHelp/hh_goto.htm?ULStart.htm#Function_Reference/Analog_IO_Functions/cbAInScan.htm">cbAInScan()</a>
      * @see <a
      *         href="https://www.mccdaq.com/pdfs/manuals/Mcculw_WebHelp/hh_goto.htm?ULStart.htm#Function_Reference/Analog_IO_Functions_for_NET/AInScan.htm">AInScan()</a>
      */
-    private void scan(int lowChan, int highChan, long count, long rateHz, AnalogRange range, AnalogInputScanOptions... options) throws JMCCULException {
+    private long scan(int lowChan, int highChan, long count, long rateHz, AnalogRange range, MeasurementComputingUniversalLibrary.HGLOBAL windowsBuffer, int options) throws JMCCULException {
 
         final NativeLongByReference rateByReference = new NativeLongByReference(new NativeLong(rateHz));
 
-        // https://www.mccdaq.com/pdfs/manuals/Mcculw_WebHelp/hh_goto.htm?ULStart.htm#Function_Reference/Windows_Memory_Management_Functions/cbWinBufAlloc.htm
-        final MeasurementComputingUniversalLibrary.HGLOBAL windowsBuffer = MeasurementComputingUniversalLibrary.INSTANCE.cbWinBufAlloc(new NativeLong(count));
-
-        // TODO how do I put data into the buffer?????
-
         final int errorCodeCbAInScan = MeasurementComputingUniversalLibrary.INSTANCE.cbAInScan(
                 /* int boardNum  */ BOARD_NUMBER,
                 /* int LowChan   */ lowChan,
@@ -552,11 +1017,465 @@ public class AnalogInputWrapper {
                 /* long *Rate    */ rateByReference,
                 /* int Range     */ range.VALUE,
                 /* int MemHandle */ windowsBuffer,
-                /* int Options   */ AnalogInputScanOptions.bitwiseOr(options)
+                /* int Options   */ options
 
         );
         JMCCULUtils.checkError(errorCodeCbAInScan);
 
+        return rateByReference.getValue().longValue();
+    }
+
+    /**
+     * Starts a continuous background scan of a range of A/D channels. New samples are handed to the consumer on a
+     * polling thread while the board keeps running. Call {@link AnalogInputBackgroundScan#close()} to stop the scan.
+     * <p>
+     * The BACKGROUND and CONTINUOUS options are always added to the options passed in. Only boards with a resolution
+     * of 16 bits or less are supported, others throw IllegalStateException.
+     *
+     * @param lowChan The first A/D channel in the scan.
+     * @param highChan The last A/D channel in the scan.
+     * @param rateHz The rate at which samples are acquired, in samples per second per channel.
+     * @param range A/D range code.
+     * @param bufferSampleCount How many samples the circular Windows buffer holds, for all channels together. It is
+     *         rounded up to a multiple of the number of channels in the scan and of the {@link #getPacketSize() packet
+     *         size}. A bigger buffer gives the polling thread more time to catch up before the board overwrites samples
+     *         which have not been read yet. The buffer comes from {@link WindowsBufferPool#getShared()}.
+     * @param consumer Receives the new samples.
+     * @param options Extra options for cbAInScan().
+     *
+     * @see <a
+     *         href="https://www.mccdaq.com/pdfs/manuals/Mcculw_WebHelp/hh_goto.htm?ULStart.htm#Function_Reference/Analog_IO_Functions/cbAInScan.htm">cbAInScan()</a>
+     */
+    public AnalogInputBackgroundScan startBackgroundScan(int lowChan, int highChan, long rateHz, AnalogRange range, int bufferSampleCount,
+                                                         AnalogInputBackgroundScan.BlockConsumer consumer, AnalogInputScanOptions... options) throws JMCCULException {
+        final int channelCount = highChan - lowChan + 1;
+        if (channelCount < 1) {
+            throw new IllegalArgumentException(String.format("highChan (%d) is less than lowChan (%d)", highChan, lowChan));
+        }
+        final int sampleCount = roundUpToMultiple(bufferSampleCount, lowestCommonMultiple(channelCount, getPacketSize()));
+        return startBackgroundScan(lowChan, highChan, rateHz, range, sampleCount, AnalogInputBackgroundScan.DeliveryMode.AS_AVAILABLE, consumer, options);
+    }
+
+    /**
+     * Starts a continuous background scan which delivers one half of the circular buffer at a time. While the board
+     * fills one half, the consumer gets the other half as a single block. Every block has the same size and the status
+     * is polled about once per block.
+     * <p>
+     * The BACKGROUND and CONTINUOUS options are always added to the options passed in. Only boards with a resolution
+     * of 16 bits or less are supported, others throw IllegalStateException.
+     *
+     * @param lowChan The first A/D channel in the scan.
+     * @param highChan The last A/D channel in the scan.
+     * @param rateHz The rate at which samples are acquired, in samples per second per channel.
+     * @param range A/D range code.
+     * @param halfBufferSampleCount How many samples are in each block, for all channels together. It is rounded up to
+     *         a multiple of the number of channels in the scan and of the {@link #getPacketSize() packet size}, so every
+     *         block starts with the first channel and BLOCKIO devices get a valid total count. The Windows buffer holds
+     *         twice this many samples.
+     * @param consumer Receives each half of the buffer.
+     * @param options Extra options for cbAInScan().
+     *
+     * @see AnalogInputBackgroundScan.DeliveryMode#HALF_BUFFER
+     */
+    public AnalogInputBackgroundScan startHalfBufferScan(int lowChan, int highChan, long rateHz, AnalogRange range, int halfBufferSampleCount,
+                                                         AnalogInputBackgroundScan.BlockConsumer consumer, AnalogInputScanOptions... options) throws JMCCULException {
+        final int channelCount = highChan - lowChan + 1;
+        if (channelCount < 1) {
+            throw new IllegalArgumentException(String.format("highChan (%d) is less than lowChan (%d)", highChan, lowChan));
+        }
+        final int halfSampleCount = roundUpToMultiple(halfBufferSampleCount, lowestCommonMultiple(channelCount, getPacketSize()));
+        return startBackgroundScan(lowChan, highChan, rateHz, range, Math.multiplyExact(halfSampleCount, 2), AnalogInputBackgroundScan.DeliveryMode.HALF_BUFFER, consumer, options);
+    }
+
+    private AnalogInputBackgroundScan startBackgroundScan(int lowChan, int highChan, long rateHz, AnalogRange range, int sampleCount,
+                                                          AnalogInputBackgroundScan.DeliveryMode deliveryMode, AnalogInputBackgroundScan.BlockConsumer consumer,
+                                                          AnalogInputScanOptions... options) throws JMCCULException {
+        if (DAQ_DEVICE.getExecutor().mustSubmit()) {
+            return BoardExecutor.join(DAQ_DEVICE.getExecutor().submit(
+                    () -> startBackgroundScan(lowChan, highChan, rateHz, range, sampleCount, deliveryMode, consumer, options)
+            ));
+        }
+
+        checkSixteenBitScan("a background scan");
+
+        // a queue left over from readChannels() would override the channels and range
+        clearQueue();
+
+        final WindowsBuffer windowsBuffer = WindowsBufferPool.getShared().acquire(WindowsBuffer.SampleType.SHORT, sampleCount);
+        final AnalogInputBackgroundScan backgroundScan = new AnalogInputBackgroundScan(this, DAQ_DEVICE.getExecutor(), windowsBuffer, highChan - lowChan + 1, consumer, deliveryMode);
+
+        final long actualRateHz;
+        try {
+            // the events have to be enabled before the scan starts
+            backgroundScan.enableEvents();
+            actualRateHz = scan(
+                    lowChan,
+                    highChan,
+                    sampleCount,
+                    rateHz,
+                    range,
+                    windowsBuffer.getHandle(),
+                    AnalogInputScanOptions.bitwiseOr(options) | MeasurementComputingUniversalLibrary.BACKGROUND | MeasurementComputingUniversalLibrary.CONTINUOUS
+            );
+        } catch (JMCCULException ex) {
+            backgroundScan.abort();
+            throw ex;
+        }
+
+        ACTIVE_SCANS.add(backgroundScan);
+        backgroundScan.start(rateHz, actualRateHz);
+        return backgroundScan;
+    }
+
+    /**
+     * @return background scans which have been started and not closed yet.
+     */
+    public List<AnalogInputBackgroundScan> getActiveBackgroundScans() {
+        return List.copyOf(ACTIVE_SCANS);
+    }
+
+    /**
+     * Closes every background scan which has not been closed yet.
+     *
+     * @throws JMCCULException the first exception from closing a scan, after trying to close all of them.
+     * @throws RuntimeException what a scan's consumer threw, if that was the first exception.
+     */
+    public void stopBackgroundScans() throws JMCCULException {
+        Exception firstException = null;
+        for (AnalogInputBackgroundScan scan : getActiveBackgroundScans()) {
+            try {
+                scan.close();
+            } catch (JMCCULException | RuntimeException ex) {
+                if (firstException == null) {
+                    firstException = ex;
+                }
+            }
+        }
+        if (firstException instanceof JMCCULException) {
+            throw (JMCCULException) firstException;
+        }
+        if (firstException != null) {
+            throw (RuntimeException) firstException;
+        }
+    }
+
+    /**
+     * @return total number of samples delivered by every background scan on this device, including closed ones.
+     */
+    public long getBackgroundScanSamplesDelivered() {
+        long total = CLOSED_SCAN_SAMPLES.sum();
+        for (AnalogInputBackgroundScan scan : ACTIVE_SCANS) {
+            total += scan.getSamplesDelivered();
+        }
+        return total;
+    }
+
+    /**
+     * @return how many times a background scan on this device lost samples.
+     */
+    public long getBackgroundScanOverrunCount() {
+        return OVERRUN_COUNT.sum();
+    }
+
+    /**
+     * @return why the most recent background scan to fail failed, or null if none have.
+     */
+    public JMCCULException getLastBackgroundScanFailure() {
+        return lastScanFailure;
+    }
+
+    /**
+     * @return value of {@link System#currentTimeMillis()} when {@link #getLastBackgroundScanFailure()} happened.
+     */
+    public long getLastBackgroundScanFailureMillis() {
+        return lastScanFailureMillis;
+    }
+
+    void onBackgroundScanOverrun() {
+        OVERRUN_COUNT.increment();
+    }
+
+    void onBackgroundScanClosed(AnalogInputBackgroundScan scan, JMCCULException failure) {
+        if (ACTIVE_SCANS.remove(scan)) {
+            CLOSED_SCAN_SAMPLES.add(scan.getSamplesDelivered());
+        }
+        if (failure != null) {
+            lastScanFailureMillis = System.currentTimeMillis();
+            lastScanFailure = failure;
+        }
+    }
+
+    /**
+     * Waits for a trigger event to occur and returns samples from before and after the trigger. Runs in the
+     * foreground, so this method returns once all the samples have been collected.
+     * <p>
+     * The call runs on the board's executor and holds it until the trigger arrives, so every other call for this board
+     * waits too, and nothing can stop the capture early. Use {@link #capturePretriggerInBackground} if the trigger
+     * might not come soon.
+     * <p>
+     * The board fills the Windows buffer circularly until the trigger arrives. In the foreground, cbAPretrig() puts
+     * the pretrigger samples back in order before it returns, so the pretrigger and posttrigger blocks are just views
+     * of the buffer. Only background captures return the samples out of order and need cbAConvertPretrigData(), which
+     * is why BACKGROUND is not allowed here.
+     *
+     * @param lowChan First A/D channel of the scan.
+     * @param highChan Last A/D channel of the scan.
+     * @param pretriggerCount Number of pretrigger samples to collect, for all channels together. Must be a multiple
+     *         of the number of channels.
+     * @param totalCount Total number of samples to collect, pretrigger and posttrigger together. Must be a multiple
+     *         of the number of channels and more than pretriggerCount.
+     * @param rateHz Sample rate in samples per second per channel.
+     * @param range A/D range code.
+     * @param options Extra options. BACKGROUND is not allowed.
+     *
+     * @return the samples in order, pretrigger samples first. Close it when finished with them.
+     *
+     * @throws IllegalStateException if the board has more than 16 bits of resolution.
+     * @see <a
+     *         href="https://www.mccdaq.com/pdfs/manuals/Mcculw_WebHelp/hh_goto.htm?ULStart.htm#Function_Reference/Analog_IO_Functions/cbAPretrig.htm">cbAPretrig()</a>
+     */
+    public PretriggerCapture capturePretrigger(int lowChan, int highChan, int pretriggerCount, int totalCount, long rateHz, AnalogRange range,
+                                               AnalogInputScanOptions... options) throws JMCCULException {
+        if (DAQ_DEVICE.getExecutor().mustSubmit()) {
+            return BoardExecutor.join(DAQ_DEVICE.getExecutor().submit(
+                    () -> capturePretrigger(lowChan, highChan, pretriggerCount, totalCount, rateHz, range, options)
+            ));
+        }
+
+        final int channelCount = checkPretriggerArguments(lowChan, highChan, pretriggerCount, totalCount);
+        final int optionsInt = AnalogInputScanOptions.bitwiseOr(options);
+        if ((optionsInt & MeasurementComputingUniversalLibrary.BACKGROUND) != 0) {
+            throw new IllegalArgumentException("capturePretrigger() only runs in the foreground, so use capturePretriggerInBackground() instead");
+        }
+        checkSixteenBitScan("capturePretrigger()");
+
+        clearQueue();
+
+        final WindowsBuffer windowsBuffer = WindowsBufferPool.getShared().acquire(WindowsBuffer.SampleType.SHORT, totalCount + PRETRIGGER_EXTRA_SAMPLES);
+        try {
+            final NativeLongByReference pretriggerCountByReference = new NativeLongByReference(new NativeLong(pretriggerCount));
+            final NativeLongByReference totalCountByReference = new NativeLongByReference(new NativeLong(totalCount));
+            final NativeLongByReference rateByReference = new NativeLongByReference(new NativeLong(rateHz));
+
+            startPretrigger(lowChan, highChan, pretriggerCountByReference, totalCountByReference, rateByReference, range, windowsBuffer, optionsInt);
+
+            final int actualPretriggerCount = pretriggerCountByReference.getValue().intValue();
+            final int actualTotalCount = totalCountByReference.getValue().intValue();
+
+            return new PretriggerCapture(windowsBuffer, actualPretriggerCount, actualTotalCount, channelCount, rateByReference.getValue().longValue());
+        } catch (JMCCULException | RuntimeException ex) {
+            windowsBuffer.close();
+            throw ex;
+        }
+    }
+
+    /**
+     * Like {@link #capturePretrigger}, but runs cbAPretrig() with the BACKGROUND option, so other calls for this board
+     * can run while it waits for the trigger. The status is polled on the board's executor, and cbAConvertPretrigData()
+     * puts the samples in order once the capture is done.
+     * <p>
+     * Cancel the returned future to stop waiting. The capture is stopped with cbStopIOBackground() and the Windows
+     * buffer is freed. Do not start another analog input scan on this board until the future is done.
+     *
+     * @param lowChan First A/D channel of the scan.
+     * @param highChan Last A/D channel of the scan.
+     * @param pretriggerCount Number of pretrigger samples to collect, for all channels together. Must be a multiple
+     *         of the number of channels.
+     * @param totalCount Total number of samples to collect, pretrigger and posttrigger together. Must be a multiple
+     *         of the number of channels and more than pretriggerCount.
+     * @param rateHz Sample rate in samples per second per channel.
+     * @param range A/D range code.
+     * @param options Extra options. BACKGROUND is added.
+     *
+     * @return completes with the samples in order, pretrigger samples first. Close it when finished with them.
+     *
+     * @see <a
+     *         href="https://www.mccdaq.com/pdfs/manuals/Mcculw_WebHelp/hh_goto.htm?ULStart.htm#Function_Reference/Analog_IO_Functions/cbAPretrig.htm">cbAPretrig()</a>
+     * @see <a
+     *         href="https://www.mccdaq.com/pdfs/manuals/Mcculw_WebHelp/hh_goto.htm?ULStart.htm#Function_Reference/Analog_IO_Functions/cbAConvertPretrigData.htm">cbAConvertPretrigData()</a>
+     */
+    public CompletableFuture<PretriggerCapture> capturePretriggerInBackground(int lowChan, int highChan, int pretriggerCount, int totalCount,
+                                                                             long rateHz, AnalogRange range, AnalogInputScanOptions... options) {
+        final BoardExecutor executor = DAQ_DEVICE.getExecutor();
+        return executor.submit(() -> {
+            final int channelCount = checkPretriggerArguments(lowChan, highChan, pretriggerCount, totalCount);
+            checkSixteenBitScan("capturePretriggerInBackground()");
+
+            clearQueue();
+
+            final WindowsBuffer windowsBuffer = WindowsBufferPool.getShared().acquire(WindowsBuffer.SampleType.SHORT, totalCount + PRETRIGGER_EXTRA_SAMPLES);
+            try {
+                final NativeLongByReference pretriggerCountByReference = new NativeLongByReference(new NativeLong(pretriggerCount));
+                final NativeLongByReference totalCountByReference = new NativeLongByReference(new NativeLong(totalCount));
+                final NativeLongByReference rateByReference = new NativeLongByReference(new NativeLong(rateHz));
+
+                startPretrigger(lowChan, highChan, pretriggerCountByReference, totalCountByReference, rateByReference, range, windowsBuffer,
+                        AnalogInputScanOptions.bitwiseOr(options) | MeasurementComputingUniversalLibrary.BACKGROUND);
+
+                return new BackgroundPretriggerCapture(
+                        executor, windowsBuffer, channelCount, pretriggerCountByReference, totalCountByReference, rateByReference
+                );
+            } catch (JMCCULException | RuntimeException ex) {
+                windowsBuffer.close();
+                throw ex;
+            }
+        }).thenCompose(BackgroundPretriggerCapture::start);
+    }
+
+    /**
+     * @return the number of channels.
+     */
+    private static int checkPretriggerArguments(int lowChan, int highChan, int pretriggerCount, int totalCount) {
+        final int channelCount = highChan - lowChan + 1;
+        if (channelCount < 1) {
+            throw new IllegalArgumentException(String.format("highChan (%d) is less than lowChan (%d)", highChan, lowChan));
+        }
+        if (pretriggerCount < 0 || pretriggerCount >= totalCount || totalCount % channelCount != 0 || pretriggerCount % channelCount != 0) {
+            throw new IllegalArgumentException(String.format(
+                    "invalid counts for %d channels: pretrigger %d, total %d", channelCount, pretriggerCount, totalCount
+            ));
+        }
+        return channelCount;
+    }
+
+    private void startPretrigger(int lowChan, int highChan, NativeLongByReference pretriggerCountByReference, NativeLongByReference totalCountByReference,
+                                 NativeLongByReference rateByReference, AnalogRange range, WindowsBuffer windowsBuffer, int optionsInt) throws JMCCULException {
+        // https://www.mccdaq.com/pdfs/manuals/Mcculw_WebHelp/hh_goto.htm?ULStart.htm#Function_Reference/Analog_IO_Functions/cbAPretrig.htm
+        final int errorCodePretrig = MeasurementComputingUniversalLibrary.INSTANCE.cbAPretrig(
+                /* int BoardNum      */ BOARD_NUMBER,
+                /* int LowChan       */ lowChan,
+                /* int HighChan      */ highChan,
+                /* long *PreTrigCount */ pretriggerCountByReference, // returns how many pretrigger samples were collected
+                /* long *TotalCount  */ totalCountByReference,
+                /* long *Rate        */ rateByReference,
+                /* int Range         */ range.VALUE,
+                /* int MemHandle     */ windowsBuffer.getHandle(),
+                /* int Options       */ optionsInt
+        );
+        JMCCULUtils.checkError(errorCodePretrig);
+    }
+
+    /**
+     * Scans a range of A/D channels and has the Universal Library write the samples straight into a streamer file,
+     * without going through a Windows buffer or the Java heap. Runs in the foreground.
+     *
+     * @param lowChan First A/D channel of the scan.
+     * @param highChan Last A/D channel of the scan.
+     * @param count Total number of samples to collect, for all channels together.
+     * @param rateHz Sample rate in samples per second per channel.
+     * @param range A/D range code.
+     * @param file File to write. It is overwritten if it exists. The absolute path must be ASCII.
+     * @param options Extra options. BACKGROUND is not allowed.
+     *
+     * @return information about the file which was written.
+     *
+     * @throws IllegalArgumentException if the absolute path of the file is not ASCII.
+     * @see <a
+     *         href="https://www.mccdaq.com/pdfs/manuals/Mcculw_WebHelp/hh_goto.htm?ULStart.htm#Function_Reference/Streamer_File_Functions/cbFileAInScan.htm">cbFileAInScan()</a>
+     */
+    public StreamerFile scanToFile(int lowChan, int highChan, long count, long rateHz, AnalogRange range, Path file,
+                                   AnalogInputScanOptions... options) throws JMCCULException {
+        if (DAQ_DEVICE.getExecutor().mustSubmit()) {
+            return BoardExecutor.join(DAQ_DEVICE.getExecutor().submit(
+                    () -> scanToFile(lowChan, highChan, count, rateHz, range, file, options)
+            ));
+        }
+
+        clearQueue();
+
+        final NativeLongByReference rateByReference = new NativeLongByReference(new NativeLong(rateHz));
+
+        // https://www.mccdaq.com/pdfs/manuals/Mcculw_WebHelp/hh_goto.htm?ULStart.htm#Function_Reference/Streamer_File_Functions/cbFileAInScan.htm
+        final int errorCode = MeasurementComputingUniversalLibrary.INSTANCE.cbFileAInScan(
+                /* int BoardNum      */ BOARD_NUMBER,
+                /* int LowChan       */ lowChan,
+                /* int HighChan      */ highChan,
+                /* long Count        */ new NativeLong(count),
+                /* long *Rate        */ rateByReference,
+                /* int Range         */ range.VALUE,
+                /* char *FileName    */ StreamerFile.toFileName(file),
+                /* int Options       */ AnalogInputScanOptions.bitwiseOr(options)
+        );
+        JMCCULUtils.checkError(errorCode);
+
+        return StreamerFile.open(file);
+    }
+
+    /**
+     * Waits for a trigger event and has the Universal Library write samples from before and after the trigger
+     * straight into a streamer file. Runs in the foreground.
+     *
+     * @param lowChan First A/D channel of the scan.
+     * @param highChan Last A/D channel of the scan.
+     * @param pretriggerCount Number of pretrigger samples to collect, for all channels together.
+     * @param totalCount Total number of samples to collect, pretrigger and posttrigger together.
+     * @param rateHz Sample rate in samples per second per channel.
+     * @param range A/D range code.
+     * @param file File to write. It is overwritten if it exists. The absolute path must be ASCII.
+     * @param options Extra options. BACKGROUND is not allowed.
+     *
+     * @return information about the file which was written, including how many pretrigger samples were actually
+     *         collected.
+     *
+     * @throws IllegalArgumentException if the absolute path of the file is not ASCII.
+     * @see <a
+     *         href="https://www.mccdaq.com/pdfs/manuals/Mcculw_WebHelp/hh_goto.htm?ULStart.htm#Function_Reference/Streamer_File_Functions/cbFilePretrig.htm">cbFilePretrig()</a>
+     */
+    public StreamerFile pretriggerToFile(int lowChan, int highChan, long pretriggerCount, long totalCount, long rateHz, AnalogRange range, Path file,
+                                         AnalogInputScanOptions... options) throws JMCCULException {
+        if (DAQ_DEVICE.getExecutor().mustSubmit()) {
+            return BoardExecutor.join(DAQ_DEVICE.getExecutor().submit(
+                    () -> pretriggerToFile(lowChan, highChan, pretriggerCount, totalCount, rateHz, range, file, options)
+            ));
+        }
+
+        clearQueue();
+
+        final NativeLongByReference pretriggerCountByReference = new NativeLongByReference(new NativeLong(pretriggerCount));
+        final NativeLongByReference totalCountByReference = new NativeLongByReference(new NativeLong(totalCount));
+        final NativeLongByReference rateByReference = new NativeLongByReference(new NativeLong(rateHz));
+
+        // https://www.mccdaq.com/pdfs/manuals/Mcculw_WebHelp/hh_goto.htm?ULStart.htm#Function_Reference/Streamer_File_Functions/cbFilePretrig.htm
+        final int errorCode = MeasurementComputingUniversalLibrary.INSTANCE.cbFilePretrig(
+                /* int BoardNum       */ BOARD_NUMBER,
+                /* int LowChan        */ lowChan,
+                /* int HighChan       */ highChan,
+                /* long *PreTrigCount */ pretriggerCountByReference,
+                /* long *TotalCount   */ totalCountByReference,
+                /* long *Rate         */ rateByReference,
+                /* int Range          */ range.VALUE,
+                /* char *FileName     */ StreamerFile.toFileName(file),
+                /* int Options        */ AnalogInputScanOptions.bitwiseOr(options)
+        );
+        JMCCULUtils.checkError(errorCode);
+
+        return StreamerFile.open(file);
+    }
+
+    /**
+     * Rounds a sample count up to a multiple of the {@link #getPacketSize() packet size}, which BLOCKIO devices need
+     * for the total count of a CONTINUOUS scan.
+     */
+    public int roundUpToPacketSize(int sampleCount) {
+        return roundUpToMultiple(sampleCount, getPacketSize());
+    }
+
+    private static int roundUpToMultiple(int value, int factor) {
+        if (value < 1) {
+            throw new IllegalArgumentException("the sample count must be positive, but it is " + value);
+        }
+        return Math.addExact(value, factor - 1) / factor * factor;
+    }
+
+    private static int lowestCommonMultiple(int a, int b) {
+        int x = a;
+        int y = b;
+        while (y != 0) {
+            final int remainder = x % y;
+            x = y;
+            y = remainder;
+        }
+        return Math.multiplyExact(a / x, b);
     }
 
 
@@ -590,6 +1509,13 @@ public class AnalogInputWrapper {
         );
     }
 
+    /**
+     * Runs {@link #getRange()} on the {@link DaqDevice#getExecutor() device's executor}.
+     */
+    public CompletableFuture<AnalogRange> getRangeAsync() {
+        return DAQ_DEVICE.getExecutor().submit(this::getRange);
+    }
+
     /**
      * Selected voltage range.
      * <p>
@@ -634,6 +1560,13 @@ public class AnalogInputWrapper {
         return _channelCount;
     }
 
+    /**
+     * Runs {@link #getChannelCount()} on the {@link DaqDevice#getExecutor() device's executor}.
+     */
+    public CompletableFuture<Integer> getChannelCountAsync() {
+        return DAQ_DEVICE.getExecutor().submit(this::getChannelCount);
+    }
+
     /**
      * @see <a
      *         href="https://www.mccdaq.com/pdfs/manuals/Mcculw_WebHelp/hh_goto.htm?ULStart.htm#Function_Reference/Configuration_Functions/cbSetConfig.htm">cbSetConfig()</a>
@@ -671,6 +1604,13 @@ public class AnalogInputWrapper {
         );
     }
 
+    /**
+     * Runs {@link #getDataRate(int)} on the {@link DaqDevice#getExecutor() device's executor}.
+     */
+    public CompletableFuture<Integer> getDataRateAsync(int channel) {
+        return DAQ_DEVICE.getExecutor().submit(() -> getDataRate(channel));
+    }
+
     /**
      * @see <a
      *         href="https://www.mccdaq.com/pdfs/manuals/Mcculw_WebHelp/hh_goto.htm?ULStart.htm#Function_Reference/Configuration_Functions/cbSetConfig.htm">cbSetConfig()</a>
@@ -709,6 +1649,13 @@ public class AnalogInputWrapper {
                 ));
     }
 
+    /**
+     * Runs {@link #getDataTransferMode()} on the {@link DaqDevice#getExecutor() device's executor}.
+     */
+    public CompletableFuture<AdcTransferMode> getDataTransferModeAsync() {
+        return DAQ_DEVICE.getExecutor().submit(this::getDataTransferMode);
+    }
+
     /**
      * @see <a
      *         href="https://www.mccdaq.com/pdfs/manuals/Mcculw_WebHelp/hh_goto.htm?ULStart.htm#Function_Reference/Configuration_Functions/cbSetConfig.htm">cbSetConfig()</a>
@@ -749,6 +1696,13 @@ public class AnalogInputWrapper {
                 ));
     }
 
+    /**
+     * Runs {@link #getSettlingTime()} on the {@link DaqDevice#getExecutor() device's executor}.
+     */
+    public CompletableFuture<AdcSettlingTime> getSettlingTimeAsync() {
+        return DAQ_DEVICE.getExecutor().submit(this::getSettlingTime);
+    }
+
     /**
      * @see <a
      *         href="https://www.mccdaq.com/pdfs/manuals/Mcculw_WebHelp/hh_goto.htm?ULStart.htm#Function_Reference/Configuration_Functions/cbSetConfig.htm">cbSetConfig()</a>
@@ -787,6 +1741,13 @@ public class AnalogInputWrapper {
                 ));
     }
 
+    /**
+     * Runs {@link #getTimingMode()} on the {@link DaqDevice#getExecutor() device's executor}.
+     */
+    public CompletableFuture<AdcTimingMode> getTimingModeAsync() {
+        return DAQ_DEVICE.getExecutor().submit(this::getTimingMode);
+    }
+
     /**
      * @see <a
      *         href="https://www.mccdaq.com/pdfs/manuals/Mcculw_WebHelp/hh_goto.htm?ULStart.htm#Function_Reference/Configuration_Functions/cbSetConfig.htm">cbSetConfig()</a>
@@ -828,6 +1789,13 @@ public class AnalogInputWrapper {
         );
     }
 
+    /**
+     * Runs {@link #getTriggerCount()} on the {@link DaqDevice#getExecutor() device's executor}.
+     */
+    public CompletableFuture<Integer> getTriggerCountAsync() {
+        return DAQ_DEVICE.getExecutor().submit(this::getTriggerCount);
+    }
+
     /**
      * Number of analog input samples to acquire during each trigger event when ScanOptions.RetrigMode is enabled.
      * <p>
@@ -878,6 +1846,13 @@ public class AnalogInputWrapper {
         );
     }
 
+    /**
+     * Runs {@link #getTriggerSourceChannel(int)} on the {@link DaqDevice#getExecutor() device's executor}.
+     */
+    public CompletableFuture<Integer> getTriggerSourceChannelAsync(int channel) {
+        return DAQ_DEVICE.getExecutor().submit(() -> getTriggerSourceChannel(channel));
+    }
+
     /**
      * @see <a
      *         href="https://www.mccdaq.com/pdfs/manuals/Mcculw_WebHelp/hh_goto.htm?ULStart.htm#Function_Reference/Configuration_Functions/cbSetConfig.htm">cbSetConfig()</a>
@@ -917,6 +1892,13 @@ public class AnalogInputWrapper {
         );
     }
 
+    /**
+     * Runs {@link #getChannelType(int)} on the {@link DaqDevice#getExecutor() device's executor}.
+     */
+    public CompletableFuture<AnalogInputChannelType> getChannelTypeAsync(int channel) {
+        return DAQ_DEVICE.getExecutor().submit(() -> getChannelType(channel));
+    }
+
     /**
      * @see <a
      *         href="https://www.mccdaq.com/pdfs/manuals/Mcculw_WebHelp/hh_goto.htm?ULStart.htm#Function_Reference/Configuration_Functions/cbSetConfig.htm">cbSetConfig()</a>
@@ -961,6 +1943,13 @@ public class AnalogInputWrapper {
         );
     }
 
+    /**
+     * Runs {@link #getModeForChannel(int)} on the {@link DaqDevice#getExecutor() device's executor}.
+     */
+    public CompletableFuture<AnalogInputMode> getModeForChannelAsync(int channel) {
+        return DAQ_DEVICE.getExecutor().submit(() -> getModeForChannel(channel));
+    }
+
     /**
      * Sets the analog input mode for a specific channel.
      *
@@ -970,11 +1959,26 @@ public class AnalogInputWrapper {
      *         href="https://www.mccdaq.com/pdfs/manuals/Mcculw_WebHelp/hh_goto.htm?ULStart.htm#Function_Reference/Configuration_Functions_for_NET/GetChanAIMode.htm">BoardConfig.GetChanAIMode()</a>
      */
     public void setModeForChannel(int channel, AnalogInputMode mode) throws JMCCULException {
+        if (DAQ_DEVICE.getExecutor().mustSubmit()) {
+            BoardExecutor.join(setModeForChannelAsync(channel, mode));
+            return;
+        }
+
         final int errorCode = MeasurementComputingUniversalLibrary.INSTANCE.cbAChanInputMode(BOARD_NUMBER, channel, mode.VALUE);
         JMCCULUtils.checkError(errorCode);
 
     }
 
+    /**
+     * Runs {@link #setModeForChannel(int, AnalogInputMode)} on the {@link DaqDevice#getExecutor() device's executor}.
+     */
+    public CompletableFuture<Void> setModeForChannelAsync(int channel, AnalogInputMode mode) {
+        return DAQ_DEVICE.getExecutor().submit(() -> {
+            setModeForChannel(channel, mode);
+            return null;
+        });
+    }
+
 
 
     /* /////////////////////////////////////////////////////////////////////////////////////////////////////////////////
@@ -1005,6 +2009,13 @@ public class AnalogInputWrapper {
         );
     }
 
+    /**
+     * Runs {@link #getModeForBoard()} on the {@link DaqDevice#getExecutor() device's executor}.
+     */
+    public CompletableFuture<AnalogInputMode> getModeForBoardAsync() {
+        return DAQ_DEVICE.getExecutor().submit(this::getModeForBoard);
+    }
+
     /**
      * Sets the analog input mode for the whole board.
      *
@@ -1014,9 +2025,24 @@ public class AnalogInputWrapper {
      *         href="https://www.mccdaq.com/pdfs/manuals/Mcculw_WebHelp/hh_goto.htm?ULStart.htm#Function_Reference/Configuration_Functions_for_NET/AInputMode.htm">AInputMode()</a>
      */
     public void setModeForBoard(AnalogInputMode mode) throws JMCCULException {
+        if (DAQ_DEVICE.getExecutor().mustSubmit()) {
+            BoardExecutor.join(setModeForBoardAsync(mode));
+            return;
+        }
+
         final int errorCode = MeasurementComputingUniversalLibrary.INSTANCE.cbAInputMode(BOARD_NUMBER, mode.VALUE);
         JMCCULUtils.checkError(errorCode);
     }
 
+    /**
+     * Runs {@link #setModeForBoard(AnalogInputMode)} on the {@link DaqDevice#getExecutor() device's executor}.
+     */
+    public CompletableFuture<Void> setModeForBoardAsync(AnalogInputMode mode) {
+        return DAQ_DEVICE.getExecutor().submit(() -> {
+            setModeForBoard(mode);
+            return null;
+        });
+    }
+
 
 }
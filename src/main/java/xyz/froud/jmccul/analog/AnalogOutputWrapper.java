@@ -26,15 +26,18 @@ package xyz.froud.jmccul.analog;
 
 import com.sun.jna.NativeLong;
 import com.sun.jna.ptr.NativeLongByReference;
+import xyz.froud.jmccul.BoardExecutor;
+import xyz.froud.jmccul.DirectUniversalLibrary;
 import xyz.froud.jmccul.DaqDevice;
 import xyz.froud.jmccul.JMCCULException;
 import xyz.froud.jmccul.JMCCULUtils;
 import xyz.froud.jmccul.config.ConfigurationWrapper;
 import xyz.froud.jmccul.MeasurementComputingUniversalLibrary;
+import xyz.froud.jmccul.WindowsBuffer;
 
-import java.nio.ShortBuffer;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Analog output = digital to analog = "DAC"
@@ -71,6 +74,13 @@ public class AnalogOutputWrapper {
         return getChannelCount() > 0;
     }
 
+    /**
+     * Runs {@link #isSupported()} on the {@link DaqDevice#getExecutor() device's executor}.
+     */
+    public CompletableFuture<Boolean> isSupportedAsync() {
+        return DAQ_DEVICE.getExecutor().submit(this::isSupported);
+    }
+
 
     /*
     void getSupPortedScanOptions() {
@@ -89,81 +99,107 @@ public class AnalogOutputWrapper {
      *         in ao_info.py</a>
      */
     public List<AnalogRange> getSupportedRanges() throws JMCCULException {
+        if (DAQ_DEVICE.getExecutor().mustSubmit()) {
+            return BoardExecutor.join(getSupportedRangesAsync());
+        }
+
         if (_supportedRanges == null) {
+            _supportedRanges = DAQ_DEVICE.getCapabilities().getRanges("analog.output.supportedRanges", errors -> {
+                final List<AnalogRange> ranges = new ArrayList<>();
 
-            _supportedRanges = new ArrayList<>();
-
-            // Check if the range is ignored by passing a bogus range in
-            boolean isRangeIgnored = false;
-            try {
-                // cal cbAOut() with a bogus range.
-                // If the D/A board does not have programmable ranges then the range argument will be ignored.
-                final int errorCode = MeasurementComputingUniversalLibrary.INSTANCE.cbAOut(
-                        DAQ_DEVICE.getBoardNumber(),
-                        0,
-                        -5,
-                        (short) 0
-                );
-                JMCCULUtils.checkError(errorCode);
-
-                isRangeIgnored = true;
-            } catch (JMCCULException ex) {
-                ex.throwIfErrorIsNetworkDeviceInUse();
-            }
-
-            if (isRangeIgnored) {
-                // Try and get the range configured in InstaCal
+                // Check if the range is ignored by passing a bogus range in
+                boolean isRangeIgnored = false;
                 try {
-                    int range = ConfigurationWrapper.getInt(
-                            MeasurementComputingUniversalLibrary.BOARDINFO,
+                    // cal cbAOut() with a bogus range.
+                    // If the D/A board does not have programmable ranges then the range argument will be ignored.
+                    final int errorCode = DirectUniversalLibrary.cbAOut(
                             DAQ_DEVICE.getBoardNumber(),
                             0,
-                            MeasurementComputingUniversalLibrary.BIDACRANGE
+                            -5,
+                            (short) 0
                     );
-                    _supportedRanges.add(AnalogRange.parseInt(range));
+                    JMCCULUtils.checkError(errorCode);
+
+                    isRangeIgnored = true;
                 } catch (JMCCULException ex) {
-                    ex.throwIfErrorIsNetworkDeviceInUse();
+                    errors.ignore(ex);
                 }
-            } else {
-                // try all possible analog ranges
-                for (AnalogRange rangeToCheck : AnalogRange.values()) {
+
+                if (isRangeIgnored) {
+                    // Try and get the range configured in InstaCal
                     try {
-                        write(0, rangeToCheck, (short) 0);
-                        _supportedRanges.add(rangeToCheck);
+                        int range = ConfigurationWrapper.getInt(
+                                MeasurementComputingUniversalLibrary.BOARDINFO,
+                                DAQ_DEVICE.getBoardNumber(),
+                                0,
+                                MeasurementComputingUniversalLibrary.BIDACRANGE
+                        );
+                        ranges.add(AnalogRange.parseInt(range));
                     } catch (JMCCULException ex) {
-                        ex.throwIfErrorIsNetworkDeviceInUse();
+                        errors.ignore(ex);
+                    }
+                } else {
+                    // try all possible analog ranges
+                    for (AnalogRange rangeToCheck : AnalogRange.values()) {
+                        try {
+                            write(0, rangeToCheck, (short) 0);
+                            ranges.add(rangeToCheck);
+                        } catch (JMCCULException ex) {
+                            errors.ignore(ex);
+                        }
                     }
-                }
 
-            }
+                }
+                return ranges;
+            });
         }
 
         return _supportedRanges;
 
     }
 
+    /**
+     * Runs {@link #getSupportedRanges()} on the {@link DaqDevice#getExecutor() device's executor}.
+     */
+    public CompletableFuture<List<AnalogRange>> getSupportedRangesAsync() {
+        return DAQ_DEVICE.getExecutor().submit(this::getSupportedRanges);
+    }
+
     /**
      * @see <a
      *         href="https://github.com/mccdaq/mcculw/blob/d5d4a3eebaace9544a356a1243963c7af5f8ca53/mcculw/device_info/ao_info.py#L97">supports_v_out
      *         in ao_info.py</a>
      */
     public boolean isVoltageOutputSupported() throws JMCCULException {
+        if (DAQ_DEVICE.getExecutor().mustSubmit()) {
+            return BoardExecutor.join(isVoltageOutputSupportedAsync());
+        }
+
         if (_isVoltageOutputSupported == null) {
-            if (getSupportedRanges().isEmpty()) {
-                _isVoltageOutputSupported = false;
-            } else {
-                try {
-                    writeVoltage(0, getSupportedRanges().get(0), 0);
-                    _isVoltageOutputSupported = true;
-                } catch (JMCCULException ex) {
-                    ex.throwIfErrorIsNetworkDeviceInUse();
-                    _isVoltageOutputSupported = false;
+            _isVoltageOutputSupported = DAQ_DEVICE.getCapabilities().getBoolean("analog.output.voltageOutputSupported", errors -> {
+                if (getSupportedRanges().isEmpty()) {
+                    return false;
+                } else {
+                    try {
+                        writeVoltage(0, getSupportedRanges().get(0), 0);
+                        return true;
+                    } catch (JMCCULException ex) {
+                        errors.ignore(ex);
+                        return false;
+                    }
                 }
-            }
+            });
         }
         return _isVoltageOutputSupported;
     }
 
+    /**
+     * Runs {@link #isVoltageOutputSupported()} on the {@link DaqDevice#getExecutor() device's executor}.
+     */
+    public CompletableFuture<Boolean> isVoltageOutputSupportedAsync() {
+        return DAQ_DEVICE.getExecutor().submit(this::isVoltageOutputSupported);
+    }
+
     /**
      * Sets the value of a D/A channel.
      * <p>
@@ -190,9 +226,14 @@ public class AnalogOutputWrapper {
      */
 
     public void write(int channel, AnalogRange range, short value) throws JMCCULException {
+        if (DAQ_DEVICE.getExecutor().mustSubmit()) {
+            BoardExecutor.join(writeAsync(channel, range, value));
+            return;
+        }
+
         // The value must be between zero and 2^(resolution)-1.
         // https://www.mccdaq.com/pdfs/manuals/Mcculw_WebHelp/hh_goto.htm?ULStart.htm#Function_Reference/Analog_IO_Functions/CBAOut.htm
-        final int errorCode = MeasurementComputingUniversalLibrary.INSTANCE.cbAOut(
+        final int errorCode = DirectUniversalLibrary.cbAOut(
                 DAQ_DEVICE.getBoardNumber(),
                 channel,
                 range.VALUE,
@@ -201,6 +242,16 @@ public class AnalogOutputWrapper {
         JMCCULUtils.checkError(errorCode);
     }
 
+    /**
+     * Runs {@link #write(int, AnalogRange, short)} on the {@link DaqDevice#getExecutor() device's executor}.
+     */
+    public CompletableFuture<Void> writeAsync(int channel, AnalogRange range, short value) {
+        return DAQ_DEVICE.getExecutor().submit(() -> {
+            write(channel, range, value);
+            return null;
+        });
+    }
+
     /**
      * Outputs values to a range of D/A channels. This function can be used for paced analog output on hardware that
      * supports paced output. It can also be used to update all analog outputs at the same time when the SIMULTANEOUS
@@ -209,9 +260,6 @@ public class AnalogOutputWrapper {
      * @param lowChannel First D/A channel of scan.
      * @param highChannel Last D/A channel of scan. The maximum allowable channel depends on which type of D/A
      *         board is being used.
-     * @param count Number of D/A values to output. Specifies the total number of D/A values that will be
-     *         output. Most D/A boards do not support timed outputs. For these boards, set the count to the number of
-     *         channels in the scan.
      * @param rateHz Sample rate in scans per second. For many D/A boards the Rate is ignored and can be set to
      *         NOTUSED. For D/A boards with trigger and transfer methods which allow fast output rates, such as the
      *         CIO-DAC04/12-HS, Rate should be set to the D/A output rate (in scans/sec). This argument returns the
@@ -230,6 +278,10 @@ public class AnalogOutputWrapper {
      *         The maximum update rate depends on the D/A board that is being used and on the sampling mode options.
      * @param range D/A range code. The output range of the D/A channel can be set to any of those supported by
      *         the board. If the D/A board does not have a programmable gain, this argument is ignored.
+     * @param windowsBuffer Windows buffer which already holds the D/A values to output. Its sample count is the
+     *         total number of D/A values that will be output. Most D/A boards do not support timed outputs. For these
+     *         boards, make the buffer as long as the number of channels in the scan. The caller still owns the buffer
+     *         and closes it once the scan has finished.
      * @param options Bit fields that control various options. This field may contain any combination of
      *         non-contradictory choices from the values listed in the Options argument values section below.
      *
@@ -238,7 +290,7 @@ public class AnalogOutputWrapper {
      * @see <a
      *         href="https://www.mccdaq.com/pdfs/manuals/Mcculw_WebHelp/hh_goto.htm?ULStart.htm#Function_Reference/Analog_IO_Functions_for_NET/AOutScan.htm">AOutScan()</a>
      */
-    private void scan(int lowChannel, int highChannel, long count, long rateHz, AnalogRange range, short[] values, AnalogOutputScanOptions... options) throws JMCCULException {
+    private void scan(int lowChannel, int highChannel, long rateHz, AnalogRange range, WindowsBuffer windowsBuffer, AnalogOutputScanOptions... options) throws JMCCULException {
 
         /*
         For 16-bit data, create the buffer with cbWinBufAlloc().
@@ -247,20 +299,10 @@ public class AnalogOutputWrapper {
         When the device supports output scanning of scaled data, such as cbAOutScan() using the SCALEDATA option,
         create the buffer with cbScaledWinBufAlloc().
 
-        You can load the data values with cbWinArrayToBuf() or cbScaledWinArrayToBuf() (for scaled data).
+        WindowsBuffer.allocate() picks the right one. Instead of loading the data values with cbWinArrayToBuf(),
+        the caller writes them straight into the Windows buffer through one of its views.
          */
-        //https://www.mccdaq.com/pdfs/manuals/Mcculw_WebHelp/hh_goto.htm?ULStart.htm#Function_Reference/Windows_Memory_Management_Functions/cbWinBufAlloc.htm
-        MeasurementComputingUniversalLibrary.HGLOBAL windowsBuffer
-                = MeasurementComputingUniversalLibrary.INSTANCE.cbWinBufAlloc(new NativeLong(count));
-
-        // https://www.mccdaq.com/pdfs/manuals/Mcculw_WebHelp/hh_goto.htm?ULStart.htm#Function_Reference/Windows_Memory_Management_Functions/cbWinArrayToBuf.htm
-        final int errorCodeWinArrayToBuf = MeasurementComputingUniversalLibrary.INSTANCE.cbWinArrayToBuf(
-                ShortBuffer.wrap(values),
-                windowsBuffer,
-                new NativeLong(0),
-                new NativeLong(values.length)
-        );
-        JMCCULUtils.checkError(errorCodeWinArrayToBuf);
+        final long count = windowsBuffer.getSampleCount();
 
         final NativeLongByReference rateByReference = new NativeLongByReference(new NativeLong(rateHz));
 
@@ -272,7 +314,7 @@ public class AnalogOutputWrapper {
                 /* int NumPoint  */ new NativeLong(count),
                 /* long *Rate    */ rateByReference, // returns the value of the actual rate set, which may be different from the requested rate due to pacer limitations.
                 /* int Range     */ range.VALUE,
-                /* int MemHandle */ windowsBuffer,
+                /* int MemHandle */ windowsBuffer.getHandle(),
                 /* int options   */ AnalogOutputScanOptions.bitwiseOr(options)
         );
         JMCCULUtils.checkError(errorCodeAOutScan);
@@ -300,8 +342,13 @@ public class AnalogOutputWrapper {
      *         href="https://www.mccdaq.com/pdfs/manuals/Mcculw_WebHelp/hh_goto.htm?ULStart.htm#Function_Reference/Analog_IO_Functions_for_NET/VOut.htm">VOut()</a>
      */
     public void writeVoltage(int channel, AnalogRange range, float value) throws JMCCULException {
+        if (DAQ_DEVICE.getExecutor().mustSubmit()) {
+            BoardExecutor.join(writeVoltageAsync(channel, range, value));
+            return;
+        }
+
         // https://www.mccdaq.com/pdfs/manuals/Mcculw_WebHelp/hh_goto.htm?ULStart.htm#Function_Reference/Analog_IO_Functions/cbVOut.htm
-        final int errorCode = MeasurementComputingUniversalLibrary.INSTANCE.cbVOut(
+        final int errorCode = DirectUniversalLibrary.cbVOut(
                 DAQ_DEVICE.getBoardNumber(),
                 channel,
                 range.VALUE,
@@ -312,6 +359,16 @@ public class AnalogOutputWrapper {
 
     }
 
+    /**
+     * Runs {@link #writeVoltage(int, AnalogRange, float)} on the {@link DaqDevice#getExecutor() device's executor}.
+     */
+    public CompletableFuture<Void> writeVoltageAsync(int channel, AnalogRange range, float value) {
+        return DAQ_DEVICE.getExecutor().submit(() -> {
+            writeVoltage(channel, range, value);
+            return null;
+        });
+    }
+
 
     /* /////////////////////////////////////////////////////////////////////////////////////////////////////////////////
      BIDACFORCESENSE -> BI DAC FORCE SENSE -> boardInfo
@@ -342,6 +399,13 @@ public class AnalogOutputWrapper {
         ) == 1;
     }
 
+    /**
+     * Runs {@link #isRemoteSenseEnabled(int)} on the {@link DaqDevice#getExecutor() device's executor}.
+     */
+    public CompletableFuture<Boolean> isRemoteSenseEnabledAsync(int channel) {
+        return DAQ_DEVICE.getExecutor().submit(() -> isRemoteSenseEnabled(channel));
+    }
+
     /**
      * Enables or disables remote sensing of an analog output channel.
      * <p>
@@ -366,6 +430,16 @@ public class AnalogOutputWrapper {
         );
     }
 
+    /**
+     * Runs {@link #setRemoteSenseEnabled(int, boolean)} on the {@link DaqDevice#getExecutor() device's executor}.
+     */
+    public CompletableFuture<Void> setRemoteSenseEnabledAsync(int channel, boolean sense) {
+        return DAQ_DEVICE.getExecutor().submit(() -> {
+            setRemoteSenseEnabled(channel, sense);
+            return null;
+        });
+    }
+
     /* /////////////////////////////////////////////////////////////////////////////////////////////////////////////////
      BIDACRANGE  -> BI DAC RANGE -> boardInfo DAC range
      Readable? yes
@@ -392,6 +466,13 @@ public class AnalogOutputWrapper {
         );
     }
 
+    /**
+     * Runs {@link #getRange()} on the {@link DaqDevice#getExecutor() device's executor}.
+     */
+    public CompletableFuture<AnalogRange> getRangeAsync() {
+        return DAQ_DEVICE.getExecutor().submit(this::getRange);
+    }
+
     /**
      * @see <a
      *         href="https://www.mccdaq.com/pdfs/manuals/Mcculw_WebHelp/hh_goto.htm?ULStart.htm#Function_Reference/Configuration_Functions/cbSetConfig.htm">cbSetConfig()</a>
@@ -408,6 +489,16 @@ public class AnalogOutputWrapper {
         );
     }
 
+    /**
+     * Runs {@link #setRange(int, AnalogRange)} on the {@link DaqDevice#getExecutor() device's executor}.
+     */
+    public CompletableFuture<Void> setRangeAsync(int channel, AnalogRange range) {
+        return DAQ_DEVICE.getExecutor().submit(() -> {
+            setRange(channel, range);
+            return null;
+        });
+    }
+
     /* /////////////////////////////////////////////////////////////////////////////////////////////////////////////////
      BIDACRES -> BI DAC RES -> boardInfo DAC resolution
      Readable? yes
@@ -422,16 +513,23 @@ public class AnalogOutputWrapper {
      */
     public int getResolution() throws JMCCULException {
         if (_resolution == null) {
-            _resolution = ConfigurationWrapper.getInt(
+            _resolution = DAQ_DEVICE.getCapabilities().getInt("analog.output.resolution", errors -> ConfigurationWrapper.getInt(
                     MeasurementComputingUniversalLibrary.BOARDINFO,
                     BOARD_NUMBER,
                     0, //devNum is ignored
                     MeasurementComputingUniversalLibrary.BIDACRES
-            );
+            ));
         }
         return _resolution;
     }
 
+    /**
+     * Runs {@link #getResolution()} on the {@link DaqDevice#getExecutor() device's executor}.
+     */
+    public CompletableFuture<Integer> getResolutionAsync() {
+        return DAQ_DEVICE.getExecutor().submit(this::getResolution);
+    }
+
     /* /////////////////////////////////////////////////////////////////////////////////////////////////////////////////
      BIDACSTARTUP -> BI DAC STARTUP -> boardInfo DAC startup
      Readable?
@@ -456,6 +554,13 @@ public class AnalogOutputWrapper {
         ) == 1;
     }
 
+    /**
+     * Runs {@link #isSaveDacValues(int)} on the {@link DaqDevice#getExecutor() device's executor}.
+     */
+    public CompletableFuture<Boolean> isSaveDacValuesAsync(int channel) {
+        return DAQ_DEVICE.getExecutor().submit(() -> isSaveDacValues(channel));
+    }
+
     /**
      * Set whether DAC values get saved in non-volatile memory on the DAQ board.
      * <p>
@@ -483,6 +588,16 @@ public class AnalogOutputWrapper {
         );
     }
 
+    /**
+     * Runs {@link #setSaveDacValues(boolean)} on the {@link DaqDevice#getExecutor() device's executor}.
+     */
+    public CompletableFuture<Void> setSaveDacValuesAsync(boolean enable) {
+        return DAQ_DEVICE.getExecutor().submit(() -> {
+            setSaveDacValues(enable);
+            return null;
+        });
+    }
+
     /* /////////////////////////////////////////////////////////////////////////////////////////////////////////////////
      BIDACTRIGCOUNT -> BI DAC TRIG COUNT -> boardInfo DAC trigger count
      Readable? yes
@@ -506,6 +621,13 @@ public class AnalogOutputWrapper {
         );
     }
 
+    /**
+     * Runs {@link #getTriggerCount()} on the {@link DaqDevice#getExecutor() device's executor}.
+     */
+    public CompletableFuture<Integer> getTriggerCountAsync() {
+        return DAQ_DEVICE.getExecutor().submit(this::getTriggerCount);
+    }
+
     /**
      * Sets the number of samples to generate during each trigger event when ScanOptions.RetrigMode is enabled.
      *
@@ -524,6 +646,16 @@ public class AnalogOutputWrapper {
         );
     }
 
+    /**
+     * Runs {@link #setTriggerCount(int)} on the {@link DaqDevice#getExecutor() device's executor}.
+     */
+    public CompletableFuture<Void> setTriggerCountAsync(int triggerCount) {
+        return DAQ_DEVICE.getExecutor().submit(() -> {
+            setTriggerCount(triggerCount);
+            return null;
+        });
+    }
+
     /* /////////////////////////////////////////////////////////////////////////////////////////////////////////////////
      BIDACUPDATEMODE -> BI DAC UPDATE MODE  -> boardInfo DAC update mode
      Readable? yes
@@ -548,6 +680,13 @@ public class AnalogOutputWrapper {
         );
     }
 
+    /**
+     * Runs {@link #getUpdateMode()} on the {@link DaqDevice#getExecutor() device's executor}.
+     */
+    public CompletableFuture<DacUpdateMode> getUpdateModeAsync() {
+        return DAQ_DEVICE.getExecutor().submit(this::getUpdateMode);
+    }
+
     /**
      * <ul>
      *      <li>If the value is {@link DacUpdateMode#IMMEDIATE}, then values written with cbAOut() or cbAOutScan() are automatically output by the DAC channels.</li>
@@ -569,6 +708,16 @@ public class AnalogOutputWrapper {
         );
     }
 
+    /**
+     * Runs {@link #setUpdateMode(DacUpdateMode)} on the {@link DaqDevice#getExecutor() device's executor}.
+     */
+    public CompletableFuture<Void> setUpdateModeAsync(DacUpdateMode updateMode) {
+        return DAQ_DEVICE.getExecutor().submit(() -> {
+            setUpdateMode(updateMode);
+            return null;
+        });
+    }
+
     /* /////////////////////////////////////////////////////////////////////////////////////////////////////////////////
      BINUMDACHANS -> BI NUM DA CHANS -> boardInfo number of DA channels
      Readable? yes
@@ -593,6 +742,13 @@ public class AnalogOutputWrapper {
         return _channelCount;
     }
 
+    /**
+     * Runs {@link #getChannelCount()} on the {@link DaqDevice#getExecutor() device's executor}.
+     */
+    public CompletableFuture<Integer> getChannelCountAsync() {
+        return DAQ_DEVICE.getExecutor().submit(this::getChannelCount);
+    }
+
     /* /////////////////////////////////////////////////////////////////////////////////////////////////////////////////
      BIDACUPDATECMD -> BI DAC UPDATE CMD -> boardInfo DAC update command
 
@@ -617,6 +773,16 @@ public class AnalogOutputWrapper {
         );
     }
 
+    /**
+     * Runs {@link #update()} on the {@link DaqDevice#getExecutor() device's executor}.
+     */
+    public CompletableFuture<Void> updateAsync() {
+        return DAQ_DEVICE.getExecutor().submit(() -> {
+            update();
+            return null;
+        });
+    }
+
     /*
     // BIDACSETTLETIME is not in my JNA thing
     public void setSettlingTime() throws JMCCULException {
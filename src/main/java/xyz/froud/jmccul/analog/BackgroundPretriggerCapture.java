@@ -0,0 +1,175 @@
+/*
+ * The MIT License.
+ *
+ * Copyright (c) 2022 Peter Froud.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package xyz.froud.jmccul.analog;
+
+import com.sun.jna.NativeLong;
+import com.sun.jna.ptr.NativeLongByReference;
+import xyz.froud.jmccul.BoardExecutor;
+import xyz.froud.jmccul.DirectUniversalLibrary;
+import xyz.froud.jmccul.JMCCULException;
+import xyz.froud.jmccul.JMCCULUtils;
+import xyz.froud.jmccul.MeasurementComputingUniversalLibrary;
+import xyz.froud.jmccul.NativeScratch;
+import xyz.froud.jmccul.WindowsBuffer;
+
+import java.nio.ShortBuffer;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A pretrigger capture started with the BACKGROUND option, so the board's executor is free while it waits for the
+ * trigger. The status is read on the executor every {@value #POLL_PERIOD_MILLIS} ms, and nothing runs in between.
+ * <p>
+ * Cancelling the future stops the capture with cbStopIOBackground() at the next poll and frees the Windows buffer.
+ *
+ * @author Peter Froud
+ * @see AnalogInputWrapper#capturePretriggerInBackground
+ * @see <a
+ *         href="https://www.mccdaq.com/pdfs/manuals/Mcculw_WebHelp/hh_goto.htm?ULStart.htm#Function_Reference/Analog_IO_Functions/cbAPretrig.htm">cbAPretrig()</a>
+ * @see <a
+ *         href="https://www.mccdaq.com/pdfs/manuals/Mcculw_WebHelp/hh_goto.htm?ULStart.htm#Function_Reference/Analog_IO_Functions/cbAConvertPretrigData.htm">cbAConvertPretrigData()</a>
+ */
+final class BackgroundPretriggerCapture {
+
+    private static final long POLL_PERIOD_MILLIS = 10;
+
+    private static final Executor POLL_DELAY = CompletableFuture.delayedExecutor(POLL_PERIOD_MILLIS, TimeUnit.MILLISECONDS);
+
+    private final BoardExecutor EXECUTOR;
+    private final int BOARD_NUMBER;
+    private final WindowsBuffer WINDOWS_BUFFER;
+    private final int CHANNEL_COUNT;
+
+    /*
+    The Universal Library writes the counts and rate when the capture finishes, so keep these
+    alive until then.
+     */
+    private final NativeLongByReference PRETRIGGER_COUNT;
+    private final NativeLongByReference TOTAL_COUNT;
+    private final NativeLongByReference RATE;
+
+    private final NativeLongByReference CURRENT_COUNT = new NativeLongByReference(new NativeLong(0));
+    private final NativeLongByReference CURRENT_INDEX = new NativeLongByReference(new NativeLong(0));
+
+    private final CompletableFuture<PretriggerCapture> RESULT = new CompletableFuture<>();
+
+    /**
+     * Called on the board's executor thread, which owns the Windows buffer until the capture is done.
+     */
+    BackgroundPretriggerCapture(BoardExecutor executor, WindowsBuffer windowsBuffer, int channelCount,
+                                NativeLongByReference pretriggerCount, NativeLongByReference totalCount, NativeLongByReference rate) {
+        EXECUTOR = executor;
+        BOARD_NUMBER = executor.getBoardNumber();
+        WINDOWS_BUFFER = windowsBuffer;
+        CHANNEL_COUNT = channelCount;
+        PRETRIGGER_COUNT = pretriggerCount;
+        TOTAL_COUNT = totalCount;
+        RATE = rate;
+    }
+
+    /**
+     * Starts polling. Call this after cbAPretrig() has started the capture.
+     *
+     * @return completes with the samples in order once the capture is done.
+     */
+    CompletableFuture<PretriggerCapture> start() {
+        schedulePoll();
+        return RESULT;
+    }
+
+    private void schedulePoll() {
+        POLL_DELAY.execute(() -> EXECUTOR.submit(this::poll).whenComplete((isDone, ex) -> {
+            if (ex != null) {
+                // the device was closed, or a Universal Library call failed
+                WINDOWS_BUFFER.close();
+                RESULT.completeExceptionally(ex);
+            } else if (!isDone) {
+                schedulePoll();
+            }
+        }));
+    }
+
+    /**
+     * Runs on the board's executor thread.
+     *
+     * @return true when nothing is left to do, either because the capture finished or because it was cancelled.
+     */
+    private boolean poll() throws JMCCULException {
+        if (RESULT.isDone()) {
+            // cancelled
+            try {
+                // https://www.mccdaq.com/pdfs/manuals/Mcculw_WebHelp/hh_goto.htm?ULStart.htm#Function_Reference/Miscellaneous_Functions/cbStopBackground.htm
+                final int errorCodeStop = MeasurementComputingUniversalLibrary.INSTANCE.cbStopIOBackground(
+                        BOARD_NUMBER,
+                        MeasurementComputingUniversalLibrary.AIFUNCTION
+                );
+                JMCCULUtils.checkError(errorCodeStop);
+            } finally {
+                WINDOWS_BUFFER.close();
+            }
+            return true;
+        }
+
+        final ShortBuffer status = NativeScratch.get().getShortBuffer();
+        // https://www.mccdaq.com/pdfs/manuals/Mcculw_WebHelp/hh_goto.htm?ULStart.htm#Function_Reference/Miscellaneous_Functions/cbGetStatus.htm
+        final int errorCodeStatus = DirectUniversalLibrary.cbGetIOStatus(
+                BOARD_NUMBER,
+                status,
+                CURRENT_COUNT,
+                CURRENT_INDEX,
+                MeasurementComputingUniversalLibrary.AIFUNCTION
+        );
+        JMCCULUtils.checkError(errorCodeStatus);
+        if (status.get(0) != MeasurementComputingUniversalLibrary.IDLE) {
+            return false;
+        }
+
+        final int totalCount = TOTAL_COUNT.getValue().intValue();
+        /*
+        In the background the board leaves the samples in the order they landed in the circular
+        buffer, so put the pretrigger samples back in front like the foreground cbAPretrig() does.
+         */
+        // https://www.mccdaq.com/pdfs/manuals/Mcculw_WebHelp/hh_goto.htm?ULStart.htm#Function_Reference/Analog_IO_Functions/cbAConvertPretrigData.htm
+        final int errorCodeConvert = MeasurementComputingUniversalLibrary.INSTANCE.cbAConvertPretrigData(
+                BOARD_NUMBER,
+                PRETRIGGER_COUNT.getValue(),
+                TOTAL_COUNT.getValue(),
+                WINDOWS_BUFFER.asShortBuffer(),
+                ShortBuffer.allocate(totalCount)
+        );
+        JMCCULUtils.checkError(errorCodeConvert);
+
+        final PretriggerCapture capture = new PretriggerCapture(
+                WINDOWS_BUFFER, PRETRIGGER_COUNT.getValue().intValue(), totalCount, CHANNEL_COUNT, RATE.getValue().longValue()
+        );
+        if (!RESULT.complete(capture)) {
+            // cancelled after the last poll, so nobody will close it
+            capture.close();
+        }
+        return true;
+    }
+
+}
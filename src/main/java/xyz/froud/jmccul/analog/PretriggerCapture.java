@@ -0,0 +1,109 @@
+/*
+ * The MIT License.
+ *
+ * Copyright (c) 2022 Peter Froud.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package xyz.froud.jmccul.analog;
+
+import xyz.froud.jmccul.WindowsBuffer;
+
+import java.nio.ShortBuffer;
+
+/**
+ * Samples from {@link AnalogInputWrapper#capturePretrigger} or {@link AnalogInputWrapper#capturePretriggerInBackground}.
+ * The foreground cbAPretrig() returns them in order, and the background capture is put in order by
+ * cbAConvertPretrigData(), so the pretrigger samples come first and the trigger point is between the two blocks.
+ * <p>
+ * The blocks are direct views of the Windows buffer which the board filled, so nothing is copied. Call
+ * {@link #close()} when finished with the samples, which hands the Windows buffer back to the pool.
+ *
+ * @author Peter Froud
+ * @see <a
+ *         href="https://www.mccdaq.com/pdfs/manuals/Mcculw_WebHelp/hh_goto.htm?ULStart.htm#Function_Reference/Analog_IO_Functions/cbAPretrig.htm">cbAPretrig()</a>
+ */
+public class PretriggerCapture implements AutoCloseable {
+
+    private final WindowsBuffer WINDOWS_BUFFER;
+    private final int PRETRIGGER_COUNT;
+    private final int TOTAL_COUNT;
+    private final int CHANNEL_COUNT;
+    private final long ACTUAL_RATE_HZ;
+
+    PretriggerCapture(WindowsBuffer windowsBuffer, int pretriggerCount, int totalCount, int channelCount, long actualRateHz) {
+        WINDOWS_BUFFER = windowsBuffer;
+        PRETRIGGER_COUNT = pretriggerCount;
+        TOTAL_COUNT = totalCount;
+        CHANNEL_COUNT = channelCount;
+        ACTUAL_RATE_HZ = actualRateHz;
+    }
+
+    /**
+     * @return the samples acquired before the trigger, channels interleaved, oldest first.
+     */
+    public ShortBuffer getPretriggerSamples() {
+        return WINDOWS_BUFFER.asShortBuffer(0, PRETRIGGER_COUNT);
+    }
+
+    /**
+     * @return the samples acquired after the trigger, channels interleaved, starting with the first sample after the
+     *         trigger.
+     */
+    public ShortBuffer getPosttriggerSamples() {
+        return WINDOWS_BUFFER.asShortBuffer(PRETRIGGER_COUNT, TOTAL_COUNT - PRETRIGGER_COUNT);
+    }
+
+    /**
+     * @return both blocks together, pretrigger samples first.
+     */
+    public ShortBuffer getAllSamples() {
+        return WINDOWS_BUFFER.asShortBuffer(0, TOTAL_COUNT);
+    }
+
+    /**
+     * @return how many pretrigger samples the board actually collected, for all channels. It may be less than the
+     *         requested count if the trigger happened early.
+     */
+    public int getPretriggerCount() {
+        return PRETRIGGER_COUNT;
+    }
+
+    public int getTotalCount() {
+        return TOTAL_COUNT;
+    }
+
+    public int getChannelCount() {
+        return CHANNEL_COUNT;
+    }
+
+    /**
+     * @return the sample rate per channel which the board actually used.
+     */
+    public long getActualRateHz() {
+        return ACTUAL_RATE_HZ;
+    }
+
+    @Override
+    public void close() {
+        WINDOWS_BUFFER.close();
+    }
+
+}
@@ -0,0 +1,207 @@
+/*
+ * The MIT License.
+ *
+ * Copyright (c) 2022 Peter Froud.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package xyz.froud.jmccul.analog;
+
+import com.sun.jna.NativeLong;
+import com.sun.jna.ptr.NativeLongByReference;
+import xyz.froud.jmccul.JMCCULException;
+import xyz.froud.jmccul.JMCCULUtils;
+import xyz.froud.jmccul.MeasurementComputingUniversalLibrary;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.ShortBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+/**
+ * A streamer file written by cbFileAInScan() or cbFilePretrig(), which hold A/D samples on disk instead of in a
+ * Windows buffer.
+ *
+ * @author Peter Froud
+ * @see AnalogInputWrapper#scanToFile
+ * @see AnalogInputWrapper#pretriggerToFile
+ * @see <a
+ *         href="https://www.mccdaq.com/pdfs/manuals/Mcculw_WebHelp/hh_goto.htm?ULStart.htm#Function_Reference/Streamer_File_Functions/cbFileGetInfo.htm">cbFileGetInfo()</a>
+ */
+public class StreamerFile {
+
+    private final Path PATH;
+    private final int LOW_CHANNEL;
+    private final int HIGH_CHANNEL;
+    private final long PRETRIGGER_COUNT;
+    private final long TOTAL_COUNT;
+    private final long RATE_HZ;
+    private final AnalogRange RANGE;
+
+    private StreamerFile(Path path, int lowChannel, int highChannel, long pretriggerCount, long totalCount, long rateHz, AnalogRange range) {
+        PATH = path;
+        LOW_CHANNEL = lowChannel;
+        HIGH_CHANNEL = highChannel;
+        PRETRIGGER_COUNT = pretriggerCount;
+        TOTAL_COUNT = totalCount;
+        RATE_HZ = rateHz;
+        RANGE = range;
+    }
+
+    /**
+     * Reads the information which the Universal Library stored in the file.
+     *
+     * @throws IllegalArgumentException if the absolute path of the file is not ASCII.
+     * @see <a
+     *         href="https://www.mccdaq.com/pdfs/manuals/Mcculw_WebHelp/hh_goto.htm?ULStart.htm#Function_Reference/Streamer_File_Functions/cbFileGetInfo.htm">cbFileGetInfo()</a>
+     */
+    public static StreamerFile open(Path path) throws JMCCULException {
+        final ShortBuffer lowChannel = ShortBuffer.allocate(1);
+        final ShortBuffer highChannel = ShortBuffer.allocate(1);
+        final NativeLongByReference pretriggerCount = new NativeLongByReference(new NativeLong());
+        final NativeLongByReference totalCount = new NativeLongByReference(new NativeLong());
+        final NativeLongByReference rate = new NativeLongByReference(new NativeLong());
+        final IntBuffer range = IntBuffer.allocate(1);
+
+        // https://www.mccdaq.com/pdfs/manuals/Mcculw_WebHelp/hh_goto.htm?ULStart.htm#Function_Reference/Streamer_File_Functions/cbFileGetInfo.htm
+        final int errorCode = MeasurementComputingUniversalLibrary.INSTANCE.cbFileGetInfo(
+                toFileName(path),
+                lowChannel,
+                highChannel,
+                pretriggerCount,
+                totalCount,
+                rate,
+                range
+        );
+        JMCCULUtils.checkError(errorCode);
+
+        return new StreamerFile(
+                path,
+                lowChannel.get(),
+                highChannel.get(),
+                pretriggerCount.getValue().longValue(),
+                totalCount.getValue().longValue(),
+                rate.getValue().longValue(),
+                AnalogRange.parseInt(range.get())
+        );
+    }
+
+    /**
+     * The Universal Library takes file names as ANSI strings, which are in the Windows code page of the computer, so
+     * only ASCII means the same thing everywhere. Anything else would turn into a different file name, or into
+     * question marks.
+     *
+     * @return a null-terminated file name for the Universal Library.
+     * @throws IllegalArgumentException if the absolute path is not ASCII.
+     */
+    static ByteBuffer toFileName(Path path) {
+        final String fileName = path.toAbsolutePath().toString();
+        if (!StandardCharsets.US_ASCII.newEncoder().canEncode(fileName) || fileName.indexOf('\0') >= 0) {
+            throw new IllegalArgumentException("the Universal Library only accepts ASCII file names, not " + fileName);
+        }
+        // copyOf adds the zero byte at the end
+        return ByteBuffer.wrap(Arrays.copyOf(fileName.getBytes(StandardCharsets.US_ASCII), fileName.length() + 1));
+    }
+
+    public Path getPath() {
+        return PATH;
+    }
+
+    public int getLowChannel() {
+        return LOW_CHANNEL;
+    }
+
+    public int getHighChannel() {
+        return HIGH_CHANNEL;
+    }
+
+    public int getChannelCount() {
+        return HIGH_CHANNEL - LOW_CHANNEL + 1;
+    }
+
+    /**
+     * @return number of pretrigger samples, for all channels. Zero if the file was written by cbFileAInScan().
+     */
+    public long getPretriggerCount() {
+        return PRETRIGGER_COUNT;
+    }
+
+    /**
+     * @return number of samples in the file, for all channels.
+     */
+    public long getTotalCount() {
+        return TOTAL_COUNT;
+    }
+
+    public long getRateHz() {
+        return RATE_HZ;
+    }
+
+    public AnalogRange getRange() {
+        return RANGE;
+    }
+
+    /**
+     * Reads samples out of the file with the Universal Library. For big files use {@link #openMappedReader()} instead,
+     * which does not copy anything onto the Java heap until asked for a channel.
+     *
+     * @param firstPoint index of the first sample to read.
+     * @param count how many samples to read.
+     *
+     * @return the samples, channels interleaved. May be shorter than count if the end of the file was reached.
+     *
+     * @see <a
+     *         href="https://www.mccdaq.com/pdfs/manuals/Mcculw_WebHelp/hh_goto.htm?ULStart.htm#Function_Reference/Streamer_File_Functions/cbFileRead.htm">cbFileRead()</a>
+     */
+    public short[] read(long firstPoint, int count) throws JMCCULException {
+        final ShortBuffer samples = ShortBuffer.allocate(count);
+        final NativeLongByReference numPoints = new NativeLongByReference(new NativeLong(count));
+
+        // https://www.mccdaq.com/pdfs/manuals/Mcculw_WebHelp/hh_goto.htm?ULStart.htm#Function_Reference/Streamer_File_Functions/cbFileRead.htm
+        final int errorCode = MeasurementComputingUniversalLibrary.INSTANCE.cbFileRead(
+                toFileName(PATH),
+                new NativeLong(firstPoint),
+                numPoints, // returns how many samples were actually read
+                samples
+        );
+        JMCCULUtils.checkError(errorCode);
+
+        final int actualCount = numPoints.getValue().intValue();
+        if (actualCount == count) {
+            return samples.array();
+        }
+        final short[] truncated = new short[actualCount];
+        samples.get(truncated);
+        return truncated;
+    }
+
+    /**
+     * Memory-maps the samples in the file.
+     *
+     * @throws IOException if the file could not be mapped.
+     */
+    public StreamerFileReader openMappedReader() throws IOException {
+        return new StreamerFileReader(PATH, getChannelCount(), TOTAL_COUNT);
+    }
+
+}
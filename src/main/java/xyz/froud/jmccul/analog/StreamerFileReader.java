@@ -0,0 +1,173 @@
+/*
+ * The MIT License.
+ *
+ * Copyright (c) 2022 Peter Froud.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package xyz.froud.jmccul.analog;
+
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.ShortBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Reads samples from a streamer file by memory-mapping it, so the operating system pages samples in as they are used
+ * and files bigger than the Java heap can be read.
+ * <p>
+ * The layout of streamer files is not documented. This class assumes the samples are 16-bit little-endian values,
+ * channels interleaved, at the very end of the file, after a header. So the samples start at the file size minus
+ * two bytes times the total count from cbFileGetInfo().
+ * <p>
+ * A mapping stays valid until the garbage collector frees it, even after the file is deleted, so do not keep a
+ * reader around longer than needed.
+ *
+ * @author Peter Froud
+ * @see StreamerFile#openMappedReader()
+ */
+public class StreamerFileReader {
+
+    // Keep each mapping under 1 GiB. One mapped buffer can be at most Integer.MAX_VALUE bytes.
+    private static final long MAX_MAPPING_BYTES = 1L << 30;
+
+    private final int CHANNEL_COUNT;
+    private final long SCAN_COUNT;
+    private final long DATA_OFFSET;
+    private final int SCANS_PER_MAPPING;
+    private final ShortBuffer[] MAPPINGS;
+
+    StreamerFileReader(Path path, int channelCount, long totalCount) throws IOException {
+        CHANNEL_COUNT = channelCount;
+        SCAN_COUNT = totalCount / channelCount;
+
+        final long scanBytes = (long) Short.BYTES * channelCount;
+        SCANS_PER_MAPPING = (int) (MAX_MAPPING_BYTES / scanBytes);
+
+        try (FileChannel fileChannel = FileChannel.open(path, StandardOpenOption.READ)) {
+            DATA_OFFSET = fileChannel.size() - totalCount * Short.BYTES;
+            if (DATA_OFFSET < 0) {
+                throw new IOException(String.format(
+                        "%s is %d bytes, which is too small for %d samples", path, fileChannel.size(), totalCount
+                ));
+            }
+
+            final int mappingCount = (int) ((SCAN_COUNT + SCANS_PER_MAPPING - 1) / SCANS_PER_MAPPING);
+            MAPPINGS = new ShortBuffer[mappingCount];
+            for (int i = 0; i < mappingCount; i++) {
+                final long firstScan = (long) i * SCANS_PER_MAPPING;
+                final long scansInMapping = Math.min(SCANS_PER_MAPPING, SCAN_COUNT - firstScan);
+                MAPPINGS[i] = fileChannel
+                        .map(FileChannel.MapMode.READ_ONLY, DATA_OFFSET + firstScan * scanBytes, scansInMapping * scanBytes)
+                        .order(ByteOrder.LITTLE_ENDIAN)
+                        .asShortBuffer();
+            }
+        }
+    }
+
+    public int getChannelCount() {
+        return CHANNEL_COUNT;
+    }
+
+    /**
+     * @return how many whole scans are in the file. Each scan has one sample for each channel.
+     */
+    public long getScanCount() {
+        return SCAN_COUNT;
+    }
+
+    /**
+     * @return where the samples start in the file, in bytes.
+     */
+    public long getDataOffset() {
+        return DATA_OFFSET;
+    }
+
+    /**
+     * @param scan index of the scan.
+     * @param channelIndex index of the channel within the scan, so zero is the scan's low channel.
+     */
+    public short getSample(long scan, int channelIndex) {
+        checkRange(channelIndex, scan, 1);
+        return MAPPINGS[(int) (scan / SCANS_PER_MAPPING)].get((int) (scan % SCANS_PER_MAPPING) * CHANNEL_COUNT + channelIndex);
+    }
+
+    /**
+     * Copies the samples of one channel out of the file, without the other channels.
+     *
+     * @param channelIndex index of the channel within the scan, so zero is the scan's low channel.
+     * @param firstScan index of the first scan to read.
+     * @param destination where to put the samples.
+     * @param destinationOffset index to put the first sample at.
+     * @param scanCount how many samples to read.
+     */
+    public void readChannel(int channelIndex, long firstScan, short[] destination, int destinationOffset, int scanCount) {
+        checkRange(channelIndex, firstScan, scanCount);
+        if (destinationOffset < 0 || destinationOffset > destination.length - scanCount) {
+            throw new IndexOutOfBoundsException(String.format(
+                    "cannot put %d samples at index %d of an array of length %d", scanCount, destinationOffset, destination.length
+            ));
+        }
+
+        long scan = firstScan;
+        int written = 0;
+        while (written < scanCount) {
+            final ShortBuffer mapping = MAPPINGS[(int) (scan / SCANS_PER_MAPPING)];
+            final int scanInMapping = (int) (scan % SCANS_PER_MAPPING);
+            final int countInMapping = Math.min(scanCount - written, SCANS_PER_MAPPING - scanInMapping);
+
+            int index = scanInMapping * CHANNEL_COUNT + channelIndex;
+            for (int i = 0; i < countInMapping; i++) {
+                destination[destinationOffset + written + i] = mapping.get(index);
+                index += CHANNEL_COUNT;
+            }
+
+            written += countInMapping;
+            scan += countInMapping;
+        }
+    }
+
+    /**
+     * Copies the samples of one channel out of the file.
+     *
+     * @see #readChannel(int, long, short[], int, int)
+     */
+    public short[] readChannel(int channelIndex, long firstScan, int scanCount) {
+        final short[] samples = new short[scanCount];
+        readChannel(channelIndex, firstScan, samples, 0, scanCount);
+        return samples;
+    }
+
+    private void checkRange(int channelIndex, long firstScan, long scanCount) {
+        if (channelIndex < 0 || channelIndex >= CHANNEL_COUNT) {
+            throw new IndexOutOfBoundsException(String.format(
+                    "channel index %d is outside the %d channels", channelIndex, CHANNEL_COUNT
+            ));
+        }
+        if (firstScan < 0 || scanCount < 0 || firstScan > SCAN_COUNT - scanCount) {
+            throw new IndexOutOfBoundsException(String.format(
+                    "scans %d to %d are outside the %d scans", firstScan, firstScan + scanCount, SCAN_COUNT
+            ));
+        }
+    }
+
+}
@@ -0,0 +1,184 @@
+/*
+ * The MIT License.
+ *
+ * Copyright (c) 2022 Peter Froud.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package xyz.froud.jmccul.analog;
+
+import java.nio.ShortBuffer;
+
+/**
+ * Converts raw A/D counts to volts in Java, using the same formula as cbToEngUnits():
+ * <pre>volts = MINIMUM + count * (MAXIMUM - MINIMUM) / 2<sup>resolution</sup></pre>
+ * Counts are unsigned, so a short of -1 is the count 65535.
+ * <p>
+ * The array methods are plain counted loops with no branches or calls in the body. HotSpot's C2 compiler turns loops
+ * like that into SIMD instructions, so converting a scan block costs a fraction of a nanosecond per sample instead of
+ * one native call per sample.
+ * <p>
+ * Objects of this class are immutable and can be shared between threads.
+ *
+ * @author Peter Froud
+ * @see AnalogInputWrapper#getVoltageConverter(AnalogRange)
+ * @see <a
+ *         href="https://www.mccdaq.com/pdfs/manuals/Mcculw_WebHelp/hh_goto.htm?ULStart.htm#Function_Reference/Data_Conversion_Functions/cbToEngUnits.htm">cbToEngUnits()</a>
+ */
+public class VoltageConverter {
+
+    private final AnalogRange RANGE;
+    private final int RESOLUTION;
+
+    private final double VOLTS_PER_COUNT;
+    private final double OFFSET_VOLTS;
+    private final float VOLTS_PER_COUNT_FLOAT;
+    private final float OFFSET_VOLTS_FLOAT;
+
+    /**
+     * @param range the range the samples were acquired with.
+     * @param resolution the A/D resolution in bits, from {@link AnalogInputWrapper#getResolution()}.
+     */
+    public VoltageConverter(AnalogRange range, int resolution) {
+        if (range.MAXIMUM <= range.MINIMUM) {
+            throw new IllegalArgumentException("the range " + range + " does not have a voltage span");
+        }
+        if (resolution < 1 || resolution > 32) {
+            throw new IllegalArgumentException("the resolution must be from 1 to 32 bits, but it is " + resolution);
+        }
+        RANGE = range;
+        RESOLUTION = resolution;
+        VOLTS_PER_COUNT = (range.MAXIMUM - range.MINIMUM) / Math.pow(2, resolution);
+        OFFSET_VOLTS = range.MINIMUM;
+        VOLTS_PER_COUNT_FLOAT = (float) VOLTS_PER_COUNT;
+        OFFSET_VOLTS_FLOAT = (float) OFFSET_VOLTS;
+    }
+
+    public AnalogRange getRange() {
+        return RANGE;
+    }
+
+    public int getResolution() {
+        return RESOLUTION;
+    }
+
+    public float toVolts(short count) {
+        return (count & 0xFFFF) * VOLTS_PER_COUNT_FLOAT + OFFSET_VOLTS_FLOAT;
+    }
+
+    public double toVolts(int count) {
+        return (count & 0xFFFFFFFFL) * VOLTS_PER_COUNT + OFFSET_VOLTS;
+    }
+
+    /**
+     * Converts 16-bit counts to volts in single precision.
+     *
+     * @param counts raw A/D values.
+     * @param countsOffset index of the first count to convert.
+     * @param volts where to put the voltages.
+     * @param voltsOffset index to put the first voltage at.
+     * @param length how many values to convert.
+     */
+    public void toVolts(short[] counts, int countsOffset, float[] volts, int voltsOffset, int length) {
+        checkBounds(counts.length, countsOffset, volts.length, voltsOffset, length);
+        final float scale = VOLTS_PER_COUNT_FLOAT;
+        final float offset = OFFSET_VOLTS_FLOAT;
+        for (int i = 0; i < length; i++) {
+            volts[voltsOffset + i] = (counts[countsOffset + i] & 0xFFFF) * scale + offset;
+        }
+    }
+
+    /**
+     * Converts 16-bit counts to volts in double precision.
+     *
+     * @see #toVolts(short[], int, float[], int, int)
+     */
+    public void toVolts(short[] counts, int countsOffset, double[] volts, int voltsOffset, int length) {
+        checkBounds(counts.length, countsOffset, volts.length, voltsOffset, length);
+        final double scale = VOLTS_PER_COUNT;
+        final double offset = OFFSET_VOLTS;
+        for (int i = 0; i < length; i++) {
+            volts[voltsOffset + i] = (counts[countsOffset + i] & 0xFFFF) * scale + offset;
+        }
+    }
+
+    /**
+     * Converts counts of up to 32 bits to volts in single precision. Single precision only has 24 bits of mantissa,
+     * so use the double version for boards with more resolution than that.
+     *
+     * @see #toVolts(short[], int, float[], int, int)
+     */
+    public void toVolts(int[] counts, int countsOffset, float[] volts, int voltsOffset, int length) {
+        checkBounds(counts.length, countsOffset, volts.length, voltsOffset, length);
+        final double scale = VOLTS_PER_COUNT;
+        final double offset = OFFSET_VOLTS;
+        for (int i = 0; i < length; i++) {
+            volts[voltsOffset + i] = (float) ((counts[countsOffset + i] & 0xFFFFFFFFL) * scale + offset);
+        }
+    }
+
+    /**
+     * Converts counts of up to 32 bits to volts in double precision.
+     *
+     * @see #toVolts(short[], int, float[], int, int)
+     */
+    public void toVolts(int[] counts, int countsOffset, double[] volts, int voltsOffset, int length) {
+        checkBounds(counts.length, countsOffset, volts.length, voltsOffset, length);
+        final double scale = VOLTS_PER_COUNT;
+        final double offset = OFFSET_VOLTS;
+        for (int i = 0; i < length; i++) {
+            volts[voltsOffset + i] = (counts[countsOffset + i] & 0xFFFFFFFFL) * scale + offset;
+        }
+    }
+
+    /**
+     * Converts the counts from the buffer's position to its limit, for example a block from a background scan. The
+     * buffer's position is not changed.
+     *
+     * @param counts raw A/D values. May be a direct view of a Windows buffer.
+     * @param volts where to put the voltages.
+     * @param voltsOffset index to put the first voltage at.
+     */
+    public void toVolts(ShortBuffer counts, float[] volts, int voltsOffset) {
+        final int position = counts.position();
+        final int length = counts.remaining();
+        if (counts.hasArray()) {
+            toVolts(counts.array(), counts.arrayOffset() + position, volts, voltsOffset, length);
+            return;
+        }
+        checkBounds(counts.limit(), position, volts.length, voltsOffset, length);
+        final float scale = VOLTS_PER_COUNT_FLOAT;
+        final float offset = OFFSET_VOLTS_FLOAT;
+        for (int i = 0; i < length; i++) {
+            volts[voltsOffset + i] = (counts.get(position + i) & 0xFFFF) * scale + offset;
+        }
+    }
+
+    private static void checkBounds(int countsLength, int countsOffset, int voltsLength, int voltsOffset, int length) {
+        if (length < 0 || countsOffset < 0 || voltsOffset < 0
+                || countsOffset > countsLength - length || voltsOffset > voltsLength - length) {
+            throw new IndexOutOfBoundsException(String.format(
+                    "cannot convert %d values from index %d of %d counts to index %d of %d volts",
+                    length, countsOffset, countsLength, voltsOffset, voltsLength
+            ));
+        }
+    }
+
+}
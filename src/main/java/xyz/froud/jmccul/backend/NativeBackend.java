@@ -0,0 +1,85 @@
+/*
+ * The MIT License.
+ *
+ * Copyright (c) 2022 Peter Froud.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package xyz.froud.jmccul.backend;
+
+import com.sun.jna.Function;
+import com.sun.jna.Library;
+import com.sun.jna.Native;
+import com.sun.jna.Platform;
+import com.sun.jna.win32.StdCallLibrary;
+import xyz.froud.jmccul.MeasurementComputingUniversalLibrary;
+
+import java.lang.reflect.Proxy;
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * Loads the real Universal Library DLL with JNA. This is the default backend.
+ *
+ * @author Peter Froud
+ */
+public class NativeBackend implements UniversalLibraryBackend {
+
+    public static final String NAME = "native";
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public MeasurementComputingUniversalLibrary load() {
+        return Native.load(
+                MeasurementComputingUniversalLibrary.LIBRARY_NAME,
+                MeasurementComputingUniversalLibrary.class,
+                getLibraryOptions()
+        );
+    }
+
+    /**
+     * The DLL uses the stdcall calling convention. JNA only supports that on Windows, so anywhere else, like when
+     * running the benchmarks against a stub library on Linux, the C convention is used instead.
+     *
+     * @return options to use when loading the library with JNA.
+     */
+    public static Map<String, Object> getLibraryOptions() {
+        return Collections.singletonMap(
+                Library.OPTION_CALLING_CONVENTION,
+                Platform.isWindows() ? StdCallLibrary.STDCALL_CONVENTION : Function.C_CONVENTION
+        );
+    }
+
+    /**
+     * Things which bypass the interface and call the DLL directly, like JNA direct mapping, must only do that if this
+     * returns true. Otherwise the calls would skip the simulator or whatever else the selected backend is.
+     *
+     * @return true if the library is the JNA proxy for the real DLL.
+     */
+    public static boolean isNative(MeasurementComputingUniversalLibrary library) {
+        return Proxy.isProxyClass(library.getClass())
+                && Proxy.getInvocationHandler(library) instanceof Library.Handler;
+    }
+
+}
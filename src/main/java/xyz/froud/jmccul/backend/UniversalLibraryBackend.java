@@ -0,0 +1,94 @@
+/*
+ * The MIT License.
+ *
+ * Copyright (c) 2022 Peter Froud.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package xyz.froud.jmccul.backend;
+
+import xyz.froud.jmccul.MeasurementComputingUniversalLibrary;
+import xyz.froud.jmccul.instrumentation.InstrumentedUniversalLibrary;
+import xyz.froud.jmccul.instrumentation.NativeCallStatistics;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.ServiceLoader;
+
+/**
+ * Something which provides an implementation of the Universal Library, like the real DLL or a simulator.
+ * <p>
+ * {@link MeasurementComputingUniversalLibrary#INSTANCE} comes from the backend named by the system property
+ * {@value #PROPERTY}, or the {@link NativeBackend native} one if the property is not set. Other backends are found
+ * with {@link ServiceLoader}, so to add one, implement this interface and list the class in
+ * {@code META-INF/services/xyz.froud.jmccul.backend.UniversalLibraryBackend}. The property has to be set before
+ * anything in JMCCUL is used, for example with {@code -Djmccul.backend=simulated} on the command line.
+ *
+ * @author Peter Froud
+ */
+public interface UniversalLibraryBackend {
+
+    /**
+     * Name of the system property which selects the backend.
+     */
+    String PROPERTY = "jmccul.backend";
+
+    /**
+     * @return the name used to select this backend with the {@value #PROPERTY} system property.
+     */
+    String getName();
+
+    /**
+     * Called once, when {@link MeasurementComputingUniversalLibrary#INSTANCE} is initialized.
+     */
+    MeasurementComputingUniversalLibrary load();
+
+    /**
+     * Loads the backend named by the {@value #PROPERTY} system property, and wraps it if
+     * {@link NativeCallStatistics#PROPERTY instrumentation} is turned on.
+     *
+     * @throws IllegalStateException if there is no backend with that name.
+     */
+    static MeasurementComputingUniversalLibrary select() {
+        final MeasurementComputingUniversalLibrary library = loadByName(System.getProperty(PROPERTY, NativeBackend.NAME));
+        return Boolean.getBoolean(NativeCallStatistics.PROPERTY) ? InstrumentedUniversalLibrary.wrap(library) : library;
+    }
+
+    private static MeasurementComputingUniversalLibrary loadByName(String name) {
+        if (name.equals(NativeBackend.NAME)) {
+            // skip searching the class path in the usual case
+            return new NativeBackend().load();
+        }
+
+        final List<String> availableNames = new ArrayList<>();
+        availableNames.add(NativeBackend.NAME);
+        for (UniversalLibraryBackend backend : ServiceLoader.load(UniversalLibraryBackend.class, UniversalLibraryBackend.class.getClassLoader())) {
+            if (backend.getName().equals(name)) {
+                return backend.load();
+            }
+            availableNames.add(backend.getName());
+        }
+        throw new IllegalStateException(String.format(
+                "there is no Universal Library backend named \"%s\" (from the %s system property), the available backends are %s",
+                name, PROPERTY, availableNames
+        ));
+    }
+
+}
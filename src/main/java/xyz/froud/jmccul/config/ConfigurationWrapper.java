@@ -24,23 +24,45 @@
 
 package xyz.froud.jmccul.config;
 
+import xyz.froud.jmccul.BoardExecutor;
+import xyz.froud.jmccul.DirectUniversalLibrary;
 import xyz.froud.jmccul.JMCCULException;
 import xyz.froud.jmccul.JMCCULUtils;
 import xyz.froud.jmccul.MeasurementComputingUniversalLibrary;
+import xyz.froud.jmccul.NativeScratch;
 
 import java.nio.ByteBuffer;
 import java.nio.IntBuffer;
 
 /**
+ * Every config item of an open device is read and written on the device's {@link BoardExecutor}, the same as the
+ * other wrapper methods. Global config items don't belong to a board, so they are read on the calling thread.
+ *
  * @author Peter Froud
  */
 public class ConfigurationWrapper {
 
+    /**
+     * @return the executor to use if the calling thread has to hand the call to it, otherwise null.
+     */
+    private static BoardExecutor getExecutorToSubmitTo(int infoType, int boardNumber) {
+        if (infoType == MeasurementComputingUniversalLibrary.GLOBALINFO) {
+            return null;
+        }
+        final BoardExecutor executor = BoardExecutor.forBoard(boardNumber);
+        return (executor != null && executor.mustSubmit()) ? executor : null;
+    }
+
     public static int getInt(int infoType, int boardNumber, int deviceNumber, int configItem) throws JMCCULException {
-        final IntBuffer buf = IntBuffer.allocate(1);
+        final BoardExecutor executor = getExecutorToSubmitTo(infoType, boardNumber);
+        if (executor != null) {
+            return BoardExecutor.join(executor.submit(() -> getInt(infoType, boardNumber, deviceNumber, configItem)));
+        }
+
+        final IntBuffer buf = NativeScratch.get().getIntBuffer();
 
         // https://www.mccdaq.com/pdfs/manuals/Mcculw_WebHelp/hh_goto.htm?ULStart.htm#Function_Reference/Configuration_Functions/cbGetConfig.htm
-        final int errorCode = MeasurementComputingUniversalLibrary.INSTANCE.cbGetConfig(
+        final int errorCode = DirectUniversalLibrary.cbGetConfig(
                 infoType,
                 boardNumber,
                 deviceNumber,
@@ -52,6 +74,13 @@ public class ConfigurationWrapper {
     }
 
     public static String getString(int infoType, int boardNumber, int deviceNumber, int configItem, int maxLength) throws JMCCULException {
+        final BoardExecutor executor = getExecutorToSubmitTo(infoType, boardNumber);
+        if (executor != null) {
+            return BoardExecutor.join(executor.submit(
+                    () -> getString(infoType, boardNumber, deviceNumber, configItem, maxLength)
+            ));
+        }
+
         final ByteBuffer buf = ByteBuffer.allocate(maxLength);
         final IntBuffer length = IntBuffer.wrap(new int[]{maxLength}); // also acts as an output and is how many bytes were actually read
 
@@ -69,6 +98,15 @@ public class ConfigurationWrapper {
     }
 
     public static void setInt(int infoType, int boardNumber, int deviceNumber, int configItem, int valueToWrite) throws JMCCULException {
+        final BoardExecutor executor = getExecutorToSubmitTo(infoType, boardNumber);
+        if (executor != null) {
+            BoardExecutor.join(executor.submit(() -> {
+                setInt(infoType, boardNumber, deviceNumber, configItem, valueToWrite);
+                return null;
+            }));
+            return;
+        }
+
         // https://www.mccdaq.com/pdfs/manuals/Mcculw_WebHelp/hh_goto.htm?ULStart.htm#Function_Reference/Configuration_Functions/cbSetConfig.htm
         final int errorCode = MeasurementComputingUniversalLibrary.INSTANCE.cbSetConfig(
                 infoType,
@@ -81,6 +119,15 @@ public class ConfigurationWrapper {
     }
 
     public static void setString(int infoType, int boardNumber, int deviceNumber, int configItem, String valueToWrite) throws JMCCULException {
+        final BoardExecutor executor = getExecutorToSubmitTo(infoType, boardNumber);
+        if (executor != null) {
+            BoardExecutor.join(executor.submit(() -> {
+                setString(infoType, boardNumber, deviceNumber, configItem, valueToWrite);
+                return null;
+            }));
+            return;
+        }
+
         // https://www.mccdaq.com/pdfs/manuals/Mcculw_WebHelp/hh_goto.htm?ULStart.htm#Function_Reference/Configuration_Functions/cbSetConfigString.htm
         final int errorCode = MeasurementComputingUniversalLibrary.INSTANCE.cbSetConfigString(
                 infoType,
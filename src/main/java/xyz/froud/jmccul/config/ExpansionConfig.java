@@ -28,14 +28,18 @@ import xyz.froud.jmccul.DaqDevice;
 import xyz.froud.jmccul.JMCCULException;
 import xyz.froud.jmccul.MeasurementComputingUniversalLibrary;
 
+import java.util.concurrent.CompletableFuture;
+
 /**
  * @author Peter Froud
  */
 public class ExpansionConfig {
 
+    private final DaqDevice DAQ_DEVICE;
     private final int BOARD_NUMBER;
 
     public ExpansionConfig(DaqDevice device) {
+        DAQ_DEVICE = device;
         BOARD_NUMBER = device.getBoardNumber();
     }
 
@@ -60,6 +64,13 @@ public class ExpansionConfig {
         );
     }
 
+    /**
+     * Runs {@link #getExpansionBoardType()} on the {@link DaqDevice#getExecutor() device's executor}.
+     */
+    public CompletableFuture<Integer> getExpansionBoardTypeAsync() {
+        return DAQ_DEVICE.getExecutor().submit(this::getExpansionBoardType);
+    }
+
     /* /////////////////////////////////////////////////////////////////////////////////////////////////////////////////
      BIUSESEXPS -> BI USES EXPS -> boardInfo uses expansions
      Readable? yes
@@ -81,6 +92,13 @@ public class ExpansionConfig {
         ) == 1;
     }
 
+    /**
+     * Runs {@link #isExpansionBoardSupported()} on the {@link DaqDevice#getExecutor() device's executor}.
+     */
+    public CompletableFuture<Boolean> isExpansionBoardSupportedAsync() {
+        return DAQ_DEVICE.getExecutor().submit(this::isExpansionBoardSupported);
+    }
+
     /* /////////////////////////////////////////////////////////////////////////////////////////////////////////////////
      XIMUXADCHAN1 -> XI MUX AD CHAN 1 -> expansionInfo multiplexer(?) analog-to-digital channel 1
      Readable? yes
@@ -102,6 +120,13 @@ public class ExpansionConfig {
         );
     }
 
+    /**
+     * Runs {@link #getExpansionBoardChannel1()} on the {@link DaqDevice#getExecutor() device's executor}.
+     */
+    public CompletableFuture<Integer> getExpansionBoardChannel1Async() {
+        return DAQ_DEVICE.getExecutor().submit(this::getExpansionBoardChannel1);
+    }
+
     /**
      * @see <a
      *         href="https://www.mccdaq.com/pdfs/manuals/Mcculw_WebHelp/hh_goto.htm?ULStart.htm#Function_Reference/Configuration_Functions/cbSetConfig.htm">cbSetConfig()</a>
@@ -118,6 +143,16 @@ public class ExpansionConfig {
         );
     }
 
+    /**
+     * Runs {@link #setExpansionBoardChannel1(int)} on the {@link DaqDevice#getExecutor() device's executor}.
+     */
+    public CompletableFuture<Void> setExpansionBoardChannel1Async(int ch) {
+        return DAQ_DEVICE.getExecutor().submit(() -> {
+            setExpansionBoardChannel1(ch);
+            return null;
+        });
+    }
+
     /* /////////////////////////////////////////////////////////////////////////////////////////////////////////////////
      XIMUXADCHAN2 -> XI MUX AD CHAN 2 -> expansionInfo multiplexer(?) analog-to-digital channel 2
      Readable? yes
@@ -139,6 +174,13 @@ public class ExpansionConfig {
         );
     }
 
+    /**
+     * Runs {@link #getExpansionBoardChannel2()} on the {@link DaqDevice#getExecutor() device's executor}.
+     */
+    public CompletableFuture<Integer> getExpansionBoardChannel2Async() {
+        return DAQ_DEVICE.getExecutor().submit(this::getExpansionBoardChannel2);
+    }
+
     /**
      * @see <a
      *         href="https://www.mccdaq.com/pdfs/manuals/Mcculw_WebHelp/hh_goto.htm?ULStart.htm#Function_Reference/Configuration_Functions/cbSetConfig.htm">cbSetConfig()</a>
@@ -155,6 +197,16 @@ public class ExpansionConfig {
         );
     }
 
+    /**
+     * Runs {@link #setExpansionBoardChannel2(int)} on the {@link DaqDevice#getExecutor() device's executor}.
+     */
+    public CompletableFuture<Void> setExpansionBoardChannel2Async(int ch) {
+        return DAQ_DEVICE.getExecutor().submit(() -> {
+            setExpansionBoardChannel2(ch);
+            return null;
+        });
+    }
+
     /* /////////////////////////////////////////////////////////////////////////////////////////////////////////////////
      XIRANGE1 -> XI RANGE 1 -> expansionInfo range 1
      Readable? yes
@@ -178,6 +230,13 @@ public class ExpansionConfig {
         );
     }
 
+    /**
+     * Runs {@link #getExpansionBoardRange1()} on the {@link DaqDevice#getExecutor() device's executor}.
+     */
+    public CompletableFuture<Integer> getExpansionBoardRange1Async() {
+        return DAQ_DEVICE.getExecutor().submit(this::getExpansionBoardRange1);
+    }
+
     /**
      * @see <a
      *         href="https://www.mccdaq.com/pdfs/manuals/Mcculw_WebHelp/hh_goto.htm?ULStart.htm#Function_Reference/Configuration_Functions/cbSetConfig.htm">cbSetConfig()</a>
@@ -194,6 +253,16 @@ public class ExpansionConfig {
         );
     }
 
+    /**
+     * Runs {@link #setExpansionBoardRange1(int)} on the {@link DaqDevice#getExecutor() device's executor}.
+     */
+    public CompletableFuture<Void> setExpansionBoardRange1Async(int ch) {
+        return DAQ_DEVICE.getExecutor().submit(() -> {
+            setExpansionBoardRange1(ch);
+            return null;
+        });
+    }
+
     /* /////////////////////////////////////////////////////////////////////////////////////////////////////////////////
      XIRANGE2 -> XI RANGE 1 -> expansionInfo range 2
      Readable? yes
@@ -217,6 +286,13 @@ public class ExpansionConfig {
         );
     }
 
+    /**
+     * Runs {@link #getExpansionBoardRange2()} on the {@link DaqDevice#getExecutor() device's executor}.
+     */
+    public CompletableFuture<Integer> getExpansionBoardRange2Async() {
+        return DAQ_DEVICE.getExecutor().submit(this::getExpansionBoardRange2);
+    }
+
     /**
      * @see <a
      *         href="https://www.mccdaq.com/pdfs/manuals/Mcculw_WebHelp/hh_goto.htm?ULStart.htm#Function_Reference/Configuration_Functions/cbSetConfig.htm">cbSetConfig()</a>
@@ -233,6 +309,16 @@ public class ExpansionConfig {
         );
     }
 
+    /**
+     * Runs {@link #setExpansionBoardRange2(int)} on the {@link DaqDevice#getExecutor() device's executor}.
+     */
+    public CompletableFuture<Void> setExpansionBoardRange2Async(int ch) {
+        return DAQ_DEVICE.getExecutor().submit(() -> {
+            setExpansionBoardRange2(ch);
+            return null;
+        });
+    }
+
     /* /////////////////////////////////////////////////////////////////////////////////////////////////////////////////
      XICJCCHAN -> XI CJC CHAN -> expansionInfo coldJunctionCompensation(?) channel
      Readable? yes
@@ -254,6 +340,13 @@ public class ExpansionConfig {
         );
     }
 
+    /**
+     * Runs {@link #getExpansionCjcChannel()} on the {@link DaqDevice#getExecutor() device's executor}.
+     */
+    public CompletableFuture<Integer> getExpansionCjcChannelAsync() {
+        return DAQ_DEVICE.getExecutor().submit(this::getExpansionCjcChannel);
+    }
+
     /**
      * @see <a
      *         href="https://www.mccdaq.com/pdfs/manuals/Mcculw_WebHelp/hh_goto.htm?ULStart.htm#Function_Reference/Configuration_Functions/cbSetConfig.htm">cbSetConfig()</a>
@@ -270,6 +363,16 @@ public class ExpansionConfig {
         );
     }
 
+    /**
+     * Runs {@link #setExpansionCjcChannel(int)} on the {@link DaqDevice#getExecutor() device's executor}.
+     */
+    public CompletableFuture<Void> setExpansionCjcChannelAsync(int ch) {
+        return DAQ_DEVICE.getExecutor().submit(() -> {
+            setExpansionCjcChannel(ch);
+            return null;
+        });
+    }
+
     /* /////////////////////////////////////////////////////////////////////////////////////////////////////////////////
      XITHERMTYPE -> XI THERM TYPE -> expansionInfo thermocouple(?) type
 
@@ -296,6 +399,13 @@ public class ExpansionConfig {
         );
     }
 
+    /**
+     * Runs {@link #getExpansionThermocoupleType()} on the {@link DaqDevice#getExecutor() device's executor}.
+     */
+    public CompletableFuture<Integer> getExpansionThermocoupleTypeAsync() {
+        return DAQ_DEVICE.getExecutor().submit(this::getExpansionThermocoupleType);
+    }
+
     /**
      * @see <a
      *         href="https://www.mccdaq.com/pdfs/manuals/Mcculw_WebHelp/hh_goto.htm?ULStart.htm#Function_Reference/Configuration_Functions/cbSetConfig.htm">cbSetConfig()</a>
@@ -312,6 +422,16 @@ public class ExpansionConfig {
         );
     }
 
+    /**
+     * Runs {@link #setExpansionThermocoupleType(int)} on the {@link DaqDevice#getExecutor() device's executor}.
+     */
+    public CompletableFuture<Void> setExpansionThermocoupleTypeAsync(int type) {
+        return DAQ_DEVICE.getExecutor().submit(() -> {
+            setExpansionThermocoupleType(type);
+            return null;
+        });
+    }
+
     /* /////////////////////////////////////////////////////////////////////////////////////////////////////////////////
      XINUMEXPCHANS -> XI NUM EXP CHANS -> expansionInfo number of expansion channels
 
@@ -334,6 +454,13 @@ public class ExpansionConfig {
         );
     }
 
+    /**
+     * Runs {@link #getExpansionChannelCount()} on the {@link DaqDevice#getExecutor() device's executor}.
+     */
+    public CompletableFuture<Integer> getExpansionChannelCountAsync() {
+        return DAQ_DEVICE.getExecutor().submit(this::getExpansionChannelCount);
+    }
+
     /* /////////////////////////////////////////////////////////////////////////////////////////////////////////////////
      XIPARENTBOARD -> XI PARENT BOARD -> expansionInfo parent board
 
@@ -354,6 +481,13 @@ public class ExpansionConfig {
         );
     }
 
+    /**
+     * Runs {@link #getExpansionParentBoard()} on the {@link DaqDevice#getExecutor() device's executor}.
+     */
+    public CompletableFuture<Integer> getExpansionParentBoardAsync() {
+        return DAQ_DEVICE.getExecutor().submit(this::getExpansionParentBoard);
+    }
+
     /* /////////////////////////////////////////////////////////////////////////////////////////////////////////////////
      GINUMEXPBOARDS -> GI NUM EXP BOARDS -> globalInfo number of expansion boards
 
@@ -374,4 +508,11 @@ public class ExpansionConfig {
         );
     }
 
+    /**
+     * Runs {@link #getMaxExpansionBoardCount()} on the {@link DaqDevice#getExecutor() device's executor}.
+     */
+    public CompletableFuture<Integer> getMaxExpansionBoardCountAsync() {
+        return DAQ_DEVICE.getExecutor().submit(this::getMaxExpansionBoardCount);
+    }
+
 }
@@ -28,14 +28,18 @@ import xyz.froud.jmccul.DaqDevice;
 import xyz.froud.jmccul.JMCCULException;
 import xyz.froud.jmccul.MeasurementComputingUniversalLibrary;
 
+import java.util.concurrent.CompletableFuture;
+
 /**
  * @author Peter Froud
  */
 public class NetworkConfig {
 
+    private final DaqDevice DAQ_DEVICE;
     private final int BOARD_NUMBER;
 
     public NetworkConfig(DaqDevice device) {
+        DAQ_DEVICE = device;
         BOARD_NUMBER = device.getBoardNumber();
     }
 
@@ -60,6 +64,13 @@ public class NetworkConfig {
         );
     }
 
+    /**
+     * Runs {@link #getConnectionCode()} on the {@link DaqDevice#getExecutor() device's executor}.
+     */
+    public CompletableFuture<Integer> getConnectionCodeAsync() {
+        return DAQ_DEVICE.getExecutor().submit(this::getConnectionCode);
+    }
+
     /**
      * @see <a
      *         href="https://www.mccdaq.com/pdfs/manuals/Mcculw_WebHelp/hh_goto.htm?ULStart.htm#Function_Reference/Configuration_Functions/cbSetConfig.htm">cbSetConfig()</a>
@@ -76,6 +87,16 @@ public class NetworkConfig {
         );
     }
 
+    /**
+     * Runs {@link #setConnectionCode(int)} on the {@link DaqDevice#getExecutor() device's executor}.
+     */
+    public CompletableFuture<Void> setConnectionCodeAsync(int code) {
+        return DAQ_DEVICE.getExecutor().submit(() -> {
+            setConnectionCode(code);
+            return null;
+        });
+    }
+
     /* /////////////////////////////////////////////////////////////////////////////////////////////////////////////////
      BINETIOTIMEOUT -> BI NET IO TIMEOUT -> boardInfo network I/O timeout
      Readable? yes
@@ -95,6 +116,13 @@ public class NetworkConfig {
         );
     }
 
+    /**
+     * Runs {@link #getNetworkIoTimeoutMillisec()} on the {@link DaqDevice#getExecutor() device's executor}.
+     */
+    public CompletableFuture<Integer> getNetworkIoTimeoutMillisecAsync() {
+        return DAQ_DEVICE.getExecutor().submit(this::getNetworkIoTimeoutMillisec);
+    }
+
     /**
      * @see <a
      *         href="https://www.mccdaq.com/pdfs/manuals/Mcculw_WebHelp/hh_goto.htm?ULStart.htm#Function_Reference/Configuration_Functions/cbSetConfig.htm">cbSetConfig()</a>
@@ -109,6 +137,16 @@ public class NetworkConfig {
         );
     }
 
+    /**
+     * Runs {@link #setNetworkIoTimeoutMillisec(int)} on the {@link DaqDevice#getExecutor() device's executor}.
+     */
+    public CompletableFuture<Void> setNetworkIoTimeoutMillisecAsync(int timeoutMillisec) {
+        return DAQ_DEVICE.getExecutor().submit(() -> {
+            setNetworkIoTimeoutMillisec(timeoutMillisec);
+            return null;
+        });
+    }
+
     /* /////////////////////////////////////////////////////////////////////////////////////////////////////////////////
      BIDEVMACADDR -> BI DEV MAC ADDR -> boardInfo device MAC address
      Readable? yes
@@ -131,4 +169,11 @@ public class NetworkConfig {
         );
     }
 
+    /**
+     * Runs {@link #getMacAddress()} on the {@link DaqDevice#getExecutor() device's executor}.
+     */
+    public CompletableFuture<String> getMacAddressAsync() {
+        return DAQ_DEVICE.getExecutor().submit(this::getMacAddress);
+    }
+
 }
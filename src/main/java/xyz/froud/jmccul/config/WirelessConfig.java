@@ -28,14 +28,18 @@ import xyz.froud.jmccul.DaqDevice;
 import xyz.froud.jmccul.JMCCULException;
 import xyz.froud.jmccul.MeasurementComputingUniversalLibrary;
 
+import java.util.concurrent.CompletableFuture;
+
 /**
  * @author Peter Froud
  */
 public class WirelessConfig {
 
+    private final DaqDevice DAQ_DEVICE;
     private final int BOARD_NUMBER;
 
     public WirelessConfig(DaqDevice device) {
+        DAQ_DEVICE = device;
         BOARD_NUMBER = device.getBoardNumber();
     }
 
@@ -60,6 +64,13 @@ public class WirelessConfig {
         );
     }
 
+    /**
+     * Runs {@link #getRfChannel()} on the {@link DaqDevice#getExecutor() device's executor}.
+     */
+    public CompletableFuture<Integer> getRfChannelAsync() {
+        return DAQ_DEVICE.getExecutor().submit(this::getRfChannel);
+    }
+
     /**
      * @see <a
      *         href="https://www.mccdaq.com/pdfs/manuals/Mcculw_WebHelp/hh_goto.htm?ULStart.htm#Function_Reference/Configuration_Functions/cbSetConfig.htm">cbSetConfig()</a>
@@ -76,6 +87,16 @@ public class WirelessConfig {
         );
     }
 
+    /**
+     * Runs {@link #setRfChannel(int)} on the {@link DaqDevice#getExecutor() device's executor}.
+     */
+    public CompletableFuture<Void> setRfChannelAsync(int channel) {
+        return DAQ_DEVICE.getExecutor().submit(() -> {
+            setRfChannel(channel);
+            return null;
+        });
+    }
+
     /* /////////////////////////////////////////////////////////////////////////////////////////////////////////////////
      BIRSS -> BI RF receivedSignalStrength
      Readable? yes
@@ -97,6 +118,13 @@ public class WirelessConfig {
         );
     }
 
+    /**
+     * Runs {@link #getSignalStrength()} on the {@link DaqDevice#getExecutor() device's executor}.
+     */
+    public CompletableFuture<Integer> getSignalStrengthAsync() {
+        return DAQ_DEVICE.getExecutor().submit(this::getSignalStrength);
+    }
+
 
       /* /////////////////////////////////////////////////////////////////////////////////////////////////////////////////
      BIPANID  -> BI PAN ID -> boardInfo PersonalAreaNetwork ID
@@ -120,6 +148,13 @@ public class WirelessConfig {
         );
     }
 
+    /**
+     * Runs {@link #getPanId()} on the {@link DaqDevice#getExecutor() device's executor}.
+     */
+    public CompletableFuture<Integer> getPanIdAsync() {
+        return DAQ_DEVICE.getExecutor().submit(this::getPanId);
+    }
+
     /**
      * @see <a
      *         href="https://www.mccdaq.com/pdfs/manuals/Mcculw_WebHelp/hh_goto.htm?ULStart.htm#Function_Reference/Configuration_Functions/cbSetConfig.htm">cbSetConfig()</a>
@@ -135,4 +170,14 @@ public class WirelessConfig {
         );
     }
 
+    /**
+     * Runs {@link #setPanId(int)} on the {@link DaqDevice#getExecutor() device's executor}.
+     */
+    public CompletableFuture<Void> setPanIdAsync(int panID) {
+        return DAQ_DEVICE.getExecutor().submit(() -> {
+            setPanId(panID);
+            return null;
+        });
+    }
+
 }
@@ -5,6 +5,8 @@ import xyz.froud.jmccul.JMCCULException;
 import xyz.froud.jmccul.config.ConfigurationWrapper;
 import xyz.froud.jmccul.MeasurementComputingUniversalLibrary;
 
+import java.util.concurrent.CompletableFuture;
+
 /**
  * @see <a
  *         href="https://github.com/mccdaq/mcculw/blob/d5d4a3eebaace9544a356a1243963c7af5f8ca53/mcculw/device_info/ctr_info.py#L45">CtrChanInfo</a>
@@ -49,4 +51,11 @@ public class CounterDevice {
         );
     }
 
+    /**
+     * Runs {@link #getCounterType()} on the {@link DaqDevice#getExecutor() device's executor}.
+     */
+    public CompletableFuture<CounterDeviceType> getCounterTypeAsync() {
+        return DAQ_DEVICE.getExecutor().submit(this::getCounterType);
+    }
+
 }
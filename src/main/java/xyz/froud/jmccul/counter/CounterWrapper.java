@@ -23,11 +23,17 @@
  */
 package xyz.froud.jmccul.counter;
 
+import xyz.froud.jmccul.BoardExecutor;
 import xyz.froud.jmccul.DaqDevice;
+import xyz.froud.jmccul.DirectUniversalLibrary;
 import xyz.froud.jmccul.JMCCULException;
+import xyz.froud.jmccul.JMCCULUtils;
+import xyz.froud.jmccul.NativeScratch;
 import xyz.froud.jmccul.config.ConfigurationWrapper;
 import xyz.froud.jmccul.MeasurementComputingUniversalLibrary;
 
+import java.util.concurrent.CompletableFuture;
+
 /**
  * @author Peter Froud
  * @see <a href="https://github.com/mccdaq/mcculw/blob/master/mcculw/device_info/ctr_info.py">ctr_info.py</a>
@@ -66,11 +72,25 @@ public class CounterWrapper {
         return _channelCount;
     }
 
+    /**
+     * Runs {@link #getDeviceCount()} on the {@link DaqDevice#getExecutor() device's executor}.
+     */
+    public CompletableFuture<Integer> getDeviceCountAsync() {
+        return DAQ_DEVICE.getExecutor().submit(this::getDeviceCount);
+    }
+
     public boolean isSupported() throws JMCCULException {
         // https://github.com/mccdaq/mcculw/blob/d5d4a3eebaace9544a356a1243963c7af5f8ca53/mcculw/device_info/ctr_info.py#L33
         return getDeviceCount() > 0;
     }
 
+    /**
+     * Runs {@link #isSupported()} on the {@link DaqDevice#getExecutor() device's executor}.
+     */
+    public CompletableFuture<Boolean> isSupportedAsync() {
+        return DAQ_DEVICE.getExecutor().submit(this::isSupported);
+    }
+
     public CounterDevice[] getDevices() throws JMCCULException {
         if (_devices == null) {
             final int deviceCount = getDeviceCount();
@@ -82,6 +102,48 @@ public class CounterWrapper {
         return _devices;
     }
 
+    /**
+     * Runs {@link #getDevices()} on the {@link DaqDevice#getExecutor() device's executor}.
+     */
+    public CompletableFuture<CounterDevice[]> getDevicesAsync() {
+        return DAQ_DEVICE.getExecutor().submit(this::getDevices);
+    }
+
+    /**
+     * Reads the current count from a counter.
+     *
+     * @param counterNumber The counter to read. See {@link #getCounterNumber(int)}.
+     *
+     * @return the count, from 0 to 2<sup>32</sup>-1.
+     *
+     * @see <a
+     *         href="https://www.mccdaq.com/pdfs/manuals/Mcculw_WebHelp/hh_goto.htm?ULStart.htm#Function_Reference/Counter_Functions/cbCIn32.htm">cbCIn32()</a>
+     */
+    public long read(int counterNumber) throws JMCCULException {
+        if (DAQ_DEVICE.getExecutor().mustSubmit()) {
+            return BoardExecutor.join(readAsync(counterNumber));
+        }
+
+        final NativeScratch scratch = NativeScratch.get();
+
+        // https://www.mccdaq.com/pdfs/manuals/Mcculw_WebHelp/hh_goto.htm?ULStart.htm#Function_Reference/Counter_Functions/cbCIn32.htm
+        final int errorCode = DirectUniversalLibrary.cbCIn32(
+                BOARD_NUMBER,
+                counterNumber,
+                scratch.getNativeLongByReference()
+        );
+        JMCCULUtils.checkError(errorCode);
+        // the count is an unsigned 32-bit number, but a C long is signed
+        return scratch.getNativeLongValue() & 0xFFFFFFFFL;
+    }
+
+    /**
+     * Runs {@link #read(int)} on the {@link DaqDevice#getExecutor() device's executor}.
+     */
+    public CompletableFuture<Long> readAsync(int counterNumber) {
+        return DAQ_DEVICE.getExecutor().submit(() -> read(counterNumber));
+    }
+
 
     /* /////////////////////////////////////////////////////////////////////////////////////////////////////////////////
      BICTRTRIGCOUNT -> BI CTR TRIG COUNT -> boardInfo counter trigger count
@@ -101,6 +163,13 @@ public class CounterWrapper {
         );
     }
 
+    /**
+     * Runs {@link #getCounterTriggerCount()} on the {@link DaqDevice#getExecutor() device's executor}.
+     */
+    public CompletableFuture<Integer> getCounterTriggerCountAsync() {
+        return DAQ_DEVICE.getExecutor().submit(this::getCounterTriggerCount);
+    }
+
     /**
      * @see <a
      *         href="https://www.mccdaq.com/pdfs/manuals/Mcculw_WebHelp/hh_goto.htm?ULStart.htm#Function_Reference/Configuration_Functions/cbSetConfig.htm">cbSetConfig()</a>
@@ -115,6 +184,16 @@ public class CounterWrapper {
         );
     }
 
+    /**
+     * Runs {@link #setCounterTriggerCount(int)} on the {@link DaqDevice#getExecutor() device's executor}.
+     */
+    public CompletableFuture<Void> setCounterTriggerCountAsync(int trigCount) {
+        return DAQ_DEVICE.getExecutor().submit(() -> {
+            setCounterTriggerCount(trigCount);
+            return null;
+        });
+    }
+
     /* /////////////////////////////////////////////////////////////////////////////////////////////////////////////////
      CICTRNUM -> CI CTR NUM -> counterInfo counter number
      Readable? yes
@@ -133,6 +212,13 @@ public class CounterWrapper {
         );
     }
 
+    /**
+     * Runs {@link #getCounterNumber(int)} on the {@link DaqDevice#getExecutor() device's executor}.
+     */
+    public CompletableFuture<Integer> getCounterNumberAsync(int dev) {
+        return DAQ_DEVICE.getExecutor().submit(() -> getCounterNumber(dev));
+    }
+
 
 
 }
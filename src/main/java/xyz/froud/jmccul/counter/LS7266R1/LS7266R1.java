@@ -1,5 +1,6 @@
 package xyz.froud.jmccul.counter.LS7266R1;
 
+import xyz.froud.jmccul.BoardExecutor;
 import xyz.froud.jmccul.JMCCULException;
 import xyz.froud.jmccul.JMCCULUtils;
 import xyz.froud.jmccul.MeasurementComputingUniversalLibrary;
@@ -13,6 +14,15 @@ public class LS7266R1 {
     private final int BOARD_NUMBER = 0;
 
     public void config7266(int coutnerNumber, Quadrature quadrature, CountingMode countingMode, Encoding dataEncoding, IndexMode indexMode, boolean invertIndex, FlagPins flagPins, boolean gating) throws JMCCULException {
+        // this class only has a board number, so find the executor of the device which has it
+        final BoardExecutor executor = BoardExecutor.forBoard(BOARD_NUMBER);
+        if (executor != null && executor.mustSubmit()) {
+            BoardExecutor.join(executor.submit(() -> {
+                config7266(coutnerNumber, quadrature, countingMode, dataEncoding, indexMode, invertIndex, flagPins, gating);
+                return null;
+            }));
+            return;
+        }
 
         final int errorCode = MeasurementComputingUniversalLibrary.INSTANCE.cbC7266Config(
                 BOARD_NUMBER,
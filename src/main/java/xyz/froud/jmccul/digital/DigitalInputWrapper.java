@@ -24,16 +24,23 @@
 
 package xyz.froud.jmccul.digital;
 
+import com.sun.jna.Memory;
 import com.sun.jna.NativeLong;
 import com.sun.jna.ptr.NativeLongByReference;
+import xyz.froud.jmccul.BoardExecutor;
+import xyz.froud.jmccul.DirectUniversalLibrary;
 import xyz.froud.jmccul.DaqDevice;
 import xyz.froud.jmccul.JMCCULException;
 import xyz.froud.jmccul.JMCCULUtils;
 import xyz.froud.jmccul.config.ConfigurationWrapper;
 import xyz.froud.jmccul.MeasurementComputingUniversalLibrary;
+import xyz.froud.jmccul.NativeScratch;
+import xyz.froud.jmccul.WindowsBuffer;
+import xyz.froud.jmccul.WindowsBufferPool;
 
 import java.nio.IntBuffer;
 import java.nio.ShortBuffer;
+import java.util.concurrent.CompletableFuture;
 
 public class DigitalInputWrapper {
 
@@ -69,15 +76,26 @@ public class DigitalInputWrapper {
      *         href="https://www.mccdaq.com/pdfs/manuals/Mcculw_WebHelp/hh_goto.htm?ULStart.htm#Function_Reference/Digital_IO_Functions_for_NET/DBitIn.htm">DBitIn()</a>
      */
     public boolean readBit(DigitalPortType portType, int bitNumber) throws JMCCULException {
-        final ShortBuffer buf = ShortBuffer.allocate(1);
-        final int errorCode = MeasurementComputingUniversalLibrary.INSTANCE.cbDBitIn(
+        if (DAQ_DEVICE.getExecutor().mustSubmit()) {
+            return BoardExecutor.join(readBitAsync(portType, bitNumber));
+        }
+
+        final ShortBuffer buf = NativeScratch.get().getShortBuffer();
+        final int errorCode = DirectUniversalLibrary.cbDBitIn(
                 DAQ_DEVICE.getBoardNumber(),
                 portType.VALUE,
                 bitNumber,
                 buf
         );
         JMCCULUtils.checkError(errorCode);
-        return buf.get() == 1;
+        return buf.get(0) == 1;
+    }
+
+    /**
+     * Runs {@link #readBit(DigitalPortType, int)} on the {@link DaqDevice#getExecutor() device's executor}.
+     */
+    public CompletableFuture<Boolean> readBitAsync(DigitalPortType portType, int bitNumber) {
+        return DAQ_DEVICE.getExecutor().submit(() -> readBit(portType, bitNumber));
     }
 
     /**
@@ -99,15 +117,26 @@ public class DigitalInputWrapper {
      *         href="https://www.mccdaq.com/pdfs/manuals/Mcculw_WebHelp/hh_goto.htm?ULStart.htm#Function_Reference/Digital_IO_Functions_for_NET/DIn.htm">DIn()</a>
      */
     public short readPort(DigitalPortType portType) throws JMCCULException {
-        final ShortBuffer buf = ShortBuffer.allocate(1);
-        final int errorCode = MeasurementComputingUniversalLibrary.INSTANCE.cbDIn(
+        if (DAQ_DEVICE.getExecutor().mustSubmit()) {
+            return BoardExecutor.join(readPortAsync(portType));
+        }
+
+        final ShortBuffer buf = NativeScratch.get().getShortBuffer();
+        final int errorCode = DirectUniversalLibrary.cbDIn(
                 DAQ_DEVICE.getBoardNumber(),
                 portType.VALUE,
                 buf
         );
         JMCCULUtils.checkError(errorCode);
         // Java short is 16-bit signed integer
-        return buf.get();
+        return buf.get(0);
+    }
+
+    /**
+     * Runs {@link #readPort(DigitalPortType)} on the {@link DaqDevice#getExecutor() device's executor}.
+     */
+    public CompletableFuture<Short> readPortAsync(DigitalPortType portType) {
+        return DAQ_DEVICE.getExecutor().submit(() -> readPort(portType));
     }
 
     /**
@@ -128,54 +157,95 @@ public class DigitalInputWrapper {
      *         href="https://www.mccdaq.com/pdfs/manuals/Mcculw_WebHelp/hh_goto.htm?ULStart.htm#Function_Reference/Digital_IO_Functions_for_NET/DIn32.htm">DIn32()</a>
      */
     public int readPort32(DigitalPortType portType) throws JMCCULException {
-        final IntBuffer buf = IntBuffer.allocate(1);
-        final int errorCode = MeasurementComputingUniversalLibrary.INSTANCE.cbDIn32(
+        if (DAQ_DEVICE.getExecutor().mustSubmit()) {
+            return BoardExecutor.join(readPort32Async(portType));
+        }
+
+        final IntBuffer buf = NativeScratch.get().getIntBuffer();
+        final int errorCode = DirectUniversalLibrary.cbDIn32(
                 DAQ_DEVICE.getBoardNumber(),
                 portType.VALUE,
                 buf
         );
         JMCCULUtils.checkError(errorCode);
-        return buf.get();
+        return buf.get(0);
     }
 
-    //<editor-fold defaultstate="collapsed" desc="skeleton methods for Universal Library functions that I have not implemented">
-    private int inputPortArray(DigitalPortType lowPort, DigitalPortType highPort) throws JMCCULException {
-
-        /*
-        TODO figure out how to do this
+    /**
+     * Runs {@link #readPort32(DigitalPortType)} on the {@link DaqDevice#getExecutor() device's executor}.
+     */
+    public CompletableFuture<Integer> readPort32Async(DigitalPortType portType) {
+        return DAQ_DEVICE.getExecutor().submit(() -> readPort32(portType));
+    }
 
-        The JNAerator binding is not very helpful. The last argument is a ULONG* which probably
-        means we need to allocate a LongBuffer or something and then pass the first element.
+    /**
+     * Reads every digital port from lowPort to highPort with one call.
+     * <p>
+     * Note: Port size can vary. Each value is 0 to 2^32–1 for a 32-bit port, 0 to 65,535 for a 16-bit port, 0 to 255
+     * for an 8-bit port, and 0 to 15 for a 4-bit port.
+     *
+     * @param lowPort The first port to read.
+     * @param highPort The last port to read. Must not be lower than lowPort.
+     *
+     * @return one value for each port type from lowPort to highPort.
+     *
+     * @see <a
+     *         href="https://www.mccdaq.com/pdfs/manuals/Mcculw_WebHelp/hh_goto.htm?ULStart.htm#Function_Reference/Digital_IO_Functions/cbDInArray.htm">cbDInArray()</a>
+     * @see <a
+     *         href="https://www.mccdaq.com/pdfs/manuals/Mcculw_WebHelp/hh_goto.htm?ULStart.htm#Function_Reference/Digital_IO_Functions_for_NET/DInArray.htm">DInArray()</a>
+     */
+    public int[] readPorts(DigitalPortType lowPort, DigitalPortType highPort) throws JMCCULException {
+        if (DAQ_DEVICE.getExecutor().mustSubmit()) {
+            return BoardExecutor.join(readPortsAsync(lowPort, highPort));
+        }
+
+        final int portCount = highPort.VALUE - lowPort.VALUE + 1;
+        if (portCount < 1) {
+            throw new IllegalArgumentException(String.format(
+                    "highPort %s is lower than lowPort %s", highPort, lowPort
+            ));
+        }
 
-        The C# .NET function prototype gives us more information than the C function prototype.
-        it says:
-        public MccDaq.ErrorInfo DInArray(
-            MccDaq.DigitalPortType lowPort,
-            MccDaq.DigitalPortType highPort,
-            out int[] dataArray
-        );
-        https://www.mccdaq.com/pdfs/manuals/Mcculw_WebHelp/hh_goto.htm?ULStart.htm#Function_Reference/Digital_IO_Functions_for_NET/DInArray.htm
+        /*
+        DataArray is a ULONG array with one element per port. JNAerator made it a NativeLongByReference, so point one
+        at memory big enough for the whole array.
          */
-        NativeLongByReference nativeLongByRef = new NativeLongByReference(new NativeLong());
+        final Memory dataArray = new Memory((long) portCount * NativeLong.SIZE);
+        final NativeLongByReference dataArrayReference = new NativeLongByReference();
+        dataArrayReference.setPointer(dataArray);
 
         // https://www.mccdaq.com/pdfs/manuals/Mcculw_WebHelp/hh_goto.htm?ULStart.htm#Function_Reference/Digital_IO_Functions/cbDInArray.htm
         final int errorCode = MeasurementComputingUniversalLibrary.INSTANCE.cbDInArray(
-                DAQ_DEVICE.getBoardNumber(),
+                BOARD_NUMBER,
                 lowPort.VALUE,
                 highPort.VALUE,
-                nativeLongByRef
+                dataArrayReference
         );
         JMCCULUtils.checkError(errorCode);
-        return -1;
+
+        final int[] values = new int[portCount];
+        for (int i = 0; i < portCount; i++) {
+            values[i] = (int) dataArray.getNativeLong((long) i * NativeLong.SIZE).longValue();
+        }
+        return values;
     }
 
-    private short[] inputPortScan(DigitalPortType portType, int count, long rateHz) throws JMCCULException {
+    /**
+     * Runs {@link #readPorts(DigitalPortType, DigitalPortType)} on the
+     * {@link DaqDevice#getExecutor() device's executor}.
+     */
+    public CompletableFuture<int[]> readPortsAsync(DigitalPortType lowPort, DigitalPortType highPort) {
+        return DAQ_DEVICE.getExecutor().submit(() -> readPorts(lowPort, highPort));
+    }
+
+    //<editor-fold defaultstate="collapsed" desc="skeleton methods for Universal Library functions that I have not implemented">
+    private WindowsBuffer inputPortScan(DigitalPortType portType, int count, long rateHz) throws JMCCULException {
         /*
         I do not have hardware that supports cbDInScan() so I cannot test this method!
         TODO why does this return shorts? What about the port size / resolution?
          */
-        // https://www.mccdaq.com/pdfs/manuals/Mcculw_WebHelp/hh_goto.htm?ULStart.htm#Function_Reference/Windows_Memory_Management_Functions/cbWinBufAlloc.htm
-        final MeasurementComputingUniversalLibrary.HGLOBAL windowsBuffer = MeasurementComputingUniversalLibrary.INSTANCE.cbWinBufAlloc(new NativeLong(count));
+        // the caller closes the buffer
+        final WindowsBuffer windowsBuffer = WindowsBufferPool.getShared().acquire(WindowsBuffer.SampleType.SHORT, count);
 
         final NativeLongByReference rateByReference = new NativeLongByReference(new NativeLong(rateHz));
 
@@ -185,25 +255,17 @@ public class DigitalInputWrapper {
                 /* int portType  */ portType.VALUE,
                 /* long Count    */ new NativeLong(count),
                 /* long *Rate    */ rateByReference, //returns the value of the actual rate set, which may be different from the requested rate because of pacer limitations.
-                /* int MemHandle */ windowsBuffer,
+                /* int MemHandle */ windowsBuffer.getHandle(),
                 /* int Options   */ 0
         );
 
-        JMCCULUtils.checkError(errorCodeScan);
-
-        final ShortBuffer javaBuffer = ShortBuffer.allocate(count);
-
-        // https://www.mccdaq.com/pdfs/manuals/Mcculw_WebHelp/hh_goto.htm?ULStart.htm#Function_Reference/Windows_Memory_Management_Functions/cbWinBufToArray.htm
-        final int errorCodeBufferConversion = MeasurementComputingUniversalLibrary.INSTANCE.cbWinBufToArray(
-                /* int MemHandle     */windowsBuffer,
-                /* double* DataArray */ javaBuffer,
-                /* long FirstPoint   */ new NativeLong(0),
-                /* long Count        */ new NativeLong(count)
-        );
-
-        JMCCULUtils.checkError(errorCodeBufferConversion);
+        if (errorCodeScan != MeasurementComputingUniversalLibrary.NOERRORS) {
+            windowsBuffer.close();
+            JMCCULUtils.checkError(errorCodeScan);
+        }
 
-        return javaBuffer.array();
+        // read the samples in place with windowsBuffer.asShortBuffer() instead of copying them out with cbWinBufToArray()
+        return windowsBuffer;
     }
     //</editor-fold>
 
@@ -228,6 +290,13 @@ public class DigitalInputWrapper {
         ) == 1;
     }
 
+    /**
+     * Runs {@link #isAcFilterEnabled(int)} on the {@link DaqDevice#getExecutor() device's executor}.
+     */
+    public CompletableFuture<Boolean> isAcFilterEnabledAsync(int bitNumber) {
+        return DAQ_DEVICE.getExecutor().submit(() -> isAcFilterEnabled(bitNumber));
+    }
+
     /**
      * @see <a
      *         href="https://www.mccdaq.com/pdfs/manuals/Mcculw_WebHelp/hh_goto.htm?ULStart.htm#Function_Reference/Configuration_Functions/cbSetConfig.htm">cbSetConfig()</a>
@@ -244,6 +313,16 @@ public class DigitalInputWrapper {
         );
     }
 
+    /**
+     * Runs {@link #setAcFilterEnabled(int, boolean)} on the {@link DaqDevice#getExecutor() device's executor}.
+     */
+    public CompletableFuture<Void> setAcFilterEnabledAsync(int bitNumber, boolean enable) {
+        return DAQ_DEVICE.getExecutor().submit(() -> {
+            setAcFilterEnabled(bitNumber, enable);
+            return null;
+        });
+    }
+
 
     /* /////////////////////////////////////////////////////////////////////////////////////////////////////////////////
      BIDIDEBOUNCETIME -> BI DI DEBOUNCE TIME -> boardInfo digitalInput debounce time
@@ -265,6 +344,16 @@ public class DigitalInputWrapper {
         );
     }
 
+    /**
+     * Runs {@link #setDebounceTime(int)} on the {@link DaqDevice#getExecutor() device's executor}.
+     */
+    public CompletableFuture<Void> setDebounceTimeAsync(int n) {
+        return DAQ_DEVICE.getExecutor().submit(() -> {
+            setDebounceTime(n);
+            return null;
+        });
+    }
+
         /* /////////////////////////////////////////////////////////////////////////////////////////////////////////////////
      BIDIDEBOUNCESTATE -> BI DI DEBOUNCE STATE  -> boardInfo digitalInput debounce state
      Readable? NO
@@ -285,6 +374,16 @@ public class DigitalInputWrapper {
         );
     }
 
+    /**
+     * Runs {@link #setDebounceState(int)} on the {@link DaqDevice#getExecutor() device's executor}.
+     */
+    public CompletableFuture<Void> setDebounceStateAsync(int n) {
+        return DAQ_DEVICE.getExecutor().submit(() -> {
+            setDebounceState(n);
+            return null;
+        });
+    }
+
          /* /////////////////////////////////////////////////////////////////////////////////////////////////////////////////
      BIDITRIGCOUNT -> BI DI TRIG COUNT -> boardInfo digitalInput trigger count
      Readable? yes
@@ -309,6 +408,13 @@ public class DigitalInputWrapper {
         );
     }
 
+    /**
+     * Runs {@link #getTriggerCount()} on the {@link DaqDevice#getExecutor() device's executor}.
+     */
+    public CompletableFuture<Integer> getTriggerCountAsync() {
+        return DAQ_DEVICE.getExecutor().submit(this::getTriggerCount);
+    }
+
     /**
      * Sets the number of digital input samples to acquire during each trigger event when ScanOptions.RetrigMode is
      * enabled.
@@ -328,4 +434,14 @@ public class DigitalInputWrapper {
         );
     }
 
+    /**
+     * Runs {@link #setTriggerCount(int)} on the {@link DaqDevice#getExecutor() device's executor}.
+     */
+    public CompletableFuture<Void> setTriggerCountAsync(int count) {
+        return DAQ_DEVICE.getExecutor().submit(() -> {
+            setTriggerCount(count);
+            return null;
+        });
+    }
+
 }
@@ -26,11 +26,16 @@ package xyz.froud.jmccul.digital;
 
 import com.sun.jna.NativeLong;
 import com.sun.jna.ptr.NativeLongByReference;
+import xyz.froud.jmccul.BoardExecutor;
+import xyz.froud.jmccul.DirectUniversalLibrary;
 import xyz.froud.jmccul.DaqDevice;
 import xyz.froud.jmccul.JMCCULException;
 import xyz.froud.jmccul.JMCCULUtils;
 import xyz.froud.jmccul.config.ConfigurationWrapper;
 import xyz.froud.jmccul.MeasurementComputingUniversalLibrary;
+import xyz.froud.jmccul.WindowsBuffer;
+
+import java.util.concurrent.CompletableFuture;
 
 public class DigitalOutputWrapper {
 
@@ -70,8 +75,13 @@ public class DigitalOutputWrapper {
      *         href="https://www.mccdaq.com/pdfs/manuals/Mcculw_WebHelp/hh_goto.htm?ULStart.htm#Function_Reference/Digital_IO_Functions_for_NET/DBitOut.htm">DBitOut()</a>
      */
     public void writeBit(DigitalPortType portType, int bitNumber, boolean value) throws JMCCULException {
+        if (DAQ_DEVICE.getExecutor().mustSubmit()) {
+            BoardExecutor.join(writeBitAsync(portType, bitNumber, value));
+            return;
+        }
+
         final int zeroOrOne = value ? 1 : 0;
-        final int errorCode = MeasurementComputingUniversalLibrary.INSTANCE.cbDBitOut(
+        final int errorCode = DirectUniversalLibrary.cbDBitOut(
                 DAQ_DEVICE.getBoardNumber(),
                 portType.VALUE,
                 bitNumber,
@@ -79,6 +89,16 @@ public class DigitalOutputWrapper {
         JMCCULUtils.checkError(errorCode);
     }
 
+    /**
+     * Runs {@link #writeBit(DigitalPortType, int, boolean)} on the {@link DaqDevice#getExecutor() device's executor}.
+     */
+    public CompletableFuture<Void> writeBitAsync(DigitalPortType portType, int bitNumber, boolean value) {
+        return DAQ_DEVICE.getExecutor().submit(() -> {
+            writeBit(portType, bitNumber, value);
+            return null;
+        });
+    }
+
     /**
      * Writes a byte to a digital output port.
      * <p>
@@ -102,14 +122,29 @@ public class DigitalOutputWrapper {
      *         href="https://www.mccdaq.com/pdfs/manuals/Mcculw_WebHelp/hh_goto.htm?ULStart.htm#Function_Reference/Digital_IO_Functions_for_NET/DOut.htm">DOut()</a>
      */
     public void writePort(DigitalPortType portType, short value) throws JMCCULException {
+        if (DAQ_DEVICE.getExecutor().mustSubmit()) {
+            BoardExecutor.join(writePortAsync(portType, value));
+            return;
+        }
+
         // Java short is 16-bit signed integer
-        final int errorCode = MeasurementComputingUniversalLibrary.INSTANCE.cbDOut(
+        final int errorCode = DirectUniversalLibrary.cbDOut(
                 DAQ_DEVICE.getBoardNumber(),
                 portType.VALUE,
                 value);
         JMCCULUtils.checkError(errorCode);
     }
 
+    /**
+     * Runs {@link #writePort(DigitalPortType, short)} on the {@link DaqDevice#getExecutor() device's executor}.
+     */
+    public CompletableFuture<Void> writePortAsync(DigitalPortType portType, short value) {
+        return DAQ_DEVICE.getExecutor().submit(() -> {
+            writePort(portType, value);
+            return null;
+        });
+    }
+
     /**
      * Writes a byte to a 32-bit digital output port.
      * <p>
@@ -132,6 +167,11 @@ public class DigitalOutputWrapper {
      *         href="https://www.mccdaq.com/pdfs/manuals/Mcculw_WebHelp/hh_goto.htm?ULStart.htm#Function_Reference/Digital_IO_Functions_for_NET/DOut32.htm">DOut32()</a>
      */
     public void writePort32(DigitalPortType portType, int value) throws JMCCULException {
+        if (DAQ_DEVICE.getExecutor().mustSubmit()) {
+            BoardExecutor.join(writePort32Async(portType, value));
+            return;
+        }
+
         final int errorCode = MeasurementComputingUniversalLibrary.INSTANCE.cbDOut32(
                 DAQ_DEVICE.getBoardNumber(),
                 portType.VALUE,
@@ -139,6 +179,16 @@ public class DigitalOutputWrapper {
         JMCCULUtils.checkError(errorCode);
     }
 
+    /**
+     * Runs {@link #writePort32(DigitalPortType, int)} on the {@link DaqDevice#getExecutor() device's executor}.
+     */
+    public CompletableFuture<Void> writePort32Async(DigitalPortType portType, int value) {
+        return DAQ_DEVICE.getExecutor().submit(() -> {
+            writePort32(portType, value);
+            return null;
+        });
+    }
+
     //<editor-fold defaultstate="collapsed" desc="skeleton methods for Universal Library functions that I have not implemented">
     private void outputPortArray(DigitalPortType lowPort, DigitalPortType highPort, long[] dataArray) throws JMCCULException {
 
@@ -170,13 +220,13 @@ public class DigitalOutputWrapper {
     }
 
 
-    private void outputPortScan(DigitalPortType portType, int count, long rateHz, int[] data) throws JMCCULException {
-        // I do not have hardware that supports cbDOutScan() so I cannot test this method!
-
-        // https://www.mccdaq.com/pdfs/manuals/Mcculw_WebHelp/hh_goto.htm?ULStart.htm#Function_Reference/Windows_Memory_Management_Functions/cbWinBufAlloc.htm
-        final MeasurementComputingUniversalLibrary.HGLOBAL windowsBuffer = MeasurementComputingUniversalLibrary.INSTANCE.cbWinBufAlloc(new NativeLong(count));
-
-        // TODO figure out how to get data into the windows buffer
+    private void outputPortScan(DigitalPortType portType, long rateHz, WindowsBuffer windowsBuffer) throws JMCCULException {
+        /*
+        I do not have hardware that supports cbDOutScan() so I cannot test this method!
+        The caller writes the data straight into the Windows buffer with windowsBuffer.asShortBuffer(),
+        and closes the buffer once the scan has finished.
+         */
+        final int count = windowsBuffer.getSampleCount();
         final NativeLongByReference rateByReference = new NativeLongByReference(new NativeLong(rateHz));
 
         // https://www.mccdaq.com/pdfs/manuals/Mcculw_WebHelp/hh_goto.htm?ULStart.htm#Function_Reference/Digital_IO_Functions/cbDOutScan.htm
@@ -185,7 +235,7 @@ public class DigitalOutputWrapper {
                 /* int portType  */ portType.VALUE,
                 /* long Count    */ new NativeLong(count),
                 /* long *Rate    */ rateByReference, //returns the value of the actual rate set, which may be different from the requested rate because of pacer limitations.
-                /* int MemHandle */ windowsBuffer,
+                /* int MemHandle */ windowsBuffer.getHandle(),
                 /* int Options   */ 0
         );
         JMCCULUtils.checkError(errorCode);
@@ -214,6 +264,13 @@ public class DigitalOutputWrapper {
         );
     }
 
+    /**
+     * Runs {@link #getTriggerCount()} on the {@link DaqDevice#getExecutor() device's executor}.
+     */
+    public CompletableFuture<Integer> getTriggerCountAsync() {
+        return DAQ_DEVICE.getExecutor().submit(this::getTriggerCount);
+    }
+
     /**
      * @see <a
      *         href="https://www.mccdaq.com/pdfs/manuals/Mcculw_WebHelp/hh_goto.htm?ULStart.htm#Function_Reference/Configuration_Functions/cbSetConfig.htm">cbSetConfig()</a>
@@ -230,5 +287,15 @@ public class DigitalOutputWrapper {
         );
     }
 
+    /**
+     * Runs {@link #setTriggerCount(int)} on the {@link DaqDevice#getExecutor() device's executor}.
+     */
+    public CompletableFuture<Void> setTriggerCountAsync(int trigCount) {
+        return DAQ_DEVICE.getExecutor().submit(() -> {
+            setTriggerCount(trigCount);
+            return null;
+        });
+    }
+
 
 }
@@ -25,6 +25,8 @@ package xyz.froud.jmccul.digital;
 
 import com.sun.jna.NativeLong;
 import com.sun.jna.ptr.NativeLongByReference;
+import xyz.froud.jmccul.BoardExecutor;
+import xyz.froud.jmccul.DirectUniversalLibrary;
 import xyz.froud.jmccul.DaqDevice;
 import xyz.froud.jmccul.JMCCULException;
 import xyz.froud.jmccul.JMCCULUtils;
@@ -32,6 +34,7 @@ import xyz.froud.jmccul.config.ConfigurationWrapper;
 import xyz.froud.jmccul.MeasurementComputingUniversalLibrary;
 
 import java.nio.ShortBuffer;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * @author Peter Froud
@@ -75,6 +78,13 @@ public class DigitalPort {
         return DAQ_DEVICE;
     }
 
+    /**
+     * @return the key this port uses in {@link xyz.froud.jmccul.DeviceCapabilities}.
+     */
+    private String getCapabilityKey(String capability) {
+        return "digital.port." + PORT_INDEX + "." + capability;
+    }
+
     /**
      * @see <a
      *         href="https://www.mccdaq.com/pdfs/manuals/Mcculw_WebHelp/hh_goto.htm?ULStart.htm#Function_Reference/Configuration_Functions_for_NET/GetDevType.htm">DioConfig.GetDevType()</a>
@@ -87,6 +97,13 @@ public class DigitalPort {
         return _portType;
     }
 
+    /**
+     * Runs {@link #getPortType()} on the {@link DaqDevice#getExecutor() device's executor}.
+     */
+    public CompletableFuture<DigitalPortType> getPortTypeAsync() {
+        return DAQ_DEVICE.getExecutor().submit(this::getPortType);
+    }
+
     /**
      * @see <a
      *         href="https://www.mccdaq.com/pdfs/manuals/Mcculw_WebHelp/hh_goto.htm?ULStart.htm#Function_Reference/Configuration_Functions/cbGetConfig.htm">cbGetConfig()</a>
@@ -100,6 +117,13 @@ public class DigitalPort {
         return _bitCount;
     }
 
+    /**
+     * Runs {@link #getResolution()} on the {@link DaqDevice#getExecutor() device's executor}.
+     */
+    public CompletableFuture<Integer> getResolutionAsync() {
+        return DAQ_DEVICE.getExecutor().submit(this::getResolution);
+    }
+
     /**
      * Use getInputMask() and getOutputMask() to determine if an AuxPort is configurable. If you apply both methods to
      * the same port, and both configVal parameters returned have input and output bits that overlap, the port is not
@@ -120,11 +144,18 @@ public class DigitalPort {
      */
     public int getInputMask() throws JMCCULException {
         if (_inputMask == null) {
-            _inputMask = getConfigItem(MeasurementComputingUniversalLibrary.DIINMASK);
+            _inputMask = DAQ_DEVICE.getCapabilities().getInt(getCapabilityKey("inputMask"), errors -> getConfigItem(MeasurementComputingUniversalLibrary.DIINMASK));
         }
         return _inputMask;
     }
 
+    /**
+     * Runs {@link #getInputMask()} on the {@link DaqDevice#getExecutor() device's executor}.
+     */
+    public CompletableFuture<Integer> getInputMaskAsync() {
+        return DAQ_DEVICE.getExecutor().submit(this::getInputMask);
+    }
+
     /**
      * Use getInputMask() and getOutputMask() to determine if an AuxPort is configurable. If you apply both methods to
      * the same port, and both configVal parameters returned have input and output bits that overlap, the port is not
@@ -145,11 +176,18 @@ public class DigitalPort {
      */
     public int getOutputMask() throws JMCCULException {
         if (_outputMask == null) {
-            _outputMask = getConfigItem(MeasurementComputingUniversalLibrary.DIOUTMASK);
+            _outputMask = DAQ_DEVICE.getCapabilities().getInt(getCapabilityKey("outputMask"), errors -> getConfigItem(MeasurementComputingUniversalLibrary.DIOUTMASK));
         }
         return _outputMask;
     }
 
+    /**
+     * Runs {@link #getOutputMask()} on the {@link DaqDevice#getExecutor() device's executor}.
+     */
+    public CompletableFuture<Integer> getOutputMaskAsync() {
+        return DAQ_DEVICE.getExecutor().submit(this::getOutputMask);
+    }
+
     private int getConfigItem(int item) throws JMCCULException {
         return ConfigurationWrapper.getInt(
                 MeasurementComputingUniversalLibrary.DIGITALINFO,
@@ -169,6 +207,13 @@ public class DigitalPort {
         return getConfigItem(MeasurementComputingUniversalLibrary.DICURVAL);
     }
 
+    /**
+     * Runs {@link #getPresentValue()} on the {@link DaqDevice#getExecutor() device's executor}.
+     */
+    public CompletableFuture<Integer> getPresentValueAsync() {
+        return DAQ_DEVICE.getExecutor().submit(this::getPresentValue);
+    }
+
     /**
      * @see <a
      *         href="https://www.mccdaq.com/pdfs/manuals/Mcculw_WebHelp/hh_goto.htm?ULStart.htm#Function_Reference/Configuration_Functions/cbGetConfig.htm">cbGetConfig()</a>
@@ -180,6 +225,13 @@ public class DigitalPort {
         return !isDisabled;
     }
 
+    /**
+     * Runs {@link #getDirectionCheckEnabled()} on the {@link DaqDevice#getExecutor() device's executor}.
+     */
+    public CompletableFuture<Boolean> getDirectionCheckEnabledAsync() {
+        return DAQ_DEVICE.getExecutor().submit(this::getDirectionCheckEnabled);
+    }
+
     /**
      * @see <a
      *         href="https://www.mccdaq.com/pdfs/manuals/Mcculw_WebHelp/hh_goto.htm?ULStart.htm#Function_Reference/Configuration_Functions_for_NET/SetDirectionCheckDisabled.htm">DioConfig.SetDirectionCheckDisabled()</a>
@@ -198,12 +250,29 @@ public class DigitalPort {
 
     }
 
+    /**
+     * Runs {@link #setDirectionCheckEnabled(boolean)} on the {@link DaqDevice#getExecutor() device's executor}.
+     */
+    public CompletableFuture<Void> setDirectionCheckEnabledAsync(boolean enable) {
+        return DAQ_DEVICE.getExecutor().submit(() -> {
+            setDirectionCheckEnabled(enable);
+            return null;
+        });
+    }
+
     public DigitalPortDirection getDirection() throws JMCCULException {
         return DigitalPortDirection.parseInt(
                 getConfigItem(MeasurementComputingUniversalLibrary.DICONFIG)
         );
     }
 
+    /**
+     * Runs {@link #getDirection()} on the {@link DaqDevice#getExecutor() device's executor}.
+     */
+    public CompletableFuture<DigitalPortDirection> getDirectionAsync() {
+        return DAQ_DEVICE.getExecutor().submit(this::getDirection);
+    }
+
     /**
      * @see <a
      *         href="https://github.com/mccdaq/mcculw/blob/d5d4a3eebaace9544a356a1243963c7af5f8ca53/mcculw/device_info/dio_info.py#L77">first_bit
@@ -222,6 +291,13 @@ public class DigitalPort {
         }
     }
 
+    /**
+     * Runs {@link #getFirstBit()} on the {@link DaqDevice#getExecutor() device's executor}.
+     */
+    public CompletableFuture<Integer> getFirstBitAsync() {
+        return DAQ_DEVICE.getExecutor().submit(this::getFirstBit);
+    }
+
     /**
      * @see #getInputMask()
      * @see #getOutputMask()
@@ -230,38 +306,51 @@ public class DigitalPort {
      *         in class PortInfo in dio_info.py</a>
      */
     public boolean isDirectionOfIndividualBitSettable() throws JMCCULException {
-        if (_isIndividualBitConfigurable == null) {
-
-            if ((getInputMask() & getOutputMask()) == 0) {
-                // TODO simplify nested if statements
-                // AUXPORT might be configurable, check if we can configure it
-                if (getPortType() == DigitalPortType.AUX_PORT) {
-                    try {
-                        // check if we can configure an individual bit in the port
-
-                        final int errorCode1 = MeasurementComputingUniversalLibrary.INSTANCE.cbDConfigBit(DAQ_DEVICE.getBoardNumber(), getPortType().VALUE, getFirstBit(), DigitalPortDirection.OUTPUT.VALUE);
-                        JMCCULUtils.checkError(errorCode1);
-
-                        final int errorCode2 = MeasurementComputingUniversalLibrary.INSTANCE.cbDConfigBit(DAQ_DEVICE.getBoardNumber(), getPortType().VALUE, getFirstBit(), DigitalPortDirection.INPUT.VALUE);
-                        JMCCULUtils.checkError(errorCode2);
+        if (DAQ_DEVICE.getExecutor().mustSubmit()) {
+            return BoardExecutor.join(isDirectionOfIndividualBitSettableAsync());
+        }
 
-                        _isIndividualBitConfigurable = true;
-                    } catch (JMCCULException ex) {
-                        _isIndividualBitConfigurable = false;
+        if (_isIndividualBitConfigurable == null) {
+            _isIndividualBitConfigurable = DAQ_DEVICE.getCapabilities().getBoolean(getCapabilityKey("individualBitConfigurable"), errors -> {
+                if ((getInputMask() & getOutputMask()) == 0) {
+                    // TODO simplify nested if statements
+                    // AUXPORT might be configurable, check if we can configure it
+                    if (getPortType() == DigitalPortType.AUX_PORT) {
+                        try {
+                            // check if we can configure an individual bit in the port
+
+                            final int errorCode1 = MeasurementComputingUniversalLibrary.INSTANCE.cbDConfigBit(DAQ_DEVICE.getBoardNumber(), getPortType().VALUE, getFirstBit(), DigitalPortDirection.OUTPUT.VALUE);
+                            JMCCULUtils.checkError(errorCode1);
+
+                            final int errorCode2 = MeasurementComputingUniversalLibrary.INSTANCE.cbDConfigBit(DAQ_DEVICE.getBoardNumber(), getPortType().VALUE, getFirstBit(), DigitalPortDirection.INPUT.VALUE);
+                            JMCCULUtils.checkError(errorCode2);
+
+                            return true;
+                        } catch (JMCCULException ex) {
+                            errors.ignore(ex);
+                            return false;
+                        }
+                    } else {
+                        // portType is not AUX_PORT
+                        return false;
                     }
                 } else {
-                    // portType is not AUX_PORT
-                    _isIndividualBitConfigurable = false;
+                    // (inputMask & outputMask) is not zero
+                    return false;
                 }
-            } else {
-                // (inputMask & outputMask) is not zero
-                _isIndividualBitConfigurable = false;
-            }
+            });
         }
         
         return _isIndividualBitConfigurable;
     }
 
+    /**
+     * Runs {@link #isDirectionOfIndividualBitSettable()} on the {@link DaqDevice#getExecutor() device's executor}.
+     */
+    public CompletableFuture<Boolean> isDirectionOfIndividualBitSettableAsync() {
+        return DAQ_DEVICE.getExecutor().submit(this::isDirectionOfIndividualBitSettable);
+    }
+
     /**
      * @see #getInputMask()
      * @see #getOutputMask()
@@ -270,29 +359,42 @@ public class DigitalPort {
      * in class PortInfo in dio_info.py</a>
      */
     public boolean isDirectionOfEntirePortSettable() throws JMCCULException {
+        if (DAQ_DEVICE.getExecutor().mustSubmit()) {
+            return BoardExecutor.join(isDirectionOfEntirePortSettableAsync());
+        }
+
         if (_isPortConfigurable == null) {
-            if ((getInputMask() & getOutputMask()) == 0) {
-                try {
-                    // check if we can configure the port
+            _isPortConfigurable = DAQ_DEVICE.getCapabilities().getBoolean(getCapabilityKey("portConfigurable"), errors -> {
+                if ((getInputMask() & getOutputMask()) == 0) {
+                    try {
+                        // check if we can configure the port
 
-                    final int errorCode1 = MeasurementComputingUniversalLibrary.INSTANCE.cbDConfigPort(DAQ_DEVICE.getBoardNumber(), getPortType().VALUE, DigitalPortDirection.OUTPUT.VALUE);
-                    JMCCULUtils.checkError(errorCode1);
+                        final int errorCode1 = MeasurementComputingUniversalLibrary.INSTANCE.cbDConfigPort(DAQ_DEVICE.getBoardNumber(), getPortType().VALUE, DigitalPortDirection.OUTPUT.VALUE);
+                        JMCCULUtils.checkError(errorCode1);
 
-                    final int errorCode2 = MeasurementComputingUniversalLibrary.INSTANCE.cbDConfigPort(DAQ_DEVICE.getBoardNumber(), getPortType().VALUE, DigitalPortDirection.INPUT.VALUE);
-                    JMCCULUtils.checkError(errorCode2);
+                        final int errorCode2 = MeasurementComputingUniversalLibrary.INSTANCE.cbDConfigPort(DAQ_DEVICE.getBoardNumber(), getPortType().VALUE, DigitalPortDirection.INPUT.VALUE);
+                        JMCCULUtils.checkError(errorCode2);
 
-                    _isPortConfigurable = true;
-                } catch (JMCCULException ex) {
-                    ex.throwIfErrorIsNetworkDeviceInUse();
-                    _isPortConfigurable = false;
+                        return true;
+                    } catch (JMCCULException ex) {
+                        errors.ignore(ex);
+                        return false;
+                    }
+                } else {
+                    return false;
                 }
-            } else {
-                _isPortConfigurable = false;
-            }
+            });
         }
         return _isPortConfigurable;
     }
 
+    /**
+     * Runs {@link #isDirectionOfEntirePortSettable()} on the {@link DaqDevice#getExecutor() device's executor}.
+     */
+    public CompletableFuture<Boolean> isDirectionOfEntirePortSettableAsync() {
+        return DAQ_DEVICE.getExecutor().submit(this::isDirectionOfEntirePortSettable);
+    }
+
     /**
      * @see <a
      *         href="https://github.com/mccdaq/mcculw/blob/d5d4a3eebaace9544a356a1243963c7af5f8ca53/mcculw/device_info/dio_info.py#L87">supports_input
@@ -302,6 +404,13 @@ public class DigitalPort {
         return (getInputMask() > 0) || isDirectionOfEntirePortSettable();
     }
 
+    /**
+     * Runs {@link #isInputSupported()} on the {@link DaqDevice#getExecutor() device's executor}.
+     */
+    public CompletableFuture<Boolean> isInputSupportedAsync() {
+        return DAQ_DEVICE.getExecutor().submit(this::isInputSupported);
+    }
+
     /**
      * @see <a
      *         href="https://github.com/mccdaq/mcculw/blob/d5d4a3eebaace9544a356a1243963c7af5f8ca53/mcculw/device_info/dio_info.py#L109">supports_output
@@ -311,78 +420,111 @@ public class DigitalPort {
         return (getOutputMask() > 0) || isDirectionOfEntirePortSettable();
     }
 
+    /**
+     * Runs {@link #isOutputSupported()} on the {@link DaqDevice#getExecutor() device's executor}.
+     */
+    public CompletableFuture<Boolean> isOutputSupportedAsync() {
+        return DAQ_DEVICE.getExecutor().submit(this::isOutputSupported);
+    }
+
     /**
      * @see <a
      *         href="https://github.com/mccdaq/mcculw/blob/d5d4a3eebaace9544a356a1243963c7af5f8ca53/mcculw/device_info/dio_info.py#L91">supports_input_scan
      * in class PortInfo in dio_info.py</a>
      */
     public boolean isInputScanSupported() throws JMCCULException {
+        if (DAQ_DEVICE.getExecutor().mustSubmit()) {
+            return BoardExecutor.join(isInputScanSupportedAsync());
+        }
+
         if (_isInputScanSupported == null) {
-            /*
-        TODO what does "scan" mean? Is it the same as "synchronous"?
-        Table of cbGetStatus()/cbGetIOStatus() arguments:
-            DIFUNCTION      Specifies digital input scans started with cbDInScan().
-            DOFUNCTION      Specifies digital output scans started with cbDOutScan().
-            DAQIFUNCTION    Specifies a synchronous input scan started with cbDaqInScan().
-            DAQOFUNCTION    Specifies a synchronous output scan started with cbDaqOutScan().
-        Blog post:
-        https://www.mccdaq.com/blog/2018/01/11/how-to-synchronous-analog-digital-and-encoder-measurements-in-labview/
-             */
-            try {
-                // https://www.mccdaq.com/pdfs/manuals/Mcculw_WebHelp/hh_goto.htm?ULStart.htm#Function_Reference/Miscellaneous_Functions/cbGetStatus.htm
-                final int errorCode = MeasurementComputingUniversalLibrary.INSTANCE.cbGetIOStatus(
-                        DAQ_DEVICE.getBoardNumber(),
-                        ShortBuffer.allocate(1),
-                        new NativeLongByReference(new NativeLong(0)),
-                        new NativeLongByReference(new NativeLong(0)),
-                        MeasurementComputingUniversalLibrary.DIFUNCTION
-                );
-                JMCCULUtils.checkError(errorCode);
-                _isInputScanSupported = true;
-            } catch (JMCCULException ex) {
-                ex.throwIfErrorIsNetworkDeviceInUse();
-                _isInputScanSupported = false;
-            }
+            _isInputScanSupported = DAQ_DEVICE.getCapabilities().getBoolean(getCapabilityKey("inputScanSupported"), errors -> {
+                /*
+            TODO what does "scan" mean? Is it the same as "synchronous"?
+            Table of cbGetStatus()/cbGetIOStatus() arguments:
+                DIFUNCTION      Specifies digital input scans started with cbDInScan().
+                DOFUNCTION      Specifies digital output scans started with cbDOutScan().
+                DAQIFUNCTION    Specifies a synchronous input scan started with cbDaqInScan().
+                DAQOFUNCTION    Specifies a synchronous output scan started with cbDaqOutScan().
+            Blog post:
+            https://www.mccdaq.com/blog/2018/01/11/how-to-synchronous-analog-digital-and-encoder-measurements-in-labview/
+                 */
+                try {
+                    // https://www.mccdaq.com/pdfs/manuals/Mcculw_WebHelp/hh_goto.htm?ULStart.htm#Function_Reference/Miscellaneous_Functions/cbGetStatus.htm
+                    final int errorCode = DirectUniversalLibrary.cbGetIOStatus(
+                            DAQ_DEVICE.getBoardNumber(),
+                            ShortBuffer.allocate(1),
+                            new NativeLongByReference(new NativeLong(0)),
+                            new NativeLongByReference(new NativeLong(0)),
+                            MeasurementComputingUniversalLibrary.DIFUNCTION
+                    );
+                    JMCCULUtils.checkError(errorCode);
+                    return true;
+                } catch (JMCCULException ex) {
+                    errors.ignore(ex);
+                    return false;
+                }
+            });
         }
         return _isInputScanSupported;
     }
 
+    /**
+     * Runs {@link #isInputScanSupported()} on the {@link DaqDevice#getExecutor() device's executor}.
+     */
+    public CompletableFuture<Boolean> isInputScanSupportedAsync() {
+        return DAQ_DEVICE.getExecutor().submit(this::isInputScanSupported);
+    }
+
     /**
      * @see <a
      *         href="https://github.com/mccdaq/mcculw/blob/d5d4a3eebaace9544a356a1243963c7af5f8ca53/mcculw/device_info/dio_info.py#L100">supports_output_scan
      * in class PortInfo in dio_info.py</a>
      */
     public boolean isOutputScanSupported() throws JMCCULException {
+        if (DAQ_DEVICE.getExecutor().mustSubmit()) {
+            return BoardExecutor.join(isOutputScanSupportedAsync());
+        }
+
         if (_isOutputScanSupported == null) {
-            /*
-        TODO what does "scan" mean? Is it the same as "synchronous"?
-        Table of cbGetStatus()/cbGetIOStatus() arguments:
-            DIFUNCTION      Specifies digital input scans started with cbDInScan().
-            DOFUNCTION      Specifies digital output scans started with cbDOutScan().
-            DAQIFUNCTION    Specifies a synchronous input scan started with cbDaqInScan().
-            DAQOFUNCTION    Specifies a synchronous output scan started with cbDaqOutScan().
-        Blog post:
-        https://www.mccdaq.com/blog/2018/01/11/how-to-synchronous-analog-digital-and-encoder-measurements-in-labview/
-             */
-            try {
-                // // https://www.mccdaq.com/pdfs/manuals/Mcculw_WebHelp/hh_goto.htm?ULStart.htm#Function_Reference/Miscellaneous_Functions/cbGetStatus.htm
-                final int errorCode = MeasurementComputingUniversalLibrary.INSTANCE.cbGetIOStatus(
-                        DAQ_DEVICE.getBoardNumber(),
-                        ShortBuffer.allocate(1),
-                        new NativeLongByReference(new NativeLong(0)),
-                        new NativeLongByReference(new NativeLong(0)),
-                        MeasurementComputingUniversalLibrary.DOFUNCTION
-                );
-                JMCCULUtils.checkError(errorCode);
-                _isOutputScanSupported = true;
-            } catch (JMCCULException ex) {
-                ex.throwIfErrorIsNetworkDeviceInUse();
-                _isOutputScanSupported = false;
-            }
+            _isOutputScanSupported = DAQ_DEVICE.getCapabilities().getBoolean(getCapabilityKey("outputScanSupported"), errors -> {
+                /*
+            TODO what does "scan" mean? Is it the same as "synchronous"?
+            Table of cbGetStatus()/cbGetIOStatus() arguments:
+                DIFUNCTION      Specifies digital input scans started with cbDInScan().
+                DOFUNCTION      Specifies digital output scans started with cbDOutScan().
+                DAQIFUNCTION    Specifies a synchronous input scan started with cbDaqInScan().
+                DAQOFUNCTION    Specifies a synchronous output scan started with cbDaqOutScan().
+            Blog post:
+            https://www.mccdaq.com/blog/2018/01/11/how-to-synchronous-analog-digital-and-encoder-measurements-in-labview/
+                 */
+                try {
+                    // // https://www.mccdaq.com/pdfs/manuals/Mcculw_WebHelp/hh_goto.htm?ULStart.htm#Function_Reference/Miscellaneous_Functions/cbGetStatus.htm
+                    final int errorCode = DirectUniversalLibrary.cbGetIOStatus(
+                            DAQ_DEVICE.getBoardNumber(),
+                            ShortBuffer.allocate(1),
+                            new NativeLongByReference(new NativeLong(0)),
+                            new NativeLongByReference(new NativeLong(0)),
+                            MeasurementComputingUniversalLibrary.DOFUNCTION
+                    );
+                    JMCCULUtils.checkError(errorCode);
+                    return true;
+                } catch (JMCCULException ex) {
+                    errors.ignore(ex);
+                    return false;
+                }
+            });
         }
         return _isOutputScanSupported;
     }
 
+    /**
+     * Runs {@link #isOutputScanSupported()} on the {@link DaqDevice#getExecutor() device's executor}.
+     */
+    public CompletableFuture<Boolean> isOutputScanSupportedAsync() {
+        return DAQ_DEVICE.getExecutor().submit(this::isOutputScanSupported);
+    }
+
     /**
      * Configures a specific digital bit for input or output. This function treats all DIO ports on a board as a single
      * port (AUXPORT); it is not supported by 8255 type DIO ports.
@@ -397,6 +539,11 @@ public class DigitalPort {
      *         href="https://www.mccdaq.com/pdfs/manuals/Mcculw_WebHelp/hh_goto.htm?ULStart.htm#Function_Reference/Digital_IO_Functions_for_NET/DConfigBit.htm">DConfigBit()</a>
      */
     public void setBitDirection(int bitNumber, DigitalPortDirection direction) throws JMCCULException {
+        if (DAQ_DEVICE.getExecutor().mustSubmit()) {
+            BoardExecutor.join(setBitDirectionAsync(bitNumber, direction));
+            return;
+        }
+
         final int errorCode = MeasurementComputingUniversalLibrary.INSTANCE.cbDConfigBit(
                 DAQ_DEVICE.getBoardNumber(),
                 getPortType().VALUE,
@@ -406,6 +553,17 @@ public class DigitalPort {
         JMCCULUtils.checkError(errorCode);
     }
 
+    /**
+     * Runs {@link #setBitDirection(int, DigitalPortDirection)} on the
+     * {@link DaqDevice#getExecutor() device's executor}.
+     */
+    public CompletableFuture<Void> setBitDirectionAsync(int bitNumber, DigitalPortDirection direction) {
+        return DAQ_DEVICE.getExecutor().submit(() -> {
+            setBitDirection(bitNumber, direction);
+            return null;
+        });
+    }
+
     /**
      * Configures a digital port as input or output.
      * <p>
@@ -430,6 +588,11 @@ public class DigitalPort {
      *         href="https://www.mccdaq.com/pdfs/manuals/Mcculw_WebHelp/hh_goto.htm?ULStart.htm#Function_Reference/Digital_IO_Functions_for_NET/DConfigPort.htm">DConfigPort()</a>
      */
     public void setPortDirection(DigitalPortDirection direction) throws JMCCULException {
+        if (DAQ_DEVICE.getExecutor().mustSubmit()) {
+            BoardExecutor.join(setPortDirectionAsync(direction));
+            return;
+        }
+
         final int errorCode = MeasurementComputingUniversalLibrary.INSTANCE.cbDConfigPort(
                 DAQ_DEVICE.getBoardNumber(),
                 getPortType().VALUE,
@@ -438,4 +601,14 @@ public class DigitalPort {
         JMCCULUtils.checkError(errorCode);
     }
 
+    /**
+     * Runs {@link #setPortDirection(DigitalPortDirection)} on the {@link DaqDevice#getExecutor() device's executor}.
+     */
+    public CompletableFuture<Void> setPortDirectionAsync(DigitalPortDirection direction) {
+        return DAQ_DEVICE.getExecutor().submit(() -> {
+            setPortDirection(direction);
+            return null;
+        });
+    }
+
 }
@@ -24,6 +24,7 @@
 package xyz.froud.jmccul.digital;
 
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 import xyz.froud.jmccul.DaqDevice;
 import xyz.froud.jmccul.JMCCULException;
 import xyz.froud.jmccul.config.ConfigurationWrapper;
@@ -67,6 +68,13 @@ public class DigitalWrapper {
         return _ports;
     }
 
+    /**
+     * Runs {@link #getPorts()} on the {@link DaqDevice#getExecutor() device's executor}.
+     */
+    public CompletableFuture<DigitalPort[]> getPortsAsync() {
+        return DAQ_DEVICE.getExecutor().submit(this::getPorts);
+    }
+
     /**
      * @see <a
      *         href="https://www.mccdaq.com/pdfs/manuals/Mcculw_WebHelp/hh_goto.htm?ULStart.htm#Function_Reference/Configuration_Functions/cbGetConfig.htm">cbGetConfig()</a>
@@ -85,6 +93,13 @@ public class DigitalWrapper {
         return _portCount;
     }
 
+    /**
+     * Runs {@link #getPortCount()} on the {@link DaqDevice#getExecutor() device's executor}.
+     */
+    public CompletableFuture<Integer> getPortCountAsync() {
+        return DAQ_DEVICE.getExecutor().submit(this::getPortCount);
+    }
+
     /**
      * @see <a
      *         href="https://github.com/mccdaq/mcculw/blob/d5d4a3eebaace9544a356a1243963c7af5f8ca53/mcculw/device_info/dio_info.py#L39">is_supported
@@ -94,6 +109,13 @@ public class DigitalWrapper {
         return getPorts().length > 0;
     }
 
+    /**
+     * Runs {@link #isSupported()} on the {@link DaqDevice#getExecutor() device's executor}.
+     */
+    public CompletableFuture<Boolean> isSupportedAsync() {
+        return DAQ_DEVICE.getExecutor().submit(this::isSupported);
+    }
+
     public Optional<DigitalPort> findPortMatching(DaqDevice.PredicateThrowsJMCCULException<DigitalPort> predicate) throws JMCCULException {
         for (DigitalPort port : getPorts()) {
             if (predicate.test(port)) {
@@ -0,0 +1,90 @@
+/*
+ * The MIT License.
+ *
+ * Copyright (c) 2022 Peter Froud.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package xyz.froud.jmccul.instrumentation;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Counts calls in one-second buckets, so the call rate over the last {@value #WINDOW_SECONDS} seconds can be read any
+ * number of times without changing it. Recording is lock-free and does not allocate.
+ *
+ * @author Peter Froud
+ */
+public class CallRateWindow {
+
+    public static final int WINDOW_SECONDS = 10;
+
+    private static final long NANOS_PER_SECOND = 1_000_000_000L;
+
+    /*
+    One more bucket than the window, for the second which is not over yet. A bucket is reused when its second is
+    WINDOW_SECONDS + 1 seconds old. A call recorded while another thread reuses the bucket can be lost, which is fine
+    for a rate shown on a monitoring screen.
+     */
+    private final AtomicLongArray COUNTS = new AtomicLongArray(WINDOW_SECONDS + 1);
+    private final AtomicLongArray SECONDS = new AtomicLongArray(WINDOW_SECONDS + 1);
+    private final long START_SECOND;
+
+    public CallRateWindow() {
+        START_SECOND = getSecond();
+        for (int i = 0; i < SECONDS.length(); i++) {
+            SECONDS.set(i, Long.MIN_VALUE);
+        }
+    }
+
+    public void record() {
+        final long second = getSecond();
+        final int index = Math.floorMod(second, SECONDS.length());
+        final long bucketSecond = SECONDS.get(index);
+        if (bucketSecond != second && SECONDS.compareAndSet(index, bucketSecond, second)) {
+            COUNTS.set(index, 0);
+        }
+        COUNTS.incrementAndGet(index);
+    }
+
+    /**
+     * @return calls per second over the last {@value #WINDOW_SECONDS} whole seconds, or over every whole second since
+     *         this was made if that is shorter. Zero during the first second.
+     */
+    public double getRate() {
+        final long now = getSecond();
+        final long secondCount = Math.min(WINDOW_SECONDS, now - START_SECOND);
+        if (secondCount <= 0) {
+            return 0;
+        }
+        long total = 0;
+        for (int i = 0; i < SECONDS.length(); i++) {
+            final long bucketSecond = SECONDS.get(i);
+            if (bucketSecond < now && bucketSecond >= now - secondCount) {
+                total += COUNTS.get(i);
+            }
+        }
+        return total / (double) secondCount;
+    }
+
+    private static long getSecond() {
+        return Math.floorDiv(System.nanoTime(), NANOS_PER_SECOND);
+    }
+
+}
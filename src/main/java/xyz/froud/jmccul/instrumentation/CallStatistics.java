@@ -0,0 +1,101 @@
+/*
+ * The MIT License.
+ *
+ * Copyright (c) 2022 Peter Froud.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package xyz.froud.jmccul.instrumentation;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * How many times one Universal Library function was called for one board, how many of those calls returned an error
+ * code, and how long they took.
+ *
+ * @author Peter Froud
+ * @see NativeCallStatistics
+ */
+public class CallStatistics {
+
+    private final String FUNCTION_NAME;
+    private final int BOARD_NUMBER;
+    private final LongAdder CALL_COUNT = new LongAdder();
+    private final LongAdder ERROR_COUNT = new LongAdder();
+    private final LatencyHistogram LATENCY = new LatencyHistogram();
+
+    CallStatistics(String functionName, int boardNumber) {
+        FUNCTION_NAME = functionName;
+        BOARD_NUMBER = boardNumber;
+    }
+
+    void record(long nanos, boolean isError) {
+        CALL_COUNT.increment();
+        if (isError) {
+            ERROR_COUNT.increment();
+        }
+        LATENCY.record(nanos);
+    }
+
+    void reset() {
+        CALL_COUNT.reset();
+        ERROR_COUNT.reset();
+        LATENCY.reset();
+    }
+
+    /**
+     * @return for example "cbAIn".
+     */
+    public String getFunctionName() {
+        return FUNCTION_NAME;
+    }
+
+    /**
+     * @return the board number passed to the function, or -1 if the function is not for one board, like
+     *         cbGetErrMsg().
+     */
+    public int getBoardNumber() {
+        return BOARD_NUMBER;
+    }
+
+    public long getCallCount() {
+        return CALL_COUNT.sum();
+    }
+
+    /**
+     * @return how many calls returned an error code other than NOERRORS.
+     */
+    public long getErrorCount() {
+        return ERROR_COUNT.sum();
+    }
+
+    /**
+     * @return how long calls took, from entering the JNA proxy until it returned.
+     */
+    public LatencyHistogram getLatency() {
+        return LATENCY;
+    }
+
+    @Override
+    public String toString() {
+        return FUNCTION_NAME + " on board " + BOARD_NUMBER + ": " + getCallCount() + " calls, " + getErrorCount() + " errors";
+    }
+
+}
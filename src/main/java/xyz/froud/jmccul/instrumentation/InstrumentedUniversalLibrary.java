@@ -0,0 +1,123 @@
+/*
+ * The MIT License.
+ *
+ * Copyright (c) 2022 Peter Froud.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package xyz.froud.jmccul.instrumentation;
+
+import xyz.froud.jmccul.MeasurementComputingUniversalLibrary;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Wraps a {@link MeasurementComputingUniversalLibrary} and records each call in {@link NativeCallStatistics}.
+ *
+ * @author Peter Froud
+ */
+public class InstrumentedUniversalLibrary implements InvocationHandler {
+
+    /**
+     * Functions whose first int parameter is not a board number.
+     */
+    private static final Set<String> NOT_FOR_ONE_BOARD = Set.of("cbGetErrMsg", "cbErrHandling", "cbGetDaqDeviceInventory");
+
+    /**
+     * Functions which return something other than an error code.
+     */
+    private static final Set<String> NOT_RETURNING_ERROR_CODE = Set.of("cbGetBoardNumber");
+
+    private final MeasurementComputingUniversalLibrary DELEGATE;
+
+    /**
+     * Index of the board number parameter for each method, or -1 if there isn't one.
+     */
+    private final Map<Method, Integer> BOARD_NUMBER_INDEXES = new ConcurrentHashMap<>();
+
+    private InstrumentedUniversalLibrary(MeasurementComputingUniversalLibrary delegate) {
+        DELEGATE = delegate;
+    }
+
+    /**
+     * @return a library which records every call, then passes it to the delegate.
+     */
+    public static MeasurementComputingUniversalLibrary wrap(MeasurementComputingUniversalLibrary delegate) {
+        NativeCallStatistics.setEnabled();
+        return (MeasurementComputingUniversalLibrary) Proxy.newProxyInstance(
+                MeasurementComputingUniversalLibrary.class.getClassLoader(),
+                new Class<?>[]{MeasurementComputingUniversalLibrary.class},
+                new InstrumentedUniversalLibrary(delegate)
+        );
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+        if (method.getDeclaringClass() == Object.class) {
+            return method.invoke(DELEGATE, args);
+        }
+
+        final long startNanos = System.nanoTime();
+        final Object result;
+        try {
+            result = method.invoke(DELEGATE, args);
+        } catch (InvocationTargetException ex) {
+            // the same code JMCCULException uses when there isn't one
+            record(method, args, System.nanoTime() - startNanos, Integer.MIN_VALUE);
+            throw ex.getCause();
+        }
+        final long nanos = System.nanoTime() - startNanos;
+
+        final int errorCode = (result instanceof Integer && !NOT_RETURNING_ERROR_CODE.contains(method.getName()))
+                ? (Integer) result
+                : MeasurementComputingUniversalLibrary.NOERRORS;
+        record(method, args, nanos, errorCode);
+        return result;
+    }
+
+    private void record(Method method, Object[] args, long nanos, int errorCode) {
+        final int boardNumberIndex = BOARD_NUMBER_INDEXES.computeIfAbsent(method, InstrumentedUniversalLibrary::getBoardNumberIndex);
+        final int boardNumber = (boardNumberIndex < 0) ? -1 : (int) args[boardNumberIndex];
+        final boolean isError = (errorCode != MeasurementComputingUniversalLibrary.NOERRORS);
+        NativeCallStatistics.get(method.getName(), boardNumber).record(nanos, isError);
+        NativeCallStatistics.recordCall(boardNumber);
+        if (isError) {
+            NativeCallStatistics.recordError(method.getName(), boardNumber, errorCode);
+        }
+    }
+
+    private static int getBoardNumberIndex(Method method) {
+        final String name = method.getName();
+        if (NOT_FOR_ONE_BOARD.contains(name)) {
+            return -1;
+        }
+        // the InfoType comes first
+        final int index = (name.startsWith("cbGetConfig") || name.startsWith("cbSetConfig")) ? 1 : 0;
+        final Class<?>[] parameterTypes = method.getParameterTypes();
+        return (parameterTypes.length > index && parameterTypes[index] == int.class) ? index : -1;
+    }
+
+}
@@ -0,0 +1,128 @@
+/*
+ * The MIT License.
+ *
+ * Copyright (c) 2022 Peter Froud.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package xyz.froud.jmccul.instrumentation;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts durations in nanoseconds, using buckets like HdrHistogram: every power of two is split into
+ * {@value #SUB_BUCKET_COUNT} buckets, so a value read back is within about 3% of the value recorded, from 1 nanosecond
+ * up to hundreds of years. Recording is lock-free and does not allocate.
+ *
+ * @author Peter Froud
+ * @see <a href="http://hdrhistogram.org/">HdrHistogram</a>
+ */
+public class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 5;
+    private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+
+    /**
+     * Enough for every positive long.
+     */
+    private static final int BUCKET_COUNT = (Long.SIZE - SUB_BUCKET_BITS) * SUB_BUCKET_COUNT;
+
+    private final AtomicLongArray COUNTS = new AtomicLongArray(BUCKET_COUNT);
+    private final LongAdder TOTAL_COUNT = new LongAdder();
+    private final LongAdder TOTAL_NANOS = new LongAdder();
+    private final LongAccumulator MAX_NANOS = new LongAccumulator(Math::max, 0);
+
+    public void record(long nanos) {
+        final long value = Math.max(0, nanos);
+        COUNTS.incrementAndGet(getBucketIndex(value));
+        TOTAL_COUNT.increment();
+        TOTAL_NANOS.add(value);
+        MAX_NANOS.accumulate(value);
+    }
+
+    public long getCount() {
+        return TOTAL_COUNT.sum();
+    }
+
+    public long getMaxNanos() {
+        return MAX_NANOS.get();
+    }
+
+    public double getMeanNanos() {
+        final long count = TOTAL_COUNT.sum();
+        return (count == 0) ? 0 : TOTAL_NANOS.sum() / (double) count;
+    }
+
+    /**
+     * @param percentile from 0 to 100.
+     * @return the highest value which could be in the bucket holding that percentile, or 0 if nothing was recorded.
+     */
+    public long getValueAtPercentile(double percentile) {
+        long count = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            count += COUNTS.get(i);
+        }
+        if (count == 0) {
+            return 0;
+        }
+        final long countAtPercentile = Math.max(1, (long) Math.ceil(Math.min(100, percentile) / 100 * count));
+        long runningCount = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            runningCount += COUNTS.get(i);
+            if (runningCount >= countAtPercentile) {
+                return Math.min(getBucketHighestValue(i), getMaxNanos());
+            }
+        }
+        return getMaxNanos();
+    }
+
+    public void reset() {
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            COUNTS.set(i, 0);
+        }
+        TOTAL_COUNT.reset();
+        TOTAL_NANOS.reset();
+        MAX_NANOS.reset();
+    }
+
+    /*
+    Values below 2 * SUB_BUCKET_COUNT get a bucket each. After that, each power of two gets SUB_BUCKET_COUNT buckets,
+    so the bucket width doubles along with the values.
+     */
+    private static int getBucketIndex(long value) {
+        if (value < SUB_BUCKET_COUNT) {
+            return (int) value;
+        }
+        final int shift = (Long.SIZE - 1 - Long.numberOfLeadingZeros(value)) - SUB_BUCKET_BITS;
+        return ((shift + 1) << SUB_BUCKET_BITS) + (int) ((value >>> shift) - SUB_BUCKET_COUNT);
+    }
+
+    private static long getBucketHighestValue(int index) {
+        if (index < 2 * SUB_BUCKET_COUNT) {
+            return index;
+        }
+        final int shift = (index >> SUB_BUCKET_BITS) - 1;
+        final long lowestValue = (long) ((index & (SUB_BUCKET_COUNT - 1)) + SUB_BUCKET_COUNT) << shift;
+        return lowestValue + (1L << shift) - 1;
+    }
+
+}
@@ -0,0 +1,247 @@
+/*
+ * The MIT License.
+ *
+ * Copyright (c) 2022 Peter Froud.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package xyz.froud.jmccul.instrumentation;
+
+import xyz.froud.jmccul.MeasurementComputingUniversalLibrary;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * Counts and times every call to {@link MeasurementComputingUniversalLibrary#INSTANCE}, when started with
+ * {@code -Djmccul.instrumentation=true}.
+ * <p>
+ * Nothing is recorded and nothing is slowed down unless the property is set, because then INSTANCE is not wrapped at
+ * all. When it is set, calls go through the JNA interface mapping instead of direct mapping, so the numbers include the
+ * JNA overhead for each call.
+ *
+ * @author Peter Froud
+ * @see xyz.froud.jmccul.DaqDevice#getNativeCallStatistics()
+ */
+public class NativeCallStatistics {
+
+    /**
+     * Name of the system property which turns instrumentation on.
+     */
+    public static final String PROPERTY = "jmccul.instrumentation";
+
+    /**
+     * Key of the outer map is the function name, key of the inner map is the board number.
+     */
+    private static final Map<String, Map<Integer, CallStatistics>> STATISTICS = new ConcurrentHashMap<>();
+
+    /**
+     * Key is the board number.
+     */
+    private static final Map<Integer, NativeError> LAST_ERRORS = new ConcurrentHashMap<>();
+
+    private static final Map<Integer, CallRateWindow> CALL_RATES = new ConcurrentHashMap<>();
+
+    private static volatile boolean isEnabled;
+
+    private NativeCallStatistics() {
+    }
+
+    /**
+     * @return true if calls are being recorded.
+     */
+    public static boolean isEnabled() {
+        return isEnabled;
+    }
+
+    static void setEnabled() {
+        isEnabled = true;
+    }
+
+    static CallStatistics get(String functionName, int boardNumber) {
+        Map<Integer, CallStatistics> byBoard = STATISTICS.get(functionName);
+        if (byBoard == null) {
+            byBoard = STATISTICS.computeIfAbsent(functionName, name -> new ConcurrentHashMap<>());
+        }
+        final CallStatistics statistics = byBoard.get(boardNumber);
+        return (statistics != null) ? statistics : byBoard.computeIfAbsent(boardNumber, number -> new CallStatistics(functionName, number));
+    }
+
+    static void recordCall(int boardNumber) {
+        CallRateWindow window = CALL_RATES.get(boardNumber);
+        if (window == null) {
+            window = CALL_RATES.computeIfAbsent(boardNumber, number -> new CallRateWindow());
+        }
+        window.record();
+    }
+
+    static void recordError(String functionName, int boardNumber, int errorCode) {
+        LAST_ERRORS.put(boardNumber, new NativeError(functionName, errorCode, System.currentTimeMillis()));
+    }
+
+    /**
+     * @return the most recent error code returned by a function for a board, or null if there hasn't been one.
+     */
+    public static NativeError getLastError(int boardNumber) {
+        return LAST_ERRORS.get(boardNumber);
+    }
+
+    /**
+     * @return how many calls have been made for a board, to all functions.
+     */
+    public static long getCallCount(int boardNumber) {
+        long total = 0;
+        for (Map<Integer, CallStatistics> byBoard : STATISTICS.values()) {
+            final CallStatistics statistics = byBoard.get(boardNumber);
+            if (statistics != null) {
+                total += statistics.getCallCount();
+            }
+        }
+        return total;
+    }
+
+    /**
+     * @return calls per second for a board, to all functions, over the last {@value CallRateWindow#WINDOW_SECONDS}
+     *         seconds. Reading it doesn't change it.
+     */
+    public static double getCallRate(int boardNumber) {
+        final CallRateWindow window = CALL_RATES.get(boardNumber);
+        return (window == null) ? 0 : window.getRate();
+    }
+
+    /**
+     * @return statistics for every function which has been called, sorted by function name then board number.
+     */
+    public static List<CallStatistics> getAll() {
+        final List<CallStatistics> rv = new ArrayList<>();
+        STATISTICS.values().forEach(byBoard -> rv.addAll(byBoard.values()));
+        rv.sort(Comparator.comparing(CallStatistics::getFunctionName).thenComparingInt(CallStatistics::getBoardNumber));
+        return rv;
+    }
+
+    /**
+     * @return statistics for the functions which have been called for one board, sorted by function name.
+     */
+    public static List<CallStatistics> getForBoard(int boardNumber) {
+        return getAll().stream()
+                .filter(statistics -> statistics.getBoardNumber() == boardNumber)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Forgets the call counts and the last error of one board, so a device which gets the same board number later
+     * starts from zero.
+     */
+    public static void clearBoard(int boardNumber) {
+        STATISTICS.values().forEach(byBoard -> byBoard.remove(boardNumber));
+        LAST_ERRORS.remove(boardNumber);
+        CALL_RATES.remove(boardNumber);
+    }
+
+    public static void reset() {
+        STATISTICS.values().forEach(byBoard -> byBoard.values().forEach(CallStatistics::reset));
+        LAST_ERRORS.clear();
+        CALL_RATES.clear();
+    }
+
+    /**
+     * @return every function which has been called, as a table with latencies in microseconds.
+     */
+    public static String toText() {
+        return toText(getAll());
+    }
+
+    /**
+     * @return a table with one row for each item, with latencies in microseconds.
+     */
+    public static String toText(Collection<CallStatistics> statistics) {
+        final StringBuilder sb = new StringBuilder();
+        final String format = "%-24s %5s %10s %8s %10s %10s %10s %10s %10s %10s%n";
+        sb.append(String.format(format, "function", "board", "calls", "errors", "mean us", "p50 us", "p90 us", "p99 us", "p99.9 us", "max us"));
+        for (CallStatistics s : statistics) {
+            final LatencyHistogram latency = s.getLatency();
+            sb.append(String.format(format,
+                    s.getFunctionName(),
+                    (s.getBoardNumber() < 0) ? "-" : Integer.toString(s.getBoardNumber()),
+                    s.getCallCount(),
+                    s.getErrorCount(),
+                    formatMicroseconds(latency.getMeanNanos()),
+                    formatMicroseconds(latency.getValueAtPercentile(50)),
+                    formatMicroseconds(latency.getValueAtPercentile(90)),
+                    formatMicroseconds(latency.getValueAtPercentile(99)),
+                    formatMicroseconds(latency.getValueAtPercentile(99.9)),
+                    formatMicroseconds(latency.getMaxNanos())
+            ));
+        }
+        return sb.toString();
+    }
+
+    /**
+     * An error code returned by a Universal Library function.
+     */
+    public static class NativeError {
+
+        private final String FUNCTION_NAME;
+        private final int ERROR_CODE;
+        private final long TIME_MILLIS;
+
+        private NativeError(String functionName, int errorCode, long timeMillis) {
+            FUNCTION_NAME = functionName;
+            ERROR_CODE = errorCode;
+            TIME_MILLIS = timeMillis;
+        }
+
+        public String getFunctionName() {
+            return FUNCTION_NAME;
+        }
+
+        /**
+         * @return the error code, or {@link Integer#MIN_VALUE} if the function threw an exception.
+         */
+        public int getErrorCode() {
+            return ERROR_CODE;
+        }
+
+        /**
+         * @return value of {@link System#currentTimeMillis()} when the function returned.
+         */
+        public long getTimeMillis() {
+            return TIME_MILLIS;
+        }
+
+        @Override
+        public String toString() {
+            return (ERROR_CODE == Integer.MIN_VALUE)
+                    ? FUNCTION_NAME + "() threw an exception"
+                    : FUNCTION_NAME + "() returned error code " + ERROR_CODE;
+        }
+
+    }
+
+    private static String formatMicroseconds(double nanos) {
+        return String.format("%.1f", nanos / 1000);
+    }
+
+}
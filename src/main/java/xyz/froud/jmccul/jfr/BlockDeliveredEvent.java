@@ -0,0 +1,57 @@
+/*
+ * The MIT License.
+ *
+ * Copyright (c) 2022 Peter Froud.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package xyz.froud.jmccul.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * The duration of the event is how long the consumer took, which is time the polling thread was not polling.
+ *
+ * @author Peter Froud
+ * @see xyz.froud.jmccul.analog.AnalogInputBackgroundScan.BlockConsumer
+ */
+@Name("xyz.froud.jmccul.BlockDelivered")
+@Label("Block Delivered")
+@Category("JMCCUL")
+@Description("A block of samples from a background scan was handed to the consumer")
+@StackTrace(false)
+public class BlockDeliveredEvent extends Event {
+
+    @Label("Board Number")
+    public int boardNumber;
+
+    @Label("First Sample Number")
+    @Description("How many samples were acquired before the first sample in the block")
+    public long firstSampleNumber;
+
+    @Label("Sample Count")
+    public int sampleCount;
+
+}
@@ -0,0 +1,57 @@
+/*
+ * The MIT License.
+ *
+ * Copyright (c) 2022 Peter Froud.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package xyz.froud.jmccul.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Emitted when a scan loses samples, either because the Universal Library reported
+ * {@link xyz.froud.jmccul.MeasurementComputingUniversalLibrary#OVERRUN} or
+ * {@link xyz.froud.jmccul.MeasurementComputingUniversalLibrary#UNDERRUN}, or because JMCCUL saw that the board wrapped
+ * around the circular buffer before the samples were read.
+ *
+ * @author Peter Froud
+ */
+@Name("xyz.froud.jmccul.BufferOverrun")
+@Label("Buffer Overrun or Underrun")
+@Category("JMCCUL")
+@Description("A scan lost samples because they were not moved fast enough")
+public class BufferOverrunEvent extends Event {
+
+    @Label("Board Number")
+    public int boardNumber;
+
+    @Label("Error Code")
+    public int errorCode;
+
+    @Label("Samples Lost")
+    @Description("How many samples were overwritten, or -1 if not known")
+    public long samplesLost;
+
+}
@@ -0,0 +1,85 @@
+/*
+ * The MIT License.
+ *
+ * Copyright (c) 2022 Peter Froud.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package xyz.froud.jmccul.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * One call to a Universal Library function which gets called in polling loops, through
+ * {@link xyz.froud.jmccul.DirectUniversalLibrary}.
+ * <p>
+ * When no recording has the event enabled, the JIT removes the event object, so this costs a couple of branches per
+ * call. Turn on the stack trace in the recording settings to see who made each call.
+ *
+ * @author Peter Froud
+ */
+@Name("xyz.froud.jmccul.NativeCall")
+@Label("Universal Library Call")
+@Category("JMCCUL")
+@Description("A call to a Universal Library function")
+@StackTrace(false)
+public class NativeCallEvent extends Event {
+
+    @Label("Function")
+    private String function;
+
+    @Label("Board Number")
+    private int boardNumber;
+
+    @Label("Error Code")
+    @Description("Returned by the function, 0 means no error")
+    private int errorCode;
+
+    /**
+     * Call before the native call.
+     */
+    public static NativeCallEvent start() {
+        final NativeCallEvent event = new NativeCallEvent();
+        event.begin();
+        return event;
+    }
+
+    /**
+     * Call after the native call.
+     *
+     * @return the error code passed in, so a call can be wrapped in a return statement.
+     */
+    public int finish(String function, int boardNumber, int errorCode) {
+        end();
+        if (shouldCommit()) {
+            this.function = function;
+            this.boardNumber = boardNumber;
+            this.errorCode = errorCode;
+            commit();
+        }
+        return errorCode;
+    }
+
+}
@@ -0,0 +1,68 @@
+/*
+ * The MIT License.
+ *
+ * Copyright (c) 2022 Peter Froud.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package xyz.froud.jmccul.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Frequency;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * @author Peter Froud
+ * @see xyz.froud.jmccul.analog.AnalogInputBackgroundScan
+ */
+@Name("xyz.froud.jmccul.ScanStarted")
+@Label("Scan Started")
+@Category("JMCCUL")
+@Description("A background analog input scan started")
+public class ScanStartedEvent extends Event {
+
+    @Label("Board Number")
+    public int boardNumber;
+
+    @Label("Channel Count")
+    public int channelCount;
+
+    @Label("Requested Rate")
+    @Description("Samples per second per channel passed to cbAInScan()")
+    @Frequency
+    public long requestedRateHz;
+
+    @Label("Actual Rate")
+    @Description("Samples per second per channel the board is using")
+    @Frequency
+    public long actualRateHz;
+
+    @Label("Buffer Size")
+    @Description("Samples in the circular Windows buffer, for all channels")
+    public int bufferSampleCount;
+
+    @Label("Event Driven")
+    @Description("True if the polling thread is woken by Universal Library events")
+    public boolean isEventDriven;
+
+}
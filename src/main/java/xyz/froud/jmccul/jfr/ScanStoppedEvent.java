@@ -0,0 +1,56 @@
+/*
+ * The MIT License.
+ *
+ * Copyright (c) 2022 Peter Froud.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package xyz.froud.jmccul.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * The duration of the event is how long the scan ran.
+ *
+ * @author Peter Froud
+ * @see xyz.froud.jmccul.analog.AnalogInputBackgroundScan
+ */
+@Name("xyz.froud.jmccul.ScanStopped")
+@Label("Scan Stopped")
+@Category("JMCCUL")
+@Description("A background analog input scan stopped")
+public class ScanStoppedEvent extends Event {
+
+    @Label("Board Number")
+    public int boardNumber;
+
+    @Label("Samples Delivered")
+    @Description("Samples handed to the consumer, for all channels")
+    public long samplesDelivered;
+
+    @Label("Error Code")
+    @Description("Why the scan failed, 0 if it was stopped normally")
+    public int errorCode;
+
+}
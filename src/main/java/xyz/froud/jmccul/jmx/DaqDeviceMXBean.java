@@ -0,0 +1,96 @@
+/*
+ * The MIT License.
+ *
+ * Copyright (c) 2022 Peter Froud.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package xyz.froud.jmccul.jmx;
+
+/**
+ * What JConsole, VisualVM and other JMX clients see for each open {@link xyz.froud.jmccul.DaqDevice}, under the name
+ * {@code xyz.froud.jmccul:type=DaqDevice,board=<board number>}.
+ *
+ * @author Peter Froud
+ */
+public interface DaqDeviceMXBean {
+
+    int getBoardNumber();
+
+    String getProductName();
+
+    String getUniqueID();
+
+    boolean isOpen();
+
+    int getActiveScanCount();
+
+    /**
+     * @return one line describing each background scan which has not been closed.
+     */
+    String[] getActiveScans();
+
+    /**
+     * @return samples per second asked for by the background scans which have not been closed, for all channels.
+     */
+    long getRequestedSampleRateHz();
+
+    /**
+     * @return samples per second the board is actually using for the background scans which have not been closed, for
+     *         all channels.
+     */
+    long getActualSampleRateHz();
+
+    /**
+     * @return samples delivered by every background scan since the device was opened.
+     */
+    long getSamplesTransferred();
+
+    /**
+     * @return how many times a background scan lost samples.
+     */
+    long getOverrunCount();
+
+    /**
+     * @return Universal Library calls for this board since it was opened, or -1 if not started with
+     *         {@code -Djmccul.instrumentation=true}.
+     */
+    long getNativeCallCount();
+
+    /**
+     * @return Universal Library calls per second for this board over the last 10 seconds, or -1 if not started with
+     *         {@code -Djmccul.instrumentation=true}. Reading it doesn't change it, so several JMX clients can watch it.
+     */
+    double getNativeCallRate();
+
+    /**
+     * @return the most recent error, or an empty string if there hasn't been one. Errors returned by single reads and
+     *         writes are only seen when started with {@code -Djmccul.instrumentation=true}.
+     */
+    String getLastError();
+
+    /**
+     * Closes every background scan on the device.
+     *
+     * @return how many scans were closed.
+     */
+    int stopBackgroundScans();
+
+}
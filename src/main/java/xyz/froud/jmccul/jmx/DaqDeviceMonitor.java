@@ -0,0 +1,193 @@
+/*
+ * The MIT License.
+ *
+ * Copyright (c) 2022 Peter Froud.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package xyz.froud.jmccul.jmx;
+
+import xyz.froud.jmccul.DaqDevice;
+import xyz.froud.jmccul.JMCCULException;
+import xyz.froud.jmccul.analog.AnalogInputBackgroundScan;
+import xyz.froud.jmccul.analog.AnalogInputWrapper;
+import xyz.froud.jmccul.instrumentation.NativeCallStatistics;
+
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.InstanceNotFoundException;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.List;
+
+/**
+ * The {@link DaqDeviceMXBean} for one device. {@link DaqDevice} registers one when it is opened and unregisters it
+ * when it is closed.
+ *
+ * @author Peter Froud
+ */
+public class DaqDeviceMonitor implements DaqDeviceMXBean {
+
+    private final DaqDevice DEVICE;
+    private final AnalogInputWrapper ANALOG_INPUT;
+
+    private DaqDeviceMonitor(DaqDevice device) {
+        DEVICE = device;
+        ANALOG_INPUT = device.analog.input;
+    }
+
+    public static ObjectName getObjectName(int boardNumber) {
+        try {
+            return new ObjectName("xyz.froud.jmccul:type=DaqDevice,board=" + boardNumber);
+        } catch (JMException ex) {
+            throw new IllegalArgumentException(ex);
+        }
+    }
+
+    /**
+     * Registers an MXBean for the device with the platform MBean server. If a device with the same board number was
+     * not closed, its MXBean is replaced. Problems are ignored, because monitoring should never stop a device from
+     * opening.
+     */
+    public static void register(DaqDevice device) {
+        final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        final ObjectName name = getObjectName(device.getBoardNumber());
+        try {
+            try {
+                server.registerMBean(new DaqDeviceMonitor(device), name);
+            } catch (InstanceAlreadyExistsException ex) {
+                server.unregisterMBean(name);
+                server.registerMBean(new DaqDeviceMonitor(device), name);
+            }
+        } catch (JMException | SecurityException ex) {
+            // ignore
+        }
+    }
+
+    public static void unregister(DaqDevice device) {
+        try {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(getObjectName(device.getBoardNumber()));
+        } catch (InstanceNotFoundException ex) {
+            // already gone
+        } catch (JMException | SecurityException ex) {
+            // ignore
+        }
+    }
+
+    @Override
+    public int getBoardNumber() {
+        return DEVICE.getBoardNumber();
+    }
+
+    @Override
+    public String getProductName() {
+        return DEVICE.getProductName();
+    }
+
+    @Override
+    public String getUniqueID() {
+        return DEVICE.getDescriptor().getUniqueID();
+    }
+
+    @Override
+    public boolean isOpen() {
+        return DEVICE.isOpen();
+    }
+
+    @Override
+    public int getActiveScanCount() {
+        return ANALOG_INPUT.getActiveBackgroundScans().size();
+    }
+
+    @Override
+    public String[] getActiveScans() {
+        return ANALOG_INPUT.getActiveBackgroundScans().stream()
+                .map(scan -> String.format("%d channels, requested %d Hz, actual %d Hz, %d samples delivered, %s",
+                        scan.getChannelCount(),
+                        scan.getRequestedRateHz(),
+                        scan.getActualRateHz(),
+                        scan.getSamplesDelivered(),
+                        scan.isRunning() ? "running" : "stopped"
+                ))
+                .toArray(String[]::new);
+    }
+
+    @Override
+    public long getRequestedSampleRateHz() {
+        long total = 0;
+        for (AnalogInputBackgroundScan scan : ANALOG_INPUT.getActiveBackgroundScans()) {
+            total += scan.getRequestedRateHz() * scan.getChannelCount();
+        }
+        return total;
+    }
+
+    @Override
+    public long getActualSampleRateHz() {
+        long total = 0;
+        for (AnalogInputBackgroundScan scan : ANALOG_INPUT.getActiveBackgroundScans()) {
+            total += scan.getActualRateHz() * scan.getChannelCount();
+        }
+        return total;
+    }
+
+    @Override
+    public long getSamplesTransferred() {
+        return ANALOG_INPUT.getBackgroundScanSamplesDelivered();
+    }
+
+    @Override
+    public long getOverrunCount() {
+        return ANALOG_INPUT.getBackgroundScanOverrunCount();
+    }
+
+    @Override
+    public long getNativeCallCount() {
+        return NativeCallStatistics.isEnabled() ? NativeCallStatistics.getCallCount(DEVICE.getBoardNumber()) : -1;
+    }
+
+    @Override
+    public double getNativeCallRate() {
+        return NativeCallStatistics.isEnabled() ? NativeCallStatistics.getCallRate(DEVICE.getBoardNumber()) : -1;
+    }
+
+    @Override
+    public String getLastError() {
+        final NativeCallStatistics.NativeError nativeError = NativeCallStatistics.getLastError(DEVICE.getBoardNumber());
+        final JMCCULException scanFailure = ANALOG_INPUT.getLastBackgroundScanFailure();
+        if (scanFailure != null && (nativeError == null || ANALOG_INPUT.getLastBackgroundScanFailureMillis() >= nativeError.getTimeMillis())) {
+            return "background scan: " + scanFailure.getMessage();
+        }
+        return (nativeError == null) ? "" : nativeError.toString();
+    }
+
+    @Override
+    public int stopBackgroundScans() {
+        final List<AnalogInputBackgroundScan> scans = ANALOG_INPUT.getActiveBackgroundScans();
+        try {
+            ANALOG_INPUT.stopBackgroundScans();
+        } catch (JMCCULException ex) {
+            // JMX clients may not have JMCCULException on their class path
+            throw new IllegalStateException(ex.getMessage());
+        }
+        return scans.size();
+    }
+
+}
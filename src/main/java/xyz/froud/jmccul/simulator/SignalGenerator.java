@@ -0,0 +1,72 @@
+/*
+ * The MIT License.
+ *
+ * Copyright (c) 2022 Peter Froud.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package xyz.froud.jmccul.simulator;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Makes the value a simulated input reads at a given time, in volts for analog inputs or degrees Celsius for
+ * temperature inputs.
+ *
+ * @author Peter Froud
+ * @see SimulatedBoard#setAnalogInputSignal(int, SignalGenerator)
+ * @see SimulatedBoard#setTemperatureSignal(int, SignalGenerator)
+ */
+@FunctionalInterface
+public interface SignalGenerator {
+
+    /**
+     * @param seconds time since the board was created.
+     */
+    double valueAt(double seconds);
+
+    static SignalGenerator constant(double value) {
+        return seconds -> value;
+    }
+
+    static SignalGenerator sine(double amplitude, double frequencyHz, double offset) {
+        final double radiansPerSecond = 2 * Math.PI * frequencyHz;
+        return seconds -> offset + amplitude * Math.sin(radiansPerSecond * seconds);
+    }
+
+    static SignalGenerator square(double low, double high, double frequencyHz) {
+        return seconds -> ((seconds * frequencyHz) % 1.0 < 0.5) ? high : low;
+    }
+
+    /**
+     * Rises linearly from low to high then jumps back to low.
+     */
+    static SignalGenerator sawtooth(double low, double high, double frequencyHz) {
+        return seconds -> low + (high - low) * ((seconds * frequencyHz) % 1.0);
+    }
+
+    /**
+     * @return this signal plus Gaussian noise.
+     */
+    default SignalGenerator withNoise(double standardDeviation) {
+        return seconds -> valueAt(seconds) + standardDeviation * ThreadLocalRandom.current().nextGaussian();
+    }
+
+}
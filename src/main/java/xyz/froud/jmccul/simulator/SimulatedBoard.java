@@ -0,0 +1,700 @@
+/*
+ * The MIT License.
+ *
+ * Copyright (c) 2022 Peter Froud.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package xyz.froud.jmccul.simulator;
+
+import com.sun.jna.NativeLong;
+import com.sun.jna.Pointer;
+import com.sun.jna.ptr.NativeLongByReference;
+import xyz.froud.jmccul.MeasurementComputingUniversalLibrary;
+import xyz.froud.jmccul.analog.AnalogRange;
+
+import java.nio.ByteBuffer;
+import java.nio.DoubleBuffer;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.nio.ShortBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A DAQ device in the {@link SimulatedUniversalLibrary}, with analog inputs driven by {@link SignalGenerator}s, analog
+ * outputs, two 8-bit digital ports which read back what was written to them, temperature inputs, and counters which
+ * count at a fixed rate.
+ * <p>
+ * Everything can be changed while the board is in use, for example to change a signal in the middle of a soak test.
+ *
+ * @author Peter Froud
+ */
+public class SimulatedBoard {
+
+    private static final int DIGITAL_PORT_BIT_COUNT = 8;
+
+    private final String PRODUCT_NAME;
+    private final int PRODUCT_ID;
+    private final String UNIQUE_ID;
+    private final long START_NANOS = System.nanoTime();
+
+    private final SignalGenerator[] ANALOG_INPUT_SIGNALS;
+    private final float[] ANALOG_OUTPUT_VOLTAGES;
+    private final SignalGenerator[] TEMPERATURE_SIGNALS;
+    private final double[] COUNTER_RATES_HZ;
+
+    private final int[] DIGITAL_PORT_TYPES = {MeasurementComputingUniversalLibrary.FIRSTPORTA, MeasurementComputingUniversalLibrary.FIRSTPORTB};
+    private final int[] DIGITAL_PORT_VALUES = new int[DIGITAL_PORT_TYPES.length];
+    private final int[] DIGITAL_PORT_DIRECTIONS = new int[DIGITAL_PORT_TYPES.length];
+
+    /*
+    Config items which the simulator does not know about are remembered when they are set and are 0 otherwise.
+     */
+    private final Map<String, Integer> CONFIG_INTS = new ConcurrentHashMap<>();
+    private final Map<String, String> CONFIG_STRINGS = new ConcurrentHashMap<>();
+
+    private volatile String firmwareVersion = "1.00";
+    private volatile int analogInputResolution = 16;
+    private volatile List<AnalogRange> analogInputRanges = List.of(
+            AnalogRange.BIPOLAR_10_VOLTS,
+            AnalogRange.BIPOLAR_5_VOLTS,
+            AnalogRange.BIPOLAR_2_VOLTS,
+            AnalogRange.BIPOLAR_1_VOLT
+    );
+    private volatile long maxAnalogInputRateHz = 100_000;
+    private volatile int analogOutputResolution = 16;
+    private volatile List<AnalogRange> analogOutputRanges = List.of(AnalogRange.BIPOLAR_10_VOLTS);
+
+    private int[] queueChannels = new int[0];
+    private AnalogRange[] queueRanges = new AnalogRange[0];
+
+    private volatile int eventTypes;
+    private volatile int eventSampleCount;
+    private volatile MeasurementComputingUniversalLibrary.EVENTCALLBACK eventCallback;
+    private volatile Pointer eventUserData;
+
+    private SimulatedScan analogInputScan;
+    private volatile int boardNumber = -1;
+    private volatile boolean isInUseByAnotherProcess;
+
+    /**
+     * Makes a board with 8 analog inputs, 2 analog outputs, 4 temperature inputs and 2 counters.
+     *
+     * @param uniqueID the factory serial number. Must be different for each board in the simulator.
+     */
+    public SimulatedBoard(String productName, int productID, String uniqueID) {
+        this(productName, productID, uniqueID, 8, 2, 4, 2);
+    }
+
+    public SimulatedBoard(String productName, int productID, String uniqueID, int analogInputChannelCount, int analogOutputChannelCount, int temperatureChannelCount, int counterCount) {
+        PRODUCT_NAME = productName;
+        PRODUCT_ID = productID;
+        UNIQUE_ID = uniqueID;
+
+        ANALOG_INPUT_SIGNALS = new SignalGenerator[analogInputChannelCount];
+        for (int channel = 0; channel < analogInputChannelCount; channel++) {
+            // a different frequency on each channel makes it easy to tell them apart
+            ANALOG_INPUT_SIGNALS[channel] = SignalGenerator.sine(1, channel + 1, 0);
+        }
+        ANALOG_OUTPUT_VOLTAGES = new float[analogOutputChannelCount];
+
+        TEMPERATURE_SIGNALS = new SignalGenerator[temperatureChannelCount];
+        Arrays.fill(TEMPERATURE_SIGNALS, SignalGenerator.constant(25).withNoise(0.05));
+
+        COUNTER_RATES_HZ = new double[counterCount];
+        Arrays.fill(COUNTER_RATES_HZ, 1000);
+    }
+
+    @Override
+    public String toString() {
+        return "simulated " + PRODUCT_NAME + " " + UNIQUE_ID;
+    }
+
+    //<editor-fold desc="configuration">
+    public String getProductName() {
+        return PRODUCT_NAME;
+    }
+
+    public int getProductID() {
+        return PRODUCT_ID;
+    }
+
+    public String getUniqueID() {
+        return UNIQUE_ID;
+    }
+
+    /**
+     * @return the board number it was opened with, or -1 if it is not open.
+     */
+    public int getBoardNumber() {
+        return boardNumber;
+    }
+
+    /**
+     * Makes cbCreateDaqDevice() fail with {@link MeasurementComputingUniversalLibrary#NETDEVINUSEBYANOTHERPROC}, as if
+     * another program had the device open.
+     */
+    public void setInUseByAnotherProcess(boolean isInUseByAnotherProcess) {
+        this.isInUseByAnotherProcess = isInUseByAnotherProcess;
+    }
+
+    public void setFirmwareVersion(String firmwareVersion) {
+        this.firmwareVersion = firmwareVersion;
+    }
+
+    public int getAnalogInputChannelCount() {
+        return ANALOG_INPUT_SIGNALS.length;
+    }
+
+    public void setAnalogInputSignal(int channel, SignalGenerator signal) {
+        ANALOG_INPUT_SIGNALS[channel] = signal;
+    }
+
+    /**
+     * @param resolution number of bits. Boards with more than 16 bits must be read with cbAIn32().
+     */
+    public void setAnalogInputResolution(int resolution) {
+        analogInputResolution = resolution;
+    }
+
+    public void setAnalogInputRanges(List<AnalogRange> ranges) {
+        analogInputRanges = List.copyOf(ranges);
+    }
+
+    /**
+     * @param rateHz the fastest the board can scan, for all channels together. Scans which ask for more are slowed
+     *         down, the same as the real pacer.
+     */
+    public void setMaxAnalogInputRateHz(long rateHz) {
+        maxAnalogInputRateHz = rateHz;
+    }
+
+    public long getMaxAnalogInputRateHz() {
+        return maxAnalogInputRateHz;
+    }
+
+    public void setAnalogOutputRanges(List<AnalogRange> ranges) {
+        analogOutputRanges = List.copyOf(ranges);
+    }
+
+    /**
+     * @return the last voltage written to an analog output.
+     */
+    public float getAnalogOutputVoltage(int channel) {
+        return ANALOG_OUTPUT_VOLTAGES[channel];
+    }
+
+    /**
+     * @return the last value written to a digital port, or set with {@link #setDigitalPortValue(int, int)}.
+     */
+    public int getDigitalPortValue(int portIndex) {
+        return DIGITAL_PORT_VALUES[portIndex];
+    }
+
+    /**
+     * Simulates a signal on the pins of a digital port.
+     */
+    public void setDigitalPortValue(int portIndex, int value) {
+        DIGITAL_PORT_VALUES[portIndex] = value;
+    }
+
+    public void setTemperatureSignal(int channel, SignalGenerator signal) {
+        TEMPERATURE_SIGNALS[channel] = signal;
+    }
+
+    public void setCounterRateHz(int counterNumber, double rateHz) {
+        COUNTER_RATES_HZ[counterNumber] = rateHz;
+    }
+
+    /**
+     * Makes the analog input scan which is running on this board fail, for example with
+     * {@link MeasurementComputingUniversalLibrary#OVERRUN}. The scan stops, an ON_SCAN_ERROR event is sent, and
+     * cbGetIOStatus() returns the error code.
+     *
+     * @return false if no scan is running.
+     */
+    public synchronized boolean injectScanError(int errorCode) {
+        if (analogInputScan == null || !analogInputScan.isRunning()) {
+            return false;
+        }
+        analogInputScan.fail(errorCode);
+        return true;
+    }
+    //</editor-fold>
+
+    //<editor-fold desc="used by SimulatedScan">
+    double getSeconds(long nanoTime) {
+        return (nanoTime - START_NANOS) / 1e9;
+    }
+
+    int getAnalogInputResolution() {
+        return analogInputResolution;
+    }
+
+    int readAnalogInputCounts(int channel, AnalogRange range, double seconds) {
+        return toCounts(ANALOG_INPUT_SIGNALS[channel].valueAt(seconds), range, analogInputResolution);
+    }
+
+    void sendEvent(int eventType, int eventData) {
+        final MeasurementComputingUniversalLibrary.EVENTCALLBACK callback = eventCallback;
+        if (callback != null && (eventTypes & eventType) != 0) {
+            callback.apply(boardNumber, eventType, eventData, eventUserData);
+        }
+    }
+
+    int getEventSampleCount() {
+        return (eventCallback != null && (eventTypes & MeasurementComputingUniversalLibrary.ON_DATA_AVAILABLE) != 0)
+                ? eventSampleCount
+                : 0;
+    }
+    //</editor-fold>
+
+    //<editor-fold desc="Universal Library functions">
+    int open(int boardNumber) {
+        if (isInUseByAnotherProcess) {
+            return MeasurementComputingUniversalLibrary.NETDEVINUSEBYANOTHERPROC;
+        }
+        this.boardNumber = boardNumber;
+        return MeasurementComputingUniversalLibrary.NOERRORS;
+    }
+
+    synchronized void close() {
+        stopBackground(MeasurementComputingUniversalLibrary.AIFUNCTION);
+        eventCallback = null;
+        boardNumber = -1;
+    }
+
+    int getConfig(int infoType, int devNum, int configItem, IntBuffer configVal) {
+        final int value;
+        if (infoType == MeasurementComputingUniversalLibrary.BOARDINFO) {
+            switch (configItem) {
+                case MeasurementComputingUniversalLibrary.BIBOARDTYPE -> value = PRODUCT_ID;
+                case MeasurementComputingUniversalLibrary.BIADRES -> value = analogInputResolution;
+                case MeasurementComputingUniversalLibrary.BINUMADCHANS -> value = ANALOG_INPUT_SIGNALS.length;
+                case MeasurementComputingUniversalLibrary.BIDACRES -> value = analogOutputResolution;
+                case MeasurementComputingUniversalLibrary.BINUMDACHANS -> value = ANALOG_OUTPUT_VOLTAGES.length;
+                case MeasurementComputingUniversalLibrary.BIDINUMDEVS -> value = DIGITAL_PORT_TYPES.length;
+                case MeasurementComputingUniversalLibrary.BINUMTEMPCHANS -> value = TEMPERATURE_SIGNALS.length;
+                case MeasurementComputingUniversalLibrary.BICINUMDEVS -> value = COUNTER_RATES_HZ.length;
+                // -1 means the range is programmable, so the wrapper probes each range
+                case MeasurementComputingUniversalLibrary.BIRANGE, MeasurementComputingUniversalLibrary.BIDACRANGE -> value = -1;
+                default -> value = CONFIG_INTS.getOrDefault(configKey(infoType, devNum, configItem), 0);
+            }
+        } else if (infoType == MeasurementComputingUniversalLibrary.DIGITALINFO) {
+            if (devNum < 0 || devNum >= DIGITAL_PORT_TYPES.length) {
+                return MeasurementComputingUniversalLibrary.BADPORTNUM;
+            }
+            switch (configItem) {
+                case MeasurementComputingUniversalLibrary.DIDEVTYPE -> value = DIGITAL_PORT_TYPES[devNum];
+                case MeasurementComputingUniversalLibrary.DINUMBITS -> value = DIGITAL_PORT_BIT_COUNT;
+                // both masks zero means the direction of the whole port is set with cbDConfigPort()
+                case MeasurementComputingUniversalLibrary.DIINMASK, MeasurementComputingUniversalLibrary.DIOUTMASK -> value = 0;
+                case MeasurementComputingUniversalLibrary.DICONFIG -> value = DIGITAL_PORT_DIRECTIONS[devNum];
+                default -> value = CONFIG_INTS.getOrDefault(configKey(infoType, devNum, configItem), 0);
+            }
+        } else {
+            value = CONFIG_INTS.getOrDefault(configKey(infoType, devNum, configItem), 0);
+        }
+        configVal.put(0, value);
+        return MeasurementComputingUniversalLibrary.NOERRORS;
+    }
+
+    int setConfig(int infoType, int devNum, int configItem, int configVal) {
+        CONFIG_INTS.put(configKey(infoType, devNum, configItem), configVal);
+        return MeasurementComputingUniversalLibrary.NOERRORS;
+    }
+
+    int getConfigString(int infoType, int devNum, int configItem, ByteBuffer configVal, IntBuffer maxConfigLen) {
+        final String value;
+        if (infoType == MeasurementComputingUniversalLibrary.BOARDINFO && configItem == MeasurementComputingUniversalLibrary.BIDEVSERIALNUM) {
+            value = UNIQUE_ID;
+        } else if (infoType == MeasurementComputingUniversalLibrary.BOARDINFO && configItem == MeasurementComputingUniversalLibrary.BIDEVVERSION) {
+            value = firmwareVersion;
+        } else {
+            value = CONFIG_STRINGS.getOrDefault(configKey(infoType, devNum, configItem), "");
+        }
+        final int length = putString(value, configVal, maxConfigLen.get(0));
+        maxConfigLen.put(0, length);
+        return MeasurementComputingUniversalLibrary.NOERRORS;
+    }
+
+    int setConfigString(int infoType, int devNum, int configItem, ByteBuffer configVal, IntBuffer configLen) {
+        final byte[] bytes = new byte[configLen.get(0)];
+        configVal.duplicate().position(0).get(bytes);
+        CONFIG_STRINGS.put(configKey(infoType, devNum, configItem), new String(bytes, StandardCharsets.US_ASCII).trim());
+        return MeasurementComputingUniversalLibrary.NOERRORS;
+    }
+
+    int getBoardName(ByteBuffer boardName) {
+        putString(PRODUCT_NAME, boardName, boardName.capacity());
+        return MeasurementComputingUniversalLibrary.NOERRORS;
+    }
+
+    int analogIn(int channel, int range, ShortBuffer dataValue) {
+        final int errorCode = checkAnalogInput(channel, range);
+        if (errorCode != MeasurementComputingUniversalLibrary.NOERRORS) {
+            return errorCode;
+        }
+        if (analogInputResolution > 16) {
+            return MeasurementComputingUniversalLibrary.BADBOARDTYPE;
+        }
+        dataValue.put(0, (short) readAnalogInputCounts(channel, AnalogRange.parseInt(range), getSeconds(System.nanoTime())));
+        return MeasurementComputingUniversalLibrary.NOERRORS;
+    }
+
+    int analogIn32(int channel, int range, NativeLongByReference dataValue) {
+        final int errorCode = checkAnalogInput(channel, range);
+        if (errorCode != MeasurementComputingUniversalLibrary.NOERRORS) {
+            return errorCode;
+        }
+        final int counts = readAnalogInputCounts(channel, AnalogRange.parseInt(range), getSeconds(System.nanoTime()));
+        dataValue.setValue(new NativeLong(counts));
+        return MeasurementComputingUniversalLibrary.NOERRORS;
+    }
+
+    int voltageIn(int channel, int range, FloatBuffer dataValue) {
+        final int errorCode = checkAnalogInput(channel, range);
+        if (errorCode != MeasurementComputingUniversalLibrary.NOERRORS) {
+            return errorCode;
+        }
+        dataValue.put(0, (float) readVolts(channel, AnalogRange.parseInt(range)));
+        return MeasurementComputingUniversalLibrary.NOERRORS;
+    }
+
+    int voltageIn32(int channel, int range, DoubleBuffer dataValue) {
+        final int errorCode = checkAnalogInput(channel, range);
+        if (errorCode != MeasurementComputingUniversalLibrary.NOERRORS) {
+            return errorCode;
+        }
+        dataValue.put(0, readVolts(channel, AnalogRange.parseInt(range)));
+        return MeasurementComputingUniversalLibrary.NOERRORS;
+    }
+
+    synchronized int loadQueue(ShortBuffer channels, ShortBuffer ranges, int count) {
+        final int[] newChannels = new int[count];
+        final AnalogRange[] newRanges = new AnalogRange[count];
+        for (int i = 0; i < count; i++) {
+            newChannels[i] = channels.get(i);
+            final int errorCode = checkAnalogInput(newChannels[i], ranges.get(i));
+            if (errorCode != MeasurementComputingUniversalLibrary.NOERRORS) {
+                return errorCode;
+            }
+            newRanges[i] = AnalogRange.parseInt(ranges.get(i));
+        }
+        queueChannels = newChannels;
+        queueRanges = newRanges;
+        return MeasurementComputingUniversalLibrary.NOERRORS;
+    }
+
+    /**
+     * @return the error code, and the actual rate in the rate argument.
+     */
+    synchronized int analogInScan(int lowChannel, int highChannel, long count, NativeLongByReference rate, int range, Pointer buffer, int options) {
+        if (analogInputScan != null && analogInputScan.isRunning()) {
+            return MeasurementComputingUniversalLibrary.ALREADYACTIVE;
+        }
+
+        final int[] channels;
+        final AnalogRange[] ranges;
+        if (queueChannels.length > 0) {
+            // when the gain queue is loaded, LowChan, HighChan and Range are ignored
+            channels = queueChannels;
+            ranges = queueRanges;
+        } else {
+            if (highChannel < lowChannel) {
+                return MeasurementComputingUniversalLibrary.BADADCHAN;
+            }
+            channels = new int[highChannel - lowChannel + 1];
+            ranges = new AnalogRange[channels.length];
+            for (int i = 0; i < channels.length; i++) {
+                channels[i] = lowChannel + i;
+                final int errorCode = checkAnalogInput(channels[i], range);
+                if (errorCode != MeasurementComputingUniversalLibrary.NOERRORS) {
+                    return errorCode;
+                }
+                ranges[i] = AnalogRange.parseInt(range);
+            }
+        }
+
+        if (count < channels.length || count > Integer.MAX_VALUE) {
+            return MeasurementComputingUniversalLibrary.BADCOUNT;
+        }
+        final long requestedRateHz = rate.getValue().longValue();
+        if (requestedRateHz <= 0) {
+            return MeasurementComputingUniversalLibrary.BADRATE;
+        }
+        final long actualRateHz = Math.max(1, Math.min(requestedRateHz, maxAnalogInputRateHz / channels.length));
+        rate.setValue(new NativeLong(actualRateHz));
+
+        final boolean isBackground = (options & MeasurementComputingUniversalLibrary.BACKGROUND) != 0;
+        final boolean isContinuous = (options & MeasurementComputingUniversalLibrary.CONTINUOUS) != 0;
+        analogInputScan = new SimulatedScan(this, buffer, (int) count, channels, ranges, actualRateHz, isContinuous && isBackground);
+        if (isBackground) {
+            analogInputScan.start();
+        } else {
+            // a foreground scan takes as long as the pacer needs
+            analogInputScan.run();
+        }
+        return analogInputScan.getErrorCode();
+    }
+
+    synchronized int getStatus(ShortBuffer status, NativeLongByReference currentCount, NativeLongByReference currentIndex, int functionType) {
+        if (functionType != MeasurementComputingUniversalLibrary.AIFUNCTION) {
+            return MeasurementComputingUniversalLibrary.BADBOARDTYPE;
+        }
+        final SimulatedScan scan = analogInputScan;
+        if (scan == null) {
+            status.put(0, (short) MeasurementComputingUniversalLibrary.IDLE);
+            currentCount.setValue(new NativeLong(0));
+            currentIndex.setValue(new NativeLong(-1));
+            return MeasurementComputingUniversalLibrary.NOERRORS;
+        }
+        status.put(0, (short) (scan.isRunning() ? MeasurementComputingUniversalLibrary.RUNNING : MeasurementComputingUniversalLibrary.IDLE));
+        currentCount.setValue(toNativeLong(scan.getCurrentCount()));
+        currentIndex.setValue(toNativeLong(scan.getCurrentIndex()));
+        return scan.getErrorCode();
+    }
+
+    synchronized int stopBackground(int functionType) {
+        if (functionType == MeasurementComputingUniversalLibrary.AIFUNCTION && analogInputScan != null) {
+            analogInputScan.stop();
+        }
+        return MeasurementComputingUniversalLibrary.NOERRORS;
+    }
+
+    int enableEvent(int eventTypes, int count, MeasurementComputingUniversalLibrary.EVENTCALLBACK callback, Pointer userData) {
+        this.eventTypes = eventTypes;
+        eventSampleCount = count;
+        eventUserData = userData;
+        eventCallback = callback;
+        return MeasurementComputingUniversalLibrary.NOERRORS;
+    }
+
+    int disableEvent(int eventTypes) {
+        this.eventTypes &= ~eventTypes;
+        if (this.eventTypes == 0) {
+            eventCallback = null;
+        }
+        return MeasurementComputingUniversalLibrary.NOERRORS;
+    }
+
+    int analogOut(int channel, int range, short dataValue) {
+        if (channel < 0 || channel >= ANALOG_OUTPUT_VOLTAGES.length) {
+            return MeasurementComputingUniversalLibrary.BADDACHAN;
+        }
+        final AnalogRange analogRange = AnalogRange.parseInt(range);
+        if (analogRange == null || !analogOutputRanges.contains(analogRange)) {
+            return MeasurementComputingUniversalLibrary.BADRANGE;
+        }
+        ANALOG_OUTPUT_VOLTAGES[channel] = (float) fromCounts(Short.toUnsignedInt(dataValue), analogRange, analogOutputResolution);
+        return MeasurementComputingUniversalLibrary.NOERRORS;
+    }
+
+    int voltageOut(int channel, int range, float dataValue) {
+        if (channel < 0 || channel >= ANALOG_OUTPUT_VOLTAGES.length) {
+            return MeasurementComputingUniversalLibrary.BADDACHAN;
+        }
+        final AnalogRange analogRange = AnalogRange.parseInt(range);
+        if (analogRange == null || !analogOutputRanges.contains(analogRange)) {
+            return MeasurementComputingUniversalLibrary.BADRANGE;
+        }
+        ANALOG_OUTPUT_VOLTAGES[channel] = dataValue;
+        return MeasurementComputingUniversalLibrary.NOERRORS;
+    }
+
+    int configurePort(int portType, int direction) {
+        final int portIndex = getPortIndex(portType);
+        if (portIndex < 0) {
+            return MeasurementComputingUniversalLibrary.BADPORTNUM;
+        }
+        DIGITAL_PORT_DIRECTIONS[portIndex] = direction;
+        return MeasurementComputingUniversalLibrary.NOERRORS;
+    }
+
+    int digitalIn(int portType, int[] value) {
+        final int portIndex = getPortIndex(portType);
+        if (portIndex < 0) {
+            return MeasurementComputingUniversalLibrary.BADPORTNUM;
+        }
+        value[0] = DIGITAL_PORT_VALUES[portIndex];
+        return MeasurementComputingUniversalLibrary.NOERRORS;
+    }
+
+    int digitalOut(int portType, int value) {
+        final int portIndex = getPortIndex(portType);
+        if (portIndex < 0) {
+            return MeasurementComputingUniversalLibrary.BADPORTNUM;
+        }
+        DIGITAL_PORT_VALUES[portIndex] = value & ((1 << DIGITAL_PORT_BIT_COUNT) - 1);
+        return MeasurementComputingUniversalLibrary.NOERRORS;
+    }
+
+    /**
+     * @param dataArray one C long for each port from lowPort to highPort.
+     */
+    int digitalInArray(int lowPort, int highPort, Pointer dataArray) {
+        final int lowPortIndex = getPortIndex(lowPort);
+        final int highPortIndex = getPortIndex(highPort);
+        if (lowPortIndex < 0 || highPortIndex < lowPortIndex) {
+            return MeasurementComputingUniversalLibrary.BADPORTNUM;
+        }
+        for (int portIndex = lowPortIndex; portIndex <= highPortIndex; portIndex++) {
+            dataArray.setNativeLong((long) (portIndex - lowPortIndex) * NativeLong.SIZE, new NativeLong(DIGITAL_PORT_VALUES[portIndex]));
+        }
+        return MeasurementComputingUniversalLibrary.NOERRORS;
+    }
+
+    /**
+     * Bit numbers count up through all the ports, starting at the port type passed in.
+     */
+    int digitalBitIn(int portType, int bitNumber, ShortBuffer bitValue) {
+        final int firstPortIndex = getPortIndex(portType);
+        final int portIndex = firstPortIndex + bitNumber / DIGITAL_PORT_BIT_COUNT;
+        if (firstPortIndex < 0 || bitNumber < 0 || portIndex >= DIGITAL_PORT_TYPES.length) {
+            return MeasurementComputingUniversalLibrary.BADBITNUMBER;
+        }
+        bitValue.put(0, (short) ((DIGITAL_PORT_VALUES[portIndex] >> (bitNumber % DIGITAL_PORT_BIT_COUNT)) & 1));
+        return MeasurementComputingUniversalLibrary.NOERRORS;
+    }
+
+    synchronized int digitalBitOut(int portType, int bitNumber, short bitValue) {
+        final int firstPortIndex = getPortIndex(portType);
+        final int portIndex = firstPortIndex + bitNumber / DIGITAL_PORT_BIT_COUNT;
+        if (firstPortIndex < 0 || bitNumber < 0 || portIndex >= DIGITAL_PORT_TYPES.length) {
+            return MeasurementComputingUniversalLibrary.BADBITNUMBER;
+        }
+        final int mask = 1 << (bitNumber % DIGITAL_PORT_BIT_COUNT);
+        if (bitValue == 0) {
+            DIGITAL_PORT_VALUES[portIndex] &= ~mask;
+        } else {
+            DIGITAL_PORT_VALUES[portIndex] |= mask;
+        }
+        return MeasurementComputingUniversalLibrary.NOERRORS;
+    }
+
+    int temperatureIn(int channel, int scale, FloatBuffer tempValue) {
+        if (channel < 0 || channel >= TEMPERATURE_SIGNALS.length) {
+            return MeasurementComputingUniversalLibrary.BADADCHAN;
+        }
+        tempValue.put(0, readTemperature(channel, scale));
+        return MeasurementComputingUniversalLibrary.NOERRORS;
+    }
+
+    int temperatureInScan(int lowChannel, int highChannel, int scale, FloatBuffer dataBuffer) {
+        if (lowChannel < 0 || highChannel < lowChannel || highChannel >= TEMPERATURE_SIGNALS.length) {
+            return MeasurementComputingUniversalLibrary.BADADCHAN;
+        }
+        for (int channel = lowChannel; channel <= highChannel; channel++) {
+            dataBuffer.put(channel - lowChannel, readTemperature(channel, scale));
+        }
+        return MeasurementComputingUniversalLibrary.NOERRORS;
+    }
+
+    int counterIn32(int counterNumber, NativeLongByReference count) {
+        if (counterNumber < 0 || counterNumber >= COUNTER_RATES_HZ.length) {
+            return MeasurementComputingUniversalLibrary.BADCOUNTERDEVNUM;
+        }
+        final long counts = (long) (COUNTER_RATES_HZ[counterNumber] * getSeconds(System.nanoTime()));
+        count.setValue(toNativeLong(counts & 0xFFFFFFFFL));
+        return MeasurementComputingUniversalLibrary.NOERRORS;
+    }
+    //</editor-fold>
+
+    private int checkAnalogInput(int channel, int range) {
+        if (channel < 0 || channel >= ANALOG_INPUT_SIGNALS.length) {
+            return MeasurementComputingUniversalLibrary.BADADCHAN;
+        }
+        final AnalogRange analogRange = AnalogRange.parseInt(range);
+        if (analogRange == null || !analogInputRanges.contains(analogRange)) {
+            return MeasurementComputingUniversalLibrary.BADRANGE;
+        }
+        return MeasurementComputingUniversalLibrary.NOERRORS;
+    }
+
+    /**
+     * @return the voltage a real board would report, including the quantization error.
+     */
+    private double readVolts(int channel, AnalogRange range) {
+        final int counts = readAnalogInputCounts(channel, range, getSeconds(System.nanoTime()));
+        return fromCounts(counts & 0xFFFFFFFFL, range, analogInputResolution);
+    }
+
+    private float readTemperature(int channel, int scale) {
+        final double celsius = TEMPERATURE_SIGNALS[channel].valueAt(getSeconds(System.nanoTime()));
+        final double value = switch (scale) {
+            case MeasurementComputingUniversalLibrary.FAHRENHEIT -> celsius * 9 / 5 + 32;
+            case MeasurementComputingUniversalLibrary.KELVIN -> celsius + 273.15;
+            default -> celsius;
+        };
+        return (float) value;
+    }
+
+    private int getPortIndex(int portType) {
+        for (int i = 0; i < DIGITAL_PORT_TYPES.length; i++) {
+            if (DIGITAL_PORT_TYPES[i] == portType) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @return the count as an unsigned number in an int, clamped to the range.
+     */
+    static int toCounts(double volts, AnalogRange range, int resolution) {
+        final long maxCount = (1L << resolution) - 1;
+        final double fraction = (volts - range.MINIMUM) / (range.MAXIMUM - range.MINIMUM);
+        return (int) Math.round(Math.max(0, Math.min(1, fraction)) * maxCount);
+    }
+
+    static double fromCounts(long counts, AnalogRange range, int resolution) {
+        final long maxCount = (1L << resolution) - 1;
+        return range.MINIMUM + (range.MAXIMUM - range.MINIMUM) * counts / maxCount;
+    }
+
+    /**
+     * A C long is only 32 bits on Windows, where the real library wraps counts around.
+     */
+    private static NativeLong toNativeLong(long value) {
+        return new NativeLong((NativeLong.SIZE == Integer.BYTES) ? (int) value : value);
+    }
+
+    private static String configKey(int infoType, int devNum, int configItem) {
+        return infoType + "/" + devNum + "/" + configItem;
+    }
+
+    /**
+     * Writes a NUL-terminated ASCII string at the start of the buffer.
+     *
+     * @return how many characters were written, not counting the NUL.
+     */
+    private static int putString(String value, ByteBuffer buffer, int maxLength) {
+        final byte[] bytes = value.getBytes(StandardCharsets.US_ASCII);
+        final int length = Math.max(0, Math.min(bytes.length, Math.min(maxLength, buffer.capacity()) - 1));
+        buffer.put(0, bytes, 0, length);
+        buffer.put(length, (byte) 0);
+        return length;
+    }
+
+}
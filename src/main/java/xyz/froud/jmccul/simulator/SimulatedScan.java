@@ -0,0 +1,182 @@
+/*
+ * The MIT License.
+ *
+ * Copyright (c) 2022 Peter Froud.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package xyz.froud.jmccul.simulator;
+
+import com.sun.jna.Pointer;
+import xyz.froud.jmccul.MeasurementComputingUniversalLibrary;
+import xyz.froud.jmccul.analog.AnalogRange;
+
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * One analog input scan on a {@link SimulatedBoard}. Samples are written to the buffer at the pace the real board's
+ * pacer clock would write them: after t seconds, t × rate × channelCount samples have been written.
+ *
+ * @author Peter Froud
+ */
+class SimulatedScan implements Runnable {
+
+    /**
+     * The longest the scan thread sleeps, so stopping a slow scan doesn't take long.
+     */
+    private static final long MAX_PARK_NANOS = 1_000_000;
+
+    private final SimulatedBoard BOARD;
+    private final Pointer BUFFER;
+    private final int BUFFER_SAMPLE_COUNT;
+    private final int[] CHANNELS;
+    private final AnalogRange[] RANGES;
+    private final long RATE_HZ;
+    private final boolean IS_CONTINUOUS;
+    private final boolean IS_32_BIT;
+    private final long START_NANOS;
+
+    private volatile long currentCount;
+    private volatile boolean isRunning = true;
+    private volatile int errorCode = MeasurementComputingUniversalLibrary.NOERRORS;
+    private Thread thread;
+
+    SimulatedScan(SimulatedBoard board, Pointer buffer, int bufferSampleCount, int[] channels, AnalogRange[] ranges, long rateHz, boolean isContinuous) {
+        BOARD = board;
+        BUFFER = buffer;
+        BUFFER_SAMPLE_COUNT = bufferSampleCount;
+        CHANNELS = channels;
+        RANGES = ranges;
+        RATE_HZ = rateHz;
+        IS_CONTINUOUS = isContinuous;
+        IS_32_BIT = board.getAnalogInputResolution() > 16;
+        START_NANOS = System.nanoTime();
+    }
+
+    void start() {
+        thread = new Thread(this, "simulated scan on board " + BOARD.getBoardNumber());
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    void stop() {
+        isRunning = false;
+        final Thread t = thread;
+        if (t != null && t != Thread.currentThread()) {
+            LockSupport.unpark(t);
+            try {
+                t.join();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    void fail(int errorCode) {
+        this.errorCode = errorCode;
+        isRunning = false;
+        if (thread != null) {
+            LockSupport.unpark(thread);
+        }
+        BOARD.sendEvent(MeasurementComputingUniversalLibrary.ON_SCAN_ERROR, errorCode);
+    }
+
+    boolean isRunning() {
+        return isRunning;
+    }
+
+    int getErrorCode() {
+        return errorCode;
+    }
+
+    /**
+     * @return how many samples have been written since the scan started. For continuous scans this keeps going up after
+     *         the buffer wraps around.
+     */
+    long getCurrentCount() {
+        return currentCount;
+    }
+
+    /**
+     * @return index in the buffer of the first sample of the most recently completed channel scan, or -1 if none have
+     *         completed yet.
+     */
+    long getCurrentIndex() {
+        final long count = currentCount;
+        final long completedChannelScans = count / CHANNELS.length;
+        if (completedChannelScans == 0) {
+            return -1;
+        }
+        return ((completedChannelScans - 1) * CHANNELS.length) % BUFFER_SAMPLE_COUNT;
+    }
+
+    @Override
+    public void run() {
+        final long samplesPerSecond = RATE_HZ * CHANNELS.length;
+        final int eventSampleCount = BOARD.getEventSampleCount();
+        long nextEventCount = eventSampleCount;
+
+        while (isRunning) {
+            final long elapsedNanos = System.nanoTime() - START_NANOS;
+            long targetCount = (long) (elapsedNanos / 1e9 * samplesPerSecond);
+            if (!IS_CONTINUOUS) {
+                targetCount = Math.min(targetCount, BUFFER_SAMPLE_COUNT);
+            }
+
+            for (long sampleIndex = currentCount; sampleIndex < targetCount; sampleIndex++) {
+                writeSample(sampleIndex);
+            }
+            currentCount = targetCount;
+
+            if (eventSampleCount > 0) {
+                while (targetCount >= nextEventCount) {
+                    BOARD.sendEvent(MeasurementComputingUniversalLibrary.ON_DATA_AVAILABLE, (int) nextEventCount);
+                    nextEventCount += eventSampleCount;
+                }
+            }
+
+            if (!IS_CONTINUOUS && targetCount == BUFFER_SAMPLE_COUNT) {
+                isRunning = false;
+                BOARD.sendEvent(MeasurementComputingUniversalLibrary.ON_END_OF_INPUT_SCAN, BUFFER_SAMPLE_COUNT);
+                return;
+            }
+
+            final long nanosUntilNextSample = (long) ((targetCount + 1) * 1e9 / samplesPerSecond) - elapsedNanos;
+            LockSupport.parkNanos(Math.max(1, Math.min(MAX_PARK_NANOS, nanosUntilNextSample)));
+        }
+    }
+
+    private void writeSample(long sampleIndex) {
+        final int channelIndex = (int) (sampleIndex % CHANNELS.length);
+        final long channelScanIndex = sampleIndex / CHANNELS.length;
+
+        // the time since the board started, so the signal carries on smoothly from one scan to the next
+        final double seconds = BOARD.getSeconds(START_NANOS) + channelScanIndex / (double) RATE_HZ;
+        final int counts = BOARD.readAnalogInputCounts(CHANNELS[channelIndex], RANGES[channelIndex], seconds);
+
+        final long bufferIndex = sampleIndex % BUFFER_SAMPLE_COUNT;
+        if (IS_32_BIT) {
+            BUFFER.setInt(bufferIndex * Integer.BYTES, counts);
+        } else {
+            BUFFER.setShort(bufferIndex * Short.BYTES, (short) counts);
+        }
+    }
+
+}
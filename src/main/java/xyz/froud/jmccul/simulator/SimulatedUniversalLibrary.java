@@ -0,0 +1,490 @@
+/*
+ * The MIT License.
+ *
+ * Copyright (c) 2022 Peter Froud.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package xyz.froud.jmccul.simulator;
+
+import com.sun.jna.Memory;
+import com.sun.jna.NativeLong;
+import com.sun.jna.Pointer;
+import com.sun.jna.Structure;
+import com.sun.jna.ptr.NativeLongByReference;
+import xyz.froud.jmccul.DaqDeviceDescriptor;
+import xyz.froud.jmccul.DaqDeviceInterfaceType;
+import xyz.froud.jmccul.MeasurementComputingUniversalLibrary;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.nio.ByteBuffer;
+import java.nio.DoubleBuffer;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.nio.ShortBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A pure-Java stand-in for the Universal Library DLL, so JMCCUL can be used without hardware, or on a computer which
+ * isn't running Windows.
+ * <p>
+ * Select it with {@code -Djmccul.backend=simulated}, then get the instance behind
+ * {@link MeasurementComputingUniversalLibrary#INSTANCE} with {@link #getDefault()} to add boards, slow calls down, or
+ * make calls fail. Only the functions JMCCUL uses are simulated, and other functions return
+ * {@link MeasurementComputingUniversalLibrary#BADBOARDTYPE}.
+ *
+ * @author Peter Froud
+ */
+public class SimulatedUniversalLibrary implements InvocationHandler {
+
+    /**
+     * Name of the system property with how many boards {@link #getDefault()} starts with. The default is 1.
+     */
+    public static final String BOARD_COUNT_PROPERTY = "jmccul.simulator.boardCount";
+
+    /**
+     * Delays shorter than this are spun instead of parked, because parking can take much longer than asked.
+     */
+    private static final long MAX_SPIN_NANOS = 50_000;
+
+    private static final Map<Integer, String> ERROR_MESSAGES = Map.ofEntries(
+            Map.entry(MeasurementComputingUniversalLibrary.BADBOARD, "Invalid board number."),
+            Map.entry(MeasurementComputingUniversalLibrary.BADPORTNUM, "Invalid digital port number."),
+            Map.entry(MeasurementComputingUniversalLibrary.BADCOUNTERDEVNUM, "Invalid counter number."),
+            Map.entry(MeasurementComputingUniversalLibrary.BADADCHAN, "Invalid A/D channel number."),
+            Map.entry(MeasurementComputingUniversalLibrary.BADCOUNT, "Invalid count."),
+            Map.entry(MeasurementComputingUniversalLibrary.BADDACHAN, "Invalid D/A channel number."),
+            Map.entry(MeasurementComputingUniversalLibrary.ALREADYACTIVE, "This function is already active on this board."),
+            Map.entry(MeasurementComputingUniversalLibrary.BADRATE, "Invalid sampling rate."),
+            Map.entry(MeasurementComputingUniversalLibrary.OVERRUN, "Overrun. The data was not moved from the board to memory fast enough."),
+            Map.entry(MeasurementComputingUniversalLibrary.BADRANGE, "Invalid range."),
+            Map.entry(MeasurementComputingUniversalLibrary.BADBOARDTYPE, "This function can not be used with this board."),
+            Map.entry(MeasurementComputingUniversalLibrary.BADBITNUMBER, "Invalid digital bit number."),
+            Map.entry(MeasurementComputingUniversalLibrary.BADBUFFERSIZE, "The buffer is too small."),
+            Map.entry(MeasurementComputingUniversalLibrary.NETDEVINUSE, "The network device is in use."),
+            Map.entry(MeasurementComputingUniversalLibrary.NETDEVINUSEBYANOTHERPROC, "The device is in use by another process."),
+            Map.entry(MeasurementComputingUniversalLibrary.BOARDNUMINUSE, "The board number is already in use.")
+    );
+
+    private static SimulatedUniversalLibrary defaultInstance;
+
+    private final MeasurementComputingUniversalLibrary LIBRARY;
+    private final List<SimulatedBoard> BOARDS = new CopyOnWriteArrayList<>();
+    private final Map<Integer, SimulatedBoard> OPEN_BOARDS = new ConcurrentHashMap<>();
+
+    /**
+     * Key is the address, which is what cbWinBufFree() gets.
+     */
+    private final Map<Long, Memory> WINDOWS_BUFFERS = new ConcurrentHashMap<>();
+
+    /**
+     * Key is the function name.
+     */
+    private final Map<String, InjectedError> INJECTED_ERRORS = new ConcurrentHashMap<>();
+
+    private volatile long callLatencyNanos;
+    private volatile long callLatencyJitterNanos;
+
+    public SimulatedUniversalLibrary() {
+        LIBRARY = (MeasurementComputingUniversalLibrary) Proxy.newProxyInstance(
+                MeasurementComputingUniversalLibrary.class.getClassLoader(),
+                new Class<?>[]{MeasurementComputingUniversalLibrary.class},
+                this
+        );
+    }
+
+    /**
+     * @return the simulator used by the {@link SimulatedBackend}.
+     */
+    public static synchronized SimulatedUniversalLibrary getDefault() {
+        if (defaultInstance == null) {
+            final SimulatedUniversalLibrary simulator = new SimulatedUniversalLibrary();
+            /*
+            Making the proxy initializes MeasurementComputingUniversalLibrary, which loads the SimulatedBackend, which
+            calls this method again. Keep the one which INSTANCE got.
+             */
+            if (defaultInstance == null) {
+                final int boardCount = Integer.getInteger(BOARD_COUNT_PROPERTY, 1);
+                for (int i = 0; i < boardCount; i++) {
+                    simulator.addBoard(new SimulatedBoard("SIMULATED-1608", 0x7FFF, String.format("SIM%05d", i + 1)));
+                }
+                defaultInstance = simulator;
+            }
+        }
+        return defaultInstance;
+    }
+
+    /**
+     * @return the simulator as a {@link MeasurementComputingUniversalLibrary}.
+     */
+    public MeasurementComputingUniversalLibrary getLibrary() {
+        return LIBRARY;
+    }
+
+    /**
+     * Plugs in a board so cbGetDaqDeviceInventory() finds it.
+     */
+    public void addBoard(SimulatedBoard board) {
+        BOARDS.add(board);
+    }
+
+    public List<SimulatedBoard> getBoards() {
+        return List.copyOf(BOARDS);
+    }
+
+    /**
+     * Makes every call, except the ones which only work with memory, take this long, like the USB round trip on a real
+     * board.
+     *
+     * @param jitterNanos each call takes up to this much longer, chosen at random.
+     */
+    public void setCallLatency(long meanNanos, long jitterNanos) {
+        callLatencyNanos = meanNanos;
+        callLatencyJitterNanos = jitterNanos;
+    }
+
+    /**
+     * Makes the next calls to a function return an error code instead of doing anything.
+     *
+     * @param functionName for example "cbAIn".
+     * @param callCount how many calls in a row fail.
+     */
+    public void injectError(String functionName, int errorCode, int callCount) {
+        INJECTED_ERRORS.put(functionName, new InjectedError(errorCode, new AtomicInteger(callCount), 1));
+    }
+
+    /**
+     * Makes calls to a function fail at random until {@link #clearInjectedErrors()} is called.
+     *
+     * @param probability from 0 to 1.
+     */
+    public void injectRandomError(String functionName, int errorCode, double probability) {
+        INJECTED_ERRORS.put(functionName, new InjectedError(errorCode, null, probability));
+    }
+
+    public void clearInjectedErrors() {
+        INJECTED_ERRORS.clear();
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) {
+        if (method.getDeclaringClass() == Object.class) {
+            switch (method.getName()) {
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                default:
+                    return "simulated Universal Library";
+            }
+        }
+
+        final String name = method.getName();
+        if (!name.startsWith("cbWinBuf") && !name.equals("cbScaledWinBufAlloc") && !name.equals("cbGetErrMsg")) {
+            waitForCallLatency();
+        }
+
+        final InjectedError injectedError = INJECTED_ERRORS.get(name);
+        if (injectedError != null && method.getReturnType() == int.class && injectedError.shouldFail()) {
+            return injectedError.ERROR_CODE;
+        }
+
+        switch (name) {
+            //<editor-fold desc="device discovery">
+            case "cbIgnoreInstaCal":
+                return MeasurementComputingUniversalLibrary.NOERRORS;
+            case "cbGetDaqDeviceInventory":
+                return getDaqDeviceInventory((DaqDeviceDescriptor) args[1], (IntBuffer) args[2]);
+            case "cbCreateDaqDevice":
+                return createDaqDevice((int) args[0], (DaqDeviceDescriptor) args[1]);
+            case "cbReleaseDaqDevice": {
+                final SimulatedBoard board = OPEN_BOARDS.remove((int) args[0]);
+                if (board == null) {
+                    return MeasurementComputingUniversalLibrary.BADBOARD;
+                }
+                board.close();
+                return MeasurementComputingUniversalLibrary.NOERRORS;
+            }
+            case "cbGetBoardNumber": {
+                final SimulatedBoard board = findBoard((DaqDeviceDescriptor) args[0]);
+                return (board == null) ? -1 : board.getBoardNumber();
+            }
+            //</editor-fold>
+
+            //<editor-fold desc="memory and errors">
+            case "cbWinBufAlloc":
+                return allocateWindowsBuffer((NativeLong) args[0], Short.BYTES);
+            case "cbWinBufAlloc32":
+                return allocateWindowsBuffer((NativeLong) args[0], Integer.BYTES);
+            case "cbWinBufAlloc64":
+                return allocateWindowsBuffer((NativeLong) args[0], Long.BYTES);
+            case "cbScaledWinBufAlloc":
+                return allocateWindowsBuffer((NativeLong) args[0], Double.BYTES);
+            case "cbWinBufFree": {
+                final Memory memory = WINDOWS_BUFFERS.remove(Pointer.nativeValue(((MeasurementComputingUniversalLibrary.HGLOBAL) args[0]).getPointer()));
+                if (memory != null) {
+                    memory.close();
+                }
+                return MeasurementComputingUniversalLibrary.NOERRORS;
+            }
+            case "cbGetErrMsg": {
+                final int errorCode = (int) args[0];
+                final String message = ERROR_MESSAGES.getOrDefault(errorCode, "Error " + errorCode + " from the simulator.");
+                final ByteBuffer buffer = (ByteBuffer) args[1];
+                final byte[] bytes = message.getBytes(StandardCharsets.US_ASCII);
+                final int length = Math.min(bytes.length, buffer.capacity() - 1);
+                buffer.put(0, bytes, 0, length);
+                buffer.put(length, (byte) 0);
+                return MeasurementComputingUniversalLibrary.NOERRORS;
+            }
+            case "cbGetRevision":
+                ((FloatBuffer) args[0]).put(0, 6.73f);
+                ((FloatBuffer) args[1]).put(0, 6.73f);
+                return MeasurementComputingUniversalLibrary.NOERRORS;
+            //</editor-fold>
+        }
+
+        // everything else is for one board
+        final int boardNumberIndex = name.startsWith("cbGetConfig") || name.startsWith("cbSetConfig") ? 1 : 0;
+        final SimulatedBoard board = (args == null || args.length <= boardNumberIndex || !(args[boardNumberIndex] instanceof Integer))
+                ? null
+                : OPEN_BOARDS.get((int) args[boardNumberIndex]);
+        if (board == null) {
+            return (method.getReturnType() == int.class) ? MeasurementComputingUniversalLibrary.BADBOARD : null;
+        }
+
+        switch (name) {
+            //<editor-fold desc="configuration">
+            case "cbGetBoardName":
+                return board.getBoardName((ByteBuffer) args[1]);
+            case "cbGetConfig":
+                return board.getConfig((int) args[0], (int) args[2], (int) args[3], (IntBuffer) args[4]);
+            case "cbSetConfig":
+                return board.setConfig((int) args[0], (int) args[2], (int) args[3], (int) args[4]);
+            case "cbGetConfigString":
+                return board.getConfigString((int) args[0], (int) args[2], (int) args[3], (ByteBuffer) args[4], (IntBuffer) args[5]);
+            case "cbSetConfigString":
+                return board.setConfigString((int) args[0], (int) args[2], (int) args[3], (ByteBuffer) args[4], (IntBuffer) args[5]);
+            case "cbAInputMode":
+            case "cbAChanInputMode":
+            case "cbSetTrigger":
+                return MeasurementComputingUniversalLibrary.NOERRORS;
+            //</editor-fold>
+
+            //<editor-fold desc="analog">
+            case "cbAIn":
+                return board.analogIn((int) args[1], (int) args[2], (ShortBuffer) args[3]);
+            case "cbAIn32":
+                return board.analogIn32((int) args[1], (int) args[2], (NativeLongByReference) args[3]);
+            case "cbVIn":
+                return board.voltageIn((int) args[1], (int) args[2], (FloatBuffer) args[3]);
+            case "cbVIn32":
+                return board.voltageIn32((int) args[1], (int) args[2], (DoubleBuffer) args[3]);
+            case "cbAOut":
+                return board.analogOut((int) args[1], (int) args[2], (short) args[3]);
+            case "cbVOut":
+                return board.voltageOut((int) args[1], (int) args[2], (float) args[3]);
+            case "cbALoadQueue":
+                return board.loadQueue((ShortBuffer) args[1], (ShortBuffer) args[2], (int) args[3]);
+            case "cbAInScan":
+                return analogInScan(board, args);
+            //</editor-fold>
+
+            //<editor-fold desc="digital">
+            case "cbDConfigPort":
+                return board.configurePort((int) args[1], (int) args[2]);
+            case "cbDConfigBit":
+                // the simulated ports are configured a whole port at a time
+                return MeasurementComputingUniversalLibrary.BADBOARDTYPE;
+            case "cbDIn":
+            case "cbDIn32": {
+                final int[] value = new int[1];
+                final int errorCode = board.digitalIn((int) args[1], value);
+                if (args[2] instanceof ShortBuffer) {
+                    ((ShortBuffer) args[2]).put(0, (short) value[0]);
+                } else {
+                    ((IntBuffer) args[2]).put(0, value[0]);
+                }
+                return errorCode;
+            }
+            case "cbDInArray":
+                return board.digitalInArray((int) args[1], (int) args[2], ((NativeLongByReference) args[3]).getPointer());
+            case "cbDOut":
+                return board.digitalOut((int) args[1], Short.toUnsignedInt((short) args[2]));
+            case "cbDOut32":
+                return board.digitalOut((int) args[1], (int) args[2]);
+            case "cbDBitIn":
+                return board.digitalBitIn((int) args[1], (int) args[2], (ShortBuffer) args[3]);
+            case "cbDBitOut":
+                return board.digitalBitOut((int) args[1], (int) args[2], (short) args[3]);
+            //</editor-fold>
+
+            //<editor-fold desc="temperature and counters">
+            case "cbTIn":
+                return board.temperatureIn((int) args[1], (int) args[2], (FloatBuffer) args[3]);
+            case "cbTInScan":
+                return board.temperatureInScan((int) args[1], (int) args[2], (int) args[3], (FloatBuffer) args[4]);
+            case "cbCIn32":
+                return board.counterIn32((int) args[1], (NativeLongByReference) args[2]);
+            //</editor-fold>
+
+            //<editor-fold desc="background operations">
+            case "cbGetIOStatus":
+                return board.getStatus((ShortBuffer) args[1], (NativeLongByReference) args[2], (NativeLongByReference) args[3], (int) args[4]);
+            case "cbStopIOBackground":
+                return board.stopBackground((int) args[1]);
+            case "cbEnableEvent":
+                return board.enableEvent((int) args[1], (int) args[2], (MeasurementComputingUniversalLibrary.EVENTCALLBACK) args[3], (Pointer) args[4]);
+            case "cbDisableEvent":
+                return board.disableEvent((int) args[1]);
+            //</editor-fold>
+
+            default:
+                return (method.getReturnType() == int.class) ? MeasurementComputingUniversalLibrary.BADBOARDTYPE : null;
+        }
+    }
+
+    private int getDaqDeviceInventory(DaqDeviceDescriptor inventory, IntBuffer numberOfDevices) {
+        final int count = Math.min(BOARDS.size(), numberOfDevices.get(0));
+        for (int i = 0; i < count; i++) {
+            final SimulatedBoard board = BOARDS.get(i);
+            // the inventory is the first element of an array made with Structure.toArray()
+            final DaqDeviceDescriptor descriptor = Structure.newInstance(
+                    DaqDeviceDescriptor.class,
+                    inventory.getPointer().share((long) i * inventory.size())
+            );
+            copyString(board.getProductName(), descriptor.ProductName);
+            copyString(board.getProductName(), descriptor.DevString);
+            copyString(board.getUniqueID(), descriptor.UniqueID);
+            descriptor.ProductID = board.getProductID();
+            descriptor.InterfaceType = DaqDeviceInterfaceType.USB.VALUE;
+            descriptor.NUID = i + 1;
+            descriptor.write();
+        }
+        numberOfDevices.put(0, count);
+        // the same as what JNA does after a native call
+        inventory.autoRead();
+        return MeasurementComputingUniversalLibrary.NOERRORS;
+    }
+
+    private int createDaqDevice(int boardNumber, DaqDeviceDescriptor descriptor) {
+        final SimulatedBoard board = findBoard(descriptor);
+        if (board == null) {
+            return MeasurementComputingUniversalLibrary.BADBOARD;
+        }
+        final SimulatedBoard alreadyOpen = OPEN_BOARDS.get(boardNumber);
+        if (alreadyOpen != null) {
+            return (alreadyOpen == board) ? MeasurementComputingUniversalLibrary.NOERRORS : MeasurementComputingUniversalLibrary.BOARDNUMINUSE;
+        }
+        final int errorCode = board.open(boardNumber);
+        if (errorCode == MeasurementComputingUniversalLibrary.NOERRORS) {
+            OPEN_BOARDS.put(boardNumber, board);
+        }
+        return errorCode;
+    }
+
+    private int analogInScan(SimulatedBoard board, Object[] args) {
+        final long count = ((NativeLong) args[3]).longValue();
+        final MeasurementComputingUniversalLibrary.HGLOBAL handle = (MeasurementComputingUniversalLibrary.HGLOBAL) args[6];
+        final Memory memory = (handle == null) ? null : WINDOWS_BUFFERS.get(Pointer.nativeValue(handle.getPointer()));
+        final int bytesPerSample = (board.getAnalogInputResolution() > 16) ? Integer.BYTES : Short.BYTES;
+        if (memory == null || memory.size() < count * bytesPerSample) {
+            return MeasurementComputingUniversalLibrary.BADBUFFERSIZE;
+        }
+        return board.analogInScan((int) args[1], (int) args[2], count, (NativeLongByReference) args[4], (int) args[5], memory, (int) args[7]);
+    }
+
+    private MeasurementComputingUniversalLibrary.HGLOBAL allocateWindowsBuffer(NativeLong numPoints, int bytesPerPoint) {
+        final long pointCount = numPoints.longValue();
+        if (pointCount <= 0) {
+            return null;
+        }
+        final Memory memory = new Memory(pointCount * bytesPerPoint);
+        memory.clear();
+        WINDOWS_BUFFERS.put(Pointer.nativeValue(memory), memory);
+        return new MeasurementComputingUniversalLibrary.HGLOBAL(memory);
+    }
+
+    private SimulatedBoard findBoard(DaqDeviceDescriptor descriptor) {
+        final String uniqueID = descriptor.getUniqueID();
+        for (SimulatedBoard board : BOARDS) {
+            if (board.getUniqueID().equals(uniqueID)) {
+                return board;
+            }
+        }
+        return null;
+    }
+
+    private void waitForCallLatency() {
+        final long jitter = callLatencyJitterNanos;
+        final long delay = callLatencyNanos + ((jitter > 0) ? ThreadLocalRandom.current().nextLong(jitter) : 0);
+        if (delay <= 0) {
+            return;
+        }
+        if (delay < MAX_SPIN_NANOS) {
+            final long end = System.nanoTime() + delay;
+            while (System.nanoTime() < end) {
+                Thread.onSpinWait();
+            }
+        } else {
+            LockSupport.parkNanos(delay);
+        }
+    }
+
+    private static void copyString(String value, byte[] destination) {
+        final byte[] bytes = value.getBytes(StandardCharsets.US_ASCII);
+        System.arraycopy(bytes, 0, destination, 0, Math.min(bytes.length, destination.length - 1));
+    }
+
+    private static class InjectedError {
+
+        private final int ERROR_CODE;
+
+        /**
+         * Null to fail at random forever.
+         */
+        private final AtomicInteger REMAINING_COUNT;
+        private final double PROBABILITY;
+
+        private InjectedError(int errorCode, AtomicInteger remainingCount, double probability) {
+            ERROR_CODE = errorCode;
+            REMAINING_COUNT = remainingCount;
+            PROBABILITY = probability;
+        }
+
+        private boolean shouldFail() {
+            if (REMAINING_COUNT != null) {
+                return REMAINING_COUNT.getAndDecrement() > 0;
+            }
+            return ThreadLocalRandom.current().nextDouble() < PROBABILITY;
+        }
+
+    }
+
+}
@@ -27,7 +27,6 @@ package xyz.froud.jmccul.temperature;
 
 import xyz.froud.jmccul.MeasurementComputingUniversalLibrary;
 
-import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -79,7 +78,12 @@ public enum TemperatureInputOptions {
     }
 
     public static int bitwiseOr(TemperatureInputOptions[] optionsArray) {
-        return Arrays.stream(optionsArray).map(e -> e.VALUE).reduce(0, (i1, i2) -> i1 | i2);
+        // plain loop instead of a stream because cbTIn() is called in polling loops
+        int rv = 0;
+        for (TemperatureInputOptions option : optionsArray) {
+            rv |= option.VALUE;
+        }
+        return rv;
     }
 
 }
@@ -24,14 +24,18 @@
 
 package xyz.froud.jmccul.temperature;
 
+import xyz.froud.jmccul.BoardExecutor;
+import xyz.froud.jmccul.DirectUniversalLibrary;
 import xyz.froud.jmccul.DaqDevice;
 import xyz.froud.jmccul.JMCCULException;
 import xyz.froud.jmccul.JMCCULUtils;
 import xyz.froud.jmccul.config.ConfigurationWrapper;
 import xyz.froud.jmccul.enums.BaseOrExpansionBoard;
 import xyz.froud.jmccul.MeasurementComputingUniversalLibrary;
+import xyz.froud.jmccul.NativeScratch;
 
 import java.nio.FloatBuffer;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * @author Peter Froud
@@ -72,11 +76,25 @@ public class TemperatureWrapper {
 
     }
 
+    /**
+     * Runs {@link #getChannelCount()} on the {@link DaqDevice#getExecutor() device's executor}.
+     */
+    public CompletableFuture<Integer> getChannelCountAsync() {
+        return DAQ_DEVICE.getExecutor().submit(this::getChannelCount);
+    }
+
     public boolean isSupported() throws JMCCULException {
         // https://github.com/mccdaq/mcculw/blob/d5d4a3eebaace9544a356a1243963c7af5f8ca53/mcculw/device_info/ai_info.py#L50
         return getChannelCount() > 0;
     }
 
+    /**
+     * Runs {@link #isSupported()} on the {@link DaqDevice#getExecutor() device's executor}.
+     */
+    public CompletableFuture<Boolean> isSupportedAsync() {
+        return DAQ_DEVICE.getExecutor().submit(this::isSupported);
+    }
+
 
     /**
      * Reads an analog input channel, linearizes it according to the selected temperature sensor type, if required, and
@@ -123,19 +141,101 @@ public class TemperatureWrapper {
      *         href="https://www.mccdaq.com/pdfs/manuals/Mcculw_WebHelp/hh_goto.htm?ULStart.htm#Function_Reference/Temperature_Input_Functions_for_NET/TIn.htm">TIn()</a>
      */
     public float read(int channel, TemperatureUnit scale, TemperatureInputOptions... options) throws JMCCULException {
-        final FloatBuffer temperatureFloat = FloatBuffer.allocate(1);
+        if (DAQ_DEVICE.getExecutor().mustSubmit()) {
+            return BoardExecutor.join(readAsync(channel, scale, options));
+        }
+
+        return read(channel, scale, TemperatureInputOptions.bitwiseOr(options));
+    }
+
+    /**
+     * Runs {@link #read(int, TemperatureUnit, TemperatureInputOptions...)} on the
+     * {@link DaqDevice#getExecutor() device's executor}.
+     */
+    public CompletableFuture<Float> readAsync(int channel, TemperatureUnit scale, TemperatureInputOptions... options) {
+        return DAQ_DEVICE.getExecutor().submit(() -> read(channel, scale, options));
+    }
+
+    /**
+     * Same as {@link #read(int, TemperatureUnit, TemperatureInputOptions...)} with no options. Calling the varargs
+     * method with no options still allocates an empty array, which this overload avoids.
+     */
+    public float read(int channel, TemperatureUnit scale) throws JMCCULException {
+        if (DAQ_DEVICE.getExecutor().mustSubmit()) {
+            return BoardExecutor.join(readAsync(channel, scale));
+        }
+
+        return read(channel, scale, 0);
+    }
+
+    /**
+     * Runs {@link #read(int, TemperatureUnit)} on the {@link DaqDevice#getExecutor() device's executor}.
+     */
+    public CompletableFuture<Float> readAsync(int channel, TemperatureUnit scale) {
+        return DAQ_DEVICE.getExecutor().submit(() -> read(channel, scale));
+    }
+
+    /**
+     * Reads every temperature channel from lowChannel to highChannel with one call.
+     *
+     * @param lowChannel The first channel to read.
+     * @param highChannel The last channel to read.
+     * @param scale Specifies the temperature scale that the inputs will be converted to.
+     *
+     * @return one temperature for each channel from lowChannel to highChannel.
+     *
+     * @see <a
+     *         href="https://www.mccdaq.com/pdfs/manuals/Mcculw_WebHelp/hh_goto.htm?ULStart.htm#Function_Reference/Temperature_Input_Functions/cbTInScan.htm">cbTInScan()</a>
+     * @see <a
+     *         href="https://www.mccdaq.com/pdfs/manuals/Mcculw_WebHelp/hh_goto.htm?ULStart.htm#Function_Reference/Temperature_Input_Functions_for_NET/TInScan.htm">TInScan()</a>
+     */
+    public float[] readChannels(int lowChannel, int highChannel, TemperatureUnit scale, TemperatureInputOptions... options) throws JMCCULException {
+        if (DAQ_DEVICE.getExecutor().mustSubmit()) {
+            return BoardExecutor.join(readChannelsAsync(lowChannel, highChannel, scale, options));
+        }
+
+        if (highChannel < lowChannel) {
+            throw new IllegalArgumentException(String.format(
+                    "highChannel %d is lower than lowChannel %d", highChannel, lowChannel
+            ));
+        }
+        final float[] temperatures = new float[highChannel - lowChannel + 1];
+
+        // https://www.mccdaq.com/pdfs/manuals/Mcculw_WebHelp/hh_goto.htm?ULStart.htm#Function_Reference/Temperature_Input_Functions/cbTInScan.htm
+        final int errorCode = MeasurementComputingUniversalLibrary.INSTANCE.cbTInScan(
+                BOARD_NUMBER,
+                lowChannel,
+                highChannel,
+                scale.VALUE,
+                FloatBuffer.wrap(temperatures),
+                TemperatureInputOptions.bitwiseOr(options)
+        );
+        JMCCULUtils.checkError(errorCode);
+        return temperatures;
+    }
+
+    /**
+     * Runs {@link #readChannels(int, int, TemperatureUnit, TemperatureInputOptions...)} on the
+     * {@link DaqDevice#getExecutor() device's executor}.
+     */
+    public CompletableFuture<float[]> readChannelsAsync(int lowChannel, int highChannel, TemperatureUnit scale, TemperatureInputOptions... options) {
+        return DAQ_DEVICE.getExecutor().submit(() -> readChannels(lowChannel, highChannel, scale, options));
+    }
+
+    private float read(int channel, TemperatureUnit scale, int options) throws JMCCULException {
+        final FloatBuffer temperatureFloat = NativeScratch.get().getFloatBuffer();
 
         // https://www.mccdaq.com/pdfs/manuals/Mcculw_WebHelp/hh_goto.htm?ULStart.htm#Function_Reference/Temperature_Input_Functions/cbTIn.htm
-        final int errorCode = MeasurementComputingUniversalLibrary.INSTANCE.cbTIn(
+        final int errorCode = DirectUniversalLibrary.cbTIn(
                 DAQ_DEVICE.getBoardNumber(),
                 channel,
                 scale.VALUE,
                 temperatureFloat,
-                TemperatureInputOptions.bitwiseOr(options)
+                options
         );
 
         JMCCULUtils.checkError(errorCode);
-        return temperatureFloat.get();
+        return temperatureFloat.get(0);
     }
 
 
@@ -160,6 +260,13 @@ public class TemperatureWrapper {
         );
     }
 
+    /**
+     * Runs {@link #getScansToAverage()} on the {@link DaqDevice#getExecutor() device's executor}.
+     */
+    public CompletableFuture<Integer> getScansToAverageAsync() {
+        return DAQ_DEVICE.getExecutor().submit(this::getScansToAverage);
+    }
+
     /**
      * @see <a
      *         href="https://www.mccdaq.com/pdfs/manuals/Mcculw_WebHelp/hh_goto.htm?ULStart.htm#Function_Reference/Configuration_Functions/cbSetConfig.htm">cbSetConfig()</a>
@@ -176,6 +283,16 @@ public class TemperatureWrapper {
         );
     }
 
+    /**
+     * Runs {@link #setScansToAverage(int)} on the {@link DaqDevice#getExecutor() device's executor}.
+     */
+    public CompletableFuture<Void> setScansToAverageAsync(int count) {
+        return DAQ_DEVICE.getExecutor().submit(() -> {
+            setScansToAverage(count);
+            return null;
+        });
+    }
+
     /* /////////////////////////////////////////////////////////////////////////////////////////////////////////////////
      BITEMPSCALE -> BI TEMP SCALE -> boardInfo temperature scale
      Readable? yes
@@ -197,6 +314,13 @@ public class TemperatureWrapper {
         ));
     }
 
+    /**
+     * Runs {@link #getUnits()} on the {@link DaqDevice#getExecutor() device's executor}.
+     */
+    public CompletableFuture<TemperatureUnit> getUnitsAsync() {
+        return DAQ_DEVICE.getExecutor().submit(this::getUnits);
+    }
+
     /**
      * @see <a
      *         href="https://www.mccdaq.com/pdfs/manuals/Mcculw_WebHelp/hh_goto.htm?ULStart.htm#Function_Reference/Configuration_Functions/cbSetConfig.htm">cbSetConfig()</a>
@@ -213,6 +337,16 @@ public class TemperatureWrapper {
         );
     }
 
+    /**
+     * Runs {@link #setUnits(TemperatureUnit)} on the {@link DaqDevice#getExecutor() device's executor}.
+     */
+    public CompletableFuture<Void> setUnitsAsync(TemperatureUnit temperatureUnit) {
+        return DAQ_DEVICE.getExecutor().submit(() -> {
+            setUnits(temperatureUnit);
+            return null;
+        });
+    }
+
     /* /////////////////////////////////////////////////////////////////////////////////////////////////////////////////
      BITEMPREJFREQ -> BI TEMP REJ FREQ -> boardInfo temperature rejection frequency
      Readable? yes
@@ -236,6 +370,14 @@ public class TemperatureWrapper {
         );
     }
 
+    /**
+     * Runs {@link #getRejectionFrequency(BaseOrExpansionBoard)} on the
+     * {@link DaqDevice#getExecutor() device's executor}.
+     */
+    public CompletableFuture<TemperatureRejectionFrequency> getRejectionFrequencyAsync(BaseOrExpansionBoard baseOrExpansionBoard) {
+        return DAQ_DEVICE.getExecutor().submit(() -> getRejectionFrequency(baseOrExpansionBoard));
+    }
+
     /**
      * @see <a
      *         href="https://www.mccdaq.com/pdfs/manuals/Mcculw_WebHelp/hh_goto.htm?ULStart.htm#Function_Reference/Configuration_Functions/cbSetConfig.htm">cbSetConfig()</a>
@@ -252,6 +394,17 @@ public class TemperatureWrapper {
         );
     }
 
+    /**
+     * Runs {@link #setRejectionFrequency(BaseOrExpansionBoard, TemperatureRejectionFrequency)} on the
+     * {@link DaqDevice#getExecutor() device's executor}.
+     */
+    public CompletableFuture<Void> setRejectionFrequencyAsync(BaseOrExpansionBoard baseOrExpansionBoard, TemperatureRejectionFrequency rejection) {
+        return DAQ_DEVICE.getExecutor().submit(() -> {
+            setRejectionFrequency(baseOrExpansionBoard, rejection);
+            return null;
+        });
+    }
+
     /* /////////////////////////////////////////////////////////////////////////////////////////////////////////////////
      BIDETECTOPENTC  -> BI DETECT OPEN TC -> boardInfo detect open thermocouple
      Readable? yes
@@ -273,6 +426,14 @@ public class TemperatureWrapper {
         ) == 1;
     }
 
+    /**
+     * Runs {@link #isOpenThermocoupleDetectionEnabled(BaseOrExpansionBoard)} on the
+     * {@link DaqDevice#getExecutor() device's executor}.
+     */
+    public CompletableFuture<Boolean> isOpenThermocoupleDetectionEnabledAsync(BaseOrExpansionBoard baseOrExpansionBoard) {
+        return DAQ_DEVICE.getExecutor().submit(() -> isOpenThermocoupleDetectionEnabled(baseOrExpansionBoard));
+    }
+
     /**
      * @see <a
      *         href="https://www.mccdaq.com/pdfs/manuals/Mcculw_WebHelp/hh_goto.htm?ULStart.htm#Function_Reference/Configuration_Functions/cbSetConfig.htm">cbSetConfig()</a>
@@ -289,6 +450,17 @@ public class TemperatureWrapper {
         );
     }
 
+    /**
+     * Runs {@link #setOpenThermocoupleDetectionEnabled(BaseOrExpansionBoard, boolean)} on the
+     * {@link DaqDevice#getExecutor() device's executor}.
+     */
+    public CompletableFuture<Void> setOpenThermocoupleDetectionEnabledAsync(BaseOrExpansionBoard baseOrExpansionBoard, boolean enable) {
+        return DAQ_DEVICE.getExecutor().submit(() -> {
+            setOpenThermocoupleDetectionEnabled(baseOrExpansionBoard, enable);
+            return null;
+        });
+    }
+
 
     /* /////////////////////////////////////////////////////////////////////////////////////////////////////////////////
      BICHANTCTYPE -> BI CHAN TC TYPE  -> boardInfo channel thermocouple type
@@ -313,6 +485,13 @@ public class TemperatureWrapper {
         );
     }
 
+    /**
+     * Runs {@link #getThermocoupleType(int)} on the {@link DaqDevice#getExecutor() device's executor}.
+     */
+    public CompletableFuture<ThermocoupleType> getThermocoupleTypeAsync(int channel) {
+        return DAQ_DEVICE.getExecutor().submit(() -> getThermocoupleType(channel));
+    }
+
     /**
      * @see <a
      *         href="https://www.mccdaq.com/pdfs/manuals/Mcculw_WebHelp/hh_goto.htm?ULStart.htm#Function_Reference/Configuration_Functions/cbSetConfig.htm">cbSetConfig()</a>
@@ -329,6 +508,17 @@ public class TemperatureWrapper {
         );
     }
 
+    /**
+     * Runs {@link #setThermocoupleType(int, ThermocoupleType)} on the
+     * {@link DaqDevice#getExecutor() device's executor}.
+     */
+    public CompletableFuture<Void> setThermocoupleTypeAsync(int channel, ThermocoupleType type) {
+        return DAQ_DEVICE.getExecutor().submit(() -> {
+            setThermocoupleType(channel, type);
+            return null;
+        });
+    }
+
     /* /////////////////////////////////////////////////////////////////////////////////////////////////////////////////
      BICHANRTDTYPE -> BI CHAN RTD TYPE  -> boardInfo channel resistanceTemperatureDetector type
      Readable? yes
@@ -352,6 +542,13 @@ public class TemperatureWrapper {
         );
     }
 
+    /**
+     * Runs {@link #getRtdSensorType(int)} on the {@link DaqDevice#getExecutor() device's executor}.
+     */
+    public CompletableFuture<RtdSensorType> getRtdSensorTypeAsync(int channel) {
+        return DAQ_DEVICE.getExecutor().submit(() -> getRtdSensorType(channel));
+    }
+
     /**
      * @see <a
      *         href="https://www.mccdaq.com/pdfs/manuals/Mcculw_WebHelp/hh_goto.htm?ULStart.htm#Function_Reference/Configuration_Functions/cbSetConfig.htm">cbSetConfig()</a>
@@ -368,4 +565,14 @@ public class TemperatureWrapper {
         );
     }
 
+    /**
+     * Runs {@link #setRtdSensorType(int, RtdSensorType)} on the {@link DaqDevice#getExecutor() device's executor}.
+     */
+    public CompletableFuture<Void> setRtdSensorTypeAsync(int channel, RtdSensorType rtdSensor) {
+        return DAQ_DEVICE.getExecutor().submit(() -> {
+            setRtdSensorType(channel, rtdSensor);
+            return null;
+        });
+    }
+
 }
@@ -0,0 +1,434 @@
+/*
+ * The MIT License.
+ *
+ * Copyright (c) 2022 Peter Froud.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package xyz.froud.jmccul;
+
+import com.sun.jna.Pointer;
+import com.sun.jna.ptr.NativeLongByReference;
+import xyz.froud.jmccul.backend.NativeBackend;
+import xyz.froud.jmccul.jfr.NativeCallEvent;
+
+import java.lang.foreign.Arena;
+import java.lang.foreign.FunctionDescriptor;
+import java.lang.foreign.Linker;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.SymbolLookup;
+import java.lang.invoke.MethodHandle;
+import java.nio.DoubleBuffer;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.nio.ShortBuffer;
+
+import static java.lang.foreign.ValueLayout.ADDRESS;
+import static java.lang.foreign.ValueLayout.JAVA_FLOAT;
+import static java.lang.foreign.ValueLayout.JAVA_INT;
+import static java.lang.foreign.ValueLayout.JAVA_SHORT;
+
+/**
+ * Calls the Universal Library functions which get called in polling loops, using the Foreign Function &amp; Memory API
+ * when possible.
+ * <p>
+ * This is the Java 22 version of this class in the multi-release JAR. It binds the functions with
+ * {@link Linker#downcallHandle(MemorySegment, FunctionDescriptor, Linker.Option...)}, which the JIT compiles into a
+ * plain native call. Direct NIO buffers, like the ones from {@link NativeScratch}, are wrapped with
+ * {@link MemorySegment#ofBuffer(java.nio.Buffer)} so nothing is copied. A call with a heap buffer, the Foreign
+ * Function &amp; Memory API disabled with the system property {@value #DISABLE_FOREIGN_PROPERTY}, or a DLL which
+ * cannot be looked up uses JNA direct mapping instead, the same as on older Java versions. If a backend other than
+ * the real DLL is selected, every call goes to {@link MeasurementComputingUniversalLibrary#INSTANCE}.
+ * <p>
+ * The Foreign Function &amp; Memory API prints a warning unless the application is run with
+ * {@code --enable-native-access=ALL-UNNAMED} (or the module name of JMCCUL).
+ * <p>
+ * Every call is recorded as a {@link NativeCallEvent} for Java Flight Recorder.
+ *
+ * @author Peter Froud
+ * @see <a href="https://openjdk.org/jeps/454">JEP 454: Foreign Function &amp; Memory API</a>
+ */
+public final class DirectUniversalLibrary {
+
+    /**
+     * Name of the system property which turns off direct mapping.
+     */
+    public static final String DISABLE_PROPERTY = "jmccul.disableDirectMapping";
+
+    /**
+     * Name of the system property which turns off only the Foreign Function &amp; Memory API, so JNA direct mapping is
+     * used.
+     */
+    private static final String DISABLE_FOREIGN_PROPERTY = "jmccul.disableForeignFunctions";
+
+    private static final boolean IS_NATIVE_BACKEND = NativeBackend.isNative(MeasurementComputingUniversalLibrary.INSTANCE);
+
+    private static final boolean IS_FOREIGN = !Boolean.getBoolean(DISABLE_PROPERTY)
+            && !Boolean.getBoolean(DISABLE_FOREIGN_PROPERTY)
+            && IS_NATIVE_BACKEND
+            && Foreign.IS_LINKED;
+
+    /*
+    Even when the Foreign Function & Memory API is used, JNA direct mapping is still used for calls with heap buffers.
+     */
+    private static final boolean IS_JNA_DIRECT = !Boolean.getBoolean(DISABLE_PROPERTY)
+            && IS_NATIVE_BACKEND
+            && JnaDirectMapping.IS_REGISTERED;
+
+    private DirectUniversalLibrary() {
+    }
+
+    /**
+     * @return true if the functions in this class skip the interface proxy.
+     */
+    public static boolean isDirect() {
+        return IS_FOREIGN || IS_JNA_DIRECT;
+    }
+
+    /**
+     * @return how the functions in this class call the Universal Library, for logging.
+     */
+    public static String getCallMechanism() {
+        if (IS_FOREIGN) {
+            return "Foreign Function & Memory API";
+        }
+        return IS_JNA_DIRECT ? "JNA direct mapping" : "JNA interface mapping";
+    }
+
+    /**
+     * Looks up the DLL. It is a separate class from {@link Handles} so that nothing is linked if the lookup fails.
+     */
+    private static final class Foreign {
+
+        private static final String[] SYMBOLS = {
+            "cbAIn",
+            "cbAIn32",
+            "cbVIn",
+            "cbVIn32",
+            "cbAOut",
+            "cbVOut",
+            "cbDIn",
+            "cbDIn32",
+            "cbDOut",
+            "cbDBitIn",
+            "cbDBitOut",
+            "cbTIn",
+            "cbCIn32",
+            "cbGetIOStatus",
+            "cbGetConfig"
+        };
+
+        static final SymbolLookup LOOKUP;
+        static final boolean IS_LINKED;
+
+        static {
+            SymbolLookup lookup = null;
+            boolean isLinked;
+            try {
+                lookup = SymbolLookup.libraryLookup(MeasurementComputingUniversalLibrary.LIBRARY_NAME, Arena.global());
+                isLinked = true;
+                for (String symbol : SYMBOLS) {
+                    if (lookup.find(symbol).isEmpty()) {
+                        isLinked = false;
+                        break;
+                    }
+                }
+            } catch (IllegalArgumentException | IllegalCallerException | UnsupportedOperationException ex) {
+                isLinked = false;
+            }
+            LOOKUP = lookup;
+            IS_LINKED = isLinked;
+        }
+
+    }
+
+    /**
+     * Downcall handles are in static final fields so the JIT treats them as constants.
+     */
+    private static final class Handles {
+
+        static final MethodHandle CB_AIN = downcall("cbAIn", FunctionDescriptor.of(JAVA_INT, JAVA_INT, JAVA_INT, JAVA_INT, ADDRESS));
+        static final MethodHandle CB_AIN32 = downcall("cbAIn32", FunctionDescriptor.of(JAVA_INT, JAVA_INT, JAVA_INT, JAVA_INT, ADDRESS, JAVA_INT));
+        static final MethodHandle CB_VIN = downcall("cbVIn", FunctionDescriptor.of(JAVA_INT, JAVA_INT, JAVA_INT, JAVA_INT, ADDRESS, JAVA_INT));
+        static final MethodHandle CB_VIN32 = downcall("cbVIn32", FunctionDescriptor.of(JAVA_INT, JAVA_INT, JAVA_INT, JAVA_INT, ADDRESS, JAVA_INT));
+        static final MethodHandle CB_AOUT = downcall("cbAOut", FunctionDescriptor.of(JAVA_INT, JAVA_INT, JAVA_INT, JAVA_INT, JAVA_SHORT));
+        static final MethodHandle CB_VOUT = downcall("cbVOut", FunctionDescriptor.of(JAVA_INT, JAVA_INT, JAVA_INT, JAVA_INT, JAVA_FLOAT, JAVA_INT));
+        static final MethodHandle CB_DIN = downcall("cbDIn", FunctionDescriptor.of(JAVA_INT, JAVA_INT, JAVA_INT, ADDRESS));
+        static final MethodHandle CB_DIN32 = downcall("cbDIn32", FunctionDescriptor.of(JAVA_INT, JAVA_INT, JAVA_INT, ADDRESS));
+        static final MethodHandle CB_DOUT = downcall("cbDOut", FunctionDescriptor.of(JAVA_INT, JAVA_INT, JAVA_INT, JAVA_SHORT));
+        static final MethodHandle CB_DBIT_IN = downcall("cbDBitIn", FunctionDescriptor.of(JAVA_INT, JAVA_INT, JAVA_INT, JAVA_INT, ADDRESS));
+        static final MethodHandle CB_DBIT_OUT = downcall("cbDBitOut", FunctionDescriptor.of(JAVA_INT, JAVA_INT, JAVA_INT, JAVA_INT, JAVA_SHORT));
+        static final MethodHandle CB_TIN = downcall("cbTIn", FunctionDescriptor.of(JAVA_INT, JAVA_INT, JAVA_INT, JAVA_INT, ADDRESS, JAVA_INT));
+        static final MethodHandle CB_CIN32 = downcall("cbCIn32", FunctionDescriptor.of(JAVA_INT, JAVA_INT, JAVA_INT, ADDRESS));
+        static final MethodHandle CB_GET_IO_STATUS = downcall("cbGetIOStatus", FunctionDescriptor.of(JAVA_INT, JAVA_INT, ADDRESS, ADDRESS, ADDRESS, JAVA_INT));
+        static final MethodHandle CB_GET_CONFIG = downcall("cbGetConfig", FunctionDescriptor.of(JAVA_INT, JAVA_INT, JAVA_INT, JAVA_INT, JAVA_INT, ADDRESS));
+
+        private static MethodHandle downcall(String name, FunctionDescriptor descriptor) {
+            return Linker.nativeLinker().downcallHandle(Foreign.LOOKUP.find(name).orElseThrow(), descriptor);
+        }
+
+    }
+
+    /**
+     * @return a zero-length segment at the address of the NativeLong, which is all a pointer argument needs.
+     */
+    private static MemorySegment toSegment(NativeLongByReference reference) {
+        return MemorySegment.ofAddress(Pointer.nativeValue(reference.getPointer()));
+    }
+
+    /**
+     * Downcall handles declare Throwable but only throw unchecked exceptions.
+     */
+    private static RuntimeException propagate(Throwable throwable) {
+        if (throwable instanceof RuntimeException runtimeException) {
+            return runtimeException;
+        }
+        if (throwable instanceof Error error) {
+            throw error;
+        }
+        return new IllegalStateException(throwable);
+    }
+
+    public static int cbAIn(int BoardNum, int Chan, int Gain, ShortBuffer DataValue) {
+        final NativeCallEvent event = NativeCallEvent.start();
+        if (IS_FOREIGN && DataValue.isDirect()) {
+            try {
+                return event.finish("cbAIn", BoardNum, (int) Handles.CB_AIN.invokeExact(BoardNum, Chan, Gain, MemorySegment.ofBuffer(DataValue)));
+            } catch (Throwable ex) {
+                throw propagate(ex);
+            }
+        }
+        if (IS_JNA_DIRECT) {
+            return event.finish("cbAIn", BoardNum, JnaDirectMapping.cbAIn(BoardNum, Chan, Gain, DataValue));
+        }
+        return event.finish("cbAIn", BoardNum, MeasurementComputingUniversalLibrary.INSTANCE.cbAIn(BoardNum, Chan, Gain, DataValue));
+    }
+
+    public static int cbAIn32(int BoardNum, int Chan, int Gain, NativeLongByReference DataValue, int Options) {
+        final NativeCallEvent event = NativeCallEvent.start();
+        if (IS_FOREIGN) {
+            try {
+                return event.finish("cbAIn32", BoardNum, (int) Handles.CB_AIN32.invokeExact(BoardNum, Chan, Gain, toSegment(DataValue), Options));
+            } catch (Throwable ex) {
+                throw propagate(ex);
+            }
+        }
+        if (IS_JNA_DIRECT) {
+            return event.finish("cbAIn32", BoardNum, JnaDirectMapping.cbAIn32(BoardNum, Chan, Gain, DataValue, Options));
+        }
+        return event.finish("cbAIn32", BoardNum, MeasurementComputingUniversalLibrary.INSTANCE.cbAIn32(BoardNum, Chan, Gain, DataValue, Options));
+    }
+
+    public static int cbVIn(int BoardNum, int Chan, int Gain, FloatBuffer DataValue, int Options) {
+        final NativeCallEvent event = NativeCallEvent.start();
+        if (IS_FOREIGN && DataValue.isDirect()) {
+            try {
+                return event.finish("cbVIn", BoardNum, (int) Handles.CB_VIN.invokeExact(BoardNum, Chan, Gain, MemorySegment.ofBuffer(DataValue), Options));
+            } catch (Throwable ex) {
+                throw propagate(ex);
+            }
+        }
+        if (IS_JNA_DIRECT) {
+            return event.finish("cbVIn", BoardNum, JnaDirectMapping.cbVIn(BoardNum, Chan, Gain, DataValue, Options));
+        }
+        return event.finish("cbVIn", BoardNum, MeasurementComputingUniversalLibrary.INSTANCE.cbVIn(BoardNum, Chan, Gain, DataValue, Options));
+    }
+
+    public static int cbVIn32(int BoardNum, int Chan, int Gain, DoubleBuffer DataValue, int Options) {
+        final NativeCallEvent event = NativeCallEvent.start();
+        if (IS_FOREIGN && DataValue.isDirect()) {
+            try {
+                return event.finish("cbVIn32", BoardNum, (int) Handles.CB_VIN32.invokeExact(BoardNum, Chan, Gain, MemorySegment.ofBuffer(DataValue), Options));
+            } catch (Throwable ex) {
+                throw propagate(ex);
+            }
+        }
+        if (IS_JNA_DIRECT) {
+            return event.finish("cbVIn32", BoardNum, JnaDirectMapping.cbVIn32(BoardNum, Chan, Gain, DataValue, Options));
+        }
+        return event.finish("cbVIn32", BoardNum, MeasurementComputingUniversalLibrary.INSTANCE.cbVIn32(BoardNum, Chan, Gain, DataValue, Options));
+    }
+
+    public static int cbAOut(int BoardNum, int Chan, int Gain, short DataValue) {
+        final NativeCallEvent event = NativeCallEvent.start();
+        if (IS_FOREIGN) {
+            try {
+                return event.finish("cbAOut", BoardNum, (int) Handles.CB_AOUT.invokeExact(BoardNum, Chan, Gain, DataValue));
+            } catch (Throwable ex) {
+                throw propagate(ex);
+            }
+        }
+        if (IS_JNA_DIRECT) {
+            return event.finish("cbAOut", BoardNum, JnaDirectMapping.cbAOut(BoardNum, Chan, Gain, DataValue));
+        }
+        return event.finish("cbAOut", BoardNum, MeasurementComputingUniversalLibrary.INSTANCE.cbAOut(BoardNum, Chan, Gain, DataValue));
+    }
+
+    public static int cbVOut(int BoardNum, int Chan, int Gain, float DataValue, int Options) {
+        final NativeCallEvent event = NativeCallEvent.start();
+        if (IS_FOREIGN) {
+            try {
+                return event.finish("cbVOut", BoardNum, (int) Handles.CB_VOUT.invokeExact(BoardNum, Chan, Gain, DataValue, Options));
+            } catch (Throwable ex) {
+                throw propagate(ex);
+            }
+        }
+        if (IS_JNA_DIRECT) {
+            return event.finish("cbVOut", BoardNum, JnaDirectMapping.cbVOut(BoardNum, Chan, Gain, DataValue, Options));
+        }
+        return event.finish("cbVOut", BoardNum, MeasurementComputingUniversalLibrary.INSTANCE.cbVOut(BoardNum, Chan, Gain, DataValue, Options));
+    }
+
+    public static int cbDIn(int BoardNum, int PortType, ShortBuffer DataValue) {
+        final NativeCallEvent event = NativeCallEvent.start();
+        if (IS_FOREIGN && DataValue.isDirect()) {
+            try {
+                return event.finish("cbDIn", BoardNum, (int) Handles.CB_DIN.invokeExact(BoardNum, PortType, MemorySegment.ofBuffer(DataValue)));
+            } catch (Throwable ex) {
+                throw propagate(ex);
+            }
+        }
+        if (IS_JNA_DIRECT) {
+            return event.finish("cbDIn", BoardNum, JnaDirectMapping.cbDIn(BoardNum, PortType, DataValue));
+        }
+        return event.finish("cbDIn", BoardNum, MeasurementComputingUniversalLibrary.INSTANCE.cbDIn(BoardNum, PortType, DataValue));
+    }
+
+    public static int cbDIn32(int BoardNum, int PortType, IntBuffer DataValue) {
+        final NativeCallEvent event = NativeCallEvent.start();
+        if (IS_FOREIGN && DataValue.isDirect()) {
+            try {
+                return event.finish("cbDIn32", BoardNum, (int) Handles.CB_DIN32.invokeExact(BoardNum, PortType, MemorySegment.ofBuffer(DataValue)));
+            } catch (Throwable ex) {
+                throw propagate(ex);
+            }
+        }
+        if (IS_JNA_DIRECT) {
+            return event.finish("cbDIn32", BoardNum, JnaDirectMapping.cbDIn32(BoardNum, PortType, DataValue));
+        }
+        return event.finish("cbDIn32", BoardNum, MeasurementComputingUniversalLibrary.INSTANCE.cbDIn32(BoardNum, PortType, DataValue));
+    }
+
+    public static int cbDOut(int BoardNum, int PortType, short DataValue) {
+        final NativeCallEvent event = NativeCallEvent.start();
+        if (IS_FOREIGN) {
+            try {
+                return event.finish("cbDOut", BoardNum, (int) Handles.CB_DOUT.invokeExact(BoardNum, PortType, DataValue));
+            } catch (Throwable ex) {
+                throw propagate(ex);
+            }
+        }
+        if (IS_JNA_DIRECT) {
+            return event.finish("cbDOut", BoardNum, JnaDirectMapping.cbDOut(BoardNum, PortType, DataValue));
+        }
+        return event.finish("cbDOut", BoardNum, MeasurementComputingUniversalLibrary.INSTANCE.cbDOut(BoardNum, PortType, DataValue));
+    }
+
+    public static int cbDBitIn(int BoardNum, int PortType, int BitNum, ShortBuffer BitValue) {
+        final NativeCallEvent event = NativeCallEvent.start();
+        if (IS_FOREIGN && BitValue.isDirect()) {
+            try {
+                return event.finish("cbDBitIn", BoardNum, (int) Handles.CB_DBIT_IN.invokeExact(BoardNum, PortType, BitNum, MemorySegment.ofBuffer(BitValue)));
+            } catch (Throwable ex) {
+                throw propagate(ex);
+            }
+        }
+        if (IS_JNA_DIRECT) {
+            return event.finish("cbDBitIn", BoardNum, JnaDirectMapping.cbDBitIn(BoardNum, PortType, BitNum, BitValue));
+        }
+        return event.finish("cbDBitIn", BoardNum, MeasurementComputingUniversalLibrary.INSTANCE.cbDBitIn(BoardNum, PortType, BitNum, BitValue));
+    }
+
+    public static int cbDBitOut(int BoardNum, int PortType, int BitNum, short BitValue) {
+        final NativeCallEvent event = NativeCallEvent.start();
+        if (IS_FOREIGN) {
+            try {
+                return event.finish("cbDBitOut", BoardNum, (int) Handles.CB_DBIT_OUT.invokeExact(BoardNum, PortType, BitNum, BitValue));
+            } catch (Throwable ex) {
+                throw propagate(ex);
+            }
+        }
+        if (IS_JNA_DIRECT) {
+            return event.finish("cbDBitOut", BoardNum, JnaDirectMapping.cbDBitOut(BoardNum, PortType, BitNum, BitValue));
+        }
+        return event.finish("cbDBitOut", BoardNum, MeasurementComputingUniversalLibrary.INSTANCE.cbDBitOut(BoardNum, PortType, BitNum, BitValue));
+    }
+
+    public static int cbTIn(int BoardNum, int Chan, int Scale, FloatBuffer TempValue, int Options) {
+        final NativeCallEvent event = NativeCallEvent.start();
+        if (IS_FOREIGN && TempValue.isDirect()) {
+            try {
+                return event.finish("cbTIn", BoardNum, (int) Handles.CB_TIN.invokeExact(BoardNum, Chan, Scale, MemorySegment.ofBuffer(TempValue), Options));
+            } catch (Throwable ex) {
+                throw propagate(ex);
+            }
+        }
+        if (IS_JNA_DIRECT) {
+            return event.finish("cbTIn", BoardNum, JnaDirectMapping.cbTIn(BoardNum, Chan, Scale, TempValue, Options));
+        }
+        return event.finish("cbTIn", BoardNum, MeasurementComputingUniversalLibrary.INSTANCE.cbTIn(BoardNum, Chan, Scale, TempValue, Options));
+    }
+
+    public static int cbCIn32(int BoardNum, int CounterNum, NativeLongByReference Count) {
+        final NativeCallEvent event = NativeCallEvent.start();
+        if (IS_FOREIGN) {
+            try {
+                return event.finish("cbCIn32", BoardNum, (int) Handles.CB_CIN32.invokeExact(BoardNum, CounterNum, toSegment(Count)));
+            } catch (Throwable ex) {
+                throw propagate(ex);
+            }
+        }
+        if (IS_JNA_DIRECT) {
+            return event.finish("cbCIn32", BoardNum, JnaDirectMapping.cbCIn32(BoardNum, CounterNum, Count));
+        }
+        return event.finish("cbCIn32", BoardNum, MeasurementComputingUniversalLibrary.INSTANCE.cbCIn32(BoardNum, CounterNum, Count));
+    }
+
+    public static int cbGetIOStatus(int BoardNum, ShortBuffer Status, NativeLongByReference CurCount, NativeLongByReference CurIndex, int FunctionType) {
+        final NativeCallEvent event = NativeCallEvent.start();
+        if (IS_FOREIGN && Status.isDirect()) {
+            try {
+                return event.finish("cbGetIOStatus", BoardNum, (int) Handles.CB_GET_IO_STATUS.invokeExact(BoardNum, MemorySegment.ofBuffer(Status), toSegment(CurCount), toSegment(CurIndex), FunctionType));
+            } catch (Throwable ex) {
+                throw propagate(ex);
+            }
+        }
+        if (IS_JNA_DIRECT) {
+            return event.finish("cbGetIOStatus", BoardNum, JnaDirectMapping.cbGetIOStatus(BoardNum, Status, CurCount, CurIndex, FunctionType));
+        }
+        return event.finish("cbGetIOStatus", BoardNum, MeasurementComputingUniversalLibrary.INSTANCE.cbGetIOStatus(BoardNum, Status, CurCount, CurIndex, FunctionType));
+    }
+
+    public static int cbGetConfig(int InfoType, int BoardNum, int DevNum, int ConfigItem, IntBuffer ConfigVal) {
+        final NativeCallEvent event = NativeCallEvent.start();
+        if (IS_FOREIGN && ConfigVal.isDirect()) {
+            try {
+                return event.finish("cbGetConfig", BoardNum, (int) Handles.CB_GET_CONFIG.invokeExact(InfoType, BoardNum, DevNum, ConfigItem, MemorySegment.ofBuffer(ConfigVal)));
+            } catch (Throwable ex) {
+                throw propagate(ex);
+            }
+        }
+        if (IS_JNA_DIRECT) {
+            return event.finish("cbGetConfig", BoardNum, JnaDirectMapping.cbGetConfig(InfoType, BoardNum, DevNum, ConfigItem, ConfigVal));
+        }
+        return event.finish("cbGetConfig", BoardNum, MeasurementComputingUniversalLibrary.INSTANCE.cbGetConfig(InfoType, BoardNum, DevNum, ConfigItem, ConfigVal));
+    }
+
+}
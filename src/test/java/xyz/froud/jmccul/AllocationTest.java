@@ -0,0 +1,158 @@
+/*
+ * The MIT License.
+ *
+ * Copyright (c) 2022 Peter Froud.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package xyz.froud.jmccul;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import xyz.froud.jmccul.analog.AnalogRange;
+import xyz.froud.jmccul.config.ConfigurationWrapper;
+import xyz.froud.jmccul.digital.DigitalPortType;
+import xyz.froud.jmccul.temperature.TemperatureUnit;
+
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Fails if a single-value read starts allocating on the Java heap again.
+ * <p>
+ * The reads are measured on the board's executor thread, where the synchronous methods make their calls right away.
+ * From any other thread they hand the call to the executor, which needs a future for every call.
+ * <p>
+ * Runs against the stub library from src/benchmark/c, which the stub-library Maven profile builds, so the wrapper
+ * and JNA are the only things which could allocate. Skipped when the stub library has not been built, which is when
+ * the profile is off or the build is not on Linux.
+ *
+ * @author Peter Froud
+ */
+public class AllocationTest {
+
+    @FunctionalInterface
+    private interface HotPath {
+
+        long run() throws JMCCULException;
+    }
+
+    /**
+     * Enough calls for the JIT to compile the whole path, so escape analysis has happened before measuring.
+     */
+    private static final int WARMUP_CALLS = 200_000;
+
+    private static final int MEASURED_CALLS = 100_000;
+
+    /**
+     * A path which allocates needs at least 16 bytes per call, so averaging less than one byte per call only leaves
+     * room for one-off allocations like the JIT replacing a method.
+     */
+    private static final double MAX_BYTES_PER_CALL = 1.0;
+
+    private static DaqDevice device;
+
+    /**
+     * Written by every call so the JIT can't remove them.
+     */
+    private static long sink;
+
+    @BeforeAll
+    public static void open() throws JMCCULException {
+        final String libraryPath = System.getProperty("jna.library.path");
+        assumeTrue(libraryPath != null && Files.isRegularFile(Paths.get(libraryPath, "libcbw64.dll.so")), "stub library not built");
+        assumeTrue(ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean, "JVM can't count allocated bytes");
+
+        device = new DaqDevice(new DaqDeviceDescriptor());
+        assertTrue(DirectUniversalLibrary.isDirect(), "interface mapping boxes every argument");
+    }
+
+    @AfterAll
+    public static void close() throws JMCCULException {
+        if (device != null) {
+            device.close();
+        }
+    }
+
+    @Test
+    public void analogInputRead() throws JMCCULException {
+        assertNoAllocation("read", () -> device.analog.input.read(0, AnalogRange.BIPOLAR_10_VOLTS));
+    }
+
+    @Test
+    public void analogInputRead32() throws JMCCULException {
+        assertNoAllocation("read32", () -> device.analog.input.read32(0, AnalogRange.BIPOLAR_10_VOLTS));
+    }
+
+    @Test
+    public void analogInputReadVoltage() throws JMCCULException {
+        assertNoAllocation("readVoltage", () -> Float.floatToRawIntBits(device.analog.input.readVoltage(0, AnalogRange.BIPOLAR_10_VOLTS)));
+    }
+
+    @Test
+    public void digitalInputReadBit() throws JMCCULException {
+        assertNoAllocation("readBit", () -> device.digital.input.readBit(DigitalPortType.FIRST_PORT_A, 0) ? 1 : 0);
+    }
+
+    @Test
+    public void digitalInputReadPort() throws JMCCULException {
+        assertNoAllocation("readPort", () -> device.digital.input.readPort(DigitalPortType.FIRST_PORT_A));
+    }
+
+    @Test
+    public void temperatureRead() throws JMCCULException {
+        assertNoAllocation("TemperatureWrapper.read", () -> Float.floatToRawIntBits(device.temperature.read(0, TemperatureUnit.CELSIUS)));
+    }
+
+    @Test
+    public void configurationGetInt() throws JMCCULException {
+        assertNoAllocation("ConfigurationWrapper.getInt", () -> ConfigurationWrapper.getInt(
+                MeasurementComputingUniversalLibrary.BOARDINFO,
+                device.getBoardNumber(),
+                0,
+                MeasurementComputingUniversalLibrary.BIADRES
+        ));
+    }
+
+    private static void assertNoAllocation(String name, HotPath hotPath) throws JMCCULException {
+        final double bytesPerCall = BoardExecutor.join(device.submit(() -> measureBytesPerCall(hotPath)));
+        assertTrue(bytesPerCall < MAX_BYTES_PER_CALL, String.format("%s allocated %.1f bytes per call", name, bytesPerCall));
+    }
+
+    private static double measureBytesPerCall(HotPath hotPath) throws JMCCULException {
+        final com.sun.management.ThreadMXBean threadBean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        final long threadID = Thread.currentThread().getId();
+
+        for (int i = 0; i < WARMUP_CALLS; i++) {
+            sink += hotPath.run();
+        }
+
+        final long bytesBefore = threadBean.getThreadAllocatedBytes(threadID);
+        for (int i = 0; i < MEASURED_CALLS; i++) {
+            sink += hotPath.run();
+        }
+        return (threadBean.getThreadAllocatedBytes(threadID) - bytesBefore) / (double) MEASURED_CALLS;
+    }
+
+}
@@ -0,0 +1,198 @@
+/*
+ * The MIT License.
+ *
+ * Copyright (c) 2022 Peter Froud.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package xyz.froud.jmccul;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import xyz.froud.jmccul.analog.AnalogRange;
+import xyz.froud.jmccul.digital.DigitalPortType;
+import xyz.froud.jmccul.simulator.SignalGenerator;
+import xyz.froud.jmccul.simulator.SimulatedBoard;
+import xyz.froud.jmccul.simulator.SimulatedUniversalLibrary;
+import xyz.froud.jmccul.simulator.TestSimulator;
+import xyz.froud.jmccul.temperature.TemperatureUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks the plan {@link BatchRead} makes and how it falls back when a call fails, against the simulator.
+ * <p>
+ * Each test uses its own analog channels, so the channel-gain queue one test left loaded doesn't hide a call from
+ * another.
+ *
+ * @author Peter Froud
+ */
+public class BatchReadTest {
+
+    /**
+     * One step of a 16-bit A/D in the bipolar 10 V range is about 0.3 mV.
+     */
+    private static final double VOLTS_TOLERANCE = 1e-3;
+
+    private static SimulatedUniversalLibrary simulator;
+    private static DaqDevice device;
+
+    @BeforeAll
+    public static void open() throws JMCCULException {
+        simulator = TestSimulator.select();
+        device = DaqDevice.findFirst().orElseThrow();
+
+        final SimulatedBoard board = simulator.getBoards().get(0);
+        for (int channel = 0; channel < board.getAnalogInputChannelCount(); channel++) {
+            board.setAnalogInputSignal(channel, SignalGenerator.constant(channel - 4));
+        }
+        board.setDigitalPortValue(0, 0b1001);
+        board.setDigitalPortValue(1, 0xA5);
+        board.setTemperatureSignal(0, SignalGenerator.constant(20));
+        board.setTemperatureSignal(1, SignalGenerator.constant(30));
+    }
+
+    @AfterAll
+    public static void close() throws JMCCULException {
+        if (device != null) {
+            device.close();
+        }
+    }
+
+    @AfterEach
+    public void clearInjectedErrors() {
+        simulator.clearInjectedErrors();
+    }
+
+    @Test
+    public void planGroupsChannelsAndReadsDuplicatesOnce() throws JMCCULException {
+        final BatchRead batch = new BatchRead();
+        final int analog0 = batch.addAnalogInput(device, 0, AnalogRange.BIPOLAR_10_VOLTS);
+        final int analog1 = batch.addAnalogInput(device, 1, AnalogRange.BIPOLAR_10_VOLTS);
+        final int analog1Again = batch.addAnalogInput(device, 1, AnalogRange.BIPOLAR_10_VOLTS);
+        final int analog5 = batch.addAnalogInput(device, 5, AnalogRange.BIPOLAR_10_VOLTS);
+        final int bit0 = batch.addDigitalBit(device, DigitalPortType.FIRST_PORT_A, 0);
+        final int bit1 = batch.addDigitalBit(device, DigitalPortType.FIRST_PORT_A, 1);
+        final int bit3 = batch.addDigitalBit(device, DigitalPortType.FIRST_PORT_A, 3);
+        final int portB = batch.addDigitalPort(device, DigitalPortType.FIRST_PORT_B);
+        final int counter = batch.addCounter(device, 0);
+        final int counterAgain = batch.addCounter(device, 0);
+        final int temperature0 = batch.addTemperature(device, 0, TemperatureUnit.CELSIUS);
+        final int temperature1 = batch.addTemperature(device, 1, TemperatureUnit.CELSIUS);
+
+        /*
+        Analog: channels 0-1 and 5 are two runs, read together with one queued scan.
+        Digital: ports A and B are consecutive, so one cbDInArray().
+        Counter: one cbCIn32() for both entries.
+        Temperature: channels 0-1 with one cbTInScan().
+         */
+        assertEquals(4, batch.getPlannedCallCount());
+
+        final BatchRead.Result result = batch.read();
+        assertTrue(result.isSuccessful());
+        assertEquals(12, result.size());
+
+        assertEquals(-4, result.getValue(analog0), VOLTS_TOLERANCE);
+        assertEquals(-3, result.getValue(analog1), VOLTS_TOLERANCE);
+        assertEquals(result.getValue(analog1), result.getValue(analog1Again), 0);
+        assertEquals(1, result.getValue(analog5), VOLTS_TOLERANCE);
+
+        assertEquals(1, result.getValue(bit0), 0);
+        assertEquals(0, result.getValue(bit1), 0);
+        assertEquals(1, result.getValue(bit3), 0);
+        assertEquals(0xA5, result.getValue(portB), 0);
+
+        assertEquals(result.getValue(counter), result.getValue(counterAgain), 0);
+
+        assertEquals(20, result.getValue(temperature0), 0.5);
+        assertEquals(30, result.getValue(temperature1), 0.5);
+    }
+
+    @Test
+    public void analogQueueFallsBackWhenNotSupported() throws JMCCULException {
+        final BatchRead batch = new BatchRead();
+        final int analog3 = batch.addAnalogInput(device, 3, AnalogRange.BIPOLAR_10_VOLTS);
+        final int analog6 = batch.addAnalogInput(device, 6, AnalogRange.BIPOLAR_10_VOLTS);
+        assertEquals(1, batch.getPlannedCallCount());
+
+        simulator.injectError("cbALoadQueue", MeasurementComputingUniversalLibrary.BADBOARDTYPE, 1);
+        final BatchRead.Result result = batch.read();
+        assertTrue(result.isSuccessful(), "each run is read separately instead");
+        assertEquals(-1, result.getValue(analog3), VOLTS_TOLERANCE);
+        assertEquals(2, result.getValue(analog6), VOLTS_TOLERANCE);
+        assertEquals(2, batch.getPlannedCallCount(), "the queue is not tried again");
+    }
+
+    @Test
+    public void analogQueueIsKeptAfterOtherErrors() throws JMCCULException {
+        final BatchRead batch = new BatchRead();
+        final int analog4 = batch.addAnalogInput(device, 4, AnalogRange.BIPOLAR_10_VOLTS);
+        final int analog7 = batch.addAnalogInput(device, 7, AnalogRange.BIPOLAR_10_VOLTS);
+        assertEquals(1, batch.getPlannedCallCount());
+
+        simulator.injectError("cbALoadQueue", MeasurementComputingUniversalLibrary.DEADDEV, 1);
+        final BatchRead.Result failed = batch.read();
+        assertEquals(MeasurementComputingUniversalLibrary.DEADDEV, failed.getErrorCode(analog4));
+        assertEquals(MeasurementComputingUniversalLibrary.DEADDEV, failed.getErrorCode(analog7));
+        assertEquals(1, batch.getPlannedCallCount());
+
+        final BatchRead.Result result = batch.read();
+        assertTrue(result.isSuccessful());
+        assertEquals(0, result.getValue(analog4), VOLTS_TOLERANCE);
+        assertEquals(3, result.getValue(analog7), VOLTS_TOLERANCE);
+    }
+
+    @Test
+    public void digitalArrayFallsBackOnlyWhenNotSupported() throws JMCCULException {
+        final BatchRead batch = new BatchRead();
+        final int portA = batch.addDigitalPort(device, DigitalPortType.FIRST_PORT_A);
+        final int portB = batch.addDigitalPort(device, DigitalPortType.FIRST_PORT_B);
+        assertEquals(1, batch.getPlannedCallCount());
+
+        simulator.injectError("cbDInArray", MeasurementComputingUniversalLibrary.DEADDEV, 1);
+        final BatchRead.Result failed = batch.read();
+        assertEquals(MeasurementComputingUniversalLibrary.DEADDEV, failed.getErrorCode(portA));
+        assertEquals(MeasurementComputingUniversalLibrary.DEADDEV, failed.getErrorCode(portB));
+        assertEquals(1, batch.getPlannedCallCount(), "cbDInArray() is tried again after an error which could go away");
+
+        simulator.injectError("cbDInArray", MeasurementComputingUniversalLibrary.BADBOARDTYPE, 1);
+        final BatchRead.Result result = batch.read();
+        assertTrue(result.isSuccessful(), "each port is read separately instead");
+        assertEquals(0b1001, result.getValue(portA), 0);
+        assertEquals(0xA5, result.getValue(portB), 0);
+        assertEquals(2, batch.getPlannedCallCount());
+    }
+
+    @Test
+    public void failedCallOnlyAffectsItsOwnValues() throws JMCCULException {
+        final BatchRead batch = new BatchRead();
+        final int counter = batch.addCounter(device, 1);
+        final int temperature = batch.addTemperature(device, 0, TemperatureUnit.CELSIUS);
+
+        simulator.injectError("cbCIn32", MeasurementComputingUniversalLibrary.DEADDEV, 1);
+        final BatchRead.Result result = batch.read();
+        assertEquals(MeasurementComputingUniversalLibrary.DEADDEV, result.getErrorCode(counter));
+        assertEquals(MeasurementComputingUniversalLibrary.NOERRORS, result.getErrorCode(temperature));
+        assertEquals(20, result.getValue(temperature), 0.5);
+    }
+
+}
@@ -0,0 +1,203 @@
+/*
+ * The MIT License.
+ *
+ * Copyright (c) 2022 Peter Froud.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package xyz.froud.jmccul;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Runs plain Java tasks on executors which don't belong to a device, so no Universal Library is needed.
+ *
+ * @author Peter Froud
+ */
+public class BoardExecutorTest {
+
+    /**
+     * Far above the board numbers devices get, so these never clash with an open device.
+     */
+    private static final int FIRST_BOARD_NUMBER = 1000;
+
+    private static final AtomicInteger NEXT_BOARD_NUMBER = new AtomicInteger(FIRST_BOARD_NUMBER);
+
+    private static BoardExecutor newExecutor() {
+        return new BoardExecutor(NEXT_BOARD_NUMBER.getAndIncrement());
+    }
+
+    @Test
+    public void runsTasksInSubmissionOrder() throws JMCCULException {
+        final BoardExecutor executor = newExecutor();
+        try {
+            final List<Integer> order = new ArrayList<>();
+            final List<CompletableFuture<Integer>> futures = new ArrayList<>();
+            // more than one drain's worth, so the order has to survive rescheduling
+            for (int i = 0; i < 1000; i++) {
+                final int taskNumber = i;
+                futures.add(executor.submit(() -> {
+                    order.add(taskNumber);
+                    return taskNumber;
+                }));
+            }
+            for (int i = 0; i < futures.size(); i++) {
+                assertEquals(i, (int) BoardExecutor.join(futures.get(i)));
+            }
+            for (int i = 0; i < order.size(); i++) {
+                assertEquals(i, (int) order.get(i), "task order");
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void neverRunsTwoTasksAtOnce() throws Exception {
+        final BoardExecutor executor = newExecutor();
+        try {
+            final AtomicInteger runningCount = new AtomicInteger();
+            final AtomicInteger maxRunningCount = new AtomicInteger();
+            final List<Thread> submitters = new ArrayList<>();
+            final List<CompletableFuture<Void>> futures = new ArrayList<>();
+            for (int t = 0; t < 4; t++) {
+                final Thread submitter = new Thread(() -> {
+                    for (int i = 0; i < 250; i++) {
+                        final CompletableFuture<Void> future = executor.submit(() -> {
+                            maxRunningCount.accumulateAndGet(runningCount.incrementAndGet(), Math::max);
+                            Thread.onSpinWait();
+                            runningCount.decrementAndGet();
+                            return null;
+                        });
+                        synchronized (futures) {
+                            futures.add(future);
+                        }
+                    }
+                });
+                submitters.add(submitter);
+                submitter.start();
+            }
+            for (Thread submitter : submitters) {
+                submitter.join();
+            }
+            CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0])).get(10, TimeUnit.SECONDS);
+            assertEquals(1, maxRunningCount.get(), "most tasks running at once");
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void callRunsInlineOnTheBoardThread() throws JMCCULException {
+        final BoardExecutor executor = newExecutor();
+        try {
+            assertTrue(executor.mustSubmit());
+            final boolean wasInline = BoardExecutor.join(executor.submit(() -> {
+                assertFalse(executor.mustSubmit());
+                final Thread boardThread = Thread.currentThread();
+                // submitting and waiting here would deadlock
+                return executor.call(() -> Thread.currentThread() == boardThread);
+            }));
+            assertTrue(wasInline);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void refusesToWaitForAnotherBoardFromAnExecutorThread() {
+        assumeTrue(BoardExecutor.getThreadCount() > 1, "every board shares one thread");
+        final BoardExecutor first = newExecutor();
+        final BoardExecutor second = newExecutor();
+        try {
+            assertThrows(IllegalStateException.class, () -> BoardExecutor.join(first.submit(
+                    () -> second.call(() -> null)
+            )));
+            // the async way is fine
+            assertNull(first.submit(() -> second.submit(() -> null)).join().join());
+        } finally {
+            first.shutdown();
+            second.shutdown();
+        }
+    }
+
+    @Test
+    public void joinThrowsWhatTheCallThrew() {
+        final BoardExecutor executor = newExecutor();
+        try {
+            final JMCCULException thrown = assertThrows(JMCCULException.class, () -> BoardExecutor.join(executor.submit(() -> {
+                throw new JMCCULException("from the call", MeasurementComputingUniversalLibrary.BADBOARDTYPE);
+            })));
+            assertEquals(MeasurementComputingUniversalLibrary.BADBOARDTYPE, thrown.ERROR_CODE);
+            assertThrows(IllegalArgumentException.class, () -> BoardExecutor.join(executor.submit(() -> {
+                throw new IllegalArgumentException("from the call");
+            })));
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void shutdownFailsQueuedAndLaterCalls() throws Exception {
+        final BoardExecutor executor = newExecutor();
+        assertSame(executor, BoardExecutor.forBoard(executor.getBoardNumber()));
+
+        final CountDownLatch isRunning = new CountDownLatch(1);
+        final CountDownLatch mayFinish = new CountDownLatch(1);
+        final CompletableFuture<String> running = executor.submit(() -> {
+            isRunning.countDown();
+            try {
+                mayFinish.await();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+            return "finished";
+        });
+        final AtomicInteger queuedRunCount = new AtomicInteger();
+        final CompletableFuture<Integer> queued = executor.submit(queuedRunCount::incrementAndGet);
+        assertTrue(isRunning.await(10, TimeUnit.SECONDS));
+
+        executor.shutdown();
+        mayFinish.countDown();
+
+        // the call which had already started finishes, but the queued one never runs
+        assertEquals("finished", BoardExecutor.join(running));
+        assertThrows(IllegalStateException.class, () -> BoardExecutor.join(queued));
+        assertEquals(0, queuedRunCount.get());
+
+        assertThrows(IllegalStateException.class, () -> BoardExecutor.join(executor.submit(() -> null)));
+        assertNull(BoardExecutor.forBoard(executor.getBoardNumber()));
+    }
+
+}
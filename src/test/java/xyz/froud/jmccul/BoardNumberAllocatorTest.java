@@ -0,0 +1,58 @@
+/*
+ * The MIT License.
+ *
+ * Copyright (c) 2022 Peter Froud.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package xyz.froud.jmccul;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author Peter Froud
+ */
+public class BoardNumberAllocatorTest {
+
+    @Test
+    public void reusesTheLowestFreedNumber() {
+        final int first = BoardNumberAllocator.allocate();
+        final int second = BoardNumberAllocator.allocate();
+        final int third = BoardNumberAllocator.allocate();
+        try {
+            assertTrue(first < second && second < third, "numbers are handed out in increasing order");
+
+            BoardNumberAllocator.free(second);
+            BoardNumberAllocator.free(first);
+            assertEquals(first, BoardNumberAllocator.allocate(), "the lowest free number comes first");
+            assertEquals(second, BoardNumberAllocator.allocate());
+            final int fourth = BoardNumberAllocator.allocate();
+            assertTrue(fourth > third, "a number in use is not handed out again");
+            BoardNumberAllocator.free(fourth);
+        } finally {
+            BoardNumberAllocator.free(first);
+            BoardNumberAllocator.free(second);
+            BoardNumberAllocator.free(third);
+        }
+    }
+
+}
@@ -0,0 +1,207 @@
+/*
+ * The MIT License.
+ *
+ * Copyright (c) 2022 Peter Froud.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package xyz.froud.jmccul.analog;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import xyz.froud.jmccul.DaqDevice;
+import xyz.froud.jmccul.JMCCULException;
+import xyz.froud.jmccul.MeasurementComputingUniversalLibrary;
+import xyz.froud.jmccul.simulator.SignalGenerator;
+import xyz.froud.jmccul.simulator.SimulatedBoard;
+import xyz.froud.jmccul.simulator.TestSimulator;
+
+import java.nio.ShortBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Runs background scans on the simulator and checks the blocks the consumer gets.
+ * <p>
+ * Channel 0 reads -5 V and channel 1 reads +5 V, so every sample shows which channel it came from.
+ *
+ * @author Peter Froud
+ */
+public class AnalogInputBackgroundScanTest {
+
+    private static final long RATE_HZ = 2000;
+    private static final long TIMEOUT_MILLIS = 10_000;
+
+    /**
+     * What the consumer saw for one block.
+     */
+    private static class Block {
+
+        private final long FIRST_SAMPLE_NUMBER;
+        private final int POSITION;
+        private final int COUNT;
+
+        Block(long firstSampleNumber, int position, int count) {
+            FIRST_SAMPLE_NUMBER = firstSampleNumber;
+            POSITION = position;
+            COUNT = count;
+        }
+    }
+
+    /**
+     * Collects the blocks and checks each sample is from the channel its sample number says.
+     */
+    private static class RecordingConsumer implements AnalogInputBackgroundScan.BlockConsumer {
+
+        private final List<Block> BLOCKS = new ArrayList<>();
+        private volatile int blockCount;
+        private volatile String wrongChannel;
+
+        @Override
+        public void accept(ShortBuffer samples, long firstSampleNumber) {
+            for (int i = samples.position(); i < samples.limit(); i++) {
+                final long sampleNumber = firstSampleNumber + i - samples.position();
+                final boolean isPositive = Short.toUnsignedInt(samples.get(i)) > 0x8000;
+                if (isPositive != (sampleNumber % 2 == 1) && wrongChannel == null) {
+                    wrongChannel = "sample " + sampleNumber + " is from the wrong channel";
+                }
+            }
+            BLOCKS.add(new Block(firstSampleNumber, samples.position(), samples.remaining()));
+            blockCount++;
+        }
+    }
+
+    private static SimulatedBoard board;
+    private static DaqDevice device;
+
+    @BeforeAll
+    public static void open() throws JMCCULException {
+        board = TestSimulator.select().getBoards().get(0);
+        board.setAnalogInputSignal(0, SignalGenerator.constant(-5));
+        board.setAnalogInputSignal(1, SignalGenerator.constant(5));
+        device = DaqDevice.findFirst().orElseThrow();
+    }
+
+    @AfterAll
+    public static void close() throws JMCCULException {
+        if (device != null) {
+            device.close();
+        }
+    }
+
+    @Test
+    public void blocksAreInOrderAndWrapAround() throws JMCCULException {
+        final RecordingConsumer consumer = new RecordingConsumer();
+        final AnalogInputBackgroundScan scan = device.analog.input.startBackgroundScan(0, 1, RATE_HZ, AnalogRange.BIPOLAR_10_VOLTS, 400, consumer);
+        final int bufferSampleCount = scan.getBufferSampleCount();
+        assertEquals(AnalogInputBackgroundScan.DeliveryMode.AS_AVAILABLE, scan.getDeliveryMode());
+        waitFor(() -> scan.getSamplesDelivered() > 3L * bufferSampleCount, "the scan to go round the buffer three times");
+        scan.close();
+
+        checkContiguous(consumer, scan, bufferSampleCount);
+        for (Block block : consumer.BLOCKS) {
+            assertEquals(0, block.COUNT % 2, "blocks hold whole channel scans");
+            assertTrue(block.POSITION + block.COUNT <= bufferSampleCount, "a block doesn't run past the end of the buffer");
+        }
+    }
+
+    @Test
+    public void halfBufferBlocksAreWholeHalves() throws JMCCULException {
+        final RecordingConsumer consumer = new RecordingConsumer();
+        final AnalogInputBackgroundScan scan = device.analog.input.startHalfBufferScan(0, 1, RATE_HZ, AnalogRange.BIPOLAR_10_VOLTS, 200, consumer);
+        final int bufferSampleCount = scan.getBufferSampleCount();
+        final int halfSampleCount = bufferSampleCount / 2;
+        assertEquals(400, bufferSampleCount);
+        waitFor(() -> consumer.blockCount >= 6, "six blocks");
+        scan.close();
+
+        checkContiguous(consumer, scan, bufferSampleCount);
+        final List<Block> blocks = consumer.BLOCKS;
+        for (int i = 0; i < blocks.size(); i++) {
+            final Block block = blocks.get(i);
+            assertEquals((i % 2 == 0) ? 0 : halfSampleCount, block.POSITION, "the halves take turns");
+            if (i < blocks.size() - 1) {
+                assertEquals(halfSampleCount, block.COUNT, "block " + i + " is a whole half");
+            } else {
+                // what arrived before close() stopped the scan
+                assertTrue(block.COUNT <= halfSampleCount, "the last block is at most a half");
+            }
+        }
+    }
+
+    @Test
+    public void overrunStopsTheScan() throws JMCCULException {
+        final RecordingConsumer consumer = new RecordingConsumer();
+        final AnalogInputBackgroundScan scan = device.analog.input.startBackgroundScan(0, 1, RATE_HZ, AnalogRange.BIPOLAR_10_VOLTS, 400, consumer);
+        waitFor(() -> consumer.blockCount > 0, "the first block");
+
+        assertTrue(board.injectScanError(MeasurementComputingUniversalLibrary.OVERRUN));
+        waitFor(() -> !scan.isRunning(), "the polling thread to stop");
+
+        final JMCCULException thrown = assertThrows(JMCCULException.class, scan::close);
+        assertEquals(MeasurementComputingUniversalLibrary.OVERRUN, thrown.ERROR_CODE);
+        assertEquals(MeasurementComputingUniversalLibrary.OVERRUN, device.analog.input.getLastBackgroundScanFailure().ERROR_CODE);
+
+        // the failed scan was cleaned up, so the board can scan again
+        final AnalogInputBackgroundScan nextScan = device.analog.input.startBackgroundScan(0, 1, RATE_HZ, AnalogRange.BIPOLAR_10_VOLTS, 400, (samples, firstSampleNumber) -> {
+        });
+        assertTrue(nextScan.isRunning());
+        nextScan.close();
+        assertFalse(nextScan.isRunning());
+    }
+
+    /**
+     * Checks the blocks follow on from each other with nothing missing, and sit where their sample numbers say in the
+     * circular buffer.
+     */
+    private static void checkContiguous(RecordingConsumer consumer, AnalogInputBackgroundScan scan, int bufferSampleCount) {
+        assertEquals(null, consumer.wrongChannel);
+        assertFalse(consumer.BLOCKS.isEmpty());
+        long nextSampleNumber = 0;
+        for (Block block : consumer.BLOCKS) {
+            assertEquals(nextSampleNumber, block.FIRST_SAMPLE_NUMBER, "blocks are contiguous");
+            assertEquals(block.FIRST_SAMPLE_NUMBER % bufferSampleCount, block.POSITION, "block is where its sample number says");
+            nextSampleNumber += block.COUNT;
+        }
+        assertEquals(nextSampleNumber, scan.getSamplesDelivered());
+    }
+
+    private static void waitFor(BooleanSupplier condition, String what) {
+        final long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+        while (!condition.getAsBoolean()) {
+            if (System.currentTimeMillis() > deadline) {
+                throw new AssertionError("timed out waiting for " + what);
+            }
+            try {
+                Thread.sleep(5);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw new AssertionError("interrupted waiting for " + what);
+            }
+        }
+    }
+
+}
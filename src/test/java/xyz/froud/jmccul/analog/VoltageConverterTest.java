@@ -0,0 +1,124 @@
+/*
+ * The MIT License.
+ *
+ * Copyright (c) 2022 Peter Froud.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package xyz.froud.jmccul.analog;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.ShortBuffer;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * @author Peter Froud
+ */
+public class VoltageConverterTest {
+
+    @Test
+    public void sixteenBitEndpoints() {
+        final VoltageConverter converter = new VoltageConverter(AnalogRange.BIPOLAR_10_VOLTS, 16);
+        assertEquals(-10f, converter.toVolts((short) 0), 0f);
+        assertEquals(0f, converter.toVolts((short) 0x8000), 0f);
+        // the top count is one step below the maximum, like cbToEngUnits()
+        assertEquals(10 - 20 / 65536.0, converter.toVolts(0xFFFF), 1e-12);
+        assertEquals(10 - 20 / 65536f, converter.toVolts((short) -1), 1e-6f);
+    }
+
+    @Test
+    public void countsAreUnsigned() {
+        final VoltageConverter converter = new VoltageConverter(AnalogRange.UNIPOLAR_10_VOLTS, 32);
+        // 0x80000000 would be negative as an int
+        assertEquals(5.0, converter.toVolts(0x8000_0000), 1e-12);
+        assertEquals(10 - 10 / Math.pow(2, 32), converter.toVolts(-1), 1e-12);
+    }
+
+    @Test
+    public void arrayMethodsMatchTheSingleValueMethods() {
+        final VoltageConverter converter = new VoltageConverter(AnalogRange.BIPOLAR_10_VOLTS, 16);
+        final short[] counts = {0, 1, 0x7FFF, (short) 0x8000, (short) 0xFFFF, 12345};
+
+        final float[] expectedFloats = new float[counts.length];
+        final double[] expectedDoubles = new double[counts.length];
+        for (int i = 0; i < counts.length; i++) {
+            expectedFloats[i] = converter.toVolts(counts[i]);
+            expectedDoubles[i] = converter.toVolts(Short.toUnsignedInt(counts[i]));
+        }
+
+        final float[] floats = new float[counts.length];
+        converter.toVolts(counts, 0, floats, 0, counts.length);
+        assertArrayEquals(expectedFloats, floats, 0f);
+
+        final double[] doubles = new double[counts.length];
+        converter.toVolts(counts, 0, doubles, 0, counts.length);
+        assertArrayEquals(expectedDoubles, doubles, 1e-12);
+
+        final int[] intCounts = new int[counts.length];
+        for (int i = 0; i < counts.length; i++) {
+            intCounts[i] = Short.toUnsignedInt(counts[i]);
+        }
+        final double[] doublesFromInts = new double[counts.length];
+        converter.toVolts(intCounts, 0, doublesFromInts, 0, counts.length);
+        assertArrayEquals(expectedDoubles, doublesFromInts, 1e-12);
+    }
+
+    @Test
+    public void offsetsAndLength() {
+        final VoltageConverter converter = new VoltageConverter(AnalogRange.BIPOLAR_10_VOLTS, 16);
+        final short[] counts = {0, (short) 0x8000, (short) 0x8000, 0};
+        final float[] volts = {99, 99, 99, 99, 99};
+        converter.toVolts(counts, 1, volts, 2, 2);
+        assertArrayEquals(new float[]{99, 99, 0, 0, 99}, volts, 0f);
+
+        assertThrows(IndexOutOfBoundsException.class, () -> converter.toVolts(counts, 3, volts, 0, 2));
+        assertThrows(IndexOutOfBoundsException.class, () -> converter.toVolts(counts, 0, volts, 4, 2));
+        assertThrows(IndexOutOfBoundsException.class, () -> converter.toVolts(counts, 0, volts, 0, -1));
+    }
+
+    @Test
+    public void directBufferFromPositionToLimit() {
+        final VoltageConverter converter = new VoltageConverter(AnalogRange.BIPOLAR_10_VOLTS, 16);
+        // like a block from a background scan, which is a view of a Windows buffer
+        final ShortBuffer counts = ByteBuffer.allocateDirect(8 * Short.BYTES).order(ByteOrder.nativeOrder()).asShortBuffer();
+        for (int i = 0; i < 8; i++) {
+            counts.put(i, (short) (i * 0x2000));
+        }
+        counts.limit(6).position(2);
+
+        final float[] volts = new float[4];
+        converter.toVolts(counts, volts, 0);
+        assertArrayEquals(new float[]{-5, -2.5f, 0, 2.5f}, volts, 0f);
+        assertEquals(2, counts.position(), "the position is not changed");
+    }
+
+    @Test
+    public void rejectsRangesWithoutASpanAndBadResolutions() {
+        assertThrows(IllegalArgumentException.class, () -> new VoltageConverter(AnalogRange.NOT_USED, 16));
+        assertThrows(IllegalArgumentException.class, () -> new VoltageConverter(AnalogRange.BIPOLAR_10_VOLTS, 0));
+        assertThrows(IllegalArgumentException.class, () -> new VoltageConverter(AnalogRange.BIPOLAR_10_VOLTS, 33));
+    }
+
+}
@@ -0,0 +1,99 @@
+/*
+ * The MIT License.
+ *
+ * Copyright (c) 2022 Peter Froud.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package xyz.froud.jmccul.instrumentation;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author Peter Froud
+ */
+public class LatencyHistogramTest {
+
+    @Test
+    public void smallValuesAreExact() {
+        final LatencyHistogram histogram = new LatencyHistogram();
+        for (long nanos = 0; nanos < 64; nanos++) {
+            histogram.record(nanos);
+        }
+        assertEquals(64, histogram.getCount());
+        assertEquals(63, histogram.getMaxNanos());
+        assertEquals(31.5, histogram.getMeanNanos(), 1e-9);
+        // each of the first 64 values has a bucket to itself
+        for (int i = 1; i <= 64; i++) {
+            assertEquals(i - 1, histogram.getValueAtPercentile(100.0 * i / 64), "value " + (i - 1));
+        }
+    }
+
+    @Test
+    public void bucketHoldsItsValueWithinThreePercent() {
+        for (long nanos = 64; nanos < 10_000_000_000L; nanos = nanos * 3 / 2 + 1) {
+            final LatencyHistogram histogram = new LatencyHistogram();
+            histogram.record(nanos);
+            // a much bigger value so the maximum doesn't cap the answer
+            histogram.record(Long.MAX_VALUE / 2);
+            final long bucketHighest = histogram.getValueAtPercentile(50);
+            assertTrue(bucketHighest >= nanos && bucketHighest <= nanos + nanos / 32,
+                    nanos + " ns went in a bucket ending at " + bucketHighest);
+        }
+    }
+
+    @Test
+    public void exactBucketBoundaries() {
+        final LatencyHistogram histogram = new LatencyHistogram();
+        // 1000 is between 992 and 1007, the bucket 16 ns wide which starts at 62 << 4
+        histogram.record(1000);
+        histogram.record(1_000_000);
+        assertEquals(1007, histogram.getValueAtPercentile(50));
+        // the top of the highest bucket is capped at the maximum
+        assertEquals(1_000_000, histogram.getValueAtPercentile(100));
+    }
+
+    @Test
+    public void extremeValues() {
+        final LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(-5);
+        histogram.record(Long.MAX_VALUE);
+        assertEquals(2, histogram.getCount());
+        assertEquals(0, histogram.getValueAtPercentile(50), "negative durations count as 0");
+        assertEquals(Long.MAX_VALUE, histogram.getValueAtPercentile(100));
+        assertEquals(Long.MAX_VALUE, histogram.getMaxNanos());
+    }
+
+    @Test
+    public void emptyAndReset() {
+        final LatencyHistogram histogram = new LatencyHistogram();
+        assertEquals(0, histogram.getValueAtPercentile(99));
+        assertEquals(0, histogram.getMeanNanos(), 0);
+
+        histogram.record(500);
+        histogram.reset();
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.getMaxNanos());
+        assertEquals(0, histogram.getValueAtPercentile(100));
+    }
+
+}
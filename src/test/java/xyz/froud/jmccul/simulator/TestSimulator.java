@@ -0,0 +1,57 @@
+/*
+ * The MIT License.
+ *
+ * Copyright (c) 2022 Peter Froud.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package xyz.froud.jmccul.simulator;
+
+import xyz.froud.jmccul.MeasurementComputingUniversalLibrary;
+import xyz.froud.jmccul.backend.UniversalLibraryBackend;
+
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * For tests which run against the simulator. Surefire gives each test class its own JVM, so the backend can still be
+ * chosen when the test class starts.
+ *
+ * @author Peter Froud
+ */
+public final class TestSimulator {
+
+    private TestSimulator() {
+    }
+
+    /**
+     * Selects the simulated backend, unless something else already loaded the Universal Library, in which case the
+     * test is skipped.
+     *
+     * @return the simulator behind {@link MeasurementComputingUniversalLibrary#INSTANCE}.
+     */
+    public static SimulatedUniversalLibrary select() {
+        if (System.getProperty(UniversalLibraryBackend.PROPERTY) == null) {
+            System.setProperty(UniversalLibraryBackend.PROPERTY, SimulatedBackend.NAME);
+        }
+        final SimulatedUniversalLibrary simulator = SimulatedUniversalLibrary.getDefault();
+        assumeTrue(MeasurementComputingUniversalLibrary.INSTANCE == simulator.getLibrary(), "another Universal Library backend is loaded");
+        return simulator;
+    }
+
+}